@@ -0,0 +1,93 @@
+package com.ludwigit.app.benchmarks;
+
+import com.ludwigit.app.config.HashIdConfig;
+import com.ludwigit.app.services.HashIdsService;
+import org.hashids.Hashids;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short code encoding on create and decoding on every redirect, with the Hashids library the service used to wrap as
+ * the baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashIdsBenchmark {
+
+	private static final int CODES = 1024;
+
+	@Param({"4", "8"})
+	public int minLength;
+
+	private HashIdsService hashIdsService;
+	private Hashids hashids;
+	private String[] codes;
+
+	@Setup
+	public void setUp() {
+		HashIdConfig hashIdConfig = new HashIdConfig();
+		hashIdConfig.setSalt("benchmark-salt");
+		hashIdConfig.setMinLength(minLength);
+
+		hashIdsService = new HashIdsService(hashIdConfig);
+		hashids = new Hashids(hashIdConfig.getSalt(), minLength);
+		codes = new String[CODES];
+
+		for (int i = 0; i < CODES; i++) {
+			codes[i] = hashIdsService.encode(nextId());
+		}
+	}
+
+	@Benchmark
+	public String encode() {
+		return hashIdsService.encode(nextId());
+	}
+
+	@Benchmark
+	public Optional<Long> decode() {
+		return hashIdsService.decode(nextCode());
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public Optional<Long> decodeMultiThreaded() {
+		return hashIdsService.decode(nextCode());
+	}
+
+	@Benchmark
+	public String encodeLibrary() {
+		return hashids.encode(nextId());
+	}
+
+	@Benchmark
+	public long[] decodeLibrary() {
+		return hashids.decode(nextCode());
+	}
+
+	private String nextCode() {
+		return codes[ThreadLocalRandom.current().nextInt(CODES)];
+	}
+
+	private static long nextId() {
+		return ThreadLocalRandom.current().nextLong(1, 100_000_000L);
+	}
+
+}
@@ -0,0 +1,125 @@
+package com.ludwigit.app.benchmarks;
+
+import com.ludwigit.app.model.ShortedURL;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Insert throughput of the id strategies, issuing the statements Hibernate issues for each of them against an
+ * in-memory H2 database.
+ * <p>
+ * With {@code IDENTITY} every row is its own insert, since the id is only known once the row exists, which also
+ * disables JDBC batching. The pooled sequence fetches one block of {@link ShortedURL#ID_ALLOCATION_SIZE} ids and
+ * inserts the whole block in a single batch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdAllocationBenchmark {
+
+	private static final int ROWS = ShortedURL.ID_ALLOCATION_SIZE;
+
+	@Param({"IDENTITY", "POOLED_SEQUENCE"})
+	public String strategy;
+
+	private Connection connection;
+
+	@Setup(Level.Trial)
+	public void setUp() throws SQLException {
+		connection = DriverManager.getConnection("jdbc:h2:mem:ids_" + strategy + ";DB_CLOSE_DELAY=-1", "sa", "");
+		connection.setAutoCommit(false);
+
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("create table identity_urls (id bigint generated by default as identity primary key, original_url varchar(2048) not null)");
+			statement.execute("create table sequence_urls (id bigint primary key, original_url varchar(2048) not null)");
+			statement.execute("create sequence urls_seq start with 1 increment by " + ShortedURL.ID_ALLOCATION_SIZE);
+		}
+		connection.commit();
+	}
+
+	@Setup(Level.Iteration)
+	public void truncate() throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("truncate table identity_urls");
+			statement.execute("truncate table sequence_urls");
+		}
+		connection.commit();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws SQLException {
+		connection.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public void insert() throws SQLException {
+		if (strategy.equals("IDENTITY")) {
+			insertWithIdentity();
+		} else {
+			insertWithPooledSequence();
+		}
+
+		connection.commit();
+	}
+
+	private void insertWithIdentity() throws SQLException {
+		try (PreparedStatement insert = connection.prepareStatement(
+			"insert into identity_urls (original_url) values (?)",
+			Statement.RETURN_GENERATED_KEYS
+		)) {
+			for (int i = 0; i < ROWS; i++) {
+				insert.setString(1, "https://www.example.com/" + i);
+				insert.executeUpdate();
+
+				try (ResultSet keys = insert.getGeneratedKeys()) {
+					keys.next();
+				}
+			}
+		}
+	}
+
+	private void insertWithPooledSequence() throws SQLException {
+		long firstId;
+
+		try (Statement statement = connection.createStatement();
+			 ResultSet nextValue = statement.executeQuery("select next value for urls_seq")) {
+			nextValue.next();
+			firstId = nextValue.getLong(1);
+		}
+
+		try (PreparedStatement insert = connection.prepareStatement("insert into sequence_urls (id, original_url) values (?, ?)")) {
+			for (int i = 0; i < ROWS; i++) {
+				insert.setLong(1, firstId + i);
+				insert.setString(2, "https://www.example.com/" + i);
+				insert.addBatch();
+			}
+
+			insert.executeBatch();
+		}
+	}
+
+}
@@ -0,0 +1,122 @@
+package com.ludwigit.app.benchmarks;
+
+import com.ludwigit.app.config.CircuitBreakerConfig;
+import com.ludwigit.app.config.RateLimitConfig;
+import com.ludwigit.app.services.HybridRateLimiter;
+import com.ludwigit.app.services.LocalRateLimiter;
+import com.ludwigit.app.services.RateLimitService;
+import com.ludwigit.app.services.RedisCircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The decision taken for every request by the rate limit filter: the route policy lookup, the in-memory hybrid
+ * counters and the Redis scripts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateLimitBenchmark {
+
+	private static final int CLIENTS = 10_000;
+
+	@Param({"FIXED_WINDOW", "SLIDING_WINDOW", "TOKEN_BUCKET"})
+	public RateLimitConfig.Algorithm algorithm;
+
+	private RedisStandIn redis;
+	private RateLimitService rateLimitService;
+	private HybridRateLimiter hybridRateLimiter;
+	private RateLimitService.RoutePolicy policy;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		redis = new RedisStandIn();
+
+		RateLimitConfig rateLimitConfig = new RateLimitConfig();
+		rateLimitConfig.setAlgorithm(algorithm);
+		// Nobody is ever limited, every call runs the full decision
+		rateLimitConfig.setMaxRequests(Integer.MAX_VALUE);
+		rateLimitConfig.setPolicies(List.of(
+			policy("create", "/create/**", "POST"),
+			policy("stats", "/stats/{shortenUrl}", "GET")
+		));
+
+		RedisCircuitBreaker redisCircuitBreaker = new RedisCircuitBreaker(redis.redisTemplate(), new CircuitBreakerConfig());
+		hybridRateLimiter = new HybridRateLimiter(redis.redisTemplate(), redisCircuitBreaker, rateLimitConfig);
+		rateLimitService = new RateLimitService(
+			redis.redisTemplate(),
+			hybridRateLimiter,
+			new LocalRateLimiter(rateLimitConfig),
+			redisCircuitBreaker,
+			rateLimitConfig,
+			new SimpleMeterRegistry()
+		);
+		policy = rateLimitService.resolve("GET", "/x7Kq2P");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		redis.close();
+	}
+
+	@Benchmark
+	public RateLimitService.RoutePolicy resolve() {
+		return rateLimitService.resolve("GET", "/x7Kq2P");
+	}
+
+	@Benchmark
+	public RateLimitService.Decision redisScript() {
+		return rateLimitService.consume(policy, nextClient());
+	}
+
+	@Benchmark
+	public RateLimitService.Decision hybrid() {
+		return hybridRateLimiter.consume("rate_limit:" + nextClient(), Integer.MAX_VALUE, 60_000);
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public RateLimitService.Decision hybridMultiThreaded() {
+		return hybridRateLimiter.consume("rate_limit:" + nextClient(), Integer.MAX_VALUE, 60_000);
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public RateLimitService.Decision hybridSingleHotClient() {
+		return hybridRateLimiter.consume("rate_limit:127.0.0.1", Integer.MAX_VALUE, 60_000);
+	}
+
+	private static String nextClient() {
+		return "10.0." + ThreadLocalRandom.current().nextInt(CLIENTS);
+	}
+
+	private static RateLimitConfig.Policy policy(String name, String path, String method) {
+		RateLimitConfig.Policy policy = new RateLimitConfig.Policy();
+		policy.setName(name);
+		policy.setPath(path);
+		policy.setMethods(List.of(method));
+		return policy;
+	}
+
+}
@@ -0,0 +1,57 @@
+package com.ludwigit.app.benchmarks;
+
+import com.github.fppt.jedismock.RedisServer;
+import com.ludwigit.app.config.CacheConfig;
+import com.ludwigit.app.config.RedisConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.io.IOException;
+
+/**
+ * In-process Redis stand-in for local runs, reached through Lettuce exactly like a real server. Its latency is not
+ * that of a real Redis, so compare Redis bound results between runs of this harness only.
+ */
+public final class RedisStandIn implements AutoCloseable {
+
+	private final RedisServer server;
+	private final LettuceConnectionFactory connectionFactory;
+	private final RedisTemplate<String, Object> redisTemplate;
+
+	public RedisStandIn() throws IOException {
+		server = RedisServer.newRedisServer();
+		server.start();
+
+		connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(server.getHost(), server.getBindPort()));
+		connectionFactory.afterPropertiesSet();
+		connectionFactory.start();
+
+		redisTemplate = new RedisConfig().redisTemplate(connectionFactory, new CacheConfig(), new SimpleMeterRegistry());
+		redisTemplate.afterPropertiesSet();
+	}
+
+	public String host() {
+		return server.getHost();
+	}
+
+	public int port() {
+		return server.getBindPort();
+	}
+
+	public RedisTemplate<String, Object> redisTemplate() {
+		return redisTemplate;
+	}
+
+	public LettuceConnectionFactory connectionFactory() {
+		return connectionFactory;
+	}
+
+	@Override
+	public void close() throws IOException {
+		connectionFactory.destroy();
+		server.stop();
+	}
+
+}
@@ -0,0 +1,71 @@
+package com.ludwigit.app.benchmarks;
+
+import com.ludwigit.app.config.ShortedURLRedisSerializer;
+import com.ludwigit.app.model.ShortedURL;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the value format read on every Redis cache hit, the typed JSON written before the compact format and the
+ * compact format itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedisValueSerializerBenchmark {
+
+	@Param({"json", "compact"})
+	public String format;
+
+	private RedisSerializer<Object> serializer;
+	private ShortedURL shortedUrl;
+	private byte[] serialized;
+
+	@Setup
+	public void setUp() {
+		serializer = new ShortedURLRedisSerializer(new GenericJackson2JsonRedisSerializer(), format.equals("compact"), new SimpleMeterRegistry());
+		shortedUrl = ShortedURL.builder()
+			.id(123_456_789L)
+			.originalUrl("https://www.example.com/articles/2024/some-long-article-slug?utm_source=newsletter")
+			.build();
+		serialized = serializer.serialize(shortedUrl);
+
+		// Not part of the JMH report, but tracked next to it when the output is kept
+		System.out.printf("%s entry: %d bytes%n", format, serialized.length);
+	}
+
+	@Benchmark
+	public byte[] serialize() {
+		return serializer.serialize(shortedUrl);
+	}
+
+	@Benchmark
+	public Object deserialize() {
+		return serializer.deserialize(serialized);
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public Object deserializeMultiThreaded() {
+		return serializer.deserialize(serialized);
+	}
+
+}
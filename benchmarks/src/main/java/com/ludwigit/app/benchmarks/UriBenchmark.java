@@ -0,0 +1,53 @@
+package com.ludwigit.app.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the short URL returned by {@code createShortedURL}, and the {@code URI.create} of the original URL done by
+ * the validation and by the redirect {@code Location} header.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UriBenchmark {
+
+	private final String baseUrl = "https://ludwig.it/";
+	private final URI baseUri = URI.create(baseUrl);
+	private final String code = "x7Kq2P";
+	private final String originalUrl = "https://www.example.com/articles/2024/some-long-article-slug?utm_source=newsletter";
+
+	@Benchmark
+	public String parseBaseAndResolve() {
+		return URI.create(baseUrl).resolve(code).toString();
+	}
+
+	@Benchmark
+	public String resolveOnParsedBase() {
+		return baseUri.resolve(code).toString();
+	}
+
+	@Benchmark
+	public String concatenate() {
+		return baseUrl + code;
+	}
+
+	@Benchmark
+	public URI parseOriginalUrl() {
+		return URI.create(originalUrl);
+	}
+
+}
@@ -0,0 +1,374 @@
+package com.ludwigit.app.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ludwigit.app.LudwigitApplication;
+import com.ludwigit.app.benchmarks.RedisStandIn;
+import com.ludwigit.app.services.HashIdsService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Drives a mixed workload through HTTP against the whole application, filters included, running on H2 and an
+ * in-process Redis stand-in. The workload is Zipf distributed redirects, bursts of creates and scans of unknown codes,
+ * each with its own latency histogram.
+ * <p>
+ * {@code mvn -f benchmarks/pom.xml compile exec:exec@load-test -Dload-test.args="--duration=1m --concurrency=128"}
+ * <p>
+ * Every thread model listed in {@code --threads} gets its own JVM and identical workload, which makes this the place
+ * to compare platform and virtual request threads. The in-process Redis stand-in answers in about a millisecond and
+ * serializes every command, so it dominates the latencies. Point {@code --redis} at a real server, such as the one in
+ * {@code compose.dev.yml}, for numbers worth comparing, and compare them only between runs on the same machine.
+ */
+public final class LoadTest {
+
+	private static final String UNKNOWN_ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ1234567890";
+	private static final int SEED_CHUNK_SIZE = 1000;
+
+	private final LoadTestOptions options;
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final HttpClient httpClient;
+
+	private LoadTest(LoadTestOptions options) {
+		this.options = options;
+		this.httpClient = HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_1_1)
+			.followRedirects(HttpClient.Redirect.NEVER)
+			.connectTimeout(Duration.ofSeconds(5))
+			.executor(Executors.newVirtualThreadPerTaskExecutor())
+			.build();
+	}
+
+	public static void main(String[] args) throws Exception {
+		LoadTestOptions options = LoadTestOptions.parse(args);
+		Files.createDirectories(options.output());
+
+		if (options.threads().size() > 1) {
+			System.exit(fork(args, options));
+		}
+
+		String threads = options.threads().getFirst();
+		List<ScenarioStats> results = new LoadTest(options).run(threads);
+		double seconds = options.duration().toMillis() / 1000.0;
+		List<String> summaries = new ArrayList<>();
+		boolean failed = false;
+
+		System.out.printf("%n%s request threads, %s measured%n", threads, options.duration());
+		System.out.printf(
+			"%-10s %10s %12s %10s %10s %10s %10s %8s%n",
+			"scenario", "requests", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "errors"
+		);
+
+		for (ScenarioStats stats : results) {
+			stats.printRow(System.out, seconds);
+			stats.writeDistribution(options.output().resolve(threads + "-" + stats.name() + ".hgrm"));
+			summaries.add("{\"threads\":\"" + threads + "\"," + stats.toJson(seconds).substring(1));
+
+			if (stats.errorRate() > options.maxErrorRate()) {
+				System.out.printf("%s: %.4f of the responses were unexpected%n", stats.name(), stats.errorRate());
+				failed = true;
+			}
+		}
+
+		Files.writeString(summaryFile(options, threads), String.join(",\n", summaries));
+		System.out.println("Histograms written to " + options.output().toAbsolutePath());
+
+		System.exit(failed ? 1 : 0);
+	}
+
+	/**
+	 * Runs each thread model in a JVM of its own, so one does not inherit the JIT profile, heap and leftover threads of
+	 * the other, then merges their summaries.
+	 */
+	private static int fork(String[] args, LoadTestOptions options) throws IOException, InterruptedException {
+		List<String> summaries = new ArrayList<>();
+		int exitCode = 0;
+
+		for (String threads : options.threads()) {
+			List<String> command = new ArrayList<>(List.of(
+				Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+				"-classpath",
+				System.getProperty("java.class.path"),
+				LoadTest.class.getName()
+			));
+			Arrays.stream(args).filter(arg -> !arg.startsWith("--threads=")).forEach(command::add);
+			command.add("--threads=" + threads);
+
+			int childExitCode = new ProcessBuilder(command).inheritIO().start().waitFor();
+			exitCode = Math.max(exitCode, childExitCode);
+
+			if (Files.exists(summaryFile(options, threads))) {
+				summaries.add(Files.readString(summaryFile(options, threads)));
+			}
+		}
+
+		Files.writeString(options.output().resolve("summary.json"), "[" + String.join(",\n", summaries) + "]\n");
+		System.out.println("\nSummary written to " + options.output().resolve("summary.json").toAbsolutePath());
+
+		return exitCode;
+	}
+
+	private static Path summaryFile(LoadTestOptions options, String threads) {
+		return options.output().resolve("summary-" + threads + ".json");
+	}
+
+	private List<ScenarioStats> run(String threads) throws Exception {
+		RedisStandIn standIn = options.redis() == null ? new RedisStandIn() : null;
+		String redis = standIn != null ? standIn.host() + ":" + standIn.port() : options.redis();
+
+		try (standIn; ConfigurableApplicationContext context = start(threads, redis)) {
+			int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+			Workload workload = new Workload(
+				"http://localhost:" + port,
+				seed(port),
+				context.getBean(HashIdsService.class)
+			);
+
+			runPhase(workload, options.warmup());
+			workload.resetStats();
+			runPhase(workload, options.duration());
+
+			return workload.stats();
+		}
+	}
+
+	private ConfigurableApplicationContext start(String threads, String redis) {
+		Map<String, Object> properties = new LinkedHashMap<>();
+		properties.put("server.port", 0);
+		properties.put("spring.main.banner-mode", "off");
+		properties.put("logging.level.root", "WARN");
+		properties.put("spring.threads.virtual.enabled", threads.equals("virtual"));
+		properties.put("spring.datasource.url", "jdbc:h2:mem:load-test-" + threads + ";DB_CLOSE_DELAY=-1");
+		properties.put("spring.datasource.username", "sa");
+		properties.put("spring.datasource.password", "");
+		properties.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+		properties.put("spring.data.redis.host", redis.substring(0, redis.lastIndexOf(':')));
+		properties.put("spring.data.redis.port", redis.substring(redis.lastIndexOf(':') + 1));
+		properties.put("app.base-url", "http://localhost");
+		properties.put("app.web-client-url", "http://localhost");
+		properties.put("app.hashids.salt", "load-test");
+		properties.put("app.hashids.min-length", 4);
+		// The filter still runs for every request, it just never refuses one
+		properties.put("app.rate-limit.max-requests", Integer.MAX_VALUE);
+		properties.putAll(options.properties());
+
+		return new SpringApplicationBuilder(LudwigitApplication.class)
+			.properties(properties)
+			.run();
+	}
+
+	/**
+	 * Creates the links redirects are drawn from through the batch endpoint.
+	 *
+	 * @return the codes in creation order, the first being the most popular
+	 */
+	private List<String> seed(int port) throws IOException, InterruptedException {
+		List<String> codes = new ArrayList<>(options.links());
+
+		for (int created = 0; created < options.links(); created += SEED_CHUNK_SIZE) {
+			StringBuilder body = new StringBuilder();
+
+			for (int i = created; i < Math.min(created + SEED_CHUNK_SIZE, options.links()); i++) {
+				body.append("{\"url\":\"https://www.example.com/seed/").append(i).append("\"}\n");
+			}
+
+			HttpResponse<Stream<String>> response = httpClient.send(
+				HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/create/batch"))
+					.header("Content-Type", "application/x-ndjson")
+					.POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+					.build(),
+				HttpResponse.BodyHandlers.ofLines()
+			);
+
+			for (String line : (Iterable<String>) response.body()::iterator) {
+				JsonNode result = objectMapper.readTree(line);
+
+				if (!result.hasNonNull("shortUrl")) {
+					throw new IllegalStateException("Could not seed a link: " + line);
+				}
+
+				codes.add(lastSegment(result.get("shortUrl").asText()));
+			}
+		}
+
+		return codes;
+	}
+
+	private void runPhase(Workload workload, Duration duration) throws InterruptedException {
+		long start = System.nanoTime();
+		long end = start + duration.toNanos();
+		// Each client sends its share of the rate at a fixed interval
+		long intervalNanos = options.rate() > 0 ? TimeUnit.SECONDS.toNanos(options.concurrency()) / options.rate() : 0;
+
+		try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int client = 0; client < options.concurrency(); client++) {
+				long offset = intervalNanos * client / options.concurrency();
+
+				clients.submit(() -> {
+					long intended = start + offset;
+
+					while (intended < end && !Thread.currentThread().isInterrupted()) {
+						if (intervalNanos > 0) {
+							long wait = intended - System.nanoTime();
+
+							if (wait > 0) {
+								LockSupport.parkNanos(wait);
+							}
+						} else {
+							intended = System.nanoTime();
+						}
+
+						intended = workload.next(intended, intervalNanos);
+					}
+				});
+			}
+		}
+	}
+
+	private static String lastSegment(String url) {
+		return url.substring(url.lastIndexOf('/') + 1);
+	}
+
+	/**
+	 * The request mix. Shared by every client of a run.
+	 */
+	private final class Workload {
+
+		private final String baseUrl;
+		private final List<String> codes;
+		private final HashIdsService hashIdsService;
+		private final ZipfDistribution popularity;
+		private final AtomicLong createdUrls = new AtomicLong();
+		private final AtomicLong scannedIds;
+		private final boolean paced;
+
+		private ScenarioStats redirects;
+		private ScenarioStats creates;
+		private ScenarioStats unknown;
+
+		private Workload(String baseUrl, List<String> codes, HashIdsService hashIdsService) {
+			this.baseUrl = baseUrl;
+			this.codes = codes;
+			this.hashIdsService = hashIdsService;
+			this.popularity = new ZipfDistribution(codes.size(), options.zipfExponent());
+			// Far above anything created during the run, so scanned codes stay unknown
+			this.scannedIds = new AtomicLong(Integer.MAX_VALUE);
+			this.paced = options.rate() > 0;
+			resetStats();
+		}
+
+		private void resetStats() {
+			redirects = new ScenarioStats("redirect");
+			creates = new ScenarioStats("create");
+			unknown = new ScenarioStats("unknown");
+		}
+
+		private List<ScenarioStats> stats() {
+			return List.of(redirects, creates, unknown);
+		}
+
+		/**
+		 * Sends the next operation of a client.
+		 *
+		 * @return when the client should send again, as a {@link System#nanoTime()} value
+		 */
+		private long next(long intended, long intervalNanos) {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			int pick = random.nextInt(options.redirectWeight() + options.createWeight() + options.unknownWeight());
+
+			if (pick < options.redirectWeight()) {
+				send(redirects, get(codes.get(popularity.next())), 301, intended);
+				return intended + intervalNanos;
+			}
+
+			if (pick < options.redirectWeight() + options.createWeight()) {
+				for (int i = 0; i < options.createBurst(); i++) {
+					send(creates, create(), 200, intended);
+					intended += intervalNanos;
+				}
+
+				return intended;
+			}
+
+			// Half walk ids nobody has, half are codes that do not even decode
+			String code = random.nextBoolean()
+				? hashIdsService.encode(scannedIds.incrementAndGet())
+				: randomCode(random);
+			send(unknown, get(code), 404, intended);
+
+			return intended + intervalNanos;
+		}
+
+		private HttpRequest get(String code) {
+			return request(code).GET().build();
+		}
+
+		private HttpRequest create() {
+			String body = "{\"url\":\"https://www.example.com/load-test/" + createdUrls.incrementAndGet() + "\"}";
+
+			return request("create")
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(body))
+				.build();
+		}
+
+		private HttpRequest.Builder request(String path) {
+			int client = ThreadLocalRandom.current().nextInt(options.clients());
+
+			return HttpRequest.newBuilder(URI.create(baseUrl + "/" + path))
+				.timeout(Duration.ofSeconds(30))
+				.header("X-Forwarded-For", "10." + (client >> 16 & 0xff) + "." + (client >> 8 & 0xff) + "." + (client & 0xff));
+		}
+
+		private void send(ScenarioStats stats, HttpRequest request, int expectedStatus, long intended) {
+			// A paced client counts the time it was held up behind a slow response too
+			long start = paced ? intended : System.nanoTime();
+			boolean expected;
+
+			try {
+				expected = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == expectedStatus;
+			} catch (IOException exception) {
+				expected = false;
+			} catch (InterruptedException exception) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+
+			stats.record(System.nanoTime() - start, expected);
+		}
+
+		private static String randomCode(ThreadLocalRandom random) {
+			char[] code = new char[8];
+
+			for (int i = 0; i < code.length; i++) {
+				code[i] = UNKNOWN_ALPHABET.charAt(random.nextInt(UNKNOWN_ALPHABET.length()));
+			}
+
+			return new String(code);
+		}
+
+	}
+
+}
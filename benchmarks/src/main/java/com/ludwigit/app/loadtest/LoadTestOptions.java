@@ -0,0 +1,117 @@
+package com.ludwigit.app.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Command line options of the load test, given as {@code --name=value}.
+ *
+ * @param duration       measured time of each run
+ * @param warmup         unmeasured time before each run, so JIT and caches settle
+ * @param concurrency    number of concurrent clients
+ * @param rate           total requests per second, or {@code 0} to send as fast as responses come back. With a fixed
+ *                       rate latency is measured from the intended send time, so a stall is not hidden by the
+ *                       clients waiting on it
+ * @param links          links created before the run, the population redirects are drawn from
+ * @param zipfExponent   skew of the redirect popularity
+ * @param redirectWeight share of redirects in the mix
+ * @param createWeight   share of create bursts in the mix
+ * @param unknownWeight  share of unknown codes in the mix
+ * @param createBurst    creates sent back to back by a client picking a create
+ * @param clients        distinct client addresses, each with its own rate limit counters
+ * @param threads        request thread models to run, {@code platform} and/or {@code virtual}
+ * @param maxErrorRate   share of unexpected responses above which the run fails
+ * @param output         directory for the histograms and the JSON summary
+ * @param redis          {@code host:port} of a Redis to use instead of the in-process stand-in
+ * @param properties     any option with a dot in its name, passed to the application as a property, for example
+ *                       {@code --app.rate-limit.mode=HYBRID}
+ */
+record LoadTestOptions(
+	Duration duration,
+	Duration warmup,
+	int concurrency,
+	int rate,
+	int links,
+	double zipfExponent,
+	int redirectWeight,
+	int createWeight,
+	int unknownWeight,
+	int createBurst,
+	int clients,
+	List<String> threads,
+	double maxErrorRate,
+	Path output,
+	String redis,
+	Map<String, String> properties
+) {
+
+	private static final Set<String> THREAD_MODELS = Set.of("platform", "virtual");
+
+	static LoadTestOptions parse(String[] args) {
+		Map<String, String> values = new HashMap<>();
+
+		for (String arg : args) {
+			if (!arg.startsWith("--") || !arg.contains("=")) {
+				throw new IllegalArgumentException("Expected --name=value but got '" + arg + "'");
+			}
+
+			values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+		}
+
+		Map<String, String> properties = new HashMap<>();
+		values.entrySet().removeIf(entry -> entry.getKey().contains(".") && properties.put(entry.getKey(), entry.getValue()) == null);
+
+		LoadTestOptions options = new LoadTestOptions(
+			duration(values.getOrDefault("duration", "30s")),
+			duration(values.getOrDefault("warmup", "10s")),
+			Integer.parseInt(values.getOrDefault("concurrency", "64")),
+			Integer.parseInt(values.getOrDefault("rate", "0")),
+			Integer.parseInt(values.getOrDefault("links", "10000")),
+			Double.parseDouble(values.getOrDefault("zipf-exponent", "1.0")),
+			Integer.parseInt(values.getOrDefault("redirect-weight", "90")),
+			Integer.parseInt(values.getOrDefault("create-weight", "5")),
+			Integer.parseInt(values.getOrDefault("unknown-weight", "5")),
+			Integer.parseInt(values.getOrDefault("create-burst", "20")),
+			Integer.parseInt(values.getOrDefault("clients", "1000")),
+			Arrays.asList(values.getOrDefault("threads", "platform,virtual").split(",")),
+			Double.parseDouble(values.getOrDefault("max-error-rate", "0.001")),
+			Path.of(values.getOrDefault("output", "target/load-test")),
+			values.get("redis"),
+			Map.copyOf(properties)
+		);
+
+		values.keySet().removeAll(Set.of(
+			"duration", "warmup", "concurrency", "rate", "links", "zipf-exponent", "redirect-weight", "create-weight",
+			"unknown-weight", "create-burst", "clients", "threads", "max-error-rate", "output", "redis"
+		));
+
+		if (!values.isEmpty()) {
+			throw new IllegalArgumentException("Unknown options " + values.keySet());
+		}
+
+		if (!THREAD_MODELS.containsAll(options.threads())) {
+			throw new IllegalArgumentException("threads must be platform, virtual or both");
+		}
+
+		if (options.redirectWeight() + options.createWeight() + options.unknownWeight() <= 0) {
+			throw new IllegalArgumentException("At least one weight must be positive");
+		}
+
+		return options;
+	}
+
+	private static Duration duration(String value) {
+		try {
+			return Duration.parse("PT" + value.toUpperCase());
+		} catch (DateTimeParseException exception) {
+			throw new IllegalArgumentException("Invalid duration '" + value + "', use for example 30s or 2m");
+		}
+	}
+
+}
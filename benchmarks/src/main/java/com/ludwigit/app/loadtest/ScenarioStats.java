@@ -0,0 +1,95 @@
+package com.ludwigit.app.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and outcomes of one kind of request, recorded in microseconds.
+ */
+final class ScenarioStats {
+
+	private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+	private final String name;
+	private final Histogram histogram = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+	private final LongAdder errors = new LongAdder();
+
+	ScenarioStats(String name) {
+		this.name = name;
+	}
+
+	String name() {
+		return name;
+	}
+
+	void record(long latencyNanos, boolean expected) {
+		histogram.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_TRACKABLE_MICROS));
+
+		if (!expected) {
+			errors.increment();
+		}
+	}
+
+	long count() {
+		return histogram.getTotalCount();
+	}
+
+	long errors() {
+		return errors.sum();
+	}
+
+	double errorRate() {
+		return count() == 0 ? 0 : (double) errors() / count();
+	}
+
+	double percentileMillis(double percentile) {
+		return histogram.getValueAtPercentile(percentile) / 1000.0;
+	}
+
+	void printRow(PrintStream out, double seconds) {
+		out.printf(
+			"%-10s %10d %12.1f %10.2f %10.2f %10.2f %10.2f %8d%n",
+			name,
+			count(),
+			count() / seconds,
+			percentileMillis(50),
+			percentileMillis(99),
+			percentileMillis(99.9),
+			histogram.getMaxValue() / 1000.0,
+			errors()
+		);
+	}
+
+	/**
+	 * Writes the full percentile distribution, in milliseconds, in the format read by the HdrHistogram plotter.
+	 */
+	void writeDistribution(Path file) throws IOException {
+		try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+			histogram.outputPercentileDistribution(out, 1000.0);
+		}
+	}
+
+	String toJson(double seconds) {
+		return String.format(
+			Locale.ROOT,
+			"{\"scenario\":\"%s\",\"requests\":%d,\"throughput\":%.1f,\"p50Ms\":%.3f,\"p99Ms\":%.3f,\"p999Ms\":%.3f,\"maxMs\":%.3f,\"errors\":%d}",
+			name,
+			count(),
+			count() / seconds,
+			percentileMillis(50),
+			percentileMillis(99),
+			percentileMillis(99.9),
+			histogram.getMaxValue() / 1000.0,
+			errors()
+		);
+	}
+
+}
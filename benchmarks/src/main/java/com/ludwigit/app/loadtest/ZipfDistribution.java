@@ -0,0 +1,37 @@
+package com.ludwigit.app.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Ranks drawn with probability proportional to {@code 1 / rank^exponent}, so a handful of links receive most of the
+ * redirects as they do in production.
+ */
+final class ZipfDistribution {
+
+	private final double[] cumulative;
+
+	ZipfDistribution(int size, double exponent) {
+		cumulative = new double[size];
+		double sum = 0;
+
+		for (int rank = 1; rank <= size; rank++) {
+			sum += 1 / Math.pow(rank, exponent);
+			cumulative[rank - 1] = sum;
+		}
+
+		for (int i = 0; i < size; i++) {
+			cumulative[i] /= sum;
+		}
+	}
+
+	/**
+	 * @return a zero based index, {@code 0} being the most popular
+	 */
+	int next() {
+		int index = Arrays.binarySearch(cumulative, ThreadLocalRandom.current().nextDouble());
+
+		return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+	}
+
+}
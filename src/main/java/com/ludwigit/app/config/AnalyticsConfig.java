@@ -0,0 +1,52 @@
+package com.ludwigit.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.analytics")
+@EnableConfigurationProperties
+@Component
+@Validated
+@Data
+public class AnalyticsConfig {
+
+	private boolean enabled = true;
+
+	/**
+	 * Click events held in memory between flushes, rounded up to a power of two. Clicks arriving while the buffer is
+	 * full are dropped and counted, the redirect itself is never slowed down.
+	 */
+	private Integer bufferSize = 65_536;
+	private Duration flushInterval = Duration.ofSeconds(1);
+
+	/**
+	 * Most events aggregated into one pipelined Redis call.
+	 */
+	private Integer flushBatchSize = 16_384;
+
+	/**
+	 * Most referrer hosts counted per link, clicks from any other host are counted as {@code other}.
+	 */
+	private Integer maxReferrersPerLink = 100;
+
+	/**
+	 * Referrer hosts longer than this are truncated before being counted.
+	 */
+	private Integer maxReferrerLength = 64;
+
+	/**
+	 * How long per minute counts and referrers are kept once a link stops being clicked.
+	 */
+	private Duration retention = Duration.ofDays(7);
+
+	/**
+	 * Minutes of per minute counts returned by the stats endpoint.
+	 */
+	private Integer statsMinutes = 60;
+
+}
@@ -0,0 +1,21 @@
+package com.ludwigit.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+@ConfigurationProperties(prefix = "app.batch")
+@EnableConfigurationProperties
+@Component
+@Validated
+@Data
+public class BatchConfig {
+
+	/**
+	 * Items inserted in one transaction and cached with one pipelined Redis call.
+	 */
+	private Integer chunkSize = 500;
+
+}
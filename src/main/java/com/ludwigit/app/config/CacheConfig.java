@@ -0,0 +1,89 @@
+package com.ludwigit.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.cache")
+@EnableConfigurationProperties
+@Component
+@Validated
+@Data
+public class CacheConfig {
+
+	/**
+	 * Writes cached shorted URLs in the compact binary format. Both formats are always read, so turn this off while
+	 * nodes that only read JSON are still serving traffic and back on once they are gone.
+	 */
+	private boolean compactValues = true;
+
+	/**
+	 * How long a shorted URL stays in Redis once cached, on a miss, on create or by a warm-up.
+	 */
+	private Duration ttl = Duration.ofHours(6);
+
+	/**
+	 * Up to this fraction of the TTL is added at random to every entry, so links cached together by a warm-up or a
+	 * burst of creates do not all expire, and fall through to the database, in the same instant.
+	 */
+	private double ttlJitter = 0.1;
+
+	private Warmup warmup = new Warmup();
+
+	private Writer writer = new Writer();
+
+	@Data
+	public static class Warmup {
+
+		/**
+		 * Warms the cache in the background once the application is ready. Readiness does not wait for it.
+		 */
+		private boolean onStartup = true;
+
+		private Source source = Source.MOST_CLICKED;
+
+		/**
+		 * How many links to load at most.
+		 */
+		private Integer size = 10_000;
+
+		/**
+		 * Links read from the database and written to Redis in one round trip each.
+		 */
+		private Integer pageSize = 500;
+
+	}
+
+	@Data
+	public static class Writer {
+
+		/**
+		 * Cache writes waiting to be flushed at most. Further writes are dropped until the writer catches up, the
+		 * entries are loaded again on their next miss.
+		 */
+		private Integer capacity = 10_000;
+
+		/**
+		 * Writes sent to Redis in one pipelined round trip at most.
+		 */
+		private Integer batchSize = 500;
+
+	}
+
+	public enum Source {
+		/**
+		 * The links with the most clicks recorded by the analytics. Falls back to {@link #MOST_RECENT} when there are no
+		 * clicks yet, as after a Redis flush.
+		 */
+		MOST_CLICKED,
+		/**
+		 * The links created last.
+		 */
+		MOST_RECENT
+	}
+
+}
@@ -0,0 +1,49 @@
+package com.ludwigit.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Circuit breaker around the Redis calls, see {@link com.ludwigit.app.services.RedisCircuitBreaker}.
+ */
+@ConfigurationProperties(prefix = "app.circuit-breaker")
+@EnableConfigurationProperties
+@Component
+@Validated
+@Data
+public class CircuitBreakerConfig {
+
+	/**
+	 * Consecutive failed or slow calls that open the breaker.
+	 */
+	private Integer failureThreshold = 5;
+
+	/**
+	 * Calls that take longer count as failures, even when they succeed.
+	 */
+	private Duration slowCallThreshold = Duration.ofMillis(500);
+
+	/**
+	 * Redis commands and connection attempts give up after this, in place of {@code spring.data.redis.timeout}, so a
+	 * call to an unresponsive Redis fails soon after it was already counted as slow. Twice the slow call threshold when
+	 * not set.
+	 */
+	private Duration callTimeout;
+
+	/**
+	 * How often Redis is pinged while the breaker is open. The first fast reply closes it again.
+	 */
+	private Duration probeInterval = Duration.ofSeconds(5);
+
+	/**
+	 * Keeps the breaker open for good, for nodes deployed without Redis such as those running the {@code edge}
+	 * profile. Every call then goes straight to its local fallback and Redis is never pinged.
+	 */
+	private boolean forcedOpen = false;
+
+}
@@ -0,0 +1,44 @@
+package com.ludwigit.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.deduplication")
+@EnableConfigurationProperties
+@Component
+@Validated
+@Data
+public class DeduplicationConfig {
+
+	private Mode mode = Mode.OFF;
+
+	/**
+	 * How long the URL to id reverse lookup is kept in Redis.
+	 */
+	private Duration ttl = Duration.ofDays(7);
+	private Long localMaximumSize = 10_000L;
+
+	/**
+	 * Also looks the URL up in the database when neither cache knows it. Catches every duplicate, at the cost of a
+	 * database read on each create of a new URL.
+	 */
+	private boolean databaseFallback = false;
+
+	public enum Mode {
+		OFF,
+		/**
+		 * Returns the existing short URL.
+		 */
+		REUSE,
+		/**
+		 * Fails with {@link com.ludwigit.app.exceptions.URLAlreadyExistsException}.
+		 */
+		REJECT
+	}
+
+}
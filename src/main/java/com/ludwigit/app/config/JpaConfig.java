@@ -0,0 +1,37 @@
+package com.ludwigit.app.config;
+
+import com.ludwigit.app.model.ShortedURL;
+import com.ludwigit.app.repositories.ShortedURLStore;
+import com.ludwigit.app.services.ShardRouter;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JpaConfig {
+
+	/**
+	 * Batches inserts by default, values set through {@code spring.jpa.properties} still take precedence.
+	 */
+	@Bean
+	public HibernatePropertiesCustomizer batchingHibernatePropertiesCustomizer() {
+		return properties -> {
+			properties.putIfAbsent(AvailableSettings.STATEMENT_BATCH_SIZE, ShortedURL.ID_ALLOCATION_SIZE);
+			properties.putIfAbsent(AvailableSettings.ORDER_INSERTS, true);
+		};
+	}
+
+	/**
+	 * Also moves the sequence of every other shard into the shard's id range.
+	 */
+	@Bean
+	public ApplicationRunner idSequenceAligner(ShortedURLStore shortedUrlStore, ShardRouter shardRouter) {
+		return arguments -> shardRouter.shards().forEach(shard -> shardRouter.onShard(shard, () -> {
+			shortedUrlStore.alignIdSequence(ShortedURL.firstIdOf(shard));
+			return null;
+		}));
+	}
+
+}
@@ -0,0 +1,65 @@
+package com.ludwigit.app.config;
+
+import com.ludwigit.app.services.LinkStoreSnapshotService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.util.List;
+
+@Slf4j
+@Configuration
+public class LinkStoreCommandConfig {
+
+	private static final String SNAPSHOT_OPTION = "snapshot-link-store";
+	private static final String COMPACT_OPTION = "compact-link-store";
+
+	/**
+	 * Writes a link store snapshot of the database and exits, for example
+	 * {@code java -jar ludwigit.jar --spring.main.web-application-type=none --snapshot-link-store=links}, or compacts
+	 * the link store of an edge node with {@code --spring.profiles.active=edge --compact-link-store}.
+	 */
+	@Bean
+	public ApplicationRunner linkStoreCommand(
+		LinkStoreSnapshotService linkStoreSnapshotService,
+		ConfigurableApplicationContext context
+	) {
+		return arguments -> {
+			String snapshotPath = option(arguments, SNAPSHOT_OPTION);
+			boolean compact = arguments.containsOption(COMPACT_OPTION);
+
+			if (snapshotPath == null && !compact) {
+				return;
+			}
+
+			int exitCode = 0;
+
+			try {
+				if (snapshotPath != null) {
+					long written = linkStoreSnapshotService.snapshot(Path.of(snapshotPath));
+					log.info("Wrote {} shorted URLs to the link store in {}", written, snapshotPath);
+				} else {
+					long kept = linkStoreSnapshotService.compact();
+					log.info("Compacted the link store, {} shorted URLs kept", kept);
+				}
+			} catch (Exception exception) {
+				log.error("Could not write the link store", exception);
+				exitCode = 1;
+			}
+
+			int finalExitCode = exitCode;
+			System.exit(SpringApplication.exit(context, () -> finalExitCode));
+		};
+	}
+
+	private static String option(ApplicationArguments arguments, String name) {
+		List<String> values = arguments.getOptionValues(name);
+		return values != null && !values.isEmpty() ? values.get(0) : null;
+	}
+
+}
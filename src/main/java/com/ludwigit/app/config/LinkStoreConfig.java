@@ -0,0 +1,34 @@
+package com.ludwigit.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * The memory-mapped link store used instead of the database by the {@code edge} profile, see
+ * {@link com.ludwigit.app.repositories.MappedLinkStore}.
+ */
+@ConfigurationProperties(prefix = "app.link-store")
+@EnableConfigurationProperties
+@Component
+@Validated
+@Data
+public class LinkStoreConfig {
+
+	private String directory = "data/links";
+
+	/**
+	 * Bytes mapped at a time as the files grow. Only applies to a new store, an existing one keeps the size it was
+	 * created with.
+	 */
+	private Integer segmentSize = 64 * 1024 * 1024;
+
+	/**
+	 * Forces every append to disk before it is acknowledged, so links survive a power loss and not only a crash of the
+	 * process. Bulk loads are forced once per batch either way.
+	 */
+	private boolean sync = true;
+
+}
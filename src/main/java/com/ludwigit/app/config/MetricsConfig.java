@@ -0,0 +1,157 @@
+package com.ludwigit.app.config;
+
+import com.ludwigit.app.services.ClickAnalyticsService;
+import com.ludwigit.app.services.HybridRateLimiter;
+import com.ludwigit.app.services.LocalRateLimiter;
+import com.ludwigit.app.services.NearCacheService;
+import com.ludwigit.app.services.NegativeCacheService;
+import com.ludwigit.app.services.ReadReplicaService;
+import com.ludwigit.app.services.RedisCacheWriter;
+import com.ludwigit.app.services.RedisCircuitBreaker;
+import com.ludwigit.app.services.SingleFlightService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Publishes the counters the services already keep. They are read when metrics are scraped, so none of this adds work
+ * to a request.
+ */
+@Configuration
+public class MetricsConfig {
+
+	@Bean
+	public MeterBinder nearCacheMetrics(NearCacheService nearCacheService) {
+		return registry -> {
+			FunctionCounter.builder("ludwigit.near_cache.requests", nearCacheService, service -> service.stats().hitCount())
+				.tag("result", "hit")
+				.register(registry);
+			FunctionCounter.builder("ludwigit.near_cache.requests", nearCacheService, service -> service.stats().missCount())
+				.tag("result", "miss")
+				.register(registry);
+			FunctionCounter.builder("ludwigit.near_cache.evictions", nearCacheService, service -> service.stats().evictionCount())
+				.register(registry);
+			Gauge.builder("ludwigit.near_cache.size", nearCacheService, NearCacheService::size)
+				.register(registry);
+		};
+	}
+
+	@Bean
+	public MeterBinder negativeCacheMetrics(NegativeCacheService negativeCacheService) {
+		return registry -> {
+			FunctionCounter.builder("ludwigit.negative_cache.rejected", negativeCacheService, NegativeCacheService::rejected)
+				.description("Unknown codes rejected without a Redis or database lookup")
+				.register(registry);
+			Gauge.builder("ludwigit.negative_cache.watermark", negativeCacheService, NegativeCacheService::watermark)
+				.description("Highest id known to exist")
+				.register(registry);
+		};
+	}
+
+	@Bean
+	public MeterBinder singleFlightMetrics(SingleFlightService singleFlightService) {
+		return registry -> {
+			FunctionCounter.builder("ludwigit.single_flight.loads", singleFlightService, SingleFlightService::loads)
+				.register(registry);
+			FunctionCounter.builder("ludwigit.single_flight.coalesced", singleFlightService, SingleFlightService::coalesced)
+				.description("Cache misses that waited for a load already in flight")
+				.register(registry);
+			FunctionCounter.builder("ludwigit.single_flight.lock_waits", singleFlightService, SingleFlightService::lockWaits)
+				.register(registry);
+			FunctionCounter.builder("ludwigit.single_flight.missing_shared", singleFlightService, SingleFlightService::missingShared)
+				.description("Lock waits ended by another node finding the key missing")
+				.register(registry);
+		};
+	}
+
+	@Bean
+	public MeterBinder clickAnalyticsMetrics(ClickAnalyticsService clickAnalyticsService) {
+		return registry -> {
+			FunctionCounter.builder("ludwigit.analytics.clicks", clickAnalyticsService, ClickAnalyticsService::recorded)
+				.tag("state", "recorded")
+				.register(registry);
+			FunctionCounter.builder("ludwigit.analytics.clicks", clickAnalyticsService, ClickAnalyticsService::dropped)
+				.tag("state", "dropped")
+				.register(registry);
+			FunctionCounter.builder("ludwigit.analytics.clicks", clickAnalyticsService, ClickAnalyticsService::flushed)
+				.tag("state", "flushed")
+				.register(registry);
+			FunctionCounter.builder("ludwigit.analytics.clicks", clickAnalyticsService, ClickAnalyticsService::flushFailures)
+				.tag("state", "failed")
+				.register(registry);
+			Gauge.builder("ludwigit.analytics.pending", clickAnalyticsService, ClickAnalyticsService::pending)
+				.description("Clicks buffered and not yet written to Redis")
+				.register(registry);
+		};
+	}
+
+	@Bean
+	public MeterBinder hybridRateLimiterMetrics(HybridRateLimiter hybridRateLimiter) {
+		return registry -> {
+			Gauge.builder("ludwigit.rate_limit.tracked_keys", hybridRateLimiter, HybridRateLimiter::trackedKeys)
+				.description("Clients with local counters in hybrid mode")
+				.register(registry);
+			FunctionCounter.builder("ludwigit.rate_limit.evicted_keys", hybridRateLimiter, HybridRateLimiter::evictions)
+				.description("Local counters evicted past app.rate-limit.hybrid-maximum-keys")
+				.register(registry);
+		};
+	}
+
+	@Bean
+	public MeterBinder localRateLimiterMetrics(LocalRateLimiter localRateLimiter) {
+		return registry -> Gauge.builder("ludwigit.rate_limit.fallback_keys", localRateLimiter, LocalRateLimiter::trackedKeys)
+			.description("Clients with node-local buckets, used while Redis is unavailable")
+			.register(registry);
+	}
+
+	@Bean
+	public MeterBinder redisCircuitBreakerMetrics(RedisCircuitBreaker redisCircuitBreaker) {
+		return registry -> {
+			Gauge.builder("ludwigit.redis.circuit_breaker.open", redisCircuitBreaker, breaker -> breaker.isOpen() ? 1 : 0)
+				.description("1 while Redis calls are short-circuited to local fallbacks")
+				.register(registry);
+			FunctionCounter.builder("ludwigit.redis.circuit_breaker.opened", redisCircuitBreaker, RedisCircuitBreaker::opened)
+				.register(registry);
+			FunctionCounter.builder("ludwigit.redis.circuit_breaker.calls", redisCircuitBreaker, RedisCircuitBreaker::failures)
+				.tag("result", "failed")
+				.register(registry);
+			FunctionCounter.builder("ludwigit.redis.circuit_breaker.calls", redisCircuitBreaker, RedisCircuitBreaker::slowCalls)
+				.tag("result", "slow")
+				.register(registry);
+			FunctionCounter.builder("ludwigit.redis.circuit_breaker.calls", redisCircuitBreaker, RedisCircuitBreaker::shortCircuited)
+				.tag("result", "short_circuited")
+				.register(registry);
+		};
+	}
+
+	@Bean
+	public MeterBinder readReplicaMetrics(ReadReplicaService readReplicaService) {
+		return registry -> FunctionCounter.builder("ludwigit.database.replica_fallbacks", readReplicaService, ReadReplicaService::primaryFallbacks)
+			.description("Lookups that missed on a read replica and were retried on the primary")
+			.register(registry);
+	}
+
+	@Bean
+	public MeterBinder redisCacheWriterMetrics(RedisCacheWriter redisCacheWriter) {
+		return registry -> {
+			Gauge.builder("ludwigit.cache_writer.pending", redisCacheWriter, RedisCacheWriter::pending)
+				.description("Cache writes waiting for the background writer")
+				.register(registry);
+			FunctionCounter.builder("ludwigit.cache_writer.writes", redisCacheWriter, RedisCacheWriter::written)
+				.tag("result", "written")
+				.register(registry);
+			FunctionCounter.builder("ludwigit.cache_writer.writes", redisCacheWriter, RedisCacheWriter::coalesced)
+				.tag("result", "coalesced")
+				.register(registry);
+			FunctionCounter.builder("ludwigit.cache_writer.writes", redisCacheWriter, RedisCacheWriter::dropped)
+				.tag("result", "dropped")
+				.register(registry);
+			FunctionCounter.builder("ludwigit.cache_writer.writes", redisCacheWriter, RedisCacheWriter::failed)
+				.tag("result", "failed")
+				.register(registry);
+		};
+	}
+
+}
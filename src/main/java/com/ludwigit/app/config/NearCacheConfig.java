@@ -0,0 +1,22 @@
+package com.ludwigit.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.near-cache")
+@EnableConfigurationProperties
+@Component
+@Validated
+@Data
+public class NearCacheConfig {
+
+	private boolean enabled = true;
+	private Long maximumSize = 10_000L;
+	private Duration expireAfterWrite = Duration.ofMinutes(5);
+
+}
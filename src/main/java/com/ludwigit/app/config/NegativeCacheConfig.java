@@ -0,0 +1,38 @@
+package com.ludwigit.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.negative-cache")
+@EnableConfigurationProperties
+@Component
+@Validated
+@Data
+public class NegativeCacheConfig {
+
+	private boolean enabled = true;
+	private Long maximumSize = 100_000L;
+
+	/**
+	 * How long an id is remembered as missing. Another node may still create it from an id block it holds, so keep it
+	 * short.
+	 */
+	private Duration ttl = Duration.ofSeconds(30);
+
+	/**
+	 * How often the highest stored id is read back from the database.
+	 */
+	private Duration watermarkRefreshInterval = Duration.ofSeconds(10);
+
+	/**
+	 * Ids up to this far above the watermark may have been created by other nodes since the last refresh and are
+	 * still looked up in Redis. Anything further is rejected without any I/O.
+	 */
+	private Long watermarkMargin = 10_000L;
+
+}
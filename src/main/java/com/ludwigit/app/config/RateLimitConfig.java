@@ -0,0 +1,110 @@
+package com.ludwigit.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@ConfigurationProperties(prefix = "app.rate-limit")
+@EnableConfigurationProperties
+@Component
+@Validated
+@Data
+public class RateLimitConfig {
+
+	private Integer maxRequests = 60;
+	private Long windowSeconds = 60L;
+	private Algorithm algorithm = Algorithm.FIXED_WINDOW;
+	private Mode mode = Mode.REDIS;
+
+	/**
+	 * How often locally consumed quota is pushed to Redis in {@link Mode#HYBRID}. Shorter intervals keep the nodes
+	 * closer to the global limit at the cost of more Redis traffic.
+	 */
+	private Duration syncInterval = Duration.ofMillis(250);
+	private Integer syncBatchSize = 500;
+
+	/**
+	 * Clients tracked with local counters in {@link Mode#HYBRID}. The quota consumed by a client evicted past this is
+	 * still pushed with the next sync.
+	 */
+	private Long hybridMaximumKeys = 100_000L;
+
+	/**
+	 * Share of each limit a node grants on its own while Redis is unavailable. The nodes cannot see each other's
+	 * counts then, so with {@code n} nodes behind the balancer {@code 1/n} keeps the whole cluster near the limit.
+	 */
+	private Double fallbackLimitRatio = 1.0;
+	private Long fallbackMaximumKeys = 100_000L;
+
+	/**
+	 * Route specific limits, evaluated in order. The first policy matching the request path and method wins, requests
+	 * matching none use the global limit above.
+	 */
+	private List<Policy> policies = new ArrayList<>();
+
+	public enum Algorithm {
+		FIXED_WINDOW,
+		SLIDING_WINDOW,
+		TOKEN_BUCKET
+	}
+
+	public enum KeyType {
+		IP,
+		API_KEY
+	}
+
+	@Data
+	public static class Policy {
+
+		private String name;
+
+		/**
+		 * Path pattern in the same syntax as the {@code @RequestMapping} paths, e.g. {@code /{shortenUrl}}.
+		 */
+		private String path;
+
+		/**
+		 * HTTP methods the policy applies to, any method when empty.
+		 */
+		private List<String> methods = new ArrayList<>();
+
+		/**
+		 * Requests matching an exempt policy are never limited.
+		 */
+		private boolean exempt = false;
+
+		// Fall back to the global values when not set
+		private Algorithm algorithm;
+		private Integer maxRequests;
+		private Long windowSeconds;
+
+		private KeyType key = KeyType.IP;
+		private String apiKeyHeader = "X-API-Key";
+
+		/**
+		 * API keys that get a quota of their own under {@link KeyType#API_KEY}. Requests with any other value, or none,
+		 * are limited by their address, so sending made-up keys buys a client nothing.
+		 */
+		private List<String> apiKeys = new ArrayList<>();
+
+	}
+
+	public enum Mode {
+		/**
+		 * Every request is decided by a script call in Redis.
+		 */
+		REDIS,
+		/**
+		 * Requests are decided against in-memory counters that are synced to Redis in batches. Always counts in fixed
+		 * windows, regardless of the configured algorithm.
+		 */
+		HYBRID
+	}
+
+}
@@ -1,43 +1,37 @@
 package com.ludwigit.app.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ludwigit.app.services.RateLimitService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
 
 @Component
 public class RateLimitFilter extends OncePerRequestFilter {
 
-	private static final String KEY_PREFIX = "rate_limit:";
+	private static final UrlPathHelper URL_PATH_HELPER = new UrlPathHelper();
 
-	private final RedisTemplate<String, Object> redisTemplate;
+	private final RateLimitService rateLimitService;
 	private final ObjectMapper objectMapper;
-	private final int maxRequests;
-	private final long windowSeconds;
 
 	public RateLimitFilter(
-		RedisTemplate<String, Object> redisTemplate,
-		ObjectMapper objectMapper,
-		@Value("${app.rate-limit.max-requests:60}") int maxRequests,
-		@Value("${app.rate-limit.window-seconds:60}") long windowSeconds
+		RateLimitService rateLimitService,
+		ObjectMapper objectMapper
 	) {
-		this.redisTemplate = redisTemplate;
+		this.rateLimitService = rateLimitService;
 		this.objectMapper = objectMapper;
-		this.maxRequests = maxRequests;
-		this.windowSeconds = windowSeconds;
 	}
 
 	@Override
@@ -46,20 +40,24 @@ public class RateLimitFilter extends OncePerRequestFilter {
 		HttpServletResponse response,
 		FilterChain filterChain
 	) throws ServletException, IOException {
-		String ip = getClientIp(request);
-		String key = KEY_PREFIX + ip;
+		RateLimitService.RoutePolicy policy = rateLimitService.resolve(
+			request.getMethod(),
+			URL_PATH_HELPER.getPathWithinApplication(request)
+		);
 
-		Long count = redisTemplate.opsForValue().increment(key);
-		if (count == null) {
+		if (policy.exempt()) {
 			filterChain.doFilter(request, response);
 			return;
 		}
 
-		if (count == 1) {
-			redisTemplate.expire(key, windowSeconds, TimeUnit.SECONDS);
-		}
+		RateLimitService.Decision decision = rateLimitService.consume(policy, getClientKey(request, policy));
+
+		response.setHeader("X-RateLimit-Limit", String.valueOf(decision.limit()));
+		response.setHeader("X-RateLimit-Remaining", String.valueOf(Math.max(decision.remaining(), 0)));
 
-		if (count > maxRequests) {
+		if (!decision.allowed()) {
+			// Retry-After is expressed in whole seconds, never round a pending wait down to zero
+			response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max((decision.retryAfterMillis() + 999) / 1000, 1)));
 			writeRateLimitResponse(response);
 			return;
 		}
@@ -67,6 +65,11 @@ public class RateLimitFilter extends OncePerRequestFilter {
 		filterChain.doFilter(request, response);
 	}
 
+	private String getClientKey(HttpServletRequest request, RateLimitService.RoutePolicy policy) {
+		String apiKey = policy.apiKeyHeader() != null ? request.getHeader(policy.apiKeyHeader()) : null;
+		return policy.clientKey(apiKey, getClientIp(request));
+	}
+
 	private String getClientIp(HttpServletRequest request) {
 		String forwarded = request.getHeader("X-Forwarded-For");
 		if (forwarded != null && !forwarded.isBlank()) {
@@ -0,0 +1,35 @@
+package com.ludwigit.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+@ConfigurationProperties(prefix = "app.reactive-redirect")
+@EnableConfigurationProperties
+@Component
+@Validated
+@Data
+public class ReactiveRedirectConfig {
+
+	/**
+	 * Serves {@code GET /{shortenUrl}} from a separate Netty server on a few event loop threads, next to the servlet
+	 * application that keeps serving every endpoint.
+	 */
+	private boolean enabled = false;
+	private String host = "0.0.0.0";
+	private Integer port = 8081;
+
+	/**
+	 * Threads running the blocking database fallback. Keep it close to the database pool size, more threads would
+	 * only wait for a connection.
+	 */
+	private Integer databaseThreads = 16;
+
+	/**
+	 * Database loads waiting for a thread before new ones are rejected.
+	 */
+	private Integer databaseQueueSize = 10_000;
+
+}
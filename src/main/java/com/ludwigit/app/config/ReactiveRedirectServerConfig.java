@@ -0,0 +1,97 @@
+package com.ludwigit.app.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ludwigit.app.controller.ReactiveRedirectHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "app.reactive-redirect.enabled", havingValue = "true")
+public class ReactiveRedirectServerConfig {
+
+	@Bean
+	@SuppressWarnings("unchecked")
+	public ReactiveRedisTemplate<String, Object> reactiveShortedUrlRedisTemplate(
+		ReactiveRedisConnectionFactory reactiveRedisConnectionFactory,
+		RedisTemplate<String, Object> redisTemplate
+	) {
+		// Same value format as the blocking template, entries written by either side are read by the other
+		RedisSerializationContext<String, Object> serializationContext = RedisSerializationContext
+			.<String, Object>newSerializationContext(new StringRedisSerializer())
+			.value((RedisSerializer<Object>) redisTemplate.getValueSerializer())
+			.build();
+
+		return new ReactiveRedisTemplate<>(reactiveRedisConnectionFactory, serializationContext);
+	}
+
+	@Bean(destroyMethod = "dispose")
+	public Scheduler redirectDatabaseScheduler(ReactiveRedirectConfig reactiveRedirectConfig) {
+		return Schedulers.newBoundedElastic(
+			reactiveRedirectConfig.getDatabaseThreads(),
+			reactiveRedirectConfig.getDatabaseQueueSize(),
+			"redirect-fallback"
+		);
+	}
+
+	@Bean
+	public SmartLifecycle reactiveRedirectServer(
+		ReactiveRedirectHandler reactiveRedirectHandler,
+		ReactiveRedirectConfig reactiveRedirectConfig,
+		ObjectMapper objectMapper
+	) {
+		HandlerStrategies strategies = HandlerStrategies.builder()
+			.codecs(codecs -> codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper)))
+			.build();
+		ReactorHttpHandlerAdapter adapter = new ReactorHttpHandlerAdapter(
+			RouterFunctions.toHttpHandler(reactiveRedirectHandler.routes(), strategies)
+		);
+
+		return new SmartLifecycle() {
+
+			private volatile DisposableServer server;
+
+			@Override
+			public void start() {
+				server = HttpServer.create()
+					.host(reactiveRedirectConfig.getHost())
+					.port(reactiveRedirectConfig.getPort())
+					.handle(adapter)
+					.bindNow();
+				log.info("Reactive redirect server listening on port {}", server.port());
+			}
+
+			@Override
+			public void stop() {
+				if (server != null) {
+					server.disposeNow();
+					server = null;
+				}
+			}
+
+			@Override
+			public boolean isRunning() {
+				return server != null;
+			}
+
+		};
+	}
+
+}
@@ -0,0 +1,40 @@
+package com.ludwigit.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@ConfigurationProperties(prefix = "app.read-replicas")
+@EnableConfigurationProperties
+@Component
+@Validated
+@Data
+public class ReadReplicaConfig {
+
+	/**
+	 * Sends read-only repository calls to the replicas below and everything else to {@code spring.datasource}.
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * Used in turn. Each gets its own pool with the same settings as {@code spring.datasource.hikari}.
+	 */
+	private List<Replica> replicas = new ArrayList<>();
+
+	@Data
+	public static class Replica {
+
+		private String url;
+
+		// Fall back to the primary credentials when not set
+		private String username;
+		private String password;
+
+	}
+
+}
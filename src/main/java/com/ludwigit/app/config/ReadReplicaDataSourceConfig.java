@@ -0,0 +1,87 @@
+package com.ludwigit.app.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replicas, enabled with {@code app.read-replicas.enabled=true}. Replaces the auto-configured pool with one for
+ * the primary, one per replica and a {@link ReadReplicaRoutingDataSource} choosing between them on every transaction.
+ * <p>
+ * Redirect lookups then read from the replicas while creates write to the primary. A replica may not have a row
+ * created a moment ago yet, so lookups that miss there are retried on the primary, see
+ * {@link com.ludwigit.app.services.ReadReplicaService}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.read-replicas.enabled", havingValue = "true")
+public class ReadReplicaDataSourceConfig {
+
+	@Bean
+	@ConfigurationProperties("spring.datasource.hikari")
+	public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+		HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		dataSource.setPoolName("primary");
+		return dataSource;
+	}
+
+	@Bean
+	public ReadReplicaRoutingDataSource readReplicaRoutingDataSource(
+		HikariDataSource primaryDataSource,
+		DataSourceProperties dataSourceProperties,
+		ReadReplicaConfig readReplicaConfig
+	) {
+		if (readReplicaConfig.getReplicas().isEmpty()) {
+			throw new IllegalStateException("app.read-replicas.enabled is set but no app.read-replicas.replicas are configured");
+		}
+
+		List<HikariDataSource> replicas = new ArrayList<>();
+
+		for (ReadReplicaConfig.Replica replica : readReplicaConfig.getReplicas()) {
+			HikariDataSource dataSource = new HikariDataSource();
+			primaryDataSource.copyStateTo(dataSource);
+			dataSource.setPoolName("replica-" + replicas.size());
+			dataSource.setJdbcUrl(replica.getUrl());
+			dataSource.setUsername(replica.getUsername() != null ? replica.getUsername() : dataSourceProperties.determineUsername());
+			dataSource.setPassword(replica.getPassword() != null ? replica.getPassword() : dataSourceProperties.determinePassword());
+			dataSource.setReadOnly(true);
+			replicas.add(dataSource);
+		}
+
+		return new ReadReplicaRoutingDataSource(primaryDataSource, replicas);
+	}
+
+	/**
+	 * Takes the target connection on the first statement, once the transaction has been set up, so it is routed by
+	 * whether the transaction is read-only.
+	 */
+	@Bean
+	@Primary
+	public DataSource dataSource(ReadReplicaRoutingDataSource readReplicaRoutingDataSource) {
+		return new LazyConnectionDataSourceProxy(readReplicaRoutingDataSource);
+	}
+
+	/**
+	 * Hibernate otherwise keeps the connection of the first transaction for the whole request when the session is
+	 * kept open in the view, and a create following a lookup would write to a replica.
+	 */
+	@Bean
+	public HibernatePropertiesCustomizer readReplicaHibernatePropertiesCustomizer() {
+		return properties -> properties.putIfAbsent(
+			AvailableSettings.CONNECTION_HANDLING,
+			PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION
+		);
+	}
+
+}
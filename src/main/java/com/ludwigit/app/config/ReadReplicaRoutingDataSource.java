@@ -0,0 +1,66 @@
+package com.ludwigit.app.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out replica connections inside read-only transactions, such as the ones Spring Data opens around
+ * {@code findById}, and primary connections everywhere else. Replicas are used round robin.
+ * <p>
+ * The transaction has to be known when the connection is taken, so this only routes correctly behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} and with Hibernate releasing its connection
+ * after every transaction, see {@link ReadReplicaDataSourceConfig}.
+ */
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+	private static final String PRIMARY = "primary";
+
+	private final List<? extends DataSource> replicas;
+	private final List<String> replicaKeys = new ArrayList<>();
+	private final AtomicInteger next = new AtomicInteger();
+
+	public ReadReplicaRoutingDataSource(DataSource primary, List<? extends DataSource> replicas) {
+		Map<Object, Object> targetDataSources = new HashMap<>();
+		targetDataSources.put(PRIMARY, primary);
+
+		for (int i = 0; i < replicas.size(); i++) {
+			replicaKeys.add("replica-" + i);
+			targetDataSources.put(replicaKeys.get(i), replicas.get(i));
+		}
+
+		this.replicas = replicas;
+		setTargetDataSources(targetDataSources);
+		setDefaultTargetDataSource(primary);
+		afterPropertiesSet();
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		if (replicaKeys.isEmpty() || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			return PRIMARY;
+		}
+
+		return replicaKeys.get(Math.floorMod(next.getAndIncrement(), replicaKeys.size()));
+	}
+
+	/**
+	 * Closes the replica pools, the primary one is a bean of its own.
+	 */
+	@Override
+	public void close() {
+		for (DataSource replica : replicas) {
+			if (replica instanceof HikariDataSource hikariDataSource) {
+				hikariDataSource.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package com.ludwigit.app.config;
+
+import com.ludwigit.app.model.RedirectType;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.redirect")
+@EnableConfigurationProperties
+@Component
+@Validated
+@Data
+public class RedirectConfig {
+
+	/**
+	 * Used for links created without a redirect type of their own.
+	 */
+	private RedirectType defaultType = RedirectType.MOVED_PERMANENTLY;
+
+	/**
+	 * How long browsers and shared caches may reuse a permanent redirect. Clicks answered from a cache are not counted
+	 * by the analytics.
+	 */
+	private Duration permanentMaxAge = Duration.ofDays(1);
+
+	/**
+	 * Same for temporary redirects. Zero sends {@code no-store}, so every click reaches the app.
+	 */
+	private Duration temporaryMaxAge = Duration.ZERO;
+
+}
@@ -1,5 +1,8 @@
 package com.ludwigit.app.config;
 
+import io.lettuce.core.ClientOptions;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.data.redis.LettuceClientConfigurationBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
@@ -7,18 +10,47 @@ import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.time.Duration;
+
 @Configuration
 public class RedisConfig {
 
 	@Bean
 	public RedisTemplate<String, Object> redisTemplate(
-		RedisConnectionFactory redisConnectionFactory
+		RedisConnectionFactory redisConnectionFactory,
+		CacheConfig cacheConfig,
+		MeterRegistry meterRegistry
 	) {
 		RedisTemplate<String, Object> template = new RedisTemplate<>();
 		template.setConnectionFactory(redisConnectionFactory);
 		template.setKeySerializer(new StringRedisSerializer());
-		template.setValueSerializer(new GenericJackson2JsonRedisSerializer());
+		template.setValueSerializer(new ShortedURLRedisSerializer(
+			new GenericJackson2JsonRedisSerializer(),
+			cacheConfig.isCompactValues(),
+			meterRegistry
+		));
 		return template;
 	}
 
+	/**
+	 * Bounds every command and connection attempt by {@code app.circuit-breaker.call-timeout}, keeping the rest of the
+	 * client options Spring Boot configured.
+	 */
+	@Bean
+	public LettuceClientConfigurationBuilderCustomizer circuitBreakerTimeoutCustomizer(CircuitBreakerConfig circuitBreakerConfig) {
+		Duration timeout = circuitBreakerConfig.getCallTimeout() != null
+			? circuitBreakerConfig.getCallTimeout()
+			: circuitBreakerConfig.getSlowCallThreshold().multipliedBy(2);
+
+		return builder -> {
+			ClientOptions clientOptions = builder.build().getClientOptions().orElseGet(ClientOptions::create);
+
+			builder
+				.commandTimeout(timeout)
+				.clientOptions(clientOptions.mutate()
+					.socketOptions(clientOptions.getSocketOptions().mutate().connectTimeout(timeout).build())
+					.build());
+		};
+	}
+
 }
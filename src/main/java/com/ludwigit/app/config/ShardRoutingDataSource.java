@@ -0,0 +1,50 @@
+package com.ludwigit.app.config;
+
+import com.ludwigit.app.services.ShardRouter;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hands out connections to the shard chosen with {@link ShardRouter#onShard(int, java.util.function.Supplier)}, and to
+ * the default shard outside of it. Like {@link ReadReplicaRoutingDataSource}, it needs the connection to be taken per
+ * transaction, see {@link ShardingDataSourceConfig}.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+	private final Map<Integer, ? extends DataSource> shards;
+
+	public ShardRoutingDataSource(DataSource defaultShard, Map<Integer, ? extends DataSource> shards) {
+		Map<Object, Object> targetDataSources = new HashMap<>(shards);
+		targetDataSources.put(ShardRouter.DEFAULT_SHARD, defaultShard);
+
+		this.shards = shards;
+		setTargetDataSources(targetDataSources);
+		setDefaultTargetDataSource(defaultShard);
+		// An unknown shard is a bug, never quietly read from or write to the default one instead
+		setLenientFallback(false);
+		afterPropertiesSet();
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		Integer shard = ShardRouter.currentShard();
+		return shard != null ? shard : ShardRouter.DEFAULT_SHARD;
+	}
+
+	/**
+	 * Closes the pools of the added shards, the default shard one is a bean of its own.
+	 */
+	@Override
+	public void close() {
+		for (DataSource shard : shards.values()) {
+			if (shard instanceof HikariDataSource hikariDataSource) {
+				hikariDataSource.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package com.ludwigit.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@ConfigurationProperties(prefix = "app.sharding")
+@EnableConfigurationProperties
+@Component
+@Validated
+@Data
+public class ShardingConfig {
+
+	/**
+	 * Spreads links over the shards below besides {@code spring.datasource}, which stays the default shard 0 holding
+	 * every link created before.
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * Whether new links are also stored on the default shard.
+	 */
+	private boolean defaultShardWritable = true;
+
+	/**
+	 * Every shard a code may point to. A shard's id is part of the codes of its links, so it must never change or be
+	 * reused; add shards with new ids and stop writing to full ones with {@code writable: false}.
+	 */
+	private List<Shard> shards = new ArrayList<>();
+
+	@Data
+	public static class Shard {
+
+		/**
+		 * From 1 to {@link com.ludwigit.app.model.ShortedURL#MAX_SHARD}.
+		 */
+		private Integer id;
+		private String url;
+
+		// Fall back to the default shard credentials when not set
+		private String username;
+		private String password;
+
+		/**
+		 * Whether new links are stored here, links already on the shard are served either way.
+		 */
+		private boolean writable = true;
+
+	}
+
+}
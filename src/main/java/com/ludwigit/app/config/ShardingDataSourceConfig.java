@@ -0,0 +1,85 @@
+package com.ludwigit.app.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sharding, enabled with {@code app.sharding.enabled=true}. Replaces the auto-configured pool with one for the default
+ * shard, one per added shard and a {@link ShardRoutingDataSource} choosing between them.
+ * <p>
+ * Every shard needs the {@code shorted_urls} table and its id sequence, the schema is only generated on the default
+ * one. Each shard numbers its rows from its own sequence, which is moved into the shard's id range on startup.
+ * Cannot be combined with {@code app.read-replicas}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+public class ShardingDataSourceConfig {
+
+	@Bean
+	@ConfigurationProperties("spring.datasource.hikari")
+	public HikariDataSource defaultShardDataSource(DataSourceProperties dataSourceProperties) {
+		HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		dataSource.setPoolName("shard-0");
+		return dataSource;
+	}
+
+	@Bean
+	public ShardRoutingDataSource shardRoutingDataSource(
+		HikariDataSource defaultShardDataSource,
+		DataSourceProperties dataSourceProperties,
+		ShardingConfig shardingConfig,
+		ReadReplicaConfig readReplicaConfig
+	) {
+		if (readReplicaConfig.isEnabled()) {
+			throw new IllegalStateException("app.sharding and app.read-replicas cannot be enabled together");
+		}
+
+		Map<Integer, HikariDataSource> shards = new HashMap<>();
+
+		for (ShardingConfig.Shard shard : shardingConfig.getShards()) {
+			HikariDataSource dataSource = new HikariDataSource();
+			defaultShardDataSource.copyStateTo(dataSource);
+			dataSource.setPoolName("shard-" + shard.getId());
+			dataSource.setJdbcUrl(shard.getUrl());
+			dataSource.setUsername(shard.getUsername() != null ? shard.getUsername() : dataSourceProperties.determineUsername());
+			dataSource.setPassword(shard.getPassword() != null ? shard.getPassword() : dataSourceProperties.determinePassword());
+			shards.put(shard.getId(), dataSource);
+		}
+
+		return new ShardRoutingDataSource(defaultShardDataSource, shards);
+	}
+
+	/**
+	 * Takes the target connection on the first statement, inside the shard the repository call was made for.
+	 */
+	@Bean
+	@Primary
+	public DataSource shardingDataSource(ShardRoutingDataSource shardRoutingDataSource) {
+		return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+	}
+
+	/**
+	 * Same as for read replicas, a session kept open in the view must not hold on to the first shard it was routed to.
+	 */
+	@Bean
+	public HibernatePropertiesCustomizer shardingHibernatePropertiesCustomizer() {
+		return properties -> properties.putIfAbsent(
+			AvailableSettings.CONNECTION_HANDLING,
+			PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION
+		);
+	}
+
+}
@@ -0,0 +1,148 @@
+package com.ludwigit.app.config;
+
+import com.ludwigit.app.model.RedirectType;
+import com.ludwigit.app.model.ShortedURL;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Value serializer that stores {@link ShortedURL} entries as a small versioned record instead of typed JSON and hands
+ * every other value to the wrapped serializer.
+ * <p>
+ * Record layout: the {@link #FORMAT_V1} byte, the id as 8 big-endian bytes and the original URL in UTF-8. Links with
+ * a redirect type of their own are written as {@link #FORMAT_V2}, with the type's status code as 2 more bytes after
+ * the id, and every other link stays in the first format so nodes that only know it can still read them. JSON always
+ * starts with a printable character, so entries cached before this format existed are still read through the wrapped
+ * serializer and are replaced as they expire.
+ * <p>
+ * Any other leading control byte is taken as a format this node does not know yet, written by a newer node during a
+ * rolling upgrade. Such entries, and truncated ones, are read as a cache miss, so the link is loaded from the database
+ * instead of failing the redirect.
+ * <p>
+ * Both directions are timed under {@code ludwigit.redis.serialization}, whatever the format.
+ */
+@Slf4j
+public class ShortedURLRedisSerializer implements RedisSerializer<Object> {
+
+	static final byte FORMAT_V1 = 1;
+	static final byte FORMAT_V2 = 2;
+
+	private static final int HEADER_LENGTH = 1 + Long.BYTES;
+	private static final int V2_HEADER_LENGTH = HEADER_LENGTH + Short.BYTES;
+
+	private final RedisSerializer<Object> delegate;
+	private final boolean writeCompact;
+	private final Timer serializeTimer;
+	private final Timer deserializeTimer;
+	// Logged once per format, a newer node keeps writing them for as long as the upgrade takes
+	private final Set<Byte> reportedFormats = ConcurrentHashMap.newKeySet();
+
+	public ShortedURLRedisSerializer(RedisSerializer<Object> delegate, boolean writeCompact, MeterRegistry meterRegistry) {
+		this.delegate = delegate;
+		this.writeCompact = writeCompact;
+		this.serializeTimer = timer(meterRegistry, "serialize");
+		this.deserializeTimer = timer(meterRegistry, "deserialize");
+	}
+
+	@Override
+	public byte[] serialize(Object value) throws SerializationException {
+		long start = System.nanoTime();
+
+		try {
+			return write(value);
+		} finally {
+			serializeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	@Override
+	public Object deserialize(byte[] bytes) throws SerializationException {
+		long start = System.nanoTime();
+
+		try {
+			return read(bytes);
+		} finally {
+			deserializeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	private byte[] write(Object value) {
+		if (!writeCompact || !(value instanceof ShortedURL shortedUrl) || shortedUrl.getId() == null) {
+			return delegate.serialize(value);
+		}
+
+		byte[] originalUrl = shortedUrl.getOriginalUrl().getBytes(StandardCharsets.UTF_8);
+		RedirectType redirectType = shortedUrl.getRedirectType();
+
+		if (redirectType == null) {
+			return ByteBuffer.allocate(HEADER_LENGTH + originalUrl.length)
+				.put(FORMAT_V1)
+				.putLong(shortedUrl.getId())
+				.put(originalUrl)
+				.array();
+		}
+
+		return ByteBuffer.allocate(V2_HEADER_LENGTH + originalUrl.length)
+			.put(FORMAT_V2)
+			.putLong(shortedUrl.getId())
+			.putShort((short) redirectType.status())
+			.put(originalUrl)
+			.array();
+	}
+
+	private Object read(byte[] bytes) {
+		if (bytes == null || bytes.length == 0 || !isRecord(bytes[0])) {
+			return delegate.deserialize(bytes);
+		}
+
+		if (bytes[0] != FORMAT_V1 && bytes[0] != FORMAT_V2) {
+			if (reportedFormats.add(bytes[0])) {
+				log.warn("Cache entry in unknown format {}, read as a miss until this node is upgraded", bytes[0]);
+			}
+			return null;
+		}
+
+		int headerLength = bytes[0] == FORMAT_V1 ? HEADER_LENGTH : V2_HEADER_LENGTH;
+
+		if (bytes.length < headerLength) {
+			log.warn("Truncated shorted URL cache entry of {} bytes, read as a miss", bytes.length);
+			return null;
+		}
+
+		ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, headerLength - 1);
+		ShortedURL.ShortedURLBuilder shortedUrl = ShortedURL.builder().id(buffer.getLong());
+
+		if (bytes[0] == FORMAT_V2) {
+			// Unknown status codes fall back to the default type
+			shortedUrl.redirectType(RedirectType.fromStatus(buffer.getShort()).orElse(null));
+		}
+
+		return shortedUrl
+			.originalUrl(new String(bytes, headerLength, bytes.length - headerLength, StandardCharsets.UTF_8))
+			.build();
+	}
+
+	/**
+	 * @return whether the first byte is a control character, which no JSON document starts with but whitespace does
+	 */
+	private static boolean isRecord(byte first) {
+		return first >= 0 && first < ' ' && first != '\t' && first != '\n' && first != '\r';
+	}
+
+	private static Timer timer(MeterRegistry meterRegistry, String operation) {
+		return Timer.builder("ludwigit.redis.serialization")
+			.description("Time spent converting cached values to and from bytes")
+			.tag("operation", operation)
+			.register(meterRegistry);
+	}
+
+}
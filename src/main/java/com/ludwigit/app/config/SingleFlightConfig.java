@@ -0,0 +1,35 @@
+package com.ludwigit.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.single-flight")
+@EnableConfigurationProperties
+@Component
+@Validated
+@Data
+public class SingleFlightConfig {
+
+	/**
+	 * Also coalesces database loads across nodes with a short lived Redis lock. Loads within a node are always
+	 * coalesced.
+	 */
+	private boolean distributedLock = false;
+
+	/**
+	 * Expiry of the lock, in case its holder dies before releasing it.
+	 */
+	private Duration lockTimeout = Duration.ofSeconds(2);
+
+	/**
+	 * How long other nodes wait for the holder to fill the cache before loading from the database themselves.
+	 */
+	private Duration lockWait = Duration.ofMillis(250);
+	private Duration lockPollInterval = Duration.ofMillis(25);
+
+}
@@ -0,0 +1,84 @@
+package com.ludwigit.app.config;
+
+import com.ludwigit.app.dto.responses.ImportShortedURLsResult;
+import com.ludwigit.app.services.ShortedURLTransferService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+@Slf4j
+@Configuration
+public class TransferCommandConfig {
+
+	private static final String EXPORT_OPTION = "export-shorted-urls";
+	private static final String IMPORT_OPTION = "import-shorted-urls";
+	private static final String FORMAT_OPTION = "format";
+
+	/**
+	 * Runs an export or an import given on the command line and exits, for example
+	 * {@code java -jar ludwigit.jar --spring.main.web-application-type=none --export-shorted-urls=backup.csv}. The
+	 * format follows the file extension unless {@code --format=ndjson|csv} is given.
+	 */
+	@Bean
+	public ApplicationRunner shortedUrlTransferCommand(
+		ShortedURLTransferService shortedUrlTransferService,
+		ConfigurableApplicationContext context
+	) {
+		return arguments -> {
+			String exportPath = option(arguments, EXPORT_OPTION);
+			String importPath = option(arguments, IMPORT_OPTION);
+
+			if (exportPath == null && importPath == null) {
+				return;
+			}
+
+			int exitCode = 0;
+
+			try {
+				if (exportPath != null) {
+					try (OutputStream output = Files.newOutputStream(Path.of(exportPath))) {
+						long exported = shortedUrlTransferService.exportShortedURLs(format(arguments, exportPath), output);
+						log.info("Exported {} shorted URLs to {}", exported, exportPath);
+					}
+				} else {
+					try (InputStream input = Files.newInputStream(Path.of(importPath))) {
+						ImportShortedURLsResult result = shortedUrlTransferService.importShortedURLs(format(arguments, importPath), input);
+						log.info(
+							"Imported {} shorted URLs from {}, {} already existed and {} were invalid",
+							result.getImported(), importPath, result.getSkipped(), result.getFailed()
+						);
+						result.getErrors().forEach(error -> log.warn("Invalid row at {}", error));
+						exitCode = result.getFailed() > 0 ? 2 : 0;
+					}
+				}
+			} catch (Exception exception) {
+				log.error("Could not transfer shorted URLs", exception);
+				exitCode = 1;
+			}
+
+			int finalExitCode = exitCode;
+			System.exit(SpringApplication.exit(context, () -> finalExitCode));
+		};
+	}
+
+	private static String option(ApplicationArguments arguments, String name) {
+		List<String> values = arguments.getOptionValues(name);
+		return values != null && !values.isEmpty() ? values.get(0) : null;
+	}
+
+	private static ShortedURLTransferService.Format format(ApplicationArguments arguments, String path) {
+		String format = option(arguments, FORMAT_OPTION);
+		return ShortedURLTransferService.Format.of(format != null ? format : path);
+	}
+
+}
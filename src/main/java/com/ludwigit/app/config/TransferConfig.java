@@ -0,0 +1,32 @@
+package com.ludwigit.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+@ConfigurationProperties(prefix = "app.transfer")
+@EnableConfigurationProperties
+@Component
+@Validated
+@Data
+public class TransferConfig {
+
+	/**
+	 * Rows read per query on export and inserted per transaction on import.
+	 */
+	private Integer pageSize = 1_000;
+
+	/**
+	 * Bearer token for the {@code /admin/shorted-urls} export and import endpoints, which are only mapped when it is
+	 * set.
+	 */
+	private String adminToken;
+
+	/**
+	 * Import errors kept in the result, the rest are only counted.
+	 */
+	private Integer maxReportedErrors = 100;
+
+}
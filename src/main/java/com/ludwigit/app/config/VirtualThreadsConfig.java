@@ -0,0 +1,67 @@
+package com.ludwigit.app.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Virtual-thread mode, enabled with {@code spring.threads.virtual.enabled=true}. Tomcat then runs every request on its
+ * own virtual thread, and the blocking Redis and JDBC calls in the services park that virtual thread instead of
+ * holding an OS thread.
+ * <p>
+ * Request concurrency is no longer capped by the Tomcat worker pool but by {@code server.tomcat.max-connections}, so
+ * the database pool becomes the real limit. Size {@code spring.datasource.hikari.maximum-pool-size} for what Postgres
+ * can serve (around twice its cores), not for the request concurrency, and keep
+ * {@code spring.datasource.hikari.connection-timeout} short so a saturated pool fails fast instead of parking
+ * thousands of requests. Lettuce multiplexes all commands over one connection and needs no change.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadsConfig {
+
+	private static final Duration MAX_CONNECTION_TIMEOUT = Duration.ofSeconds(5);
+
+	@Bean
+	public ApplicationRunner virtualThreadsPoolCheck(ObjectProvider<DataSource> dataSource) {
+		return arguments -> {
+			// Edge nodes run without a database
+			DataSource available = dataSource.getIfAvailable();
+			HikariDataSource hikariDataSource = available != null ? unwrap(available) : null;
+
+			if (hikariDataSource == null) {
+				return;
+			}
+
+			log.info(
+				"Serving requests on virtual threads, database access is limited to {} pooled connections",
+				hikariDataSource.getMaximumPoolSize()
+			);
+
+			if (hikariDataSource.getConnectionTimeout() > MAX_CONNECTION_TIMEOUT.toMillis()) {
+				log.warn(
+					"spring.datasource.hikari.connection-timeout is {} ms, requests will queue for that long when the pool is exhausted",
+					hikariDataSource.getConnectionTimeout()
+				);
+			}
+		};
+	}
+
+	private static HikariDataSource unwrap(DataSource dataSource) throws SQLException {
+		if (dataSource instanceof HikariDataSource hikariDataSource) {
+			return hikariDataSource;
+		}
+
+		return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+	}
+
+}
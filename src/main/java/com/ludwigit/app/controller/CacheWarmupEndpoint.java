@@ -0,0 +1,40 @@
+package com.ludwigit.app.controller;
+
+import com.ludwigit.app.services.CacheWarmupService;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Starts a cache warm-up on demand with a {@code POST} to {@code /actuator/cachewarmup}, and reports on the last one
+ * with a {@code GET}. Like every actuator endpoint it is only reachable once exposed through
+ * {@code management.endpoints.web.exposure.include}.
+ */
+@Component
+@Endpoint(id = "cachewarmup")
+public class CacheWarmupEndpoint {
+
+	private final CacheWarmupService cacheWarmupService;
+
+	public CacheWarmupEndpoint(CacheWarmupService cacheWarmupService) {
+		this.cacheWarmupService = cacheWarmupService;
+	}
+
+	@ReadOperation
+	public Map<String, Object> status() {
+		Map<String, Object> status = new LinkedHashMap<>();
+		status.put("running", cacheWarmupService.isRunning());
+		cacheWarmupService.lastResult().ifPresent(result -> status.put("last", result));
+
+		return status;
+	}
+
+	@WriteOperation
+	public Map<String, Object> start() {
+		return Map.of("started", cacheWarmupService.start());
+	}
+}
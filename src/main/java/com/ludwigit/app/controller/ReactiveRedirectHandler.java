@@ -0,0 +1,170 @@
+package com.ludwigit.app.controller;
+
+import com.ludwigit.app.config.RateLimitConfig;
+import com.ludwigit.app.exceptions.AppException;
+import com.ludwigit.app.model.RedirectType;
+import com.ludwigit.app.services.ClickAnalyticsService;
+import com.ludwigit.app.services.RateLimitService;
+import com.ludwigit.app.services.ReactiveShortedURLService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.net.InetSocketAddress;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RequestPredicates.HEAD;
+
+/**
+ * Redirect endpoint of the reactive redirect server, answering like {@link ShortedURLController#retrieveUrl} behind
+ * the {@link com.ludwigit.app.config.RateLimitFilter}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.reactive-redirect.enabled", havingValue = "true")
+public class ReactiveRedirectHandler {
+
+	private final ReactiveShortedURLService reactiveShortedUrlService;
+	private final RateLimitService rateLimitService;
+	private final ClickAnalyticsService clickAnalyticsService;
+	private final RateLimitConfig rateLimitConfig;
+	private final RedirectHeaders redirectHeaders;
+	private final Scheduler databaseScheduler;
+
+	public ReactiveRedirectHandler(
+		ReactiveShortedURLService reactiveShortedUrlService,
+		RateLimitService rateLimitService,
+		ClickAnalyticsService clickAnalyticsService,
+		RateLimitConfig rateLimitConfig,
+		RedirectHeaders redirectHeaders,
+		@Qualifier("redirectDatabaseScheduler") Scheduler databaseScheduler
+	) {
+		this.reactiveShortedUrlService = reactiveShortedUrlService;
+		this.rateLimitService = rateLimitService;
+		this.clickAnalyticsService = clickAnalyticsService;
+		this.rateLimitConfig = rateLimitConfig;
+		this.redirectHeaders = redirectHeaders;
+		this.databaseScheduler = databaseScheduler;
+	}
+
+	public RouterFunction<ServerResponse> routes() {
+		return RouterFunctions.route(GET("/{shortenUrl}").or(HEAD("/{shortenUrl}")), this::retrieveUrl);
+	}
+
+	public Mono<ServerResponse> retrieveUrl(ServerRequest request) {
+		String shortenUrl = request.pathVariable("shortenUrl");
+		RateLimitService.RoutePolicy policy = rateLimitService.resolve(request.method().name(), request.path());
+
+		return consume(request, policy)
+			.flatMap(decision -> {
+				if (!decision.allowed()) {
+					return tooManyRequests(decision);
+				}
+
+				return reactiveShortedUrlService.retrieveUrl(shortenUrl).flatMap(redirect -> {
+					// Same as the servlet endpoint, HEAD requests are not clicks
+					if (request.method() != HttpMethod.HEAD) {
+						clickAnalyticsService.record(shortenUrl, request.headers().firstHeader(HttpHeaders.REFERER));
+					}
+
+					return ServerResponse
+						.status(redirect.redirectType().status())
+						.location(redirect.location())
+						.headers(headers -> {
+							setRateLimitHeaders(headers, policy, decision);
+							setCacheHeaders(headers, redirect.redirectType());
+						})
+						.build();
+				});
+			})
+			.onErrorResume(AppException.class, exception -> ServerResponse
+				.status(exception.code)
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(errorBody(exception.getMessage(), exception.code, exception.timestamp)));
+	}
+
+	private Mono<RateLimitService.Decision> consume(ServerRequest request, RateLimitService.RoutePolicy policy) {
+		if (policy.exempt()) {
+			return Mono.just(RateLimitService.Decision.unlimited(policy.limit()));
+		}
+
+		String clientKey = getClientKey(request, policy);
+
+		// Hybrid decisions are taken in memory, the Redis scripts block and must stay off the event loop
+		if (rateLimitConfig.getMode() == RateLimitConfig.Mode.HYBRID) {
+			return Mono.fromSupplier(() -> rateLimitService.consume(policy, clientKey));
+		}
+
+		return Mono.fromSupplier(() -> rateLimitService.consume(policy, clientKey)).subscribeOn(databaseScheduler);
+	}
+
+	private Mono<ServerResponse> tooManyRequests(RateLimitService.Decision decision) {
+		return ServerResponse
+			.status(HttpStatus.TOO_MANY_REQUESTS)
+			.contentType(MediaType.APPLICATION_JSON)
+			.headers(headers -> {
+				headers.set("X-RateLimit-Limit", String.valueOf(decision.limit()));
+				headers.set("X-RateLimit-Remaining", "0");
+				headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max((decision.retryAfterMillis() + 999) / 1000, 1)));
+			})
+			.bodyValue(errorBody(
+				"Too many requests. Please slow down and try again later.",
+				HttpStatus.TOO_MANY_REQUESTS.value(),
+				LocalDateTime.now()
+			));
+	}
+
+	private void setRateLimitHeaders(HttpHeaders headers, RateLimitService.RoutePolicy policy, RateLimitService.Decision decision) {
+		if (!policy.exempt()) {
+			headers.set("X-RateLimit-Limit", String.valueOf(decision.limit()));
+			headers.set("X-RateLimit-Remaining", String.valueOf(Math.max(decision.remaining(), 0)));
+		}
+	}
+
+	private void setCacheHeaders(HttpHeaders headers, RedirectType redirectType) {
+		headers.set(HttpHeaders.CACHE_CONTROL, redirectHeaders.cacheControl(redirectType));
+
+		String expires = redirectHeaders.expires(redirectType);
+
+		if (expires != null) {
+			headers.set(HttpHeaders.EXPIRES, expires);
+		}
+	}
+
+	private String getClientKey(ServerRequest request, RateLimitService.RoutePolicy policy) {
+		String apiKey = policy.apiKeyHeader() != null ? request.headers().firstHeader(policy.apiKeyHeader()) : null;
+		return policy.clientKey(apiKey, getClientIp(request));
+	}
+
+	private String getClientIp(ServerRequest request) {
+		String forwarded = request.headers().firstHeader("X-Forwarded-For");
+		if (forwarded != null && !forwarded.isBlank()) {
+			return forwarded.split(",")[0].trim();
+		}
+
+		return request.remoteAddress()
+			.map(InetSocketAddress::getAddress)
+			.map(address -> address.getHostAddress())
+			.orElse("unknown");
+	}
+
+	private static Map<String, Object> errorBody(String message, int code, LocalDateTime timestamp) {
+		Map<String, Object> body = new LinkedHashMap<>();
+		body.put("message", message);
+		body.put("code", code);
+		body.put("timestamp", timestamp.toString());
+		return body;
+	}
+}
@@ -0,0 +1,68 @@
+package com.ludwigit.app.controller;
+
+import com.ludwigit.app.config.RedirectConfig;
+import com.ludwigit.app.model.RedirectType;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Caching headers of redirect responses, shared by the servlet and the reactive redirect endpoints.
+ * <p>
+ * {@code Cache-Control} only depends on the redirect type and is built once. {@code Expires}, for caches that predate
+ * {@code Cache-Control}, is formatted at most once per second per type instead of on every response.
+ */
+@Component
+public class RedirectHeaders {
+
+	private final String[] cacheControls = new String[RedirectType.values().length];
+	private final long[] maxAgeSeconds = new long[RedirectType.values().length];
+	private final FormattedExpires[] expires = new FormattedExpires[RedirectType.values().length];
+
+	public RedirectHeaders(RedirectConfig redirectConfig) {
+		for (RedirectType redirectType : RedirectType.values()) {
+			Duration maxAge = redirectType.isPermanent()
+				? redirectConfig.getPermanentMaxAge()
+				: redirectConfig.getTemporaryMaxAge();
+			long seconds = Math.max(maxAge.toSeconds(), 0);
+
+			maxAgeSeconds[redirectType.ordinal()] = seconds;
+			cacheControls[redirectType.ordinal()] = seconds > 0 ? "public, max-age=" + seconds : "no-store";
+		}
+	}
+
+	public String cacheControl(RedirectType redirectType) {
+		return cacheControls[redirectType.ordinal()];
+	}
+
+	/**
+	 * @return the {@code Expires} value, or {@code null} when the redirect must not be cached
+	 */
+	public String expires(RedirectType redirectType) {
+		long maxAge = maxAgeSeconds[redirectType.ordinal()];
+
+		if (maxAge == 0) {
+			return null;
+		}
+
+		long now = System.currentTimeMillis() / 1000;
+		FormattedExpires formatted = expires[redirectType.ordinal()];
+
+		if (formatted == null || formatted.epochSecond() != now) {
+			// Racing threads format the same value, and the record's final fields make it safe to share without locking
+			formatted = new FormattedExpires(
+				now,
+				DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochSecond(now + maxAge).atOffset(ZoneOffset.UTC))
+			);
+			expires[redirectType.ordinal()] = formatted;
+		}
+
+		return formatted.value();
+	}
+
+	private record FormattedExpires(long epochSecond, String value) {
+	}
+}
@@ -0,0 +1,89 @@
+package com.ludwigit.app.controller;
+
+import com.ludwigit.app.config.TransferConfig;
+import com.ludwigit.app.dto.responses.ImportShortedURLsResult;
+import com.ludwigit.app.exceptions.InvalidTransferFormatException;
+import com.ludwigit.app.exceptions.UnauthorizedException;
+import com.ludwigit.app.services.ShortedURLTransferService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Locale;
+
+/**
+ * Export and import of the whole {@code shorted_urls} table, see {@link ShortedURLTransferService}. Only mapped when
+ * {@code app.transfer.admin-token} is set, and every request has to carry it as a bearer token.
+ */
+@RestController
+@RequestMapping("/admin/shorted-urls")
+@ConditionalOnProperty(name = "app.transfer.admin-token")
+public class ShortedURLAdminController {
+
+	private final ShortedURLTransferService shortedUrlTransferService;
+	private final byte[] adminToken;
+
+	public ShortedURLAdminController(
+		ShortedURLTransferService shortedUrlTransferService,
+		TransferConfig transferConfig
+	) {
+		this.shortedUrlTransferService = shortedUrlTransferService;
+		this.adminToken = ("Bearer " + transferConfig.getAdminToken()).getBytes(StandardCharsets.UTF_8);
+	}
+
+	@GetMapping(path = "/export")
+	public void exportShortedUrls(
+		@RequestParam(defaultValue = "ndjson") String format,
+		@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+		HttpServletResponse response
+	) throws IOException, UnauthorizedException, InvalidTransferFormatException {
+		authorize(authorization);
+		ShortedURLTransferService.Format transferFormat = format(format);
+
+		response.setStatus(HttpStatus.OK.value());
+		response.setContentType(transferFormat == ShortedURLTransferService.Format.CSV
+			? "text/csv;charset=UTF-8"
+			: MediaType.APPLICATION_NDJSON_VALUE);
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+			.filename("shorted-urls." + transferFormat.name().toLowerCase(Locale.ROOT))
+			.build()
+			.toString());
+
+		shortedUrlTransferService.exportShortedURLs(transferFormat, response.getOutputStream());
+	}
+
+	@PostMapping(path = "/import")
+	public ResponseEntity<ImportShortedURLsResult> importShortedUrls(
+		@RequestParam(defaultValue = "ndjson") String format,
+		@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+		HttpServletRequest request
+	) throws IOException, UnauthorizedException, InvalidTransferFormatException {
+		authorize(authorization);
+
+		return ResponseEntity.ok(shortedUrlTransferService.importShortedURLs(format(format), request.getInputStream()));
+	}
+
+	private void authorize(String authorization) throws UnauthorizedException {
+		// Constant time, so the token cannot be guessed from response times
+		if (authorization == null || !MessageDigest.isEqual(adminToken, authorization.getBytes(StandardCharsets.UTF_8))) {
+			throw new UnauthorizedException();
+		}
+	}
+
+	private static ShortedURLTransferService.Format format(String format) throws InvalidTransferFormatException {
+		try {
+			return ShortedURLTransferService.Format.of(format);
+		} catch (IllegalArgumentException exception) {
+			throw new InvalidTransferFormatException();
+		}
+	}
+}
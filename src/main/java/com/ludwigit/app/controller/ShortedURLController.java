@@ -1,47 +1,112 @@
 package com.ludwigit.app.controller;
 
 import com.ludwigit.app.dto.requests.CreateShortURLRequestBody;
+import com.ludwigit.app.dto.responses.ClickStatsResponse;
 import com.ludwigit.app.exceptions.AppException;
+import com.ludwigit.app.exceptions.ReadOnlyNodeException;
 import com.ludwigit.app.exceptions.ShortedURLNotFoundException;
+import com.ludwigit.app.model.Redirect;
+import com.ludwigit.app.model.RedirectType;
+import com.ludwigit.app.services.ClickAnalyticsService;
+import com.ludwigit.app.services.ShortedURLBatchService;
 import com.ludwigit.app.services.ShortedURLService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.net.URI;
-import java.net.URISyntaxException;
+import java.io.IOException;
 
 @RestController
 @RequestMapping("/")
 public class ShortedURLController {
 
 	private final ShortedURLService shortedUrlService;
+	private final ShortedURLBatchService shortedUrlBatchService;
+	private final ClickAnalyticsService clickAnalyticsService;
+	private final RedirectHeaders redirectHeaders;
 
-	public ShortedURLController(ShortedURLService shortedUrlService) {
+	public ShortedURLController(
+		ShortedURLService shortedUrlService,
+		ShortedURLBatchService shortedUrlBatchService,
+		ClickAnalyticsService clickAnalyticsService,
+		RedirectHeaders redirectHeaders
+	) {
 		this.shortedUrlService = shortedUrlService;
+		this.shortedUrlBatchService = shortedUrlBatchService;
+		this.clickAnalyticsService = clickAnalyticsService;
+		this.redirectHeaders = redirectHeaders;
 	}
 
+	/**
+	 * Also answers {@code HEAD}, with the same headers and no body.
+	 */
 	@GetMapping(path = "/{shortenUrl}")
-	public ResponseEntity<String> retrieveUrl(@PathVariable String shortenUrl) throws URISyntaxException, ShortedURLNotFoundException {
-		String originalUrl = shortedUrlService.retrieveUrl(shortenUrl);
+	public void retrieveUrl(
+		@PathVariable String shortenUrl,
+		@RequestHeader(value = HttpHeaders.REFERER, required = false) String referer,
+		HttpServletRequest request,
+		HttpServletResponse response
+	) throws ShortedURLNotFoundException {
+		Redirect redirect = shortedUrlService.retrieveUrl(shortenUrl);
 
-		HttpHeaders httpHeaders = new HttpHeaders();
-		httpHeaders.setLocation(new URI(originalUrl));
+		// Link checkers and previews probe with HEAD, only actual visits are clicks
+		if (!HttpMethod.HEAD.matches(request.getMethod())) {
+			clickAnalyticsService.record(shortenUrl, referer);
+		}
 
-		return ResponseEntity
-			.status(HttpStatus.MOVED_PERMANENTLY)
-			.headers(httpHeaders)
-			.build();
+		// Written straight to the response, the URL was parsed when it was cached and the header values are shared
+		RedirectType redirectType = redirect.redirectType();
+		response.setStatus(redirectType.status());
+		response.setHeader(HttpHeaders.LOCATION, redirect.location().toASCIIString());
+		response.setHeader(HttpHeaders.CACHE_CONTROL, redirectHeaders.cacheControl(redirectType));
+
+		String expires = redirectHeaders.expires(redirectType);
+
+		if (expires != null) {
+			response.setHeader(HttpHeaders.EXPIRES, expires);
+		}
+	}
+
+	@GetMapping(path = "/stats/{shortenUrl}")
+	public ResponseEntity<ClickStatsResponse> stats(@PathVariable String shortenUrl) throws ShortedURLNotFoundException {
+		// Only known links have stats
+		shortedUrlService.retrieveUrl(shortenUrl);
+
+		return ResponseEntity.ok(clickAnalyticsService.stats(shortenUrl));
 	}
 
 	@PostMapping(path = "/create")
 	public ResponseEntity<String> shortUrl(
 		@Valid @RequestBody CreateShortURLRequestBody body
 	) throws AppException {
-		String url = body.getUrl();
+		return ResponseEntity.ok(shortedUrlService.createShortedURL(body.getUrl(), body.redirectType()));
+	}
+
+	/**
+	 * Accepts a JSON array or newline delimited JSON of {@link CreateShortURLRequestBody} and streams back one NDJSON
+	 * result per item, in the same order, as each chunk is stored.
+	 *
+	 * @throws ReadOnlyNodeException on nodes without the database, before anything is streamed
+	 */
+	@PostMapping(
+		path = "/create/batch",
+		consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+		produces = MediaType.APPLICATION_NDJSON_VALUE
+	)
+	public void shortUrls(HttpServletRequest request, HttpServletResponse response) throws IOException, AppException {
+		if (shortedUrlService.isReadOnly()) {
+			throw new ReadOnlyNodeException();
+		}
+
+		response.setStatus(HttpStatus.OK.value());
+		response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
 
-		return ResponseEntity.ok(shortedUrlService.createShortedURL(url));
+		shortedUrlBatchService.createShortedURLs(request.getInputStream(), response.getOutputStream());
 	}
 }
@@ -1,18 +1,38 @@
 package com.ludwigit.app.dto.requests;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.ludwigit.app.model.RedirectType;
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
+import lombok.extern.jackson.Jacksonized;
 import org.hibernate.validator.constraints.URL;
 
 @Getter
 @Setter
 @Builder
+@Jacksonized
 public class CreateShortURLRequestBody {
 	@NotNull
 	@NotBlank
 	@URL
 	private String url;
+
+	/**
+	 * 301, 302, 307 or 308, the configured default when not given.
+	 */
+	private Integer redirectStatus;
+
+	@JsonIgnore
+	@AssertTrue(message = "redirectStatus must be one of 301, 302, 307 or 308")
+	public boolean isRedirectStatusValid() {
+		return redirectStatus == null || RedirectType.fromStatus(redirectStatus).isPresent();
+	}
+
+	public RedirectType redirectType() {
+		return redirectStatus != null ? RedirectType.fromStatus(redirectStatus).orElse(null) : null;
+	}
 }
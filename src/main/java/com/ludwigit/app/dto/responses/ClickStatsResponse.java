@@ -0,0 +1,16 @@
+package com.ludwigit.app.dto.responses;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.Map;
+
+@Getter
+@Builder
+public class ClickStatsResponse {
+	private String code;
+	private long totalClicks;
+	private Map<String, Long> referrers;
+	// Keyed by the ISO-8601 start of each minute
+	private Map<String, Long> clicksPerMinute;
+}
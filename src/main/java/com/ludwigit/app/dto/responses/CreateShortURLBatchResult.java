@@ -0,0 +1,15 @@
+package com.ludwigit.app.dto.responses;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CreateShortURLBatchResult {
+	private int index;
+	private String url;
+	private String shortUrl;
+	private String error;
+}
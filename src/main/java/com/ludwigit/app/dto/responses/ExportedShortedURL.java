@@ -0,0 +1,25 @@
+package com.ludwigit.app.dto.responses;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.ludwigit.app.model.RedirectType;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * One line of an NDJSON export, read back as is by the import.
+ */
+@Getter
+@Builder
+@Jacksonized
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ExportedShortedURL {
+	private Long id;
+	private String code;
+	private String originalUrl;
+
+	/**
+	 * Left out for links redirecting with the configured default.
+	 */
+	private RedirectType redirectType;
+}
@@ -0,0 +1,20 @@
+package com.ludwigit.app.dto.responses;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@Builder
+public class ImportShortedURLsResult {
+	private long imported;
+
+	/**
+	 * Rows whose id was already taken, left as they were.
+	 */
+	private long skipped;
+
+	private long failed;
+	private List<String> errors;
+}
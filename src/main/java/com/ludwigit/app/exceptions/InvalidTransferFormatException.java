@@ -0,0 +1,11 @@
+package com.ludwigit.app.exceptions;
+
+import org.springframework.http.HttpStatus;
+
+public class InvalidTransferFormatException extends AppException {
+
+	public InvalidTransferFormatException() {
+		super("Unknown format, expected ndjson or csv", HttpStatus.BAD_REQUEST);
+	}
+
+}
@@ -0,0 +1,11 @@
+package com.ludwigit.app.exceptions;
+
+import org.springframework.http.HttpStatus;
+
+public class ReadOnlyNodeException extends AppException {
+
+	public ReadOnlyNodeException() {
+		super("This node only serves redirects, links are created on the nodes with the database", HttpStatus.METHOD_NOT_ALLOWED);
+	}
+
+}
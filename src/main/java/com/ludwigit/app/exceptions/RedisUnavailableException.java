@@ -0,0 +1,17 @@
+package com.ludwigit.app.exceptions;
+
+/**
+ * Thrown instead of calling Redis while the circuit breaker is open, or when a call failed to reach it. Callers with a
+ * fallback catch it, anything else is answered with a {@code 503}.
+ */
+public class RedisUnavailableException extends RuntimeException {
+
+	public RedisUnavailableException(String message) {
+		super(message);
+	}
+
+	public RedisUnavailableException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+}
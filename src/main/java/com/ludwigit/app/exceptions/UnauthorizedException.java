@@ -0,0 +1,11 @@
+package com.ludwigit.app.exceptions;
+
+import org.springframework.http.HttpStatus;
+
+public class UnauthorizedException extends AppException {
+
+	public UnauthorizedException() {
+		super("Missing or invalid credentials", HttpStatus.UNAUTHORIZED);
+	}
+
+}
@@ -1,6 +1,8 @@
 package com.ludwigit.app.exceptions.handlers;
 
 import com.ludwigit.app.exceptions.AppException;
+import com.ludwigit.app.exceptions.RedisUnavailableException;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -12,6 +14,7 @@ import java.time.LocalDateTime;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
+@Slf4j
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
@@ -53,9 +56,20 @@ public class GlobalExceptionHandler {
 		return ResponseEntity.status(HttpStatus.NOT_FOUND).body(body);
 	}
 
+	@ExceptionHandler(RedisUnavailableException.class)
+	public ResponseEntity<Object> handleRedisUnavailableException(RedisUnavailableException exception) {
+		Map<String, Object> body = new LinkedHashMap<>();
+
+		body.put("message", "This resource is temporarily unavailable. Please try again later.");
+		body.put("code", HttpStatus.SERVICE_UNAVAILABLE);
+		body.put("timestamp", LocalDateTime.now());
+
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(body);
+	}
+
 	@ExceptionHandler(Exception.class)
 	public ResponseEntity<Object> handleGlobalException(Exception exception) {
-		System.out.println(exception);
+		log.error("Unexpected error while handling a request", exception);
 
 		Map<String, Object> body = new LinkedHashMap<>();
 
@@ -0,0 +1,16 @@
+package com.ludwigit.app.model;
+
+import java.net.URI;
+
+/**
+ * What a redirect needs to answer, kept in the near cache so hot links are neither looked up nor parsed again.
+ *
+ * @param location the original URL, parsed once when cached
+ */
+public record Redirect(String originalUrl, URI location, RedirectType redirectType) {
+
+	public static Redirect of(String originalUrl, RedirectType redirectType) {
+		return new Redirect(originalUrl, URI.create(originalUrl), redirectType);
+	}
+
+}
@@ -0,0 +1,42 @@
+package com.ludwigit.app.model;
+
+import java.util.Optional;
+
+/**
+ * How a shorted URL redirects. Permanent redirects may be cached by browsers and CDNs for longer, temporary ones keep
+ * every click reaching the app.
+ */
+public enum RedirectType {
+	MOVED_PERMANENTLY(301, true),
+	FOUND(302, false),
+	TEMPORARY_REDIRECT(307, false),
+	PERMANENT_REDIRECT(308, true);
+
+	private static final RedirectType[] VALUES = values();
+
+	private final int status;
+	private final boolean permanent;
+
+	RedirectType(int status, boolean permanent) {
+		this.status = status;
+		this.permanent = permanent;
+	}
+
+	public int status() {
+		return status;
+	}
+
+	public boolean isPermanent() {
+		return permanent;
+	}
+
+	public static Optional<RedirectType> fromStatus(int status) {
+		for (RedirectType redirectType : VALUES) {
+			if (redirectType.status == status) {
+				return Optional.of(redirectType);
+			}
+		}
+
+		return Optional.empty();
+	}
+}
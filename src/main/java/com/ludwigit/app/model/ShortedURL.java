@@ -1,22 +1,82 @@
 package com.ludwigit.app.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
 @Entity
 @Builder
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "shorted_urls")
+@Table(
+	name = "shorted_urls",
+	indexes = @Index(name = "idx_shorted_urls_original_url_hash", columnList = "original_url_hash")
+)
 public class ShortedURL {
 
+	public static final String ID_SEQUENCE = "shorted_urls_seq";
+	public static final int ID_ALLOCATION_SIZE = 50;
+
+	/**
+	 * Ids carry the shard holding the row in their bits above these, so an id stays unique across shards and the default
+	 * shard, 0, keeps the ids of links created before sharding.
+	 */
+	public static final int SHARD_SHIFT = 40;
+	public static final long LOCAL_ID_MASK = (1L << SHARD_SHIFT) - 1;
+
+	// Keeps every id within the 53 bits the Hashids codes and JSON numbers hold
+	public static final int MAX_SHARD = (1 << 13) - 1;
+
+	// Ids are reserved from the sequence in blocks, so each node hands them out in memory and inserts can be batched
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+	@SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
 	private Long id;
 
 	@Column(name = "original_url", nullable = false)
 	private String originalUrl;
 
+	// Fixed width SHA-256 of the original URL, indexed for deduplication instead of the unbounded URL itself
+	@JsonIgnore
+	@Column(name = "original_url_hash", length = 32)
+	private byte[] originalUrlHash;
+
+	// Null follows app.redirect.default-type, so changing the default also applies to links created before
+	@Enumerated(EnumType.STRING)
+	@Column(name = "redirect_type", length = 32)
+	private RedirectType redirectType;
+
+	@PrePersist
+	void computeOriginalUrlHash() {
+		if (originalUrlHash == null && originalUrl != null) {
+			originalUrlHash = hashOriginalUrl(originalUrl);
+		}
+	}
+
+	public static int shardOf(long id) {
+		return (int) (id >>> SHARD_SHIFT);
+	}
+
+	/**
+	 * @return the lowest id of a shard, rows on it are numbered from there by its own sequence
+	 */
+	public static long firstIdOf(int shard) {
+		return (long) shard << SHARD_SHIFT;
+	}
+
+	public static byte[] hashOriginalUrl(String originalUrl) {
+		try {
+			return MessageDigest.getInstance("SHA-256").digest(originalUrl.getBytes(StandardCharsets.UTF_8));
+		} catch (NoSuchAlgorithmException exception) {
+			// Every Java platform is required to support SHA-256
+			throw new IllegalStateException(exception);
+		}
+	}
+
 }
@@ -0,0 +1,592 @@
+package com.ludwigit.app.repositories;
+
+import com.ludwigit.app.model.RedirectType;
+import com.ludwigit.app.model.ShortedURL;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Shorted URLs kept in two memory-mapped files, so a node can serve redirects without a database.
+ * <p>
+ * {@code links.dat} is an append-only log of records, each {@code [length][CRC32][id][redirect type][URL]}. Saving a
+ * link again appends a newer record, nothing is ever rewritten in place. {@code links.idx} is a dense array holding the
+ * position of the latest record of every id at byte {@code 8 * id}, which stays small because ids are handed out in
+ * sequence. Its first slot holds how far the log is covered by the index.
+ * <p>
+ * Reads take no lock, they cost one index slot and one record straight from the mapped pages. Appends are serialized
+ * and publish a record by writing its slot last, with release semantics. Both files are mapped in segments of a fixed
+ * size as they grow, and a record never crosses from one segment into the next.
+ * <p>
+ * With {@code sync}, appended records are forced to disk before their slots are written, and the slots before the
+ * covered length moves past them. Opening the store re-reads the log from the covered length, indexes the records that
+ * made it to disk and cuts off a torn one at the end, so an interrupted append is either complete or gone. Deleting
+ * {@code links.idx} rebuilds it from the log the same way.
+ */
+public class MappedLinkStore implements Closeable {
+
+	public static final String DATA_FILE = "links.dat";
+	public static final String INDEX_FILE = "links.idx";
+	public static final int MIN_SEGMENT_SIZE = 4_096;
+
+	private static final int MAGIC = 0x4c4e4b31;
+	// The log starts with the magic number and the segment size it was created with
+	private static final long DATA_START = 8;
+	// Length and CRC32 of the payload, then the payload: id, redirect type and URL
+	private static final int RECORD_HEADER = 8;
+	private static final int PAYLOAD_HEADER = 9;
+	// Marks the unused rest of a segment when the next record did not fit
+	private static final int PADDING = -1;
+	// Redirect types are stored as their ordinal plus one, so new ones must be added at the end of the enum
+	private static final byte DEFAULT_REDIRECT_TYPE = 0;
+	private static final RedirectType[] REDIRECT_TYPES = RedirectType.values();
+	private static final String COMPACTION_DIRECTORY = "compacting";
+	private static final int COMPACTION_BATCH_SIZE = 1_000;
+	// Atomic on the 8 byte aligned slots of the index, mapped buffers start on a page boundary
+	private static final VarHandle SLOT = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+	private final Path directory;
+	private final int segmentSize;
+	private final boolean sync;
+	// Appends, compaction and closing, never held by reads
+	private final ReentrantLock lock = new ReentrantLock();
+	private final BitSet dirtyIndexSegments = new BitSet();
+	private FileChannel dataChannel;
+	private FileChannel indexChannel;
+	private long end;
+	private volatile Mapping mapping;
+	private volatile long maxId;
+
+	/**
+	 * Opens the store in {@code directory}, creating it when empty.
+	 *
+	 * @param segmentSize bytes mapped at a time, only used for a new store
+	 * @param sync        whether every append is forced to disk
+	 */
+	public MappedLinkStore(Path directory, int segmentSize, boolean sync) {
+		if (segmentSize < MIN_SEGMENT_SIZE || segmentSize % Long.BYTES != 0) {
+			throw new IllegalArgumentException(
+				"The segment size must be a multiple of 8 of at least " + MIN_SEGMENT_SIZE + " bytes, got " + segmentSize
+			);
+		}
+
+		this.directory = directory;
+		this.sync = sync;
+
+		try {
+			Files.createDirectories(directory);
+			this.segmentSize = storedSegmentSize(directory).orElse(segmentSize);
+			open();
+		} catch (IOException exception) {
+			throw new UncheckedIOException("Could not open the link store in " + directory, exception);
+		}
+	}
+
+	public Optional<ShortedURL> find(long id) {
+		if (id <= 0) {
+			return Optional.empty();
+		}
+
+		Mapping current = mapping;
+
+		while (true) {
+			long slot = slot(current, id);
+
+			if (slot <= 0) {
+				return Optional.empty();
+			}
+
+			long position = slot - 1;
+			int segment = segmentOf(position);
+
+			if (segment < current.data().length) {
+				return Optional.of(read(current.data()[segment], offsetIn(position)));
+			}
+
+			// Appended into a segment mapped after this mapping was taken, which is published before the slot
+			Mapping latest = mapping;
+
+			if (latest == current) {
+				throw new IllegalStateException("Link " + id + " points past the end of the link store");
+			}
+
+			current = latest;
+		}
+	}
+
+	/**
+	 * @return the highest id saved, {@code 0} when empty
+	 */
+	public long maxId() {
+		return maxId;
+	}
+
+	/**
+	 * Appends the shorted URLs, giving the next ids in sequence to those without one, and forces them to disk together.
+	 */
+	public <S extends ShortedURL> List<S> saveAll(Collection<S> shortedUrls) {
+		lock.lock();
+
+		try {
+			long last = maxId;
+			long[] ids = new long[shortedUrls.size()];
+			byte[] types = new byte[shortedUrls.size()];
+			byte[][] urls = new byte[shortedUrls.size()][];
+			int i = 0;
+
+			// Checked before the first append, so a rejected link leaves nothing of its batch in the log
+			for (S shortedUrl : shortedUrls) {
+				if (shortedUrl.getId() == null) {
+					shortedUrl.setId(last + 1);
+				}
+
+				RedirectType redirectType = shortedUrl.getRedirectType();
+
+				ids[i] = validId(shortedUrl.getId());
+				types[i] = redirectType == null ? DEFAULT_REDIRECT_TYPE : (byte) (redirectType.ordinal() + 1);
+				urls[i] = validUrl(shortedUrl.getOriginalUrl());
+				last = Math.max(last, ids[i++]);
+			}
+
+			long start = end;
+			long[] positions = new long[ids.length];
+
+			for (i = 0; i < ids.length; i++) {
+				positions[i] = append(ids[i], types[i], urls[i]) + 1;
+			}
+
+			commit(start, ids, positions);
+			maxId = last;
+
+			return new ArrayList<>(shortedUrls);
+		} catch (IOException exception) {
+			throw new UncheckedIOException("Could not append to the link store in " + directory, exception);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Writes the latest record of every link into a new store in {@code target}, in id order. Appends made while
+	 * it runs may or may not be included.
+	 *
+	 * @return how many links were written
+	 */
+	public long compactTo(Path target) {
+		if (Files.exists(target.resolve(DATA_FILE))) {
+			throw new IllegalStateException(target + " already holds a link store");
+		}
+
+		long last = maxId;
+		long written = 0;
+
+		try (MappedLinkStore snapshot = new MappedLinkStore(target, segmentSize, false)) {
+			List<ShortedURL> batch = new ArrayList<>(COMPACTION_BATCH_SIZE);
+
+			for (long id = 1; id <= last; id++) {
+				find(id).ifPresent(batch::add);
+
+				if (batch.size() == COMPACTION_BATCH_SIZE || (id == last && !batch.isEmpty())) {
+					snapshot.saveAll(batch);
+					written += batch.size();
+					batch.clear();
+				}
+			}
+		} catch (IOException exception) {
+			throw new UncheckedIOException("Could not write the link store snapshot to " + target, exception);
+		}
+
+		return written;
+	}
+
+	/**
+	 * Rewrites the store without superseded records. Appends wait until it is done, reads keep being served from the
+	 * old files until the new ones are mapped.
+	 *
+	 * @return how many links were kept
+	 */
+	public long compact() {
+		lock.lock();
+
+		try {
+			Path work = directory.resolve(COMPACTION_DIRECTORY);
+			deleteStore(work);
+
+			long written = compactTo(work);
+			forceAll();
+			dataChannel.close();
+			indexChannel.close();
+
+			// Without an index the log is read in full on opening, so a crash between the moves loses nothing
+			Files.delete(directory.resolve(INDEX_FILE));
+			Files.move(
+				work.resolve(DATA_FILE),
+				directory.resolve(DATA_FILE),
+				StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE
+			);
+			Files.move(work.resolve(INDEX_FILE), directory.resolve(INDEX_FILE), StandardCopyOption.ATOMIC_MOVE);
+			Files.delete(work);
+			open();
+
+			return written;
+		} catch (IOException exception) {
+			throw new UncheckedIOException("Could not compact the link store in " + directory, exception);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		lock.lock();
+
+		try {
+			forceAll();
+			dataChannel.close();
+			indexChannel.close();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void open() throws IOException {
+		dirtyIndexSegments.clear();
+		dataChannel = FileChannel.open(
+			directory.resolve(DATA_FILE),
+			StandardOpenOption.CREATE,
+			StandardOpenOption.READ,
+			StandardOpenOption.WRITE
+		);
+		indexChannel = FileChannel.open(
+			directory.resolve(INDEX_FILE),
+			StandardOpenOption.CREATE,
+			StandardOpenOption.READ,
+			StandardOpenOption.WRITE
+		);
+
+		boolean created = dataChannel.size() == 0;
+		mapping = new Mapping(map(indexChannel), map(dataChannel));
+
+		if (created) {
+			mapping.data()[0].putInt(0, MAGIC).putInt(Integer.BYTES, segmentSize);
+		}
+
+		recover();
+		maxId = lastId();
+	}
+
+	/**
+	 * Indexes the records appended after the covered length and cuts the log off after the last complete one.
+	 */
+	private void recover() throws IOException {
+		long position = Math.max(slot(mapping, 0), DATA_START);
+		boolean torn = false;
+
+		while (segmentOf(position) < mapping.data().length) {
+			MappedByteBuffer data = mapping.data()[segmentOf(position)];
+			int offset = offsetIn(position);
+
+			if (segmentSize - offset < Integer.BYTES) {
+				position += segmentSize - offset;
+				continue;
+			}
+
+			int length = data.getInt(offset);
+
+			if (length == PADDING) {
+				position += segmentSize - offset;
+				continue;
+			}
+
+			if (length == 0) {
+				break;
+			}
+
+			if (!isComplete(data, offset, length)) {
+				torn = true;
+				break;
+			}
+
+			setSlot(data.getLong(offset + RECORD_HEADER), position + 1);
+			position += RECORD_HEADER + length;
+		}
+
+		end = position;
+
+		if (torn) {
+			MappedByteBuffer data = mapping.data()[segmentOf(end)];
+			byte[] zeros = new byte[Math.min(segmentSize, 64 * 1024)];
+
+			for (int offset = offsetIn(end); offset < segmentSize; offset += zeros.length) {
+				data.put(offset, zeros, 0, Math.min(zeros.length, segmentSize - offset));
+			}
+		}
+
+		// Whatever lies past the segment the log ends in was never acknowledged
+		int segments = Math.min(segmentOf(end) + 1, mapping.data().length);
+
+		if (segments < mapping.data().length) {
+			mapping = new Mapping(mapping.index(), Arrays.copyOf(mapping.data(), segments));
+			dataChannel.truncate((long) segments * segmentSize);
+		}
+
+		if (sync) {
+			forceAll();
+		}
+
+		SLOT.setRelease(mapping.index()[0], 0, end);
+		dirtyIndexSegments.set(0);
+	}
+
+	private boolean isComplete(MappedByteBuffer data, int offset, int length) {
+		if (length < PAYLOAD_HEADER || RECORD_HEADER + length > segmentSize - offset) {
+			return false;
+		}
+
+		byte[] payload = new byte[length];
+		data.get(offset + RECORD_HEADER, payload);
+
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+
+		long id = ByteBuffer.wrap(payload).getLong();
+
+		return (int) crc.getValue() == data.getInt(offset + Integer.BYTES) && id > 0 && ShortedURL.shardOf(id) == 0;
+	}
+
+	/**
+	 * Writes a record at the end of the log without publishing it.
+	 *
+	 * @return where the record starts
+	 */
+	private long append(long id, byte type, byte[] url) throws IOException {
+		int length = PAYLOAD_HEADER + url.length;
+		int recordSize = RECORD_HEADER + length;
+		int offset = offsetIn(end);
+
+		if (offset + recordSize > segmentSize) {
+			if (segmentSize - offset >= Integer.BYTES) {
+				dataSegment(segmentOf(end)).putInt(offset, PADDING);
+			}
+
+			end += segmentSize - offset;
+			offset = 0;
+		}
+
+		byte[] payload = new byte[length];
+		ByteBuffer.wrap(payload).putLong(id).put(type).put(url);
+
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+
+		MappedByteBuffer data = dataSegment(segmentOf(end));
+		data.put(offset + RECORD_HEADER, payload);
+		data.putInt(offset + Integer.BYTES, (int) crc.getValue());
+		data.putInt(offset, length);
+
+		long position = end;
+		end += recordSize;
+
+		return position;
+	}
+
+	/**
+	 * Publishes records appended since {@code start}, forcing the records before their slots and the slots before the
+	 * covered length when syncing.
+	 */
+	private void commit(long start, long[] ids, long[] slots) throws IOException {
+		if (sync) {
+			for (int segment = segmentOf(start); segment <= segmentOf(Math.max(end - 1, start)); segment++) {
+				mapping.data()[segment].force();
+			}
+		}
+
+		for (int i = 0; i < ids.length; i++) {
+			setSlot(ids[i], slots[i]);
+		}
+
+		if (sync) {
+			// The covered length written by the previous commit is in segment 0 and goes out with this one
+			dirtyIndexSegments.set(0);
+			dirtyIndexSegments.stream().forEach(segment -> mapping.index()[segment].force());
+			dirtyIndexSegments.clear();
+		}
+
+		SLOT.setRelease(mapping.index()[0], 0, end);
+	}
+
+	private void setSlot(long id, long value) throws IOException {
+		long position = id * Long.BYTES;
+		int segment = segmentOf(position);
+
+		SLOT.setRelease(indexSegment(segment), offsetIn(position), value);
+		dirtyIndexSegments.set(segment);
+	}
+
+	private long slot(Mapping mapping, long id) {
+		long position = id * Long.BYTES;
+		int segment = segmentOf(position);
+
+		return segment < mapping.index().length ? (long) SLOT.getAcquire(mapping.index()[segment], offsetIn(position)) : 0;
+	}
+
+	private long lastId() {
+		Mapping current = mapping;
+
+		for (long id = (long) current.index().length * segmentSize / Long.BYTES - 1; id > 0; id--) {
+			if (slot(current, id) != 0) {
+				return id;
+			}
+		}
+
+		return 0;
+	}
+
+	private MappedByteBuffer dataSegment(int segment) throws IOException {
+		Mapping current = mapping;
+
+		if (segment >= current.data().length) {
+			current = new Mapping(current.index(), extend(dataChannel, current.data(), segment));
+			mapping = current;
+		}
+
+		return current.data()[segment];
+	}
+
+	private MappedByteBuffer indexSegment(int segment) throws IOException {
+		Mapping current = mapping;
+
+		if (segment >= current.index().length) {
+			current = new Mapping(extend(indexChannel, current.index(), segment), current.data());
+			mapping = current;
+		}
+
+		return current.index()[segment];
+	}
+
+	private MappedByteBuffer[] extend(FileChannel channel, MappedByteBuffer[] segments, int segment) throws IOException {
+		MappedByteBuffer[] extended = Arrays.copyOf(segments, segment + 1);
+
+		for (int i = segments.length; i <= segment; i++) {
+			extended[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long) i * segmentSize, segmentSize);
+		}
+
+		return extended;
+	}
+
+	private MappedByteBuffer[] map(FileChannel channel) throws IOException {
+		int segments = (int) Math.max((channel.size() + segmentSize - 1) / segmentSize, 1);
+		return extend(channel, new MappedByteBuffer[0], segments - 1);
+	}
+
+	private void forceAll() {
+		Mapping current = mapping;
+
+		for (MappedByteBuffer segment : current.data()) {
+			segment.force();
+		}
+
+		for (MappedByteBuffer segment : current.index()) {
+			segment.force();
+		}
+	}
+
+	private int segmentOf(long position) {
+		return (int) (position / segmentSize);
+	}
+
+	private int offsetIn(long position) {
+		return (int) (position % segmentSize);
+	}
+
+	private static ShortedURL read(MappedByteBuffer data, int offset) {
+		int length = data.getInt(offset);
+		byte type = data.get(offset + RECORD_HEADER + Long.BYTES);
+		byte[] url = new byte[length - PAYLOAD_HEADER];
+		data.get(offset + RECORD_HEADER + PAYLOAD_HEADER, url);
+
+		return ShortedURL.builder()
+			.id(data.getLong(offset + RECORD_HEADER))
+			.originalUrl(new String(url, StandardCharsets.UTF_8))
+			.redirectType(type == DEFAULT_REDIRECT_TYPE ? null : REDIRECT_TYPES[type - 1])
+			.build();
+	}
+
+	private static long validId(long id) {
+		// The index is dense, so it only holds the sequential ids of the default shard
+		if (id <= 0 || ShortedURL.shardOf(id) != 0) {
+			throw new IllegalArgumentException("The link store only holds positive ids of the default shard, got " + id);
+		}
+
+		return id;
+	}
+
+	private byte[] validUrl(String originalUrl) {
+		byte[] url = originalUrl.getBytes(StandardCharsets.UTF_8);
+
+		// Every segment but the first has room for the largest record, the first starts with the header
+		if (RECORD_HEADER + PAYLOAD_HEADER + url.length > segmentSize - DATA_START) {
+			throw new IllegalArgumentException(
+				"A URL of " + url.length + " bytes does not fit in the link store segments of " + segmentSize + " bytes"
+			);
+		}
+
+		return url;
+	}
+
+	private static Optional<Integer> storedSegmentSize(Path directory) throws IOException {
+		Path data = directory.resolve(DATA_FILE);
+
+		if (!Files.exists(data) || Files.size(data) == 0) {
+			return Optional.empty();
+		}
+
+		try (FileChannel channel = FileChannel.open(data, StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate((int) DATA_START);
+			channel.read(header, 0);
+			header.flip();
+
+			if (header.remaining() < DATA_START || header.getInt() != MAGIC) {
+				throw new IllegalStateException(data + " is not a link store");
+			}
+
+			return Optional.of(header.getInt());
+		}
+	}
+
+	private static void deleteStore(Path directory) throws IOException {
+		if (Files.isDirectory(directory)) {
+			Files.deleteIfExists(directory.resolve(DATA_FILE));
+			Files.deleteIfExists(directory.resolve(INDEX_FILE));
+			Files.delete(directory);
+		}
+	}
+
+	/**
+	 * Segments of both files, replaced as a whole whenever a segment is added or the store is compacted, so a read
+	 * resolves its slot and its record against the same files.
+	 */
+	private record Mapping(MappedByteBuffer[] index, MappedByteBuffer[] data) {
+	}
+}
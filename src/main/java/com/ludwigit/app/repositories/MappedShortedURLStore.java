@@ -0,0 +1,167 @@
+package com.ludwigit.app.repositories;
+
+import com.ludwigit.app.config.LinkStoreConfig;
+import com.ludwigit.app.model.RedirectType;
+import com.ludwigit.app.model.ShortedURL;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * {@link ShortedURLStore} on a {@link MappedLinkStore} instead of the database, for edge nodes running the
+ * {@code edge} profile. These nodes are read-only, they load links created centrally and never assign ids.
+ * <p>
+ * Lookups by id, the redirect path, cost a single read of the mapped files. Lookups by URL walk the whole store, so
+ * keep {@code app.deduplication.database-fallback} off on these nodes. Sharding is not supported.
+ */
+@Repository
+@Profile("edge")
+public class MappedShortedURLStore implements ShortedURLStore, Closeable {
+
+	private final MappedLinkStore store;
+
+	public MappedShortedURLStore(LinkStoreConfig linkStoreConfig) {
+		this.store = new MappedLinkStore(
+			Path.of(linkStoreConfig.getDirectory()),
+			linkStoreConfig.getSegmentSize(),
+			linkStoreConfig.isSync()
+		);
+	}
+
+	/**
+	 * @see MappedLinkStore#compact()
+	 */
+	public long compact() {
+		return store.compact();
+	}
+
+	@Override
+	public Optional<ShortedURL> findById(Long id) {
+		return store.find(id);
+	}
+
+	@Override
+	public List<ShortedURL> findAllById(Iterable<Long> ids) {
+		List<ShortedURL> found = new ArrayList<>();
+		ids.forEach(id -> store.find(id).ifPresent(found::add));
+		return found;
+	}
+
+	@Override
+	public List<ShortedURL> findAllByOriginalUrlHashIn(Collection<byte[]> originalUrlHashes) {
+		long maxId = store.maxId();
+		List<ShortedURL> found = new ArrayList<>();
+
+		for (long id = 1; id <= maxId; id++) {
+			store.find(id).ifPresent(shortedUrl -> {
+				byte[] originalUrlHash = ShortedURL.hashOriginalUrl(shortedUrl.getOriginalUrl());
+
+				if (originalUrlHashes.stream().anyMatch(hash -> Arrays.equals(hash, originalUrlHash))) {
+					shortedUrl.setOriginalUrlHash(originalUrlHash);
+					found.add(shortedUrl);
+				}
+			});
+		}
+
+		return found;
+	}
+
+	@Override
+	public Optional<Long> findMaxId() {
+		long maxId = store.maxId();
+		return maxId > 0 ? Optional.of(maxId) : Optional.empty();
+	}
+
+	@Override
+	public List<ShortedURL> findAllByIdLessThanOrderByIdDesc(Long id, Limit limit) {
+		int max = limit.isLimited() ? limit.max() : Integer.MAX_VALUE;
+		List<ShortedURL> page = new ArrayList<>();
+
+		for (long next = Math.min(id - 1, store.maxId()); next > 0 && page.size() < max; next--) {
+			store.find(next).ifPresent(page::add);
+		}
+
+		return page;
+	}
+
+	@Override
+	public List<Row> findAllByIdGreaterThanOrderByIdAsc(Long id, Limit limit) {
+		int max = limit.isLimited() ? limit.max() : Integer.MAX_VALUE;
+		long maxId = store.maxId();
+		List<Row> page = new ArrayList<>();
+
+		for (long next = Math.max(id + 1, 1); next <= maxId && page.size() < max; next++) {
+			store.find(next).ifPresent(shortedUrl -> page.add(new StoredRow(
+				shortedUrl.getId(),
+				shortedUrl.getOriginalUrl(),
+				shortedUrl.getRedirectType()
+			)));
+		}
+
+		return page;
+	}
+
+	@Override
+	public void insertAll(List<ShortedURL> shortedUrls) {
+		store.saveAll(withIds(shortedUrls));
+	}
+
+	@Override
+	public int insertAllIfAbsent(List<ShortedURL> shortedUrls) {
+		List<ShortedURL> absent = withIds(shortedUrls).stream()
+			.filter(shortedUrl -> store.find(shortedUrl.getId()).isEmpty())
+			.toList();
+		store.saveAll(absent);
+		return absent.size();
+	}
+
+	/**
+	 * The store assigns no ids on edge nodes, there is no sequence to align.
+	 */
+	@Override
+	public void alignIdSequence(long firstId) {
+	}
+
+	@Override
+	public void close() throws IOException {
+		store.close();
+	}
+
+	private static List<ShortedURL> withIds(List<ShortedURL> shortedUrls) {
+		for (ShortedURL shortedUrl : shortedUrls) {
+			if (shortedUrl.getId() == null) {
+				throw new IllegalArgumentException("Links are loaded into the link store with the ids they were created with");
+			}
+		}
+
+		return shortedUrls;
+	}
+
+	private record StoredRow(Long id, String originalUrl, RedirectType redirectType) implements Row {
+
+		@Override
+		public Long getId() {
+			return id;
+		}
+
+		@Override
+		public String getOriginalUrl() {
+			return originalUrl;
+		}
+
+		@Override
+		public RedirectType getRedirectType() {
+			return redirectType;
+		}
+
+	}
+}
@@ -2,11 +2,28 @@ package com.ludwigit.app.repositories;
 
 import com.ludwigit.app.model.ShortedURL;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
+/**
+ * Rows read through {@link #findAllByIdGreaterThanOrderByIdAsc} are not managed, so a long export does not fill the
+ * persistence context that stays open for the whole request.
+ */
 @Repository
-public interface ShortedURLRepository extends JpaRepository<ShortedURL, Long> {
+public interface ShortedURLRepository extends JpaRepository<ShortedURL, Long>, ShortedURLRepositoryCustom, ShortedURLStore {
 	Optional<ShortedURL> findByOriginalUrl(String originalUrl);
+
+	// Declared by both JpaRepository and ShortedURLStore
+	@Override
+	Optional<ShortedURL> findById(Long id);
+
+	@Override
+	List<ShortedURL> findAllById(Iterable<Long> ids);
+
+	@Override
+	@Query("select max(s.id) from ShortedURL s")
+	Optional<Long> findMaxId();
 }
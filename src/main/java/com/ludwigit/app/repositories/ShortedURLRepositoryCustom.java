@@ -0,0 +1,45 @@
+package com.ludwigit.app.repositories;
+
+import com.ludwigit.app.model.ShortedURL;
+
+import java.util.List;
+
+/**
+ * The part of {@link ShortedURLRepository} implemented with native queries and plain JDBC, including the bulk loads of
+ * {@link ShortedURLStore} which it declares again for Spring Data to route them here.
+ */
+public interface ShortedURLRepositoryCustom {
+
+	/**
+	 * Moves the id sequence past the highest id in the table, so ids assigned by the database before the sequence
+	 * existed (or rows inserted with explicit ids) are never handed out again. The sequence is only restarted when it
+	 * is behind, under a lock so nodes starting together do not restart it one after the other.
+	 */
+	void alignIdSequence();
+
+	/**
+	 * Same, also keeping the sequence at or past {@code firstId}, the start of a shard's id range.
+	 */
+	void alignIdSequence(long firstId);
+
+	/**
+	 * Reserves a block of {@link ShortedURL#ID_ALLOCATION_SIZE} ids from the sequence, the same way Hibernate does.
+	 *
+	 * @return the highest id of the block
+	 */
+	long reserveIdBlock();
+
+	/**
+	 * Inserts shorted URLs with the ids they already have, in one transaction and one JDBC batch.
+	 */
+	void insertAll(List<ShortedURL> shortedUrls);
+
+	/**
+	 * Inserts shorted URLs with the ids they already have, in one transaction and one JDBC batch. Rows whose id is
+	 * already taken are left as they are.
+	 *
+	 * @return how many rows were inserted
+	 */
+	int insertAllIfAbsent(List<ShortedURL> shortedUrls);
+
+}
@@ -0,0 +1,183 @@
+package com.ludwigit.app.repositories;
+
+import com.ludwigit.app.model.ShortedURL;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class ShortedURLRepositoryCustomImpl implements ShortedURLRepositoryCustom {
+
+	// Any constant shared by every node, it only has to differ from the other advisory locks taken on the database
+	private static final long ALIGN_LOCK_KEY = 0x6c75_6477_6967_6974L;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	@Transactional
+	public void alignIdSequence() {
+		alignIdSequence(0);
+	}
+
+	@Override
+	@Transactional
+	public void alignIdSequence(long firstId) {
+		// Read-only on every startup but the first, once the sequence is ahead it stays ahead
+		if (!idSequenceBehind(firstId)) {
+			return;
+		}
+
+		// Checked again under the lock, another node may have moved the sequence while this one waited
+		lockIdSequence();
+
+		if (idSequenceBehind(firstId)) {
+			entityManager
+				.createNativeQuery("alter sequence " + ShortedURL.ID_SEQUENCE + " restart with " + minimumNextValue(firstId))
+				.executeUpdate();
+		}
+	}
+
+	@Override
+	@Transactional
+	public long reserveIdBlock() {
+		return ((Number) entityManager.createNativeQuery(nextValueQuery()).getSingleResult()).longValue();
+	}
+
+	@Override
+	@Transactional
+	public void insertAll(List<ShortedURL> shortedUrls) {
+		if (shortedUrls.isEmpty()) {
+			return;
+		}
+
+		// Plain JDBC for the same reason as below
+		entityManager.unwrap(Session.class).doWork(connection -> {
+			try (PreparedStatement statement = connection.prepareStatement(
+				"insert into shorted_urls (id, original_url, original_url_hash, redirect_type) values (?, ?, ?, ?)"
+			)) {
+				for (ShortedURL shortedUrl : shortedUrls) {
+					statement.setLong(1, shortedUrl.getId());
+					statement.setString(2, shortedUrl.getOriginalUrl());
+					statement.setBytes(3, shortedUrl.getOriginalUrlHash() != null
+						? shortedUrl.getOriginalUrlHash()
+						: ShortedURL.hashOriginalUrl(shortedUrl.getOriginalUrl()));
+					statement.setString(4, shortedUrl.getRedirectType() != null ? shortedUrl.getRedirectType().name() : null);
+					statement.addBatch();
+				}
+
+				statement.executeBatch();
+			}
+		});
+	}
+
+	@Override
+	@Transactional
+	@SuppressWarnings("unchecked")
+	public int insertAllIfAbsent(List<ShortedURL> shortedUrls) {
+		if (shortedUrls.isEmpty()) {
+			return 0;
+		}
+
+		Set<Long> taken = new HashSet<>();
+		entityManager
+			.createNativeQuery("select id from shorted_urls where id in (:ids)")
+			.setParameter("ids", shortedUrls.stream().map(ShortedURL::getId).toList())
+			.getResultList()
+			.forEach(id -> taken.add(((Number) id).longValue()));
+
+		// Plain JDBC, the entity would have its id replaced by the sequence generator
+		return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+			int inserted = 0;
+
+			try (PreparedStatement statement = connection.prepareStatement(
+				"insert into shorted_urls (id, original_url, original_url_hash, redirect_type) values (?, ?, ?, ?)"
+			)) {
+				for (ShortedURL shortedUrl : shortedUrls) {
+					// Also skips ids repeated within the list
+					if (!taken.add(shortedUrl.getId())) {
+						continue;
+					}
+
+					statement.setLong(1, shortedUrl.getId());
+					statement.setString(2, shortedUrl.getOriginalUrl());
+					statement.setBytes(3, ShortedURL.hashOriginalUrl(shortedUrl.getOriginalUrl()));
+					statement.setString(4, shortedUrl.getRedirectType() != null ? shortedUrl.getRedirectType().name() : null);
+					statement.addBatch();
+					inserted++;
+				}
+
+				if (inserted > 0) {
+					statement.executeBatch();
+				}
+			}
+
+			return inserted;
+		});
+	}
+
+	private boolean idSequenceBehind(long firstId) {
+		return nextValue() < minimumNextValue(firstId);
+	}
+
+	private long minimumNextValue(long firstId) {
+		Number maxId = (Number) entityManager
+			.createNativeQuery("select coalesce(max(id), 0) from shorted_urls")
+			.getSingleResult();
+
+		// The pooled optimizer hands out the block ending at the sequence value, so keep a whole block of headroom
+		return Math.max(maxId.longValue(), firstId) + ShortedURL.ID_ALLOCATION_SIZE + 1;
+	}
+
+	/**
+	 * @return the value the next reservation will get, read without taking it where the database allows
+	 */
+	private long nextValue() {
+		Dialect dialect = dialect();
+		String query;
+
+		if (dialect instanceof PostgreSQLDialect) {
+			query = "select last_value + case when is_called then " + ShortedURL.ID_ALLOCATION_SIZE + " else 0 end from "
+				+ ShortedURL.ID_SEQUENCE;
+		} else if (dialect instanceof H2Dialect) {
+			query = "select base_value from information_schema.sequences where lower(sequence_name) = '"
+				+ ShortedURL.ID_SEQUENCE + "'";
+		} else {
+			query = nextValueQuery();
+		}
+
+		return ((Number) entityManager.createNativeQuery(query).getSingleResult()).longValue();
+	}
+
+	/**
+	 * Serializes the nodes aligning the sequence until the transaction ends. Only needed on Postgres, the other
+	 * databases this runs on are embedded in a single node.
+	 */
+	private void lockIdSequence() {
+		if (dialect() instanceof PostgreSQLDialect) {
+			entityManager.createNativeQuery("select pg_advisory_xact_lock(" + ALIGN_LOCK_KEY + ")").getSingleResult();
+		}
+	}
+
+	private String nextValueQuery() {
+		return dialect().getSequenceSupport().getSequenceNextValString(ShortedURL.ID_SEQUENCE);
+	}
+
+	private Dialect dialect() {
+		return entityManager
+			.getEntityManagerFactory()
+			.unwrap(SessionFactoryImplementor.class)
+			.getJdbcServices()
+			.getDialect();
+	}
+
+}
@@ -0,0 +1,64 @@
+package com.ludwigit.app.repositories;
+
+import com.ludwigit.app.model.RedirectType;
+import com.ludwigit.app.model.ShortedURL;
+import org.springframework.data.domain.Limit;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * What the services read and load shorted URLs through, kept by the database with {@link ShortedURLRepository} or by
+ * the link store of edge nodes with {@link MappedShortedURLStore}.
+ * <p>
+ * Everything here works with ids that were already assigned. New links get their ids from the database sequence, so
+ * only nodes with a {@link ShortedURLRepository} create them.
+ */
+public interface ShortedURLStore {
+
+	Optional<ShortedURL> findById(Long id);
+
+	List<ShortedURL> findAllById(Iterable<Long> ids);
+
+	List<ShortedURL> findAllByOriginalUrlHashIn(Collection<byte[]> originalUrlHashes);
+
+	Optional<Long> findMaxId();
+
+	/**
+	 * Pages backwards by id, so reading a page costs the same however deep it is.
+	 */
+	List<ShortedURL> findAllByIdLessThanOrderByIdDesc(Long id, Limit limit);
+
+	/**
+	 * Same paging, forwards, returning plain rows.
+	 */
+	List<Row> findAllByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+	/**
+	 * Inserts shorted URLs with the ids they already have, all together.
+	 */
+	void insertAll(List<ShortedURL> shortedUrls);
+
+	/**
+	 * Inserts shorted URLs with the ids they already have, all together. Those whose id is already taken are left as
+	 * they are.
+	 *
+	 * @return how many were inserted
+	 */
+	int insertAllIfAbsent(List<ShortedURL> shortedUrls);
+
+	/**
+	 * Makes sure ids handed out from now on are past every stored id and at or past {@code firstId}, the start of a
+	 * shard's id range.
+	 */
+	void alignIdSequence(long firstId);
+
+	interface Row {
+		Long getId();
+
+		String getOriginalUrl();
+
+		RedirectType getRedirectType();
+	}
+}
@@ -0,0 +1,222 @@
+package com.ludwigit.app.services;
+
+import com.ludwigit.app.config.CacheConfig;
+import com.ludwigit.app.model.ShortedURL;
+import com.ludwigit.app.repositories.ShortedURLStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fills Redis with the links most likely to be requested, so a deploy or a Redis flush does not send every hot link to
+ * the database until the cache refills on its own.
+ * <p>
+ * Links are read in pages and each page is written with one pipelined call, so memory stays bounded by the page size
+ * however many links are loaded. Runs on its own thread, once the application is ready or on demand through the
+ * {@code cachewarmup} actuator endpoint, and never more than once at a time.
+ * <p>
+ * With sharding, the most clicked links are read from the shard their id belongs to, and the most recent ones are
+ * taken from every shard in turn, ids from different shards saying nothing about which link is newer.
+ */
+@Slf4j
+@Service
+public class CacheWarmupService {
+
+	private final ShortedURLStore shortedUrlStore;
+	private final ShortedURLService shortedUrlService;
+	private final HashIdsService hashIdsService;
+	private final ShardRouter shardRouter;
+	private final StringRedisTemplate stringRedisTemplate;
+	private final RedisCircuitBreaker redisCircuitBreaker;
+	private final CacheConfig.Warmup warmupConfig;
+	private final AtomicBoolean running = new AtomicBoolean();
+	private volatile boolean closing;
+	private volatile Result lastResult;
+
+	public CacheWarmupService(
+		ShortedURLStore shortedUrlStore,
+		ShortedURLService shortedUrlService,
+		HashIdsService hashIdsService,
+		ShardRouter shardRouter,
+		StringRedisTemplate stringRedisTemplate,
+		RedisCircuitBreaker redisCircuitBreaker,
+		CacheConfig cacheConfig
+	) {
+		this.shortedUrlStore = shortedUrlStore;
+		this.shortedUrlService = shortedUrlService;
+		this.hashIdsService = hashIdsService;
+		this.shardRouter = shardRouter;
+		this.stringRedisTemplate = stringRedisTemplate;
+		this.redisCircuitBreaker = redisCircuitBreaker;
+		this.warmupConfig = cacheConfig.getWarmup();
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void onApplicationReady() {
+		if (warmupConfig.isOnStartup()) {
+			start();
+		}
+	}
+
+	@EventListener(ContextClosedEvent.class)
+	public void onContextClosed() {
+		// Stops between pages, before Redis and the datasource go away
+		closing = true;
+	}
+
+	/**
+	 * Starts a warm-up in the background.
+	 *
+	 * @return whether it started, {@code false} when one is already running
+	 */
+	public boolean start() {
+		if (!running.compareAndSet(false, true)) {
+			return false;
+		}
+
+		Thread.ofVirtual().name("cache-warmup").start(() -> {
+			try {
+				warmUp();
+			} catch (RuntimeException exception) {
+				log.warn("Could not warm the cache", exception);
+			} finally {
+				running.set(false);
+			}
+		});
+
+		return true;
+	}
+
+	public boolean isRunning() {
+		return running.get();
+	}
+
+	public Optional<Result> lastResult() {
+		return Optional.ofNullable(lastResult);
+	}
+
+	/**
+	 * Warms the cache on the calling thread.
+	 */
+	public Result warmUp() {
+		Instant startedAt = Instant.now();
+		CacheConfig.Source source = warmupConfig.getSource();
+		Progress progress = new Progress();
+
+		if (source == CacheConfig.Source.MOST_CLICKED) {
+			loadMostClicked(progress);
+
+			if (progress.read == 0) {
+				source = CacheConfig.Source.MOST_RECENT;
+			}
+		}
+
+		if (source == CacheConfig.Source.MOST_RECENT) {
+			loadMostRecent(progress);
+		}
+
+		Result result = new Result(source, progress.loaded, progress.cached, startedAt, Duration.between(startedAt, Instant.now()));
+		lastResult = result;
+		log.info(
+			"Warmed the cache with {} of the {} {} links in {} ms",
+			result.cached(), result.loaded(), source, result.duration().toMillis()
+		);
+
+		return result;
+	}
+
+	private void loadMostClicked(Progress progress) {
+		int size = warmupConfig.getSize();
+		int pageSize = warmupConfig.getPageSize();
+
+		for (long offset = 0; offset < size && !closing; offset += pageSize) {
+			long end = Math.min(offset + pageSize, size) - 1;
+			long start = offset;
+			Set<String> codes = redisCircuitBreaker.execute(
+				() -> stringRedisTemplate.opsForZSet().reverseRange(ClickAnalyticsService.TOTALS_KEY, start, end)
+			);
+
+			if (codes == null || codes.isEmpty()) {
+				return;
+			}
+
+			progress.read += codes.size();
+			Map<Integer, List<Long>> idsByShard = new LinkedHashMap<>();
+			codes.forEach(code -> hashIdsService.decode(code)
+				.filter(id -> shardRouter.isKnown(ShortedURL.shardOf(id)))
+				.ifPresent(id -> idsByShard.computeIfAbsent(ShortedURL.shardOf(id), shard -> new ArrayList<>()).add(id)));
+
+			// Links deleted since they were clicked are simply not found
+			idsByShard.forEach((shard, ids) -> progress.add(shardRouter.onShard(shard, () -> shortedUrlStore.findAllById(ids))));
+
+			if (codes.size() < end - offset + 1) {
+				return;
+			}
+		}
+	}
+
+	private void loadMostRecent(Progress progress) {
+		int size = warmupConfig.getSize();
+		int pageSize = warmupConfig.getPageSize();
+		// Shards still holding older links, with the lowest id read from each so far
+		Map<Integer, Long> lastIds = new LinkedHashMap<>();
+		shardRouter.shards().forEach(shard -> lastIds.put(shard, Long.MAX_VALUE));
+
+		while (!lastIds.isEmpty() && progress.loaded < size && !closing) {
+			for (Integer shard : List.copyOf(lastIds.keySet())) {
+				if (progress.loaded >= size || closing) {
+					return;
+				}
+
+				int limit = Math.min(pageSize, size - progress.loaded);
+				List<ShortedURL> page = shardRouter.onShard(shard, () -> shortedUrlStore.findAllByIdLessThanOrderByIdDesc(
+					lastIds.get(shard),
+					Limit.of(limit)
+				));
+
+				progress.read += page.size();
+				progress.add(page);
+
+				if (page.size() < limit) {
+					lastIds.remove(shard);
+				} else {
+					lastIds.put(shard, page.get(page.size() - 1).getId());
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param loaded links read from the database
+	 * @param cached links written to Redis, the rest were cached already
+	 */
+	public record Result(CacheConfig.Source source, int loaded, int cached, Instant startedAt, Duration duration) {
+	}
+
+	private final class Progress {
+
+		private int read;
+		private int loaded;
+		private int cached;
+
+		private void add(List<ShortedURL> shortedUrls) {
+			loaded += shortedUrls.size();
+			cached += shortedUrlService.warmCache(shortedUrls);
+		}
+
+	}
+}
@@ -0,0 +1,323 @@
+package com.ludwigit.app.services;
+
+import com.ludwigit.app.config.AnalyticsConfig;
+import com.ludwigit.app.dto.responses.ClickStatsResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Click counts per link, per minute and per referrer host.
+ * <p>
+ * Redirects only append an event to a {@link ClickEventBuffer}. A scheduled flush aggregates the buffered events per
+ * link and minute and writes the sums to Redis in one pipelined call, so the cost of a click on the redirect path does
+ * not depend on Redis at all.
+ * <p>
+ * Referrers are counted per host, truncated to {@code app.analytics.max-referrer-length}, and a link keeps at most
+ * {@code app.analytics.max-referrers-per-link} of them. Clicks from any further host are counted as {@code other}, so
+ * a link shared across many sites does not grow its hash without bound.
+ */
+@Slf4j
+@Service
+public class ClickAnalyticsService implements SmartLifecycle {
+
+	/**
+	 * Sorted set of total clicks per short code, also used to find the most clicked links.
+	 */
+	public static final String TOTALS_KEY = "analytics:clicks";
+
+	private static final String MINUTES_PREFIX = "analytics:minutes:";
+	private static final String REFERRERS_PREFIX = "analytics:referrers:";
+	private static final String DIRECT = "direct";
+	private static final RedisScript<Long> COUNT_REFERRERS_SCRIPT = RedisScript.of(
+		new ClassPathResource("scripts/analytics/count-referrers.lua"),
+		Long.class
+	);
+	private static final long MINUTES_PER_DAY = Duration.ofDays(1).toMinutes();
+
+	private final StringRedisTemplate stringRedisTemplate;
+	private final RedisCircuitBreaker redisCircuitBreaker;
+	private final AnalyticsConfig analyticsConfig;
+	private final ClickEventBuffer buffer;
+	// Not synchronized, a virtual thread blocked on Redis inside a monitor would pin its carrier thread
+	private final ReentrantLock flushLock = new ReentrantLock();
+	private final LongAdder recorded = new LongAdder();
+	private final LongAdder dropped = new LongAdder();
+	private final LongAdder flushed = new LongAdder();
+	private final LongAdder flushFailures = new LongAdder();
+	private volatile boolean running;
+
+	public ClickAnalyticsService(
+		StringRedisTemplate stringRedisTemplate,
+		RedisCircuitBreaker redisCircuitBreaker,
+		AnalyticsConfig analyticsConfig
+	) {
+		this.stringRedisTemplate = stringRedisTemplate;
+		this.redisCircuitBreaker = redisCircuitBreaker;
+		this.analyticsConfig = analyticsConfig;
+		this.buffer = new ClickEventBuffer(analyticsConfig.getBufferSize());
+	}
+
+	public void record(String code, String referer) {
+		if (!analyticsConfig.isEnabled()) {
+			return;
+		}
+
+		if (buffer.offer(new ClickEventBuffer.ClickEvent(code, referer, System.currentTimeMillis()))) {
+			recorded.increment();
+		} else {
+			dropped.increment();
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${app.analytics.flush-interval:1s}")
+	public void flush() {
+		flushLock.lock();
+
+		try {
+			// A full batch means more events are waiting, they are flushed now rather than one batch per tick. Bounded
+			// by the capacity so clicks arriving as fast as they are flushed cannot keep the scheduler thread here.
+			int batchSize = analyticsConfig.getFlushBatchSize();
+
+			for (long total = 0; total < buffer.capacity(); ) {
+				int drained = flushBatch(batchSize);
+				total += drained;
+
+				if (drained < batchSize) {
+					break;
+				}
+			}
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	/**
+	 * @return how many events were drained, {@code 0} when Redis is not reached or the write failed so the caller
+	 * stops until the next tick
+	 */
+	private int flushBatch(int batchSize) {
+		if (redisCircuitBreaker.isOpen()) {
+			// The buffer is bounded, once it is full new clicks are dropped rather than the ones waiting for Redis
+			return 0;
+		}
+
+		Map<String, LinkClicks> clicks = new HashMap<>();
+		int drained = buffer.drain(
+			// Parsed here rather than on the redirect path
+			event -> clicks.computeIfAbsent(event.code(), ignored -> new LinkClicks()).add(event, referrerHost(event.referrer())),
+			batchSize
+		);
+
+		if (drained == 0) {
+			return 0;
+		}
+
+		try {
+			redisCircuitBreaker.execute(() -> write(clicks));
+			flushed.add(drained);
+			return drained;
+		} catch (RuntimeException exception) {
+			// Keeping the events would let a Redis outage grow the buffer without bound
+			flushFailures.add(drained);
+			log.warn("Could not flush {} click events", drained, exception);
+			return 0;
+		}
+	}
+
+	public void flushRemaining() {
+		for (int attempt = 0; attempt < 4 && buffer.size() > 0; attempt++) {
+			flush();
+		}
+	}
+
+	@Override
+	public void start() {
+		running = true;
+	}
+
+	@Override
+	public void stop() {
+		flushRemaining();
+		running = false;
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Stops after the web server and before the Redis connection factory, at phase {@code 0}, so the last clicks are
+	 * flushed while Redis can still be reached.
+	 */
+	@Override
+	public int getPhase() {
+		return 1;
+	}
+
+	/**
+	 * @throws com.ludwigit.app.exceptions.RedisUnavailableException when Redis could not be reached
+	 */
+	public ClickStatsResponse stats(String code) {
+		return redisCircuitBreaker.execute(() -> readStats(code));
+	}
+
+	private ClickStatsResponse readStats(String code) {
+		Double total = stringRedisTemplate.opsForZSet().score(TOTALS_KEY, code);
+
+		Map<String, Long> referrers = new TreeMap<>();
+		stringRedisTemplate.<String, String>opsForHash()
+			.entries(REFERRERS_PREFIX + code)
+			.forEach((host, count) -> referrers.put(host, Long.parseLong(count)));
+
+		long currentMinute = Instant.now().getEpochSecond() / 60;
+		long firstMinute = currentMinute - analyticsConfig.getStatsMinutes() + 1;
+		Map<String, Long> clicksPerMinute = new TreeMap<>();
+
+		for (long day = firstMinute / MINUTES_PER_DAY; day <= currentMinute / MINUTES_PER_DAY; day++) {
+			long dayStart = day * MINUTES_PER_DAY;
+
+			stringRedisTemplate.<String, String>opsForHash()
+				.entries(MINUTES_PREFIX + code + ":" + day)
+				.forEach((minuteOfDay, count) -> {
+					long minute = dayStart + Long.parseLong(minuteOfDay);
+
+					if (minute >= firstMinute && minute <= currentMinute) {
+						clicksPerMinute.put(Instant.ofEpochSecond(minute * 60).toString(), Long.parseLong(count));
+					}
+				});
+		}
+
+		return ClickStatsResponse.builder()
+			.code(code)
+			.totalClicks(total != null ? total.longValue() : 0)
+			.referrers(referrers)
+			.clicksPerMinute(clicksPerMinute)
+			.build();
+	}
+
+	public long recorded() {
+		return recorded.sum();
+	}
+
+	public long dropped() {
+		return dropped.sum();
+	}
+
+	public long flushed() {
+		return flushed.sum();
+	}
+
+	public long flushFailures() {
+		return flushFailures.sum();
+	}
+
+	public long pending() {
+		return buffer.size();
+	}
+
+	private Long write(Map<String, LinkClicks> clicks) {
+		Duration retention = analyticsConfig.getRetention();
+
+		stringRedisTemplate.executePipelined(new SessionCallback<>() {
+			@Override
+			@SuppressWarnings("unchecked")
+			public <K, V> Object execute(RedisOperations<K, V> operations) {
+				RedisOperations<String, String> redisOperations = (RedisOperations<String, String>) operations;
+
+				clicks.forEach((code, linkClicks) -> {
+					redisOperations.opsForZSet().incrementScore(TOTALS_KEY, code, linkClicks.total);
+
+					linkClicks.perMinute.forEach((minute, count) -> {
+						String key = MINUTES_PREFIX + code + ":" + minute / MINUTES_PER_DAY;
+						redisOperations.opsForHash().increment(key, String.valueOf(minute % MINUTES_PER_DAY), count);
+						redisOperations.expire(key, retention);
+					});
+				});
+
+				return null;
+			}
+		});
+
+		// Not pipelined, a script run by its digest in a pipeline could not fall back to sending its source
+		List<String> keys = new ArrayList<>(clicks.size());
+		List<String> args = new ArrayList<>();
+		args.add(String.valueOf(analyticsConfig.getMaxReferrersPerLink()));
+		args.add(String.valueOf(retention.toMillis()));
+
+		clicks.forEach((code, linkClicks) -> {
+			keys.add(REFERRERS_PREFIX + code);
+			args.add(String.valueOf(linkClicks.perReferrer.size()));
+			linkClicks.perReferrer.forEach((host, count) -> {
+				args.add(host);
+				args.add(String.valueOf(count));
+			});
+		});
+
+		return stringRedisTemplate.execute(COUNT_REFERRERS_SCRIPT, keys, args.toArray());
+	}
+
+	private String referrerHost(String referer) {
+		if (referer == null || referer.isBlank()) {
+			return DIRECT;
+		}
+
+		String host;
+
+		try {
+			host = URI.create(referer.trim()).getHost();
+		} catch (IllegalArgumentException exception) {
+			return DIRECT;
+		}
+
+		if (host == null || host.isEmpty()) {
+			return DIRECT;
+		}
+
+		host = host.toLowerCase(Locale.ROOT);
+
+		if (host.endsWith(".")) {
+			host = host.substring(0, host.length() - 1);
+		}
+
+		if (host.startsWith("www.")) {
+			host = host.substring(4);
+		}
+
+		int maxLength = analyticsConfig.getMaxReferrerLength();
+		return host.length() > maxLength ? host.substring(0, maxLength) : host;
+	}
+
+	private static final class LinkClicks {
+
+		private final Map<Long, Long> perMinute = new HashMap<>();
+		private final Map<String, Long> perReferrer = new HashMap<>();
+		private long total;
+
+		private void add(ClickEventBuffer.ClickEvent event, String referrerHost) {
+			total++;
+			perMinute.merge(event.timestampMillis() / 60_000, 1L, Long::sum);
+			perReferrer.merge(referrerHost, 1L, Long::sum);
+		}
+
+	}
+}
@@ -0,0 +1,85 @@
+package com.ludwigit.app.services;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free ring buffer with many producers and a single consumer.
+ * <p>
+ * Producers claim a slot with a CAS on the tail and then publish the event into it. The consumer takes events in order
+ * until it reaches a slot that is empty or claimed but not yet published, and clears every slot it takes before moving
+ * the head, so a producer never overwrites an event that was not consumed.
+ */
+public final class ClickEventBuffer {
+
+	private final AtomicReferenceArray<ClickEvent> slots;
+	private final int capacity;
+	private final int mask;
+	private final AtomicLong tail = new AtomicLong();
+	// Only written by the consumer
+	private volatile long head;
+
+	public ClickEventBuffer(int requestedCapacity) {
+		this.capacity = Integer.highestOneBit(Math.max(requestedCapacity - 1, 1)) << 1;
+		this.mask = capacity - 1;
+		this.slots = new AtomicReferenceArray<>(capacity);
+	}
+
+	/**
+	 * @return whether the event was accepted, {@code false} when the buffer is full
+	 */
+	public boolean offer(ClickEvent event) {
+		while (true) {
+			long claimed = tail.get();
+
+			if (claimed - head >= capacity) {
+				return false;
+			}
+
+			if (tail.compareAndSet(claimed, claimed + 1)) {
+				slots.lazySet((int) (claimed & mask), event);
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Must only be called by one thread at a time.
+	 *
+	 * @return how many events were handed to the consumer
+	 */
+	public int drain(Consumer<ClickEvent> consumer, int maxEvents) {
+		long position = head;
+		int drained = 0;
+
+		while (drained < maxEvents) {
+			int index = (int) (position & mask);
+			ClickEvent event = slots.get(index);
+
+			if (event == null) {
+				break;
+			}
+
+			slots.lazySet(index, null);
+			consumer.accept(event);
+			position++;
+			drained++;
+		}
+
+		head = position;
+
+		return drained;
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+
+	public long size() {
+		return tail.get() - head;
+	}
+
+	public record ClickEvent(String code, String referrer, long timestampMillis) {
+	}
+}
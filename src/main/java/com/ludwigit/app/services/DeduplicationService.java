@@ -0,0 +1,157 @@
+package com.ludwigit.app.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ludwigit.app.config.DeduplicationConfig;
+import com.ludwigit.app.model.ShortedURL;
+import com.ludwigit.app.repositories.ShortedURLStore;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reverse lookup from an original URL hash to the id already shortened for it, kept in memory and in Redis so the
+ * check does not cost a database read on every create. The database fallback looks for the hashes on every shard,
+ * the shard of a link depends on its id, which is what is being looked up.
+ */
+@Service
+public class DeduplicationService {
+
+	private static final String KEY_PREFIX = "shortedUrls:hash:";
+
+	private final RedisTemplate<String, Object> redisTemplate;
+	private final RedisCircuitBreaker redisCircuitBreaker;
+	private final RedisCacheWriter redisCacheWriter;
+	private final ShortedURLStore shortedUrlStore;
+	private final ShardRouter shardRouter;
+	private final DeduplicationConfig deduplicationConfig;
+	private final Cache<String, Long> localCache;
+
+	public DeduplicationService(
+		RedisTemplate<String, Object> redisTemplate,
+		RedisCircuitBreaker redisCircuitBreaker,
+		RedisCacheWriter redisCacheWriter,
+		ShortedURLStore shortedUrlStore,
+		ShardRouter shardRouter,
+		DeduplicationConfig deduplicationConfig
+	) {
+		this.redisTemplate = redisTemplate;
+		this.redisCircuitBreaker = redisCircuitBreaker;
+		this.redisCacheWriter = redisCacheWriter;
+		this.shortedUrlStore = shortedUrlStore;
+		this.shardRouter = shardRouter;
+		this.deduplicationConfig = deduplicationConfig;
+		this.localCache = Caffeine.newBuilder()
+			.maximumSize(deduplicationConfig.getLocalMaximumSize())
+			.expireAfterWrite(deduplicationConfig.getTtl())
+			.build();
+	}
+
+	public boolean isEnabled() {
+		return deduplicationConfig.getMode() != DeduplicationConfig.Mode.OFF;
+	}
+
+	public boolean rejectsDuplicates() {
+		return deduplicationConfig.getMode() == DeduplicationConfig.Mode.REJECT;
+	}
+
+	public Duration ttl() {
+		return deduplicationConfig.getTtl();
+	}
+
+	public String key(byte[] originalUrlHash) {
+		return KEY_PREFIX + HexFormat.of().formatHex(originalUrlHash);
+	}
+
+	/**
+	 * @return the id already created for each hash, or {@code null} where there is none, in the same order
+	 */
+	public List<Long> findIds(List<byte[]> originalUrlHashes) {
+		List<Long> ids = new ArrayList<>(originalUrlHashes.size());
+		List<String> missingKeys = new ArrayList<>();
+		List<Integer> missingIndexes = new ArrayList<>();
+
+		for (int i = 0; i < originalUrlHashes.size(); i++) {
+			String key = key(originalUrlHashes.get(i));
+			Long id = localCache.getIfPresent(key);
+
+			ids.add(id);
+
+			if (id == null) {
+				missingKeys.add(key);
+				missingIndexes.add(i);
+			}
+		}
+
+		if (missingKeys.isEmpty()) {
+			return ids;
+		}
+
+		// Without Redis only the database fallback, when enabled, still finds duplicates created on other nodes
+		List<Object> cachedIds = redisCircuitBreaker.execute(() -> redisTemplate.opsForValue().multiGet(missingKeys), () -> null);
+		List<Integer> stillMissing = new ArrayList<>();
+
+		for (int i = 0; i < missingKeys.size(); i++) {
+			Object cachedId = cachedIds != null ? cachedIds.get(i) : null;
+
+			if (cachedId instanceof Number number) {
+				ids.set(missingIndexes.get(i), number.longValue());
+				localCache.put(missingKeys.get(i), number.longValue());
+			} else {
+				stillMissing.add(missingIndexes.get(i));
+			}
+		}
+
+		if (deduplicationConfig.isDatabaseFallback() && !stillMissing.isEmpty()) {
+			findInDatabase(originalUrlHashes, stillMissing, ids);
+		}
+
+		return ids;
+	}
+
+	/**
+	 * Remembers a freshly created id on this node. The Redis entry is written together with the cache entry.
+	 */
+	public void remember(byte[] originalUrlHash, Long id) {
+		localCache.put(key(originalUrlHash), id);
+	}
+
+	private void findInDatabase(List<byte[]> originalUrlHashes, List<Integer> missingIndexes, List<Long> ids) {
+		Map<String, byte[]> hashes = new HashMap<>();
+		missingIndexes.forEach(index -> hashes.put(key(originalUrlHashes.get(index)), originalUrlHashes.get(index)));
+
+		Map<String, Long> stored = new HashMap<>();
+
+		for (int shard : shardRouter.shards()) {
+			List<byte[]> remaining = hashes.entrySet().stream()
+				.filter(entry -> !stored.containsKey(entry.getKey()))
+				.map(Map.Entry::getValue)
+				.toList();
+
+			if (remaining.isEmpty()) {
+				break;
+			}
+
+			for (ShortedURL shortedUrl : shardRouter.onShard(shard, () -> shortedUrlStore.findAllByOriginalUrlHashIn(remaining))) {
+				stored.putIfAbsent(key(shortedUrl.getOriginalUrlHash()), shortedUrl.getId());
+			}
+		}
+
+		for (Integer index : missingIndexes) {
+			String key = key(originalUrlHashes.get(index));
+			Long id = stored.get(key);
+
+			if (id != null) {
+				ids.set(index, id);
+				localCache.put(key, id);
+				redisCacheWriter.write(key, id, deduplicationConfig.getTtl());
+			}
+		}
+	}
+}
@@ -0,0 +1,513 @@
+package com.ludwigit.app.services;
+
+import java.util.Arrays;
+
+/**
+ * Hashids for a single id, producing the same codes as {@code org.hashids.Hashids} 1.0.3 with the default alphabet
+ * for the same salt and minimum length.
+ * <p>
+ * The library shuffles the alphabet again on every call, builds the code out of intermediate strings and checks a
+ * decode by encoding the result and comparing the two strings. For a single id the alphabet the digits are written in
+ * only depends on the lottery character, the first character of the code, and so do the alphabets used to pad short
+ * codes. All of them are shuffled once here, which leaves encode with a single buffer for the result and decode with
+ * no allocation at all: the check compares the code against its expected characters one position at a time.
+ * <p>
+ * A code is laid out as the lottery character followed by the id in base {@code alphabet length}, optionally wrapped
+ * in guard characters and then padded on both sides with halves of a shuffled alphabet until it reaches the minimum
+ * length. Codes holding more than one number are rejected by {@link #decode(CharSequence)}, where the library would
+ * decode all of them.
+ * <p>
+ * Codes of two numbers, written with a separator character between them and the second one in an alphabet shuffled
+ * once more, are handled by {@link #encode(long, long)} and {@link #decodePair(CharSequence)}. They are only used for
+ * links on shards other than the default one, so they take the plain route of the library instead, building the code
+ * and checking a decode by comparing it against a fresh encode.
+ */
+public final class HashIdsCodec {
+
+	/**
+	 * Largest id the library encodes.
+	 */
+	public static final long MAX_NUMBER = 9_007_199_254_740_992L;
+
+	private static final String DEFAULT_ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ1234567890";
+	private static final String DEFAULT_SEPS = "cfhistuCFHISTU";
+	private static final double SEP_DIV = 3.5;
+	private static final int GUARD_DIV = 12;
+	private static final int ASCII = 128;
+
+	private final int minLength;
+	private final int alphabetLength;
+	private final int half;
+	private final char[] alphabet;
+	private final char[] guards;
+	private final char[] separators;
+	private final boolean[] isSeparator = new boolean[ASCII];
+	private final boolean[] isGuard = new boolean[ASCII];
+	private final int[] lotteryIndexes = new int[ASCII];
+
+	/**
+	 * Per lottery index, the alphabet the digits are written in.
+	 */
+	private final char[][] digitAlphabets;
+
+	/**
+	 * Per lottery index, the value of each character as a digit, or {@code -1}.
+	 */
+	private final byte[][] digitValues;
+
+	/**
+	 * Per lottery index, the alphabet and digit values of the second number of a pair.
+	 */
+	private final char[][] secondDigitAlphabets;
+	private final byte[][] secondDigitValues;
+
+	/**
+	 * Per lottery index and padding round, the alphabet whose halves wrap the code.
+	 */
+	private final char[][][] paddingAlphabets;
+
+	/**
+	 * Powers of the alphabet length, up to the largest that fits an id.
+	 */
+	private final long[] powers;
+
+	public HashIdsCodec(String salt, int minLength) {
+		salt = salt != null ? salt : "";
+		this.minLength = Math.max(minLength, 0);
+
+		// Same steps as the library constructor, so the alphabet, separators and guards match
+		String alphabet = DEFAULT_ALPHABET;
+		String seps = DEFAULT_SEPS;
+
+		for (int i = 0; i < seps.length(); i++) {
+			int j = alphabet.indexOf(seps.charAt(i));
+
+			if (j == -1) {
+				seps = seps.substring(0, i) + " " + seps.substring(i + 1);
+			} else {
+				alphabet = alphabet.substring(0, j) + " " + alphabet.substring(j + 1);
+			}
+		}
+
+		alphabet = alphabet.replaceAll("\\s+", "");
+		seps = consistentShuffle(seps.replaceAll("\\s+", ""), salt);
+
+		if (seps.isEmpty() || ((float) alphabet.length() / seps.length()) > SEP_DIV) {
+			int sepsLength = (int) Math.ceil(alphabet.length() / SEP_DIV);
+
+			if (sepsLength == 1) {
+				sepsLength++;
+			}
+
+			if (sepsLength > seps.length()) {
+				int diff = sepsLength - seps.length();
+				seps += alphabet.substring(0, diff);
+				alphabet = alphabet.substring(diff);
+			} else {
+				seps = seps.substring(0, sepsLength);
+			}
+		}
+
+		alphabet = consistentShuffle(alphabet, salt);
+		int guardCount = (int) Math.ceil((double) alphabet.length() / GUARD_DIV);
+		String guards;
+
+		if (alphabet.length() < 3) {
+			guards = seps.substring(0, guardCount);
+		} else {
+			guards = alphabet.substring(0, guardCount);
+			alphabet = alphabet.substring(guardCount);
+		}
+
+		this.alphabet = alphabet.toCharArray();
+		this.guards = guards.toCharArray();
+		this.separators = seps.toCharArray();
+		this.alphabetLength = alphabet.length();
+		this.half = alphabetLength / 2;
+
+		for (char guard : this.guards) {
+			isGuard[guard] = true;
+		}
+
+		for (char separator : separators) {
+			isSeparator[separator] = true;
+		}
+
+		Arrays.fill(lotteryIndexes, -1);
+
+		for (int i = 0; i < alphabetLength; i++) {
+			lotteryIndexes[this.alphabet[i]] = i;
+		}
+
+		// Codes of at least four characters never need padding below that
+		int paddingRounds = this.minLength > 4 ? (this.minLength - 4 + alphabetLength - 1) / alphabetLength : 0;
+
+		digitAlphabets = new char[alphabetLength][];
+		digitValues = new byte[alphabetLength][];
+		secondDigitAlphabets = new char[alphabetLength][];
+		secondDigitValues = new byte[alphabetLength][];
+		paddingAlphabets = new char[alphabetLength][paddingRounds][];
+
+		for (int lottery = 0; lottery < alphabetLength; lottery++) {
+			String shuffleSalt = (this.alphabet[lottery] + salt + alphabet).substring(0, alphabetLength);
+			String digitAlphabet = consistentShuffle(alphabet, shuffleSalt);
+
+			digitAlphabets[lottery] = digitAlphabet.toCharArray();
+			digitValues[lottery] = digitValues(digitAlphabet);
+
+			String secondDigitAlphabet = consistentShuffle(
+				digitAlphabet,
+				(this.alphabet[lottery] + salt + digitAlphabet).substring(0, alphabetLength)
+			);
+			secondDigitAlphabets[lottery] = secondDigitAlphabet.toCharArray();
+			secondDigitValues[lottery] = digitValues(secondDigitAlphabet);
+
+			String paddingAlphabet = digitAlphabet;
+
+			for (int round = 0; round < paddingRounds; round++) {
+				paddingAlphabet = consistentShuffle(paddingAlphabet, paddingAlphabet);
+				paddingAlphabets[lottery][round] = paddingAlphabet.toCharArray();
+			}
+		}
+
+		int maxDigits = 1;
+
+		for (long power = 1; power <= MAX_NUMBER / alphabetLength; power *= alphabetLength) {
+			maxDigits++;
+		}
+
+		powers = new long[maxDigits];
+		powers[0] = 1;
+
+		for (int i = 1; i < maxDigits; i++) {
+			powers[i] = powers[i - 1] * alphabetLength;
+		}
+	}
+
+	public String encode(long id) {
+		if (id < 0 || id > MAX_NUMBER) {
+			throw new IllegalArgumentException("id must be between 0 and " + MAX_NUMBER);
+		}
+
+		int lottery = lottery(id);
+		int digitCount = digitCount(id);
+		char[] code = new char[Math.max(1 + digitCount, minLength)];
+
+		for (int position = 0; position < code.length; position++) {
+			code[position] = charAt(id, lottery, digitCount, position);
+		}
+
+		return new String(code);
+	}
+
+	/**
+	 * @return the id, or {@code -1} when the code is not exactly the one {@link #encode(long)} produces for it
+	 */
+	public long decode(CharSequence code) {
+		int length = code.length();
+
+		if (length == 0) {
+			return -1;
+		}
+
+		// The lottery and the digits sit between the first two guards, or make up the whole code without guards
+		int from = 0;
+		int to = length;
+		boolean guardSeen = false;
+
+		for (int i = 0; i < length; i++) {
+			char c = code.charAt(i);
+
+			if (c < ASCII && isGuard[c]) {
+				if (guardSeen) {
+					to = i;
+					break;
+				}
+
+				guardSeen = true;
+				from = i + 1;
+			}
+		}
+
+		if (to - from < 2 || code.charAt(from) >= ASCII) {
+			return -1;
+		}
+
+		int lottery = lotteryIndexes[code.charAt(from)];
+
+		if (lottery < 0) {
+			return -1;
+		}
+
+		byte[] values = digitValues[lottery];
+		long id = 0;
+
+		for (int i = from + 1; i < to; i++) {
+			char c = code.charAt(i);
+			int digit = c < ASCII ? values[c] : -1;
+
+			// Separators are not digits, so codes holding several numbers stop here too
+			if (digit < 0 || id > (MAX_NUMBER - digit) / alphabetLength) {
+				return -1;
+			}
+
+			id = id * alphabetLength + digit;
+		}
+
+		return matches(id, code) ? id : -1;
+	}
+
+	/**
+	 * Same as the library encoding both numbers into one code.
+	 */
+	public String encode(long first, long second) {
+		if (first < 0 || first > MAX_NUMBER || second < 0 || second > MAX_NUMBER) {
+			throw new IllegalArgumentException("numbers must be between 0 and " + MAX_NUMBER);
+		}
+
+		long numbersHash = first % 100 + second % 101;
+		int lottery = (int) (numbersHash % alphabetLength);
+		StringBuilder builder = new StringBuilder(Math.max(minLength, 16));
+
+		builder.append(alphabet[lottery]);
+		appendDigits(builder, first, digitAlphabets[lottery]);
+		// The separator is picked from the first character of the first number
+		builder.append(separators[(int) (first % (builder.charAt(1)) % separators.length)]);
+		appendDigits(builder, second, secondDigitAlphabets[lottery]);
+
+		String code = builder.toString();
+
+		if (code.length() < minLength) {
+			code = guards[(int) ((numbersHash + code.charAt(0)) % guards.length)] + code;
+
+			if (code.length() < minLength) {
+				code += guards[(int) ((numbersHash + code.charAt(2)) % guards.length)];
+			}
+		}
+
+		String paddingAlphabet = new String(secondDigitAlphabets[lottery]);
+
+		while (code.length() < minLength) {
+			paddingAlphabet = consistentShuffle(paddingAlphabet, paddingAlphabet);
+			code = paddingAlphabet.substring(half) + code + paddingAlphabet.substring(0, half);
+
+			int excess = code.length() - minLength;
+
+			if (excess > 0) {
+				code = code.substring(excess / 2, excess / 2 + minLength);
+			}
+		}
+
+		return code;
+	}
+
+	/**
+	 * @return both numbers, or {@code null} when the code is not exactly the one {@link #encode(long, long)} produces
+	 * for them
+	 */
+	public long[] decodePair(CharSequence code) {
+		int length = code.length();
+		int from = 0;
+		int to = length;
+		boolean guardSeen = false;
+
+		for (int i = 0; i < length; i++) {
+			char c = code.charAt(i);
+
+			if (c < ASCII && isGuard[c]) {
+				if (guardSeen) {
+					to = i;
+					break;
+				}
+
+				guardSeen = true;
+				from = i + 1;
+			}
+		}
+
+		if (to - from < 4 || code.charAt(from) >= ASCII || lotteryIndexes[code.charAt(from)] < 0) {
+			return null;
+		}
+
+		int lottery = lotteryIndexes[code.charAt(from)];
+		int separator = -1;
+
+		for (int i = from + 1; i < to; i++) {
+			char c = code.charAt(i);
+
+			if (c < ASCII && isSeparator[c]) {
+				if (separator >= 0) {
+					return null;
+				}
+
+				separator = i;
+			}
+		}
+
+		if (separator <= from + 1 || separator >= to - 1) {
+			return null;
+		}
+
+		long first = parseDigits(code, from + 1, separator, digitValues[lottery]);
+		long second = parseDigits(code, separator + 1, to, secondDigitValues[lottery]);
+
+		if (first < 0 || second < 0 || !encode(first, second).contentEquals(code)) {
+			return null;
+		}
+
+		return new long[]{first, second};
+	}
+
+	private void appendDigits(StringBuilder builder, long number, char[] digitAlphabet) {
+		int digitCount = digitCount(number);
+
+		for (int index = 0; index < digitCount; index++) {
+			builder.append(digitAlphabet[digit(number, digitCount, index)]);
+		}
+	}
+
+	/**
+	 * @return the number, or {@code -1} for a character that is not a digit or a number past the largest one
+	 */
+	private long parseDigits(CharSequence code, int from, int to, byte[] values) {
+		long number = 0;
+
+		for (int i = from; i < to; i++) {
+			char c = code.charAt(i);
+			int digit = c < ASCII ? values[c] : -1;
+
+			if (digit < 0 || number > (MAX_NUMBER - digit) / alphabetLength) {
+				return -1;
+			}
+
+			number = number * alphabetLength + digit;
+		}
+
+		return number;
+	}
+
+	private boolean matches(long id, CharSequence code) {
+		int lottery = lottery(id);
+		int digitCount = digitCount(id);
+
+		if (code.length() != Math.max(1 + digitCount, minLength)) {
+			return false;
+		}
+
+		for (int position = 0; position < code.length(); position++) {
+			if (code.charAt(position) != charAt(id, lottery, digitCount, position)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * The character at a position of the code of an id, found by walking back through the padding rounds that put it
+	 * there instead of building every intermediate string.
+	 */
+	private char charAt(long id, int lottery, int digitCount, int position) {
+		int coreLength = 1 + digitCount;
+		boolean leadingGuard = coreLength < minLength;
+		boolean trailingGuard = leadingGuard && coreLength + 1 < minLength;
+		int unpaddedLength = coreLength + (leadingGuard ? 1 : 0) + (trailingGuard ? 1 : 0);
+		int rounds = unpaddedLength < minLength ? (minLength - unpaddedLength + alphabetLength - 1) / alphabetLength : 0;
+
+		// Each round puts the second half of its alphabet on the left and the first half on the right, then keeps the
+		// middle minLength characters
+		for (int round = rounds; round > 0; round--) {
+			int innerLength = Math.min(unpaddedLength + (round - 1) * alphabetLength, minLength);
+			int start = Math.max(innerLength + alphabetLength - minLength, 0) / 2;
+			int index = position + start;
+			char[] paddingAlphabet = paddingAlphabets[lottery][round - 1];
+
+			if (index < alphabetLength - half) {
+				return paddingAlphabet[half + index];
+			}
+
+			index -= alphabetLength - half;
+
+			if (index >= innerLength) {
+				return paddingAlphabet[index - innerLength];
+			}
+
+			position = index;
+		}
+
+		if (leadingGuard) {
+			if (position == 0) {
+				return guards[(int) ((id % 100 + alphabet[lottery]) % guards.length)];
+			}
+
+			position--;
+		}
+
+		if (position == 0) {
+			return alphabet[lottery];
+		}
+
+		if (position <= digitCount) {
+			return digitAlphabets[lottery][digit(id, digitCount, position - 1)];
+		}
+
+		// Trailing guard, picked from the first digit
+		char firstDigit = digitAlphabets[lottery][digit(id, digitCount, 0)];
+
+		return guards[(int) ((id % 100 + firstDigit) % guards.length)];
+	}
+
+	private int lottery(long id) {
+		return (int) (id % 100 % alphabetLength);
+	}
+
+	private int digitCount(long id) {
+		int count = 1;
+
+		while (count < powers.length && id >= powers[count]) {
+			count++;
+		}
+
+		return count;
+	}
+
+	/**
+	 * @return the digit at an index, the most significant first
+	 */
+	private int digit(long id, int digitCount, int index) {
+		return (int) (id / powers[digitCount - 1 - index] % alphabetLength);
+	}
+
+	private static byte[] digitValues(String digitAlphabet) {
+		byte[] values = new byte[ASCII];
+		Arrays.fill(values, (byte) -1);
+
+		for (int digit = 0; digit < digitAlphabet.length(); digit++) {
+			values[digitAlphabet.charAt(digit)] = (byte) digit;
+		}
+
+		return values;
+	}
+
+	private static String consistentShuffle(String alphabet, String salt) {
+		if (salt.isEmpty()) {
+			return alphabet;
+		}
+
+		char[] shuffled = alphabet.toCharArray();
+
+		for (int i = shuffled.length - 1, v = 0, p = 0; i > 0; i--, v++) {
+			v %= salt.length();
+			int ascii = salt.charAt(v);
+			p += ascii;
+			int j = (ascii + v + p) % i;
+
+			char swap = shuffled[j];
+			shuffled[j] = shuffled[i];
+			shuffled[i] = swap;
+		}
+
+		return new String(shuffled);
+	}
+
+}
@@ -1,15 +1,20 @@
 package com.ludwigit.app.services;
 
 import com.ludwigit.app.config.HashIdConfig;
-import org.hashids.Hashids;
+import com.ludwigit.app.model.ShortedURL;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
 
+/**
+ * Ids on the default shard are written as single number codes, the same ones they had before sharding. Ids on any
+ * other shard are written as the shard followed by the id within it, so the code stays short however high the shard
+ * puts the id, and a lookup knows where the row lives from the code alone.
+ */
 @Service
 public class HashIdsService {
 
-	private final Hashids hashids;
+	private final HashIdsCodec codec;
 
 	public HashIdsService(
 		HashIdConfig hashIdConfig
@@ -17,20 +22,37 @@ public class HashIdsService {
 		String salt = hashIdConfig.getSalt();
 		Integer minLength = hashIdConfig.getMinLength();
 
-		this.hashids = new Hashids(salt, minLength);
+		this.codec = new HashIdsCodec(salt, minLength != null ? minLength : 0);
 	}
 
 	public String encode(Long id) {
-		return this.hashids.encode(id);
+		int shard = ShortedURL.shardOf(id);
+
+		if (shard == 0) {
+			return this.codec.encode(id);
+		}
+
+		return this.codec.encode(shard, id & ShortedURL.LOCAL_ID_MASK);
 	}
 
-	public Optional<Long> decode(String hash) throws IllegalArgumentException {
-		long[] decodedIds = this.hashids.decode(hash);
+	public Optional<Long> decode(String hash) {
+		long decodedId = this.codec.decode(hash);
+
+		if (decodedId >= 0) {
+			// Higher ids are only ever written with their shard
+			return ShortedURL.shardOf(decodedId) == 0 ? Optional.of(decodedId) : Optional.empty();
+		}
+
+		long[] shardAndId = this.codec.decodePair(hash);
 
-		if (decodedIds.length == 0) {
+		// The default shard is never written as a pair either, every id has exactly one code
+		if (shardAndId == null
+			|| shardAndId[0] == 0
+			|| shardAndId[0] > ShortedURL.MAX_SHARD
+			|| shardAndId[1] > ShortedURL.LOCAL_ID_MASK) {
 			return Optional.empty();
 		}
 
-		return Optional.of(decodedIds[0]);
+		return Optional.of(ShortedURL.firstIdOf((int) shardAndId[0]) | shardAndId[1]);
 	}
 }
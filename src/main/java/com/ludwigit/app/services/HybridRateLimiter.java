@@ -0,0 +1,344 @@
+package com.ludwigit.app.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ludwigit.app.config.RateLimitConfig;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-window limiter that decides in memory and pushes the consumed quota to Redis in batches.
+ * <p>
+ * Each node admits requests against the last global count it saw plus what it consumed since, so the global limit can
+ * be overshot by roughly {@code nodes * request rate * sync interval}. The counters share their keys with the
+ * fixed-window script, so nodes in both modes count against the same budget.
+ * <p>
+ * It counts in fixed windows whatever algorithm a policy is configured with. A window's count is a plain sum, so every
+ * node can push what it consumed as a delta and adopt the total Redis replies with. The state of a token bucket or a
+ * sliding window depends on when each request arrived, and cannot be merged from batched deltas without sending every
+ * timestamp, which is the per-request traffic this mode exists to avoid.
+ * <p>
+ * At most {@code app.rate-limit.hybrid-maximum-keys} clients are tracked. The quota consumed by an evicted client is
+ * pushed with the next sync, so evicting it only forgets the global count it last saw.
+ */
+@Service
+public class HybridRateLimiter {
+
+	private static final RedisScript<List<Long>> SYNC_SCRIPT = loadScript();
+
+	private final RedisTemplate<String, Object> redisTemplate;
+	private final RedisCircuitBreaker redisCircuitBreaker;
+	private final int syncBatchSize;
+	private final Cache<String, Counter> counters;
+	// Quota of counters that were evicted, or failed to sync after being retired
+	private final Queue<Pending> orphaned = new ConcurrentLinkedQueue<>();
+	private final LongAdder evictions = new LongAdder();
+
+	public HybridRateLimiter(
+		RedisTemplate<String, Object> redisTemplate,
+		RedisCircuitBreaker redisCircuitBreaker,
+		RateLimitConfig rateLimitConfig
+	) {
+		this.redisTemplate = redisTemplate;
+		this.redisCircuitBreaker = redisCircuitBreaker;
+		this.syncBatchSize = rateLimitConfig.getSyncBatchSize();
+		this.counters = Caffeine.newBuilder()
+			.maximumSize(rateLimitConfig.getHybridMaximumKeys())
+			// Evicts on the thread adding the counter, it only retires the evicted one
+			.executor(Runnable::run)
+			.<String, Counter>evictionListener((key, counter, cause) -> {
+				evictions.increment();
+
+				long pending = counter.retire();
+
+				if (pending > 0) {
+					orphaned.add(new Pending(key, null, pending, counter.windowMillis));
+				}
+			})
+			.build();
+	}
+
+	public RateLimitService.Decision consume(String key, long limit, long windowMillis) {
+		for (int attempt = 0; ; attempt++) {
+			long now = System.currentTimeMillis();
+			Counter counter = counters.get(key, ignored -> new Counter(windowMillis, now + windowMillis));
+			counter.rollOver(now);
+
+			long used = counter.reserve(limit);
+
+			if (used == Counter.RETIRED) {
+				if (attempt > 0) {
+					// The new counter was evicted right away, decided like a client seen for the first time
+					orphaned.add(new Pending(key, null, 1, windowMillis));
+					return new RateLimitService.Decision(true, limit, limit - 1, 0);
+				}
+
+				// Retired by a sync or evicted after it was looked up, the next lookup adds a new one
+				counters.asMap().remove(key, counter);
+				continue;
+			}
+
+			if (used >= limit) {
+				return new RateLimitService.Decision(false, limit, 0, Math.max(counter.windowEndsAt.get() - now, 1));
+			}
+
+			return new RateLimitService.Decision(true, limit, limit - used - 1, 0);
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${app.rate-limit.sync-interval:250ms}")
+	public void sync() {
+		// Pending quota is kept and pushed once Redis is back
+		if ((counters.estimatedSize() == 0 && orphaned.isEmpty()) || redisCircuitBreaker.isOpen()) {
+			return;
+		}
+
+		List<Pending> batch = new ArrayList<>(syncBatchSize);
+		long now = System.currentTimeMillis();
+
+		for (Pending pending = orphaned.poll(); pending != null; pending = orphaned.poll()) {
+			add(batch, pending);
+		}
+
+		for (Map.Entry<String, Counter> entry : counters.asMap().entrySet()) {
+			Counter counter = entry.getValue();
+			long delta = counter.takePending();
+
+			if (delta == 0) {
+				if (counter.retireIfIdle(now)) {
+					counters.asMap().remove(entry.getKey(), counter);
+				}
+				continue;
+			}
+
+			if (delta == Counter.RETIRED) {
+				counters.asMap().remove(entry.getKey(), counter);
+			} else {
+				add(batch, new Pending(entry.getKey(), counter, delta, counter.windowMillis));
+			}
+		}
+
+		if (!batch.isEmpty()) {
+			flush(batch);
+		}
+	}
+
+	public long trackedKeys() {
+		return counters.estimatedSize();
+	}
+
+	public long evictions() {
+		return evictions.sum();
+	}
+
+	private void add(List<Pending> batch, Pending pending) {
+		batch.add(pending);
+
+		if (batch.size() == syncBatchSize) {
+			flush(batch);
+			batch.clear();
+		}
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private void flush(List<Pending> batch) {
+		List<String> keys = new ArrayList<>(batch.size());
+		Object[] args = new Object[batch.size() * 2];
+
+		for (int i = 0; i < batch.size(); i++) {
+			keys.add(batch.get(i).key());
+			args[2 * i] = String.valueOf(batch.get(i).delta());
+			args[2 * i + 1] = String.valueOf(batch.get(i).windowMillis());
+		}
+
+		List<Long> reply;
+
+		try {
+			reply = redisCircuitBreaker.execute(() -> redisTemplate.execute(
+				SYNC_SCRIPT,
+				RedisSerializer.string(),
+				(RedisSerializer) RedisSerializer.string(),
+				keys,
+				args
+			));
+		} catch (RuntimeException exception) {
+			// Give the quota back so it is pushed on the next sync instead of being lost
+			for (Pending pending : batch) {
+				if (pending.counter() == null || !pending.counter().giveBack(pending.delta())) {
+					orphaned.add(new Pending(pending.key(), null, pending.delta(), pending.windowMillis()));
+				}
+			}
+			throw exception;
+		}
+
+		if (reply == null || reply.size() < keys.size() * 2) {
+			return;
+		}
+
+		long now = System.currentTimeMillis();
+
+		for (int i = 0; i < batch.size(); i++) {
+			Counter counter = batch.get(i).counter();
+
+			if (counter != null) {
+				counter.adopt(reply.get(2 * i), now + reply.get(2 * i + 1));
+			}
+		}
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static RedisScript<List<Long>> loadScript() {
+		return (RedisScript) RedisScript.of(new ClassPathResource("scripts/rate-limit/sync-counters.lua"), List.class);
+	}
+
+	/**
+	 * Quota consumed locally and not yet pushed. Without a counter when it was orphaned, nothing adopts the reply.
+	 */
+	private record Pending(String key, Counter counter, long delta, long windowMillis) {
+	}
+
+	/**
+	 * The global count last seen in Redis and the quota consumed here since, packed in one long so a request checks
+	 * both and reserves its slot with a single compare-and-set.
+	 */
+	private static final class Counter {
+
+		// Never a valid state, both halves are kept non-negative
+		private static final long RETIRED = -1;
+		private static final long PENDING_MASK = 0xFFFF_FFFFL;
+
+		private final long windowMillis;
+		// Global count in the high half, pending quota in the low half
+		private final AtomicLong state = new AtomicLong();
+		private final AtomicLong windowEndsAt;
+
+		private Counter(long windowMillis, long windowEndsAt) {
+			this.windowMillis = windowMillis;
+			this.windowEndsAt = new AtomicLong(windowEndsAt);
+		}
+
+		/**
+		 * Takes a slot when fewer than {@code limit} were used.
+		 *
+		 * @return how many were used before this request, or {@link #RETIRED}
+		 */
+		private long reserve(long limit) {
+			while (true) {
+				long current = state.get();
+
+				if (current == RETIRED) {
+					return RETIRED;
+				}
+
+				long used = (current >>> 32) + (current & PENDING_MASK);
+
+				if (used >= limit || (current & PENDING_MASK) == PENDING_MASK) {
+					return Math.max(used, limit);
+				}
+
+				if (state.compareAndSet(current, current + 1)) {
+					return used;
+				}
+			}
+		}
+
+		private void rollOver(long now) {
+			long endsAt = windowEndsAt.get();
+
+			if (now >= endsAt && windowEndsAt.compareAndSet(endsAt, now + windowMillis)) {
+				// The window rolled over since the last sync, start over until Redis tells us otherwise
+				state.getAndUpdate(current -> current == RETIRED ? current : current & PENDING_MASK);
+			}
+		}
+
+		/**
+		 * Moves the quota consumed since the last sync into the global count, so it keeps counting against the limit
+		 * while the sync is in flight and until {@link #adopt} replaces the global count with the one from Redis.
+		 *
+		 * @return the quota consumed since the last sync, now handed to this one, or {@link #RETIRED}
+		 */
+		private long takePending() {
+			long previous = state.getAndUpdate(current -> {
+				if (current == RETIRED) {
+					return current;
+				}
+
+				long global = Math.min((current >>> 32) + (current & PENDING_MASK), Integer.MAX_VALUE);
+				return global << 32;
+			});
+			return previous == RETIRED ? RETIRED : previous & PENDING_MASK;
+		}
+
+		/**
+		 * Undoes {@link #takePending} when the sync failed, moving the quota back from the global count to the pending
+		 * one. The global count may have been reset by a rollover meanwhile, so it is kept from going negative.
+		 *
+		 * @return whether the quota was given back, not when the counter was retired meanwhile
+		 */
+		private boolean giveBack(long delta) {
+			return state.getAndUpdate(current -> {
+				if (current == RETIRED) {
+					return current;
+				}
+
+				long global = Math.max((current >>> 32) - delta, 0);
+				long pending = Math.min((current & PENDING_MASK) + delta, PENDING_MASK);
+				return (global << 32) | pending;
+			}) != RETIRED;
+		}
+
+		private void adopt(long globalCount, long endsAt) {
+			long global = Math.min(globalCount, Integer.MAX_VALUE);
+
+			state.getAndUpdate(current -> current == RETIRED ? current : (global << 32) | (current & PENDING_MASK));
+			windowEndsAt.set(endsAt);
+		}
+
+		/**
+		 * Retires the counter once its window ended with nothing left to push. Requests still holding it look it up
+		 * again, so nothing is consumed on a counter no sync will see.
+		 */
+		private boolean retireIfIdle(long now) {
+			if (now < windowEndsAt.get()) {
+				return false;
+			}
+
+			while (true) {
+				long current = state.get();
+
+				if (current == RETIRED) {
+					return true;
+				}
+
+				if ((current & PENDING_MASK) != 0) {
+					return false;
+				}
+
+				if (state.compareAndSet(current, RETIRED)) {
+					return true;
+				}
+			}
+		}
+
+		/**
+		 * @return the quota consumed since the last sync, which the caller must push
+		 */
+		private long retire() {
+			long previous = state.getAndSet(RETIRED);
+			return previous == RETIRED ? 0 : previous & PENDING_MASK;
+		}
+
+	}
+}
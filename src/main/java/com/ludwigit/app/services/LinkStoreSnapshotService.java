@@ -0,0 +1,93 @@
+package com.ludwigit.app.services;
+
+import com.ludwigit.app.config.LinkStoreConfig;
+import com.ludwigit.app.config.TransferConfig;
+import com.ludwigit.app.model.ShortedURL;
+import com.ludwigit.app.repositories.MappedLinkStore;
+import com.ludwigit.app.repositories.MappedShortedURLStore;
+import com.ludwigit.app.repositories.ShortedURLStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Builds the link store edge nodes serve redirects from, and keeps it compact.
+ * <p>
+ * A snapshot pages through the shorted URLs of the running node, backwards by id like the cache warmup, into a new
+ * store holding only their latest state, ready to be copied to {@code app.link-store.directory} on the edge nodes.
+ * Only the default shard is copied, the store cannot hold the ids of other shards.
+ */
+@Service
+public class LinkStoreSnapshotService {
+
+	private final ShortedURLStore shortedUrlStore;
+	private final ObjectProvider<MappedShortedURLStore> mappedShortedUrlStore;
+	private final LinkStoreConfig linkStoreConfig;
+	private final TransferConfig transferConfig;
+
+	public LinkStoreSnapshotService(
+		ShortedURLStore shortedUrlStore,
+		ObjectProvider<MappedShortedURLStore> mappedShortedUrlStore,
+		LinkStoreConfig linkStoreConfig,
+		TransferConfig transferConfig
+	) {
+		this.shortedUrlStore = shortedUrlStore;
+		this.mappedShortedUrlStore = mappedShortedUrlStore;
+		this.linkStoreConfig = linkStoreConfig;
+		this.transferConfig = transferConfig;
+	}
+
+	/**
+	 * @return how many shorted URLs were written
+	 */
+	public long snapshot(Path directory) {
+		if (Files.exists(directory.resolve(MappedLinkStore.DATA_FILE))) {
+			throw new IllegalStateException(directory + " already holds a link store");
+		}
+
+		long written = 0;
+		long lastId = shortedUrlStore.findMaxId().orElse(0L) + 1;
+
+		// Forced to disk once when closed, not on every page
+		try (MappedLinkStore store = new MappedLinkStore(directory, linkStoreConfig.getSegmentSize(), false)) {
+			while (true) {
+				List<ShortedURL> page = shortedUrlStore.findAllByIdLessThanOrderByIdDesc(
+					lastId,
+					Limit.of(transferConfig.getPageSize())
+				);
+
+				if (page.isEmpty()) {
+					return written;
+				}
+
+				store.saveAll(page);
+				written += page.size();
+				lastId = page.getLast().getId();
+			}
+		} catch (IOException exception) {
+			throw new UncheckedIOException("Could not write the link store snapshot to " + directory, exception);
+		}
+	}
+
+	/**
+	 * Compacts the link store of this node.
+	 *
+	 * @return how many shorted URLs were kept
+	 * @throws IllegalStateException when the node does not run the {@code edge} profile
+	 */
+	public long compact() {
+		MappedShortedURLStore mappedStore = mappedShortedUrlStore.getIfAvailable();
+
+		if (mappedStore == null) {
+			throw new IllegalStateException("Only the link store of the edge profile can be compacted");
+		}
+
+		return mappedStore.compact();
+	}
+}
@@ -0,0 +1,81 @@
+package com.ludwigit.app.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ludwigit.app.config.RateLimitConfig;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Token buckets kept in memory on each node, used by {@link RateLimitService} while Redis is unavailable.
+ * <p>
+ * Nodes do not share these buckets, so every node grants {@code app.rate-limit.fallback-limit-ratio} of each limit on
+ * its own. Buckets of clients that stop sending requests expire after the longest configured window.
+ */
+@Service
+public class LocalRateLimiter {
+
+	private final Cache<String, Bucket> buckets;
+	private final double limitRatio;
+
+	public LocalRateLimiter(RateLimitConfig rateLimitConfig) {
+		long longestWindowSeconds = rateLimitConfig.getWindowSeconds();
+
+		for (RateLimitConfig.Policy policy : rateLimitConfig.getPolicies()) {
+			if (policy.getWindowSeconds() != null) {
+				longestWindowSeconds = Math.max(longestWindowSeconds, policy.getWindowSeconds());
+			}
+		}
+
+		this.limitRatio = rateLimitConfig.getFallbackLimitRatio();
+		this.buckets = Caffeine.newBuilder()
+			.maximumSize(rateLimitConfig.getFallbackMaximumKeys())
+			.expireAfterAccess(Duration.ofSeconds(longestWindowSeconds))
+			.build();
+	}
+
+	public RateLimitService.Decision consume(String key, long limit, long windowMillis) {
+		long capacity = Math.max((long) (limit * limitRatio), 1);
+		long now = System.currentTimeMillis();
+		Bucket bucket = buckets.get(key, ignored -> new Bucket(capacity, now));
+
+		bucket.lock.lock();
+
+		try {
+			// Refills continuously, a full bucket every window
+			bucket.tokens = Math.min(capacity, bucket.tokens + (double) (now - bucket.refilledAt) * capacity / windowMillis);
+			bucket.refilledAt = now;
+
+			if (bucket.tokens < 1) {
+				long retryAfterMillis = (long) Math.ceil((1 - bucket.tokens) * windowMillis / capacity);
+				return new RateLimitService.Decision(false, capacity, 0, Math.max(retryAfterMillis, 1));
+			}
+
+			bucket.tokens--;
+
+			return new RateLimitService.Decision(true, capacity, (long) bucket.tokens, 0);
+		} finally {
+			bucket.lock.unlock();
+		}
+	}
+
+	public long trackedKeys() {
+		return buckets.estimatedSize();
+	}
+
+	private static final class Bucket {
+
+		// Held only for the arithmetic, never across any I/O
+		private final ReentrantLock lock = new ReentrantLock();
+		private double tokens;
+		private long refilledAt;
+
+		private Bucket(long capacity, long now) {
+			this.tokens = capacity;
+			this.refilledAt = now;
+		}
+
+	}
+}
@@ -0,0 +1,55 @@
+package com.ludwigit.app.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.ludwigit.app.config.NearCacheConfig;
+import com.ludwigit.app.model.Redirect;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * In-process L1 cache in front of Redis, keyed by the decoded shorted URL id.
+ * <p>
+ * Entries are bounded by size and expire after write. A link never changes once created and imports only add ids that
+ * are not taken, so nothing has to be invalidated across nodes. The expiry only bounds how long a row edited by hand in
+ * the database keeps being served the old way.
+ */
+@Service
+public class NearCacheService {
+
+	private final Cache<Long, Redirect> cache;
+	private final boolean enabled;
+
+	public NearCacheService(NearCacheConfig nearCacheConfig) {
+		this.enabled = nearCacheConfig.isEnabled();
+		this.cache = Caffeine.newBuilder()
+			.maximumSize(nearCacheConfig.getMaximumSize())
+			.expireAfterWrite(nearCacheConfig.getExpireAfterWrite())
+			.recordStats()
+			.build();
+	}
+
+	public Optional<Redirect> get(Long id) {
+		if (!enabled) {
+			return Optional.empty();
+		}
+
+		return Optional.ofNullable(cache.getIfPresent(id));
+	}
+
+	public void put(Long id, Redirect redirect) {
+		if (enabled) {
+			cache.put(id, redirect);
+		}
+	}
+
+	public CacheStats stats() {
+		return cache.stats();
+	}
+
+	public long size() {
+		return cache.estimatedSize();
+	}
+}
@@ -0,0 +1,115 @@
+package com.ludwigit.app.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ludwigit.app.config.NegativeCacheConfig;
+import com.ludwigit.app.model.ShortedURL;
+import com.ludwigit.app.repositories.ShortedURLStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rejects short codes that decode to ids which were never stored, so code scanners do not reach Redis or the database.
+ * <p>
+ * Ids come from a sequence and are dense, so instead of a bloom filter over every id this keeps a watermark with the
+ * highest stored id and a small cache of ids already found missing below it.
+ */
+@Slf4j
+@Service
+public class NegativeCacheService {
+
+	// Until the first refresh every id is treated as possibly stored
+	private static final long UNKNOWN = Long.MAX_VALUE;
+
+	private final ShortedURLStore shortedUrlStore;
+	private final Cache<Long, Boolean> missingIds;
+	private final boolean enabled;
+	private final long watermarkMargin;
+	private final AtomicLong watermark = new AtomicLong(UNKNOWN);
+	private final AtomicLong rejected = new AtomicLong();
+
+	public NegativeCacheService(
+		ShortedURLStore shortedUrlStore,
+		NegativeCacheConfig negativeCacheConfig
+	) {
+		this.shortedUrlStore = shortedUrlStore;
+		this.enabled = negativeCacheConfig.isEnabled();
+		this.watermarkMargin = negativeCacheConfig.getWatermarkMargin();
+		this.missingIds = Caffeine.newBuilder()
+			.maximumSize(negativeCacheConfig.getMaximumSize())
+			.expireAfterWrite(negativeCacheConfig.getTtl())
+			.build();
+	}
+
+	/**
+	 * @return whether the id is known not to exist, answered in memory
+	 */
+	public boolean isMissing(Long id) {
+		if (!enabled) {
+			return false;
+		}
+
+		long current = watermark.get();
+		boolean missing = (current != UNKNOWN && isOnDefaultShard(id) && id > current + watermarkMargin)
+			|| missingIds.getIfPresent(id) != null;
+
+		if (missing) {
+			rejected.incrementAndGet();
+		}
+
+		return missing;
+	}
+
+	public void markMissing(Long id) {
+		if (enabled) {
+			missingIds.put(id, Boolean.TRUE);
+		}
+	}
+
+	/**
+	 * Records an id created on this node.
+	 */
+	public void observe(Long id) {
+		missingIds.invalidate(id);
+
+		if (!isOnDefaultShard(id)) {
+			return;
+		}
+
+		watermark.accumulateAndGet(id, (current, created) -> current == UNKNOWN ? current : Math.max(current, created));
+	}
+
+	@Scheduled(fixedDelayString = "${app.negative-cache.watermark-refresh-interval:10s}")
+	public void refreshWatermark() {
+		if (!enabled) {
+			return;
+		}
+
+		try {
+			long maxId = shortedUrlStore.findMaxId().orElse(0L);
+			watermark.updateAndGet(current -> current == UNKNOWN ? maxId : Math.max(current, maxId));
+		} catch (DataAccessException exception) {
+			log.warn("Could not refresh the shorted URL id watermark", exception);
+		}
+	}
+
+	public long watermark() {
+		return watermark.get();
+	}
+
+	public long rejected() {
+		return rejected.get();
+	}
+
+	/**
+	 * The watermark is the highest id on the default shard, ids on other shards are only ever rejected once marked
+	 * missing.
+	 */
+	private static boolean isOnDefaultShard(Long id) {
+		return ShortedURL.shardOf(id) == ShardRouter.DEFAULT_SHARD;
+	}
+}
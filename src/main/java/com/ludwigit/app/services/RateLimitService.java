@@ -0,0 +1,273 @@
+package com.ludwigit.app.services;
+
+import com.ludwigit.app.config.RateLimitConfig;
+import com.ludwigit.app.exceptions.RedisUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limit decisions evaluated atomically inside Redis, one round trip per request.
+ * <p>
+ * Every decision is timed under {@code ludwigit.rate_limit.decisions} and counted per policy and outcome under
+ * {@code ludwigit.rate_limit.requests}. While Redis is unavailable requests are decided by the {@link LocalRateLimiter}
+ * instead, in either mode.
+ */
+@Service
+public class RateLimitService {
+
+	private static final String KEY_PREFIX = "rate_limit:";
+
+	private static final RedisScript<List<Long>> FIXED_WINDOW_SCRIPT = loadScript("fixed-window.lua");
+	private static final RedisScript<List<Long>> SLIDING_WINDOW_SCRIPT = loadScript("sliding-window.lua");
+	private static final RedisScript<List<Long>> TOKEN_BUCKET_SCRIPT = loadScript("token-bucket.lua");
+
+	private final RedisTemplate<String, Object> redisTemplate;
+	private final HybridRateLimiter hybridRateLimiter;
+	private final LocalRateLimiter localRateLimiter;
+	private final RedisCircuitBreaker redisCircuitBreaker;
+	private final RateLimitConfig rateLimitConfig;
+	private final List<RoutePolicy> routePolicies;
+	private final RoutePolicy defaultPolicy;
+	private final MeterRegistry meterRegistry;
+	private final Timer decisionTimer;
+	private final ConcurrentMap<String, Counter[]> outcomeCounters = new ConcurrentHashMap<>();
+
+	public RateLimitService(
+		RedisTemplate<String, Object> redisTemplate,
+		HybridRateLimiter hybridRateLimiter,
+		LocalRateLimiter localRateLimiter,
+		RedisCircuitBreaker redisCircuitBreaker,
+		RateLimitConfig rateLimitConfig,
+		MeterRegistry meterRegistry
+	) {
+		this.redisTemplate = redisTemplate;
+		this.hybridRateLimiter = hybridRateLimiter;
+		this.localRateLimiter = localRateLimiter;
+		this.redisCircuitBreaker = redisCircuitBreaker;
+		this.rateLimitConfig = rateLimitConfig;
+		this.defaultPolicy = new RoutePolicy(
+			"default",
+			null,
+			Set.of(),
+			false,
+			rateLimitConfig.getAlgorithm(),
+			rateLimitConfig.getMaxRequests(),
+			rateLimitConfig.getWindowSeconds() * 1000,
+			RateLimitConfig.KeyType.IP,
+			null,
+			Set.of(),
+			// Keeps the keys used before route policies existed
+			""
+		);
+		this.routePolicies = compilePolicies(rateLimitConfig);
+		this.meterRegistry = meterRegistry;
+		this.decisionTimer = Timer.builder("ludwigit.rate_limit.decisions")
+			.description("Time spent deciding whether a request is within its rate limit")
+			.tag("mode", rateLimitConfig.getMode().name().toLowerCase(Locale.ROOT))
+			.publishPercentileHistogram()
+			.minimumExpectedValue(Duration.ofNanos(1_000))
+			.maximumExpectedValue(Duration.ofSeconds(5))
+			.register(meterRegistry);
+
+		// Registered up front so counting a decision is a map read
+		outcomeCounters(defaultPolicy.name());
+		routePolicies.forEach(routePolicy -> outcomeCounters(routePolicy.name()));
+	}
+
+	/**
+	 * Finds the policy for a request. Patterns are parsed once at startup, so this only walks the compiled list.
+	 */
+	public RoutePolicy resolve(String method, String path) {
+		PathContainer pathContainer = PathContainer.parsePath(path);
+
+		for (RoutePolicy routePolicy : routePolicies) {
+			if (routePolicy.matches(method, pathContainer)) {
+				return routePolicy;
+			}
+		}
+
+		return defaultPolicy;
+	}
+
+	public Decision consume(RoutePolicy policy, String identity) {
+		if (policy.exempt()) {
+			return Decision.unlimited(policy.limit());
+		}
+
+		long start = System.nanoTime();
+		Decision decision = consume(policy.keyPrefix() + identity, policy.algorithm(), policy.limit(), policy.windowMillis());
+		decisionTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+		Counter[] counters = outcomeCounters.get(policy.name());
+
+		if (counters == null) {
+			counters = outcomeCounters(policy.name());
+		}
+
+		counters[decision.allowed() ? 0 : 1].increment();
+
+		return decision;
+	}
+
+	/**
+	 * @return the allowed and rejected counters of a policy
+	 */
+	private Counter[] outcomeCounters(String policyName) {
+		return outcomeCounters.computeIfAbsent(policyName, name -> new Counter[]{
+			outcomeCounter(name, "allowed"),
+			outcomeCounter(name, "rejected")
+		});
+	}
+
+	private Counter outcomeCounter(String policyName, String outcome) {
+		return Counter.builder("ludwigit.rate_limit.requests")
+			.description("Rate limited requests by policy and outcome")
+			.tag("policy", policyName)
+			.tag("outcome", outcome)
+			.register(meterRegistry);
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private Decision consume(String clientKey, RateLimitConfig.Algorithm algorithm, long limit, long windowMillis) {
+		if (redisCircuitBreaker.isOpen()) {
+			return localRateLimiter.consume(clientKey, limit, windowMillis);
+		}
+
+		if (rateLimitConfig.getMode() == RateLimitConfig.Mode.HYBRID) {
+			return hybridRateLimiter.consume(KEY_PREFIX + clientKey, limit, windowMillis);
+		}
+
+		// Each algorithm keeps a different data type, so they must never share a key
+		String key = switch (algorithm) {
+			case FIXED_WINDOW -> KEY_PREFIX + clientKey;
+			case SLIDING_WINDOW -> KEY_PREFIX + "sliding:" + clientKey;
+			case TOKEN_BUCKET -> KEY_PREFIX + "bucket:" + clientKey;
+		};
+		RedisScript<List<Long>> script = switch (algorithm) {
+			case FIXED_WINDOW -> FIXED_WINDOW_SCRIPT;
+			case SLIDING_WINDOW -> SLIDING_WINDOW_SCRIPT;
+			case TOKEN_BUCKET -> TOKEN_BUCKET_SCRIPT;
+		};
+
+		List<Long> reply;
+
+		try {
+			reply = redisCircuitBreaker.execute(() -> redisTemplate.execute(
+				script,
+				RedisSerializer.string(),
+				(RedisSerializer) RedisSerializer.string(),
+				List.of(key),
+				String.valueOf(limit),
+				String.valueOf(windowMillis)
+			));
+		} catch (RedisUnavailableException exception) {
+			return localRateLimiter.consume(clientKey, limit, windowMillis);
+		}
+
+		if (reply == null || reply.size() < 3) {
+			return Decision.unlimited(limit);
+		}
+
+		return new Decision(reply.get(0) == 1L, limit, reply.get(1), reply.get(2));
+	}
+
+	private static List<RoutePolicy> compilePolicies(RateLimitConfig rateLimitConfig) {
+		PathPatternParser parser = new PathPatternParser();
+		List<RoutePolicy> compiled = new ArrayList<>();
+
+		for (int i = 0; i < rateLimitConfig.getPolicies().size(); i++) {
+			RateLimitConfig.Policy policy = rateLimitConfig.getPolicies().get(i);
+			String name = policy.getName() != null ? policy.getName() : "route-" + i;
+
+			if (policy.getPath() == null) {
+				throw new IllegalStateException("Rate limit policy '" + name + "' has no path");
+			}
+
+			Set<String> methods = new HashSet<>();
+			policy.getMethods().forEach(method -> methods.add(method.toUpperCase(Locale.ROOT)));
+
+			compiled.add(new RoutePolicy(
+				name,
+				parser.parse(policy.getPath()),
+				Set.copyOf(methods),
+				policy.isExempt(),
+				Objects.requireNonNullElse(policy.getAlgorithm(), rateLimitConfig.getAlgorithm()),
+				Objects.requireNonNullElse(policy.getMaxRequests(), rateLimitConfig.getMaxRequests()),
+				Objects.requireNonNullElse(policy.getWindowSeconds(), rateLimitConfig.getWindowSeconds()) * 1000,
+				policy.getKey(),
+				policy.getApiKeyHeader(),
+				Set.copyOf(policy.getApiKeys()),
+				name + ":"
+			));
+		}
+
+		return List.copyOf(compiled);
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static RedisScript<List<Long>> loadScript(String name) {
+		return (RedisScript) RedisScript.of(new ClassPathResource("scripts/rate-limit/" + name), List.class);
+	}
+
+	public record RoutePolicy(
+		String name,
+		PathPattern pattern,
+		Set<String> methods,
+		boolean exempt,
+		RateLimitConfig.Algorithm algorithm,
+		long limit,
+		long windowMillis,
+		RateLimitConfig.KeyType keyType,
+		String apiKeyHeader,
+		Set<String> apiKeys,
+		String keyPrefix
+	) {
+
+		/**
+		 * @param apiKey    the value of the {@link #apiKeyHeader()} header, if any
+		 * @param clientIp  the address the request came from
+		 * @return the identity the request is limited by, its API key only when it is one of {@link #apiKeys()}
+		 */
+		public String clientKey(String apiKey, String clientIp) {
+			if (keyType == RateLimitConfig.KeyType.API_KEY && apiKey != null && apiKeys.contains(apiKey)) {
+				return "key:" + apiKey;
+			}
+
+			// Unknown keys share the quota of their address, rotating them does not reset it
+			return clientIp;
+		}
+
+		private boolean matches(String method, PathContainer path) {
+			return (methods.isEmpty() || methods.contains(method)) && pattern.matches(path);
+		}
+
+	}
+
+	public record Decision(boolean allowed, long limit, long remaining, long retryAfterMillis) {
+
+		public static Decision unlimited(long limit) {
+			return new Decision(true, limit, limit, 0);
+		}
+
+	}
+}
@@ -0,0 +1,93 @@
+package com.ludwigit.app.services;
+
+import com.ludwigit.app.exceptions.ShortedURLNotFoundException;
+import com.ludwigit.app.model.Redirect;
+import com.ludwigit.app.model.ShortedURL;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.Optional;
+
+/**
+ * Non-blocking counterpart of {@link ShortedURLService#retrieveUrl(String)} for the reactive redirect server.
+ * <p>
+ * The near cache, the negative cache and Redis are read without blocking. Only a Redis miss goes to the database,
+ * through the blocking service on a bounded scheduler, so single-flight loading and negative caching behave exactly as
+ * on the servlet path. So does a failed Redis read, or any read while the {@link RedisCircuitBreaker} is open.
+ */
+@Service
+@ConditionalOnProperty(name = "app.reactive-redirect.enabled", havingValue = "true")
+public class ReactiveShortedURLService {
+
+	private final HashIdsService hashIdsService;
+	private final NearCacheService nearCacheService;
+	private final NegativeCacheService negativeCacheService;
+	private final ShortedURLService shortedUrlService;
+	private final ReactiveRedisTemplate<String, Object> reactiveRedisTemplate;
+	private final RedisCircuitBreaker redisCircuitBreaker;
+	private final Scheduler databaseScheduler;
+
+	public ReactiveShortedURLService(
+		HashIdsService hashIdsService,
+		NearCacheService nearCacheService,
+		NegativeCacheService negativeCacheService,
+		ShortedURLService shortedUrlService,
+		ReactiveRedisTemplate<String, Object> reactiveRedisTemplate,
+		RedisCircuitBreaker redisCircuitBreaker,
+		@Qualifier("redirectDatabaseScheduler") Scheduler databaseScheduler
+	) {
+		this.hashIdsService = hashIdsService;
+		this.nearCacheService = nearCacheService;
+		this.negativeCacheService = negativeCacheService;
+		this.shortedUrlService = shortedUrlService;
+		this.reactiveRedisTemplate = reactiveRedisTemplate;
+		this.redisCircuitBreaker = redisCircuitBreaker;
+		this.databaseScheduler = databaseScheduler;
+	}
+
+	public Mono<Redirect> retrieveUrl(String shortedURL) {
+		Optional<Long> decodedId = hashIdsService.decode(shortedURL);
+
+		if (decodedId.isEmpty()) {
+			return Mono.error(new ShortedURLNotFoundException());
+		}
+
+		Long id = decodedId.get();
+		Optional<Redirect> nearCachedRedirect = nearCacheService.get(id);
+
+		if (nearCachedRedirect.isPresent()) {
+			return Mono.just(nearCachedRedirect.get());
+		}
+
+		if (negativeCacheService.isMissing(id)) {
+			return Mono.error(new ShortedURLNotFoundException());
+		}
+
+		Mono<Redirect> databaseLookup = Mono.fromCallable(() -> shortedUrlService.loadUncachedUrl(id, shortedURL))
+			.subscribeOn(databaseScheduler);
+
+		if (redisCircuitBreaker.isOpen()) {
+			return databaseLookup;
+		}
+
+		return Mono.defer(() -> {
+				long start = System.nanoTime();
+
+				return reactiveRedisTemplate.opsForValue()
+					.get("shortedUrls:" + shortedURL)
+					.doOnSuccess(ignored -> redisCircuitBreaker.recordSuccess(start))
+					.onErrorResume(RedisCircuitBreaker::isUnavailable, exception -> {
+						redisCircuitBreaker.recordFailure();
+						return Mono.empty();
+					});
+			})
+			.ofType(ShortedURL.class)
+			.map(shortedUrlService::toRedirect)
+			.doOnNext(redirect -> nearCacheService.put(id, redirect))
+			.switchIfEmpty(databaseLookup);
+	}
+}
@@ -0,0 +1,59 @@
+package com.ludwigit.app.services;
+
+import com.ludwigit.app.config.ReadReplicaConfig;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Retries lookups that missed on a read replica against the primary.
+ * <p>
+ * Replicas lag behind the primary, so a link created a moment ago, possibly on another node, may not be there yet.
+ * Retrying every miss rather than guessing which ids are recent keeps such links from answering {@code 404}, and
+ * ids that really do not exist are remembered by the negative cache after the first retry.
+ */
+@Service
+public class ReadReplicaService {
+
+	private final boolean enabled;
+	private final TransactionTemplate primaryTransaction;
+	private final LongAdder primaryFallbacks = new LongAdder();
+
+	/**
+	 * @param transactionManager only needed with read replicas, there is none without a database on edge nodes
+	 */
+	public ReadReplicaService(
+		ReadReplicaConfig readReplicaConfig,
+		@Nullable PlatformTransactionManager transactionManager
+	) {
+		this.enabled = readReplicaConfig.isEnabled();
+
+		if (enabled && transactionManager == null) {
+			throw new IllegalStateException("Read replicas need a transaction manager");
+		}
+
+		// Read-write, so the repository call joins it and is routed to the primary
+		this.primaryTransaction = enabled ? new TransactionTemplate(transactionManager) : null;
+	}
+
+	public <T> Optional<T> findWithPrimaryFallback(Supplier<Optional<T>> finder) {
+		Optional<T> found = finder.get();
+
+		if (found.isPresent() || !enabled) {
+			return found;
+		}
+
+		primaryFallbacks.increment();
+
+		return primaryTransaction.execute(status -> finder.get());
+	}
+
+	public long primaryFallbacks() {
+		return primaryFallbacks.sum();
+	}
+}
@@ -0,0 +1,251 @@
+package com.ludwigit.app.services;
+
+import com.ludwigit.app.config.CacheConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes cache entries to Redis in the background, so a request that fills the cache returns as soon as the database
+ * has answered instead of waiting for another round trip.
+ * <p>
+ * Writes for the same key that are still waiting are coalesced, the last one wins. A single writer thread takes
+ * everything pending and sends it as pipelined {@code SET ... EX} batches, so writes arriving during a flush go out
+ * together in the next one. Pending writes are bounded by {@code app.cache.writer.capacity}; once full, and while
+ * Redis is unavailable, further writes are dropped rather than making the caller wait. A dropped entry only costs a
+ * database read on its next miss.
+ */
+@Slf4j
+@Service
+public class RedisCacheWriter implements SmartLifecycle {
+
+	private final RedisTemplate<String, Object> redisTemplate;
+	private final RedisCircuitBreaker redisCircuitBreaker;
+	private final int capacity;
+	private final int batchSize;
+	// Not synchronized, a virtual thread waiting for the lock inside a monitor would pin its carrier thread
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition writesPending = lock.newCondition();
+	private final ReentrantLock flushLock = new ReentrantLock();
+	private final LongAdder written = new LongAdder();
+	private final LongAdder coalesced = new LongAdder();
+	private final LongAdder dropped = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private Map<String, PendingWrite> pending = new LinkedHashMap<>();
+	private volatile boolean running;
+	private volatile Thread flusher;
+
+	public RedisCacheWriter(
+		RedisTemplate<String, Object> redisTemplate,
+		RedisCircuitBreaker redisCircuitBreaker,
+		CacheConfig cacheConfig
+	) {
+		this.redisTemplate = redisTemplate;
+		this.redisCircuitBreaker = redisCircuitBreaker;
+		this.capacity = cacheConfig.getWriter().getCapacity();
+		this.batchSize = cacheConfig.getWriter().getBatchSize();
+	}
+
+	/**
+	 * Queues a {@code SET key value EX ttl}.
+	 *
+	 * @return whether the write was queued, {@code false} when it was dropped
+	 */
+	public boolean write(String key, Object value, Duration ttl) {
+		if (redisCircuitBreaker.isOpen()) {
+			dropped.increment();
+			return false;
+		}
+
+		PendingWrite write = new PendingWrite(value, ttl);
+
+		lock.lock();
+
+		try {
+			if (pending.replace(key, write) != null) {
+				coalesced.increment();
+				return true;
+			}
+
+			if (pending.size() >= capacity) {
+				dropped.increment();
+				return false;
+			}
+
+			pending.put(key, write);
+			writesPending.signal();
+
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Sends everything pending on the calling thread.
+	 */
+	public void flush() {
+		flushLock.lock();
+
+		try {
+			write(takePending());
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	public long written() {
+		return written.sum();
+	}
+
+	public long coalesced() {
+		return coalesced.sum();
+	}
+
+	public long dropped() {
+		return dropped.sum();
+	}
+
+	/**
+	 * @return writes lost because Redis failed while they were being sent
+	 */
+	public long failed() {
+		return failed.sum();
+	}
+
+	public int pending() {
+		lock.lock();
+
+		try {
+			return pending.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void start() {
+		running = true;
+		flusher = Thread.ofVirtual().name("cache-writer").start(this::flushContinuously);
+	}
+
+	@Override
+	public void stop() {
+		running = false;
+		lock.lock();
+
+		try {
+			writesPending.signalAll();
+		} finally {
+			lock.unlock();
+		}
+
+		try {
+			flusher.join(Duration.ofSeconds(5));
+		} catch (InterruptedException exception) {
+			Thread.currentThread().interrupt();
+		}
+
+		flush();
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Stops after the web server and before the Redis connection factory, like the click analytics, so the last writes
+	 * still reach Redis.
+	 */
+	@Override
+	public int getPhase() {
+		return 1;
+	}
+
+	private void flushContinuously() {
+		while (running) {
+			lock.lock();
+
+			try {
+				while (running && pending.isEmpty()) {
+					writesPending.await();
+				}
+			} catch (InterruptedException exception) {
+				Thread.currentThread().interrupt();
+				return;
+			} finally {
+				lock.unlock();
+			}
+
+			flush();
+		}
+	}
+
+	private Map<String, PendingWrite> takePending() {
+		lock.lock();
+
+		try {
+			Map<String, PendingWrite> taken = pending;
+			pending = new LinkedHashMap<>();
+			return taken;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void write(Map<String, PendingWrite> writes) {
+		List<Map.Entry<String, PendingWrite>> batch = new ArrayList<>(Math.min(writes.size(), batchSize));
+
+		for (Map.Entry<String, PendingWrite> entry : writes.entrySet()) {
+			batch.add(entry);
+
+			if (batch.size() == batchSize) {
+				writeBatch(batch);
+				batch.clear();
+			}
+		}
+
+		if (!batch.isEmpty()) {
+			writeBatch(batch);
+		}
+	}
+
+	private void writeBatch(List<Map.Entry<String, PendingWrite>> batch) {
+		try {
+			redisCircuitBreaker.execute(() -> redisTemplate.executePipelined(new SessionCallback<>() {
+				@Override
+				@SuppressWarnings("unchecked")
+				public <K, V> Object execute(RedisOperations<K, V> operations) {
+					RedisOperations<String, Object> redisOperations = (RedisOperations<String, Object>) operations;
+
+					for (Map.Entry<String, PendingWrite> entry : batch) {
+						redisOperations.opsForValue().set(entry.getKey(), entry.getValue().value(), entry.getValue().ttl());
+					}
+
+					return null;
+				}
+			}));
+			written.add(batch.size());
+		} catch (RuntimeException exception) {
+			// Every entry is still in the database and gets cached again on its next miss
+			failed.add(batch.size());
+			log.warn("Could not write {} cache entries", batch.size(), exception);
+		}
+	}
+
+	private record PendingWrite(Object value, Duration ttl) {
+	}
+}
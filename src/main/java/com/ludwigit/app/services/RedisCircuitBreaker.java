@@ -0,0 +1,270 @@
+package com.ludwigit.app.services;
+
+import com.ludwigit.app.config.CircuitBreakerConfig;
+import com.ludwigit.app.exceptions.RedisUnavailableException;
+import io.lettuce.core.RedisCommandTimeoutException;
+import io.lettuce.core.RedisConnectionException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Stops calling Redis after a run of failed or slow calls, so an outage costs each request a local fallback instead of
+ * a wait for the client timeout and a {@code 500}.
+ * <p>
+ * While open, every call throws {@link RedisUnavailableException} right away. Redis is then pinged in the background
+ * every {@code app.circuit-breaker.probe-interval}, and the first fast reply closes the breaker again, so no request
+ * ever waits on a probe. Only connection failures and timeouts count, an error reply means Redis is up.
+ * <p>
+ * The probes run on a thread of their own rather than on the shared scheduler, where a ping hanging until the client
+ * timeout would hold up every other scheduled task.
+ */
+@Slf4j
+@Service
+public class RedisCircuitBreaker implements SmartLifecycle {
+
+	private final RedisTemplate<String, Object> redisTemplate;
+	private final int failureThreshold;
+	private final long slowCallNanos;
+	private final boolean forcedOpen;
+	private final Duration probeInterval;
+	private final AtomicBoolean open = new AtomicBoolean();
+	private final AtomicInteger consecutiveFailures = new AtomicInteger();
+	private final LongAdder opened = new LongAdder();
+	private final LongAdder failures = new LongAdder();
+	private final LongAdder slowCalls = new LongAdder();
+	private final LongAdder shortCircuited = new LongAdder();
+	private volatile boolean running;
+	private volatile Thread prober;
+
+	public RedisCircuitBreaker(
+		RedisTemplate<String, Object> redisTemplate,
+		CircuitBreakerConfig circuitBreakerConfig
+	) {
+		this.redisTemplate = redisTemplate;
+		this.failureThreshold = circuitBreakerConfig.getFailureThreshold();
+		this.slowCallNanos = circuitBreakerConfig.getSlowCallThreshold().toNanos();
+		this.forcedOpen = circuitBreakerConfig.isForcedOpen();
+		this.probeInterval = circuitBreakerConfig.getProbeInterval();
+		this.open.set(forcedOpen);
+	}
+
+	/**
+	 * @throws RedisUnavailableException when the breaker is open or the command could not reach Redis
+	 */
+	public <T> T execute(Supplier<T> command) {
+		if (open.get()) {
+			shortCircuited.increment();
+			throw new RedisUnavailableException("The Redis circuit breaker is open");
+		}
+
+		long start = System.nanoTime();
+		T value;
+
+		try {
+			value = command.get();
+		} catch (RuntimeException exception) {
+			if (isUnavailable(exception)) {
+				recordFailure();
+				throw new RedisUnavailableException("Could not reach Redis", exception);
+			}
+			throw exception;
+		}
+
+		recordSuccess(start);
+
+		return value;
+	}
+
+	/**
+	 * @return the result of the command, or of the fallback when Redis is unavailable
+	 */
+	public <T> T execute(Supplier<T> command, Supplier<T> fallback) {
+		try {
+			return execute(command);
+		} catch (RedisUnavailableException exception) {
+			return fallback.get();
+		}
+	}
+
+	/**
+	 * Runs a write that may be skipped while Redis is unavailable, such as filling a cache.
+	 */
+	public void run(Runnable command) {
+		try {
+			execute(() -> {
+				command.run();
+				return null;
+			});
+		} catch (RedisUnavailableException exception) {
+			log.debug("Skipped a Redis write", exception);
+		}
+	}
+
+	public boolean isOpen() {
+		return open.get();
+	}
+
+	/**
+	 * For callers that cannot go through {@link #execute(Supplier)}, such as reactive pipelines. Looks through the
+	 * causes, pipelined and transactional commands fail wrapped in a {@link RedisPipelineException} or a
+	 * {@link org.springframework.data.redis.RedisSystemException}, and through every result of a failed pipeline.
+	 */
+	public static boolean isUnavailable(Throwable exception) {
+		Set<Throwable> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+
+		for (Throwable cause = exception; cause != null && seen.add(cause); cause = cause.getCause()) {
+			if (cause instanceof RedisConnectionFailureException
+				|| cause instanceof QueryTimeoutException
+				|| cause instanceof RedisConnectionException
+				|| cause instanceof RedisCommandTimeoutException) {
+				return true;
+			}
+
+			if (cause instanceof RedisPipelineException pipelineException) {
+				for (Object result : pipelineException.getPipelineResult()) {
+					if (result instanceof Throwable failure && failure != cause && isUnavailable(failure)) {
+						return true;
+					}
+				}
+			}
+		}
+
+		return false;
+	}
+
+	public void recordSuccess(long startNanos) {
+		if (System.nanoTime() - startNanos > slowCallNanos) {
+			slowCalls.increment();
+			countFailure();
+		} else if (consecutiveFailures.get() != 0) {
+			// Read first, a write on every call would make the counter contended on the hot path
+			consecutiveFailures.set(0);
+		}
+	}
+
+	public void recordFailure() {
+		failures.increment();
+		countFailure();
+	}
+
+	public void probe() {
+		if (!open.get() || forcedOpen) {
+			return;
+		}
+
+		long start = System.nanoTime();
+
+		try {
+			redisTemplate.execute((RedisCallback<String>) RedisConnection::ping);
+		} catch (RuntimeException exception) {
+			log.debug("Redis is still unreachable", exception);
+			return;
+		}
+
+		if (System.nanoTime() - start > slowCallNanos) {
+			return;
+		}
+
+		consecutiveFailures.set(0);
+
+		if (open.compareAndSet(true, false)) {
+			log.info("Redis is reachable again, closed the circuit breaker");
+		}
+	}
+
+	@Override
+	public void start() {
+		running = true;
+
+		// Redis is never pinged while forced open
+		if (!forcedOpen) {
+			prober = Thread.ofVirtual().name("redis-circuit-breaker-probe").start(this::probeContinuously);
+		}
+	}
+
+	@Override
+	public void stop() {
+		running = false;
+
+		if (prober != null) {
+			prober.interrupt();
+
+			try {
+				prober.join(Duration.ofSeconds(5));
+			} catch (InterruptedException exception) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Stops after the web server and before the Redis connection factory, like the cache writer.
+	 */
+	@Override
+	public int getPhase() {
+		return 1;
+	}
+
+	public long opened() {
+		return opened.sum();
+	}
+
+	public long failures() {
+		return failures.sum();
+	}
+
+	public long slowCalls() {
+		return slowCalls.sum();
+	}
+
+	/**
+	 * @return calls answered by a fallback without trying Redis
+	 */
+	public long shortCircuited() {
+		return shortCircuited.sum();
+	}
+
+	private void probeContinuously() {
+		while (running) {
+			try {
+				Thread.sleep(probeInterval);
+			} catch (InterruptedException exception) {
+				return;
+			}
+
+			try {
+				probe();
+			} catch (RuntimeException exception) {
+				log.warn("Could not probe Redis", exception);
+			}
+		}
+	}
+
+	private void countFailure() {
+		if (consecutiveFailures.incrementAndGet() >= failureThreshold && open.compareAndSet(false, true)) {
+			opened.increment();
+			log.warn("Opened the Redis circuit breaker after {} consecutive failed or slow calls", failureThreshold);
+		}
+	}
+}
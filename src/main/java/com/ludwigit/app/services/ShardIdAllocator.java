@@ -0,0 +1,65 @@
+package com.ludwigit.app.services;
+
+import com.ludwigit.app.model.ShortedURL;
+import com.ludwigit.app.repositories.ShortedURLRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out ids for links stored on a given shard, in blocks reserved from that shard's own sequence.
+ * <p>
+ * Hibernate keeps a single block in memory for the entity whatever database it came from, so with several shards it
+ * would store rows on one shard with ids from another's range. Sharded creates take their ids from here instead and
+ * insert them as they are.
+ * <p>
+ * The repository is looked up on first use, nodes without the database never allocate ids.
+ */
+@Service
+public class ShardIdAllocator {
+
+	private final ObjectProvider<ShortedURLRepository> shortedUrlRepository;
+	private final ShardRouter shardRouter;
+	private final Map<Integer, Block> blocks = new ConcurrentHashMap<>();
+
+	public ShardIdAllocator(ObjectProvider<ShortedURLRepository> shortedUrlRepository, ShardRouter shardRouter) {
+		this.shortedUrlRepository = shortedUrlRepository;
+		this.shardRouter = shardRouter;
+	}
+
+	public List<Long> allocate(int shard, int count) {
+		Block block = blocks.computeIfAbsent(shard, ignored -> new Block());
+		List<Long> ids = new ArrayList<>(count);
+
+		// Held while a new block is reserved, the other creates for the shard need it anyway
+		block.lock.lock();
+
+		try {
+			while (ids.size() < count) {
+				if (block.next > block.last) {
+					block.last = shardRouter.onShard(shard, () -> shortedUrlRepository.getObject().reserveIdBlock());
+					block.next = block.last - ShortedURL.ID_ALLOCATION_SIZE + 1;
+				}
+
+				ids.add(block.next++);
+			}
+		} finally {
+			block.lock.unlock();
+		}
+
+		return ids;
+	}
+
+	private static final class Block {
+
+		private final ReentrantLock lock = new ReentrantLock();
+		private long next = 1;
+		private long last = 0;
+
+	}
+}
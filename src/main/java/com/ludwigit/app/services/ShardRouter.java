@@ -0,0 +1,109 @@
+package com.ludwigit.app.services;
+
+import com.ludwigit.app.config.ShardingConfig;
+import com.ludwigit.app.model.ShortedURL;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Picks the shard repository calls run against. The shard is held for the calling thread while
+ * {@link #onShard(int, Supplier)} runs and read by {@link com.ludwigit.app.config.ShardRoutingDataSource} when the call
+ * takes a connection. Without sharding every call runs against the default shard.
+ */
+@Service
+public class ShardRouter {
+
+	public static final int DEFAULT_SHARD = 0;
+
+	private static final ThreadLocal<Integer> CURRENT_SHARD = new ThreadLocal<>();
+
+	private final boolean enabled;
+	private final Set<Integer> shards = new LinkedHashSet<>();
+	private final List<Integer> writableShards = new ArrayList<>();
+	private final AtomicInteger nextWritable = new AtomicInteger();
+
+	public ShardRouter(ShardingConfig shardingConfig) {
+		this.enabled = shardingConfig.isEnabled();
+		shards.add(DEFAULT_SHARD);
+
+		if (!enabled || shardingConfig.isDefaultShardWritable()) {
+			writableShards.add(DEFAULT_SHARD);
+		}
+
+		if (!enabled) {
+			return;
+		}
+
+		for (ShardingConfig.Shard shard : shardingConfig.getShards()) {
+			if (shard.getId() == null || shard.getId() < 1 || shard.getId() > ShortedURL.MAX_SHARD) {
+				throw new IllegalStateException("Shard ids must be between 1 and " + ShortedURL.MAX_SHARD + ", got " + shard.getId());
+			}
+
+			if (!shards.add(shard.getId())) {
+				throw new IllegalStateException("Shard " + shard.getId() + " is configured more than once");
+			}
+
+			if (shard.isWritable()) {
+				writableShards.add(shard.getId());
+			}
+		}
+
+		if (writableShards.isEmpty()) {
+			throw new IllegalStateException("At least one shard must be writable");
+		}
+	}
+
+	/**
+	 * @return the shard of the running {@link #onShard(int, Supplier)} call, or {@code null} outside of one
+	 */
+	public static Integer currentShard() {
+		return CURRENT_SHARD.get();
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public boolean isKnown(int shard) {
+		return shards.contains(shard);
+	}
+
+	/**
+	 * @return every shard, the default one first
+	 */
+	public List<Integer> shards() {
+		return List.copyOf(shards);
+	}
+
+	/**
+	 * @return the shard the next new links go to, the writable shards taking turns
+	 */
+	public int nextWritableShard() {
+		return writableShards.get(Math.floorMod(nextWritable.getAndIncrement(), writableShards.size()));
+	}
+
+	public <T> T onShard(int shard, Supplier<T> action) {
+		if (!enabled) {
+			return action.get();
+		}
+
+		Integer previous = CURRENT_SHARD.get();
+		CURRENT_SHARD.set(shard);
+
+		try {
+			return action.get();
+		} finally {
+			if (previous != null) {
+				CURRENT_SHARD.set(previous);
+			} else {
+				CURRENT_SHARD.remove();
+			}
+		}
+	}
+}
@@ -0,0 +1,167 @@
+package com.ludwigit.app.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.ludwigit.app.config.BatchConfig;
+import com.ludwigit.app.dto.requests.CreateShortURLRequestBody;
+import com.ludwigit.app.dto.responses.CreateShortURLBatchResult;
+import com.ludwigit.app.exceptions.InvalidURLException;
+import com.ludwigit.app.exceptions.URLAlreadyExistsException;
+import com.ludwigit.app.model.RedirectType;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Shortens a stream of URLs, either a JSON array or newline delimited JSON, writing one NDJSON result line per item as
+ * soon as its chunk is stored.
+ */
+@Slf4j
+@Service
+public class ShortedURLBatchService {
+
+	private final ShortedURLService shortedUrlService;
+	private final ObjectMapper objectMapper;
+	private final Validator validator;
+	private final DeduplicationService deduplicationService;
+	private final int chunkSize;
+
+	public ShortedURLBatchService(
+		ShortedURLService shortedUrlService,
+		ObjectMapper objectMapper,
+		Validator validator,
+		DeduplicationService deduplicationService,
+		BatchConfig batchConfig
+	) {
+		this.shortedUrlService = shortedUrlService;
+		this.objectMapper = objectMapper;
+		this.validator = validator;
+		this.deduplicationService = deduplicationService;
+		this.chunkSize = batchConfig.getChunkSize();
+	}
+
+	public void createShortedURLs(InputStream input, OutputStream output) throws IOException {
+		ObjectWriter writer = objectMapper.writerFor(CreateShortURLBatchResult.class);
+		List<Item> chunk = new ArrayList<>(chunkSize);
+		int index = 0;
+
+		try {
+			// Reads both a root level array and a sequence of root level values, one item at a time
+			MappingIterator<CreateShortURLRequestBody> items = objectMapper
+				.readerFor(CreateShortURLRequestBody.class)
+				.readValues(input);
+
+			while (items.hasNextValue()) {
+				chunk.add(toItem(index, items.nextValue()));
+				index++;
+
+				if (chunk.size() == chunkSize) {
+					process(chunk, writer, output);
+					chunk.clear();
+				}
+			}
+		} catch (JsonProcessingException exception) {
+			process(chunk, writer, output);
+			write(writer, output, CreateShortURLBatchResult.builder()
+				.index(index)
+				.error("Malformed batch item, no further items were processed")
+				.build());
+			output.flush();
+			return;
+		}
+
+		process(chunk, writer, output);
+	}
+
+	private Item toItem(int index, CreateShortURLRequestBody body) {
+		if (body == null) {
+			return new Item(index, null, null, "url: must not be null");
+		}
+
+		// Same rules as the single create endpoint
+		Set<ConstraintViolation<CreateShortURLRequestBody>> violations = validator.validate(body);
+
+		if (!violations.isEmpty()) {
+			ConstraintViolation<CreateShortURLRequestBody> violation = violations.iterator().next();
+			return new Item(index, body.getUrl(), null, violation.getPropertyPath() + ": " + violation.getMessage());
+		}
+
+		try {
+			shortedUrlService.validateOriginalUrl(body.getUrl());
+		} catch (InvalidURLException exception) {
+			return new Item(index, body.getUrl(), null, exception.getMessage());
+		}
+
+		return new Item(index, body.getUrl(), body.redirectType(), null);
+	}
+
+	private void process(List<Item> chunk, ObjectWriter writer, OutputStream output) throws IOException {
+		if (chunk.isEmpty()) {
+			return;
+		}
+
+		List<String> validUrls = new ArrayList<>(chunk.size());
+		List<RedirectType> redirectTypes = new ArrayList<>(chunk.size());
+		chunk.stream().filter(item -> item.error() == null).forEach(item -> {
+			validUrls.add(item.url());
+			redirectTypes.add(item.redirectType());
+		});
+
+		List<ShortedURLService.CreatedShortURL> shortUrls = null;
+		String chunkError = null;
+
+		if (!validUrls.isEmpty()) {
+			try {
+				shortUrls = shortedUrlService.createShortedURLs(validUrls, redirectTypes);
+			} catch (DataAccessException exception) {
+				log.error("Could not store a batch of {} shorted URLs", validUrls.size(), exception);
+				chunkError = "Could not create the shorted URL. Please try again later.";
+			}
+		}
+
+		int created = 0;
+
+		for (Item item : chunk) {
+			CreateShortURLBatchResult.CreateShortURLBatchResultBuilder result = CreateShortURLBatchResult.builder()
+				.index(item.index())
+				.url(item.url());
+
+			if (item.error() != null) {
+				result.error(item.error());
+			} else if (chunkError != null) {
+				result.error(chunkError);
+			} else {
+				ShortedURLService.CreatedShortURL createdShortUrl = shortUrls.get(created++);
+
+				if (createdShortUrl.existing() && deduplicationService.rejectsDuplicates()) {
+					result.error(new URLAlreadyExistsException().getMessage());
+				} else {
+					result.shortUrl(createdShortUrl.shortUrl());
+				}
+			}
+
+			write(writer, output, result.build());
+		}
+
+		output.flush();
+	}
+
+	private void write(ObjectWriter writer, OutputStream output, CreateShortURLBatchResult result) throws IOException {
+		output.write(writer.writeValueAsBytes(result));
+		output.write('\n');
+	}
+
+	private record Item(int index, String url, RedirectType redirectType, String error) {
+	}
+}
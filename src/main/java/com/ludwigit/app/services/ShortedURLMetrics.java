@@ -0,0 +1,84 @@
+package com.ludwigit.app.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters of the create and redirect paths, registered once so recording is a plain call on an existing meter and
+ * allocates nothing per request.
+ * <p>
+ * {@code ludwigit.redirect.lookups} counts where each redirect was answered from, which gives the hit ratio of every
+ * cache level. Followers of a coalesced load are not counted again, see {@link SingleFlightService#coalesced()}.
+ */
+final class ShortedURLMetrics {
+
+	final Timer hashIdsDecode;
+	final Timer redisGet;
+	final Timer redisPipeline;
+	final Timer databaseFindById;
+	final Timer databaseSave;
+	final Timer databaseSaveAll;
+
+	final Counter nearCacheHits;
+	final Counter negativeCacheHits;
+	final Counter redisHits;
+	final Counter databaseHits;
+	final Counter notFound;
+
+	ShortedURLMetrics(MeterRegistry meterRegistry) {
+		hashIdsDecode = Timer.builder("ludwigit.hashids.decode")
+			.description("Time spent decoding short codes into ids")
+			.publishPercentileHistogram()
+			.minimumExpectedValue(Duration.ofNanos(500))
+			.maximumExpectedValue(Duration.ofMillis(10))
+			.register(meterRegistry);
+
+		redisGet = redisTimer(meterRegistry, "get");
+		redisPipeline = redisTimer(meterRegistry, "pipeline");
+		databaseFindById = databaseTimer(meterRegistry, "find_by_id");
+		databaseSave = databaseTimer(meterRegistry, "save");
+		databaseSaveAll = databaseTimer(meterRegistry, "save_all");
+
+		nearCacheHits = lookupCounter(meterRegistry, "near_cache");
+		negativeCacheHits = lookupCounter(meterRegistry, "negative_cache");
+		redisHits = lookupCounter(meterRegistry, "redis");
+		databaseHits = lookupCounter(meterRegistry, "database");
+		notFound = lookupCounter(meterRegistry, "not_found");
+	}
+
+	static void record(Timer timer, long startNanos) {
+		timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+	}
+
+	private static Timer redisTimer(MeterRegistry meterRegistry, String operation) {
+		return Timer.builder("ludwigit.redis.commands")
+			.description("Round trips to Redis for shorted URL entries, serialization included")
+			.tag("operation", operation)
+			.publishPercentileHistogram()
+			.minimumExpectedValue(Duration.ofNanos(50_000))
+			.maximumExpectedValue(Duration.ofSeconds(5))
+			.register(meterRegistry);
+	}
+
+	private static Timer databaseTimer(MeterRegistry meterRegistry, String operation) {
+		return Timer.builder("ludwigit.database.queries")
+			.description("Shorted URL reads and writes against the database")
+			.tag("operation", operation)
+			.publishPercentileHistogram()
+			.minimumExpectedValue(Duration.ofNanos(100_000))
+			.maximumExpectedValue(Duration.ofSeconds(30))
+			.register(meterRegistry);
+	}
+
+	private static Counter lookupCounter(MeterRegistry meterRegistry, String source) {
+		return Counter.builder("ludwigit.redirect.lookups")
+			.description("Redirect lookups by the level that answered them")
+			.tag("source", source)
+			.register(meterRegistry);
+	}
+
+}
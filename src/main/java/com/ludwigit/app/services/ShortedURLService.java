@@ -1,88 +1,481 @@
 package com.ludwigit.app.services;
 
 import com.ludwigit.app.config.AppConfig;
+import com.ludwigit.app.config.CacheConfig;
+import com.ludwigit.app.config.RedirectConfig;
 import com.ludwigit.app.exceptions.AppException;
+import com.ludwigit.app.exceptions.InvalidURLException;
+import com.ludwigit.app.exceptions.ReadOnlyNodeException;
+import com.ludwigit.app.exceptions.RedisUnavailableException;
 import com.ludwigit.app.exceptions.ShortedURLNotFoundException;
+import com.ludwigit.app.exceptions.URLAlreadyExistsException;
+import com.ludwigit.app.model.Redirect;
+import com.ludwigit.app.model.RedirectType;
 import com.ludwigit.app.model.ShortedURL;
 import com.ludwigit.app.repositories.ShortedURLRepository;
+import com.ludwigit.app.repositories.ShortedURLStore;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.validation.constraints.NotNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.http.HttpStatus;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.stereotype.Service;
 
 import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
 
+@Slf4j
 @Service
 public class ShortedURLService {
 
 	private final HashIdsService hashIdsService;
-	private final ShortedURLRepository shortedUrlRepository;
+	private final ShortedURLStore shortedUrlStore;
+	// Only on nodes with the database, new ids come from its sequence
+	private final ObjectProvider<ShortedURLRepository> shortedUrlRepository;
 	private final RedisTemplate<String, Object> redisTemplate;
+	private final NearCacheService nearCacheService;
+	private final DeduplicationService deduplicationService;
+	private final NegativeCacheService negativeCacheService;
+	private final SingleFlightService singleFlightService;
+	private final RedisCircuitBreaker redisCircuitBreaker;
+	private final RedisCacheWriter redisCacheWriter;
+	private final ReadReplicaService readReplicaService;
+	private final ShardRouter shardRouter;
+	private final ShardIdAllocator shardIdAllocator;
+	private final CacheConfig cacheConfig;
+	private final RedirectConfig redirectConfig;
+	private final ShortedURLMetrics metrics;
 	private final URI baseUri;
 
 	public ShortedURLService(
-		ShortedURLRepository shortedUrlRepository,
+		ShortedURLStore shortedUrlStore,
+		ObjectProvider<ShortedURLRepository> shortedUrlRepository,
 		HashIdsService hashIdsService,
 		AppConfig appConfig,
-		RedisTemplate<String, Object> redisTemplate
+		RedisTemplate<String, Object> redisTemplate,
+		NearCacheService nearCacheService,
+		DeduplicationService deduplicationService,
+		NegativeCacheService negativeCacheService,
+		SingleFlightService singleFlightService,
+		RedisCircuitBreaker redisCircuitBreaker,
+		RedisCacheWriter redisCacheWriter,
+		ReadReplicaService readReplicaService,
+		ShardRouter shardRouter,
+		ShardIdAllocator shardIdAllocator,
+		CacheConfig cacheConfig,
+		RedirectConfig redirectConfig,
+		MeterRegistry meterRegistry
 	) {
 		this.hashIdsService = hashIdsService;
+		this.shortedUrlStore = shortedUrlStore;
 		this.shortedUrlRepository = shortedUrlRepository;
 		this.baseUri = URI.create(appConfig.getBaseUrl());
 		this.redisTemplate = redisTemplate;
+		this.nearCacheService = nearCacheService;
+		this.deduplicationService = deduplicationService;
+		this.negativeCacheService = negativeCacheService;
+		this.singleFlightService = singleFlightService;
+		this.redisCircuitBreaker = redisCircuitBreaker;
+		this.redisCacheWriter = redisCacheWriter;
+		this.readReplicaService = readReplicaService;
+		this.shardRouter = shardRouter;
+		this.shardIdAllocator = shardIdAllocator;
+		this.cacheConfig = cacheConfig;
+		this.redirectConfig = redirectConfig;
+		this.metrics = new ShortedURLMetrics(meterRegistry);
 	}
 
-	public String createShortedURL(String originalUrl) throws AppException {
-		boolean isFromTheSameAppDomain = Objects.equals(
-			URI.create(originalUrl).getHost(),
-			baseUri.getHost()
-		);
+	/**
+	 * @param redirectType how the link redirects, {@code null} for the configured default. A URL that was already
+	 *                     shortened keeps its own type when deduplication reuses it.
+	 * @throws ReadOnlyNodeException on nodes without the database
+	 */
+	public String createShortedURL(String originalUrl, RedirectType redirectType) throws AppException {
+		if (isReadOnly()) {
+			throw new ReadOnlyNodeException();
+		}
 
-		if (isFromTheSameAppDomain) {
-			throw new AppException("This is so silly, you cannot shorten a URL from the same domain as the app ;)", HttpStatus.BAD_REQUEST);
+		validateOriginalUrl(originalUrl);
+
+		byte[] originalUrlHash = ShortedURL.hashOriginalUrl(originalUrl);
+
+		if (deduplicationService.isEnabled()) {
+			Long existingId = deduplicationService.findIds(List.of(originalUrlHash)).get(0);
+
+			if (existingId != null) {
+				if (deduplicationService.rejectsDuplicates()) {
+					throw new URLAlreadyExistsException();
+				}
+
+				return this.baseUri.resolve(hashIdsService.encode(existingId)).toString();
+			}
 		}
 
 		// Create a new shorted URL
 		ShortedURL newShortedUrl = ShortedURL.builder()
 			.originalUrl(originalUrl)
+			.originalUrlHash(originalUrlHash)
+			.redirectType(redirectType)
 			.build();
 
-		ShortedURL shortedUrl = shortedUrlRepository.save(newShortedUrl);
+		long saveStart = System.nanoTime();
+		ShortedURL shortedUrl = shardRouter.isEnabled()
+			? storeOnShard(List.of(newShortedUrl)).get(0)
+			: shortedUrlRepository.getObject().save(newShortedUrl);
+		ShortedURLMetrics.record(metrics.databaseSave, saveStart);
 		String obfuscatedBase62URL = hashIdsService.encode(shortedUrl.getId());
 
-		String cacheKey = "shortedUrls:" + obfuscatedBase62URL;
-
-		// Cache the shorted URL for 6 hours
-		redisTemplate.opsForValue().set(cacheKey, shortedUrl, 6, TimeUnit.HOURS);
+		cacheShortedUrls(List.of(obfuscatedBase62URL), List.of(shortedUrl));
+		nearCacheService.put(shortedUrl.getId(), toRedirect(shortedUrl));
+		negativeCacheService.observe(shortedUrl.getId());
 
 		return this.baseUri.resolve(obfuscatedBase62URL).toString();
 	}
 
-	public String retrieveUrl(@NotNull String shortedURL) throws ShortedURLNotFoundException {
-		Long decodedId = hashIdsService
-			.decode(shortedURL)
+	/**
+	 * Creates many shorted URLs with batched inserts and queues their cache entries for the background writer.
+	 * The URLs must have been checked with {@link #validateOriginalUrl(String)} beforehand, and the node must not be
+	 * {@link #isReadOnly() read-only}.
+	 *
+	 * @param redirectTypes the redirect type of each URL, or {@code null} for the configured default
+	 * @return the short URLs, in the same order as the given original URLs
+	 */
+	public List<CreatedShortURL> createShortedURLs(List<String> originalUrls, List<RedirectType> redirectTypes) {
+		List<byte[]> originalUrlHashes = originalUrls.stream().map(ShortedURL::hashOriginalUrl).toList();
+		List<Long> ids = deduplicationService.isEnabled()
+			? new ArrayList<>(deduplicationService.findIds(originalUrlHashes))
+			: new ArrayList<Long>(Collections.nCopies(originalUrls.size(), null));
+		boolean[] existing = new boolean[originalUrls.size()];
+
+		List<ShortedURL> newShortedUrls = new ArrayList<>();
+		List<Integer> newIndexes = new ArrayList<>();
+		// Repeated URLs within the same batch only get a row for their first occurrence
+		Map<String, Integer> firstOccurrences = new HashMap<>();
+
+		for (int i = 0; i < originalUrls.size(); i++) {
+			if (ids.get(i) != null) {
+				existing[i] = true;
+				continue;
+			}
+
+			if (deduplicationService.isEnabled()) {
+				Integer firstOccurrence = firstOccurrences.putIfAbsent(HexFormat.of().formatHex(originalUrlHashes.get(i)), i);
+
+				if (firstOccurrence != null) {
+					existing[i] = true;
+					continue;
+				}
+			}
+
+			newShortedUrls.add(ShortedURL.builder()
+				.originalUrl(originalUrls.get(i))
+				.originalUrlHash(originalUrlHashes.get(i))
+				.redirectType(redirectTypes.get(i))
+				.build());
+			newIndexes.add(i);
+		}
+
+		List<ShortedURL> shortedUrls = List.of();
+
+		if (!newShortedUrls.isEmpty()) {
+			long saveStart = System.nanoTime();
+			shortedUrls = shardRouter.isEnabled() ? storeOnShard(newShortedUrls) : shortedUrlRepository.getObject().saveAll(newShortedUrls);
+			ShortedURLMetrics.record(metrics.databaseSaveAll, saveStart);
+		}
+
+		List<String> codes = new ArrayList<>(shortedUrls.size());
+
+		for (int i = 0; i < shortedUrls.size(); i++) {
+			ids.set(newIndexes.get(i), shortedUrls.get(i).getId());
+			codes.add(hashIdsService.encode(shortedUrls.get(i).getId()));
+		}
+
+		cacheShortedUrls(codes, shortedUrls);
+
+		shortedUrls.forEach(shortedUrl -> {
+			nearCacheService.put(shortedUrl.getId(), toRedirect(shortedUrl));
+			negativeCacheService.observe(shortedUrl.getId());
+		});
+
+		List<CreatedShortURL> created = new ArrayList<>(originalUrls.size());
+
+		for (int i = 0; i < originalUrls.size(); i++) {
+			Long id = ids.get(i);
+
+			if (id == null) {
+				// Repeated within the batch, the first occurrence has been stored by now
+				id = ids.get(firstOccurrences.get(HexFormat.of().formatHex(originalUrlHashes.get(i))));
+			}
+
+			created.add(new CreatedShortURL(this.baseUri.resolve(hashIdsService.encode(id)).toString(), existing[i]));
+		}
+
+		return created;
+	}
+
+	/**
+	 * @return whether this node runs without the database, like edge nodes, and so cannot create links
+	 */
+	public boolean isReadOnly() {
+		return shortedUrlRepository.getIfAvailable() == null;
+	}
+
+	public void validateOriginalUrl(String originalUrl) throws InvalidURLException {
+		URI originalUri;
+
+		try {
+			originalUri = URI.create(originalUrl);
+		} catch (IllegalArgumentException exception) {
+			throw new InvalidURLException();
+		}
+
+		boolean isFromTheSameAppDomain = Objects.equals(
+			originalUri.getHost(),
+			baseUri.getHost()
+		);
+
+		if (isFromTheSameAppDomain) {
+			throw new InvalidURLException("This is so silly, you cannot shorten a URL from the same domain as the app ;)");
+		}
+	}
+
+	public Redirect retrieveUrl(@NotNull String shortedURL) throws ShortedURLNotFoundException {
+		long decodeStart = System.nanoTime();
+		Optional<Long> decoded = hashIdsService.decode(shortedURL);
+		ShortedURLMetrics.record(metrics.hashIdsDecode, decodeStart);
+
+		Long decodedId = decoded
 			// Do not show the exact error message to the user, as it may contain sensitive information about the hashids configuration
 			.orElseThrow(ShortedURLNotFoundException::new);
 
+		if (!shardRouter.isKnown(ShortedURL.shardOf(decodedId))) {
+			throw new ShortedURLNotFoundException();
+		}
+
+		// Hot links are served from the in-process cache without any network I/O
+		Optional<Redirect> nearCachedRedirect = nearCacheService.get(decodedId);
+
+		if (nearCachedRedirect.isPresent()) {
+			metrics.nearCacheHits.increment();
+			return nearCachedRedirect.get();
+		}
+
+		if (negativeCacheService.isMissing(decodedId)) {
+			metrics.negativeCacheHits.increment();
+			throw new ShortedURLNotFoundException();
+		}
+
 		String cacheKey = "shortedUrls:" + shortedURL;
-		ShortedURL cachedShortedUrl = (ShortedURL) redisTemplate.opsForValue().get(cacheKey);
 
-		if (cachedShortedUrl != null) {
-			return cachedShortedUrl.getOriginalUrl();
+		// Concurrent misses for the same link share a single load
+		Optional<ShortedURL> shortedURLObject = singleFlightService.execute(
+			cacheKey,
+			() -> loadShortedUrl(decodedId, cacheKey)
+		);
+
+		return cacheLoaded(decodedId, shortedURLObject);
+	}
+
+	/**
+	 * Loads a link the caller already looked up in the near cache, the negative cache and Redis without finding it, so
+	 * none of them is read again. Concurrent loads are shared and the result is cached as by {@link #retrieveUrl(String)}.
+	 */
+	public Redirect loadUncachedUrl(Long id, String shortedURL) throws ShortedURLNotFoundException {
+		if (!shardRouter.isKnown(ShortedURL.shardOf(id))) {
+			throw new ShortedURLNotFoundException();
+		}
+
+		String cacheKey = "shortedUrls:" + shortedURL;
+		Optional<ShortedURL> shortedURLObject = singleFlightService.execute(
+			cacheKey,
+			() -> loadFromDatabase(id, cacheKey)
+		);
+
+		return cacheLoaded(id, shortedURLObject);
+	}
+
+	/**
+	 * Resolves the redirect type of a link and parses its URL, once per cache fill rather than on every redirect.
+	 */
+	public Redirect toRedirect(ShortedURL shortedUrl) {
+		RedirectType redirectType = shortedUrl.getRedirectType();
+
+		return Redirect.of(shortedUrl.getOriginalUrl(), redirectType != null ? redirectType : redirectConfig.getDefaultType());
+	}
+
+	private Optional<ShortedURL> loadShortedUrl(Long id, String cacheKey) {
+		Optional<ShortedURL> cachedShortedUrl;
+
+		try {
+			cachedShortedUrl = getCachedShortedUrl(cacheKey);
+		} catch (RedisUnavailableException exception) {
+			return countLoaded(findInDatabase(id, cacheKey));
 		}
 
-		Optional<ShortedURL> shortedURLObject = shortedUrlRepository.findById(decodedId);
+		if (cachedShortedUrl.isPresent()) {
+			metrics.redisHits.increment();
+			return cachedShortedUrl;
+		}
+
+		return loadFromDatabase(id, cacheKey);
+	}
 
-		if (shortedURLObject.isEmpty()) {
+	/**
+	 * Reads the database under the distributed lock, nodes waiting on it pick the holder's result up from Redis.
+	 */
+	private Optional<ShortedURL> loadFromDatabase(Long id, String cacheKey) {
+		return countLoaded(singleFlightService.executeExclusively(
+			cacheKey,
+			() -> getCachedShortedUrl(cacheKey),
+			() -> findInDatabase(id, cacheKey)
+		));
+	}
+
+	private Redirect cacheLoaded(Long id, Optional<ShortedURL> shortedUrl) throws ShortedURLNotFoundException {
+		if (shortedUrl.isEmpty()) {
+			negativeCacheService.markMissing(id);
 			throw new ShortedURLNotFoundException();
 		}
 
-		// Cache the shorted URL for 6 hours
-		redisTemplate.opsForValue().set(cacheKey, shortedURLObject.get(), 6, TimeUnit.HOURS);
+		Redirect redirect = toRedirect(shortedUrl.get());
+		nearCacheService.put(id, redirect);
+
+		return redirect;
+	}
+
+	private Optional<ShortedURL> findInDatabase(Long id, String cacheKey) {
+		long findStart = System.nanoTime();
+		Optional<ShortedURL> shortedUrl = shardRouter.onShard(
+			ShortedURL.shardOf(id),
+			() -> readReplicaService.findWithPrimaryFallback(() -> shortedUrlStore.findById(id))
+		);
+		ShortedURLMetrics.record(metrics.databaseFindById, findStart);
+
+		// Cached in the background, the redirect does not wait for the write
+		shortedUrl.ifPresent(found -> redisCacheWriter.write(cacheKey, found, cacheTtl()));
+
+		return shortedUrl;
+	}
+
+	/**
+	 * Stores new links together on the next writable shard, with ids from its range.
+	 */
+	private List<ShortedURL> storeOnShard(List<ShortedURL> shortedUrls) {
+		int shard = shardRouter.nextWritableShard();
+		List<Long> ids = shardIdAllocator.allocate(shard, shortedUrls.size());
+
+		for (int i = 0; i < shortedUrls.size(); i++) {
+			shortedUrls.get(i).setId(ids.get(i));
+		}
+
+		shardRouter.onShard(shard, () -> {
+			shortedUrlStore.insertAll(shortedUrls);
+			return null;
+		});
+
+		return shortedUrls;
+	}
+
+	private Optional<ShortedURL> countLoaded(Optional<ShortedURL> loaded) {
+		if (loaded.isPresent()) {
+			metrics.databaseHits.increment();
+		} else {
+			metrics.notFound.increment();
+		}
+
+		return loaded;
+	}
+
+	/**
+	 * @throws RedisUnavailableException when Redis could not be asked
+	 */
+	private Optional<ShortedURL> getCachedShortedUrl(String cacheKey) {
+		long start = System.nanoTime();
+
+		try {
+			return Optional.ofNullable((ShortedURL) redisCircuitBreaker.execute(() -> redisTemplate.opsForValue().get(cacheKey)));
+		} finally {
+			ShortedURLMetrics.record(metrics.redisGet, start);
+		}
+	}
+
+	/**
+	 * Hands the entries to the background writer, the rows are stored and a cold cache only costs a database read.
+	 */
+	private void cacheShortedUrls(List<String> codes, List<ShortedURL> shortedUrls) {
+		for (int i = 0; i < shortedUrls.size(); i++) {
+			ShortedURL shortedUrl = shortedUrls.get(i);
+			redisCacheWriter.write("shortedUrls:" + codes.get(i), shortedUrl, cacheTtl());
+
+			if (deduplicationService.isEnabled() && shortedUrl.getOriginalUrlHash() != null) {
+				redisCacheWriter.write(
+					deduplicationService.key(shortedUrl.getOriginalUrlHash()),
+					shortedUrl.getId(),
+					deduplicationService.ttl()
+				);
+				deduplicationService.remember(shortedUrl.getOriginalUrlHash(), shortedUrl.getId());
+			}
+		}
+	}
+
+	/**
+	 * Caches shorted URLs that are not in Redis yet with a single pipelined call. Entries already there are left alone,
+	 * so a warm-up does not push back their expiry.
+	 *
+	 * @return how many entries were written
+	 * @throws RedisUnavailableException when Redis could not be reached
+	 */
+	public int warmCache(List<ShortedURL> shortedUrls) {
+		if (shortedUrls.isEmpty()) {
+			return 0;
+		}
+
+		long start = System.nanoTime();
+
+		List<Object> written = redisCircuitBreaker.execute(() -> redisTemplate.executePipelined(new SessionCallback<>() {
+			@Override
+			@SuppressWarnings("unchecked")
+			public <K, V> Object execute(RedisOperations<K, V> operations) {
+				RedisOperations<String, Object> redisOperations = (RedisOperations<String, Object>) operations;
+
+				for (ShortedURL shortedUrl : shortedUrls) {
+					redisOperations.opsForValue().setIfAbsent(
+						"shortedUrls:" + hashIdsService.encode(shortedUrl.getId()),
+						shortedUrl,
+						cacheTtl()
+					);
+				}
+
+				return null;
+			}
+		}));
+
+		ShortedURLMetrics.record(metrics.redisPipeline, start);
+
+		return (int) written.stream().filter(Boolean.TRUE::equals).count();
+	}
+
+	private Duration cacheTtl() {
+		Duration ttl = cacheConfig.getTtl();
+		long jitterMillis = (long) (ttl.toMillis() * cacheConfig.getTtlJitter());
+
+		return jitterMillis > 0 ? ttl.plusMillis(ThreadLocalRandom.current().nextLong(jitterMillis + 1)) : ttl;
+	}
 
-		return shortedURLObject.get().getOriginalUrl();
+	/**
+	 * @param existing whether the URL had already been shortened before, only ever set when deduplication is enabled
+	 */
+	public record CreatedShortURL(String shortUrl, boolean existing) {
 	}
 }
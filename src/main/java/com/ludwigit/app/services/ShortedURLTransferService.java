@@ -0,0 +1,355 @@
+package com.ludwigit.app.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.ludwigit.app.config.TransferConfig;
+import com.ludwigit.app.dto.responses.ExportedShortedURL;
+import com.ludwigit.app.dto.responses.ImportShortedURLsResult;
+import com.ludwigit.app.exceptions.InvalidURLException;
+import com.ludwigit.app.model.RedirectType;
+import com.ludwigit.app.model.ShortedURL;
+import com.ludwigit.app.repositories.ShortedURLStore;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Streams the whole {@code shorted_urls} table out as NDJSON or CSV and back in, for backups and migrations between
+ * databases.
+ * <p>
+ * Export pages through the table by id, so each page costs the same however deep it is and memory stays bounded by the
+ * page size. Import inserts the rows with the ids they were exported with, so their short codes keep resolving, and
+ * skips ids that are already taken, so an interrupted import can simply be run again.
+ */
+@Service
+public class ShortedURLTransferService {
+
+	private static final String CSV_HEADER = "id,code,original_url,redirect_type";
+	private static final String REDIRECT_TYPE_ERROR = "redirectType must be one of " + Arrays.toString(RedirectType.values());
+
+	private final ShortedURLStore shortedUrlStore;
+	private final ShortedURLService shortedUrlService;
+	private final HashIdsService hashIdsService;
+	private final NegativeCacheService negativeCacheService;
+	private final ShardRouter shardRouter;
+	private final TransferConfig transferConfig;
+	private final ObjectWriter writer;
+	private final ObjectReader reader;
+
+	public ShortedURLTransferService(
+		ShortedURLStore shortedUrlStore,
+		ShortedURLService shortedUrlService,
+		HashIdsService hashIdsService,
+		NegativeCacheService negativeCacheService,
+		ShardRouter shardRouter,
+		TransferConfig transferConfig,
+		ObjectMapper objectMapper
+	) {
+		this.shortedUrlStore = shortedUrlStore;
+		this.shortedUrlService = shortedUrlService;
+		this.hashIdsService = hashIdsService;
+		this.negativeCacheService = negativeCacheService;
+		this.shardRouter = shardRouter;
+		this.transferConfig = transferConfig;
+		this.writer = objectMapper.writerFor(ExportedShortedURL.class);
+		this.reader = objectMapper.readerFor(ExportedShortedURL.class);
+	}
+
+	/**
+	 * Exports every shard in turn, the default one first.
+	 *
+	 * @return how many rows were exported
+	 */
+	public long exportShortedURLs(Format format, OutputStream output) throws IOException {
+		Writer out = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+		long exported = 0;
+
+		if (format == Format.CSV) {
+			out.write(CSV_HEADER);
+			out.write('\n');
+		}
+
+		for (int shard : shardRouter.shards()) {
+			long lastId = 0;
+
+			while (true) {
+				long afterId = lastId;
+				List<ShortedURLStore.Row> page = shardRouter.onShard(shard, () -> shortedUrlStore.findAllByIdGreaterThanOrderByIdAsc(
+					afterId,
+					Limit.of(transferConfig.getPageSize())
+				));
+
+				if (page.isEmpty()) {
+					break;
+				}
+
+				for (ShortedURLStore.Row shortedUrl : page) {
+					String code = hashIdsService.encode(shortedUrl.getId());
+
+					if (format == Format.CSV) {
+						out.write(shortedUrl.getId() + "," + code + "," + csvField(shortedUrl.getOriginalUrl()) + ","
+							+ (shortedUrl.getRedirectType() != null ? shortedUrl.getRedirectType().name() : ""));
+					} else {
+						out.write(writer.writeValueAsString(ExportedShortedURL.builder()
+							.id(shortedUrl.getId())
+							.code(code)
+							.originalUrl(shortedUrl.getOriginalUrl())
+							.redirectType(shortedUrl.getRedirectType())
+							.build()));
+					}
+
+					out.write('\n');
+				}
+
+				exported += page.size();
+				lastId = page.get(page.size() - 1).getId();
+				// Lets the client see progress on long exports
+				out.flush();
+			}
+		}
+
+		out.flush();
+
+		return exported;
+	}
+
+	/**
+	 * Reads one row per line in the format written by {@link #exportShortedURLs(Format, OutputStream)}. Invalid lines
+	 * are reported and skipped, including URLs the create endpoints would refuse. The code is optional, but when given
+	 * it has to be the one this instance would encode for the id, which catches imports into a deployment with a
+	 * different hashids salt or minimum length. CSV files without the {@code redirect_type} column, as written before
+	 * it existed, are read as links redirecting with the configured default.
+	 */
+	public ImportShortedURLsResult importShortedURLs(Format format, InputStream input) throws IOException {
+		BufferedReader in = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+		List<ShortedURL> chunk = new ArrayList<>(transferConfig.getPageSize());
+		List<String> errors = new ArrayList<>();
+		long imported = 0;
+		long read = 0;
+		long failed = 0;
+		long lineNumber = 0;
+		String line;
+
+		while ((line = in.readLine()) != null) {
+			lineNumber++;
+
+			// Rows start with their numeric id, a first line starting with "id," is the header with or without redirect_type
+			if (line.isBlank() || (lineNumber == 1 && format == Format.CSV && line.startsWith("id,"))) {
+				continue;
+			}
+
+			try {
+				chunk.add(toShortedUrl(format == Format.CSV ? fromCsv(line) : fromJson(line)));
+				read++;
+			} catch (IllegalArgumentException exception) {
+				failed++;
+
+				if (errors.size() < transferConfig.getMaxReportedErrors()) {
+					errors.add("line " + lineNumber + ": " + exception.getMessage());
+				}
+			}
+
+			if (chunk.size() == transferConfig.getPageSize()) {
+				imported += insertAllIfAbsent(chunk);
+				chunk.clear();
+			}
+		}
+
+		imported += insertAllIfAbsent(chunk);
+
+		// New ids must neither be handed out again nor be rejected as above the highest stored id. Each shard only
+		// holds its own rows, so its sequence stays within its range.
+		shardRouter.shards().forEach(shard -> shardRouter.onShard(shard, () -> {
+			shortedUrlStore.alignIdSequence(ShortedURL.firstIdOf(shard));
+			return null;
+		}));
+		negativeCacheService.refreshWatermark();
+
+		return ImportShortedURLsResult.builder()
+			.imported(imported)
+			.skipped(read - imported)
+			.failed(failed)
+			.errors(errors)
+			.build();
+	}
+
+	private ShortedURL toShortedUrl(ExportedShortedURL item) {
+		Long id = item.getId();
+
+		if (id == null || id < 1 || id > HashIdsCodec.MAX_NUMBER) {
+			throw new IllegalArgumentException("id must be a number between 1 and " + HashIdsCodec.MAX_NUMBER);
+		}
+
+		if (!shardRouter.isKnown(ShortedURL.shardOf(id))) {
+			throw new IllegalArgumentException("id belongs to shard " + ShortedURL.shardOf(id) + ", which is not configured");
+		}
+
+		if (item.getOriginalUrl() == null || item.getOriginalUrl().isBlank()) {
+			throw new IllegalArgumentException("originalUrl must not be blank");
+		}
+
+		try {
+			shortedUrlService.validateOriginalUrl(item.getOriginalUrl());
+		} catch (InvalidURLException exception) {
+			throw new IllegalArgumentException("originalUrl: " + exception.getMessage());
+		}
+
+		if (item.getCode() != null && !item.getCode().isEmpty() && !item.getCode().equals(hashIdsService.encode(id))) {
+			throw new IllegalArgumentException("code does not match the id, check the hashids salt and minimum length");
+		}
+
+		return ShortedURL.builder()
+			.id(id)
+			.originalUrl(item.getOriginalUrl())
+			.redirectType(item.getRedirectType())
+			.build();
+	}
+
+	/**
+	 * Inserts every row on the shard its id belongs to.
+	 */
+	private int insertAllIfAbsent(List<ShortedURL> shortedUrls) {
+		Map<Integer, List<ShortedURL>> byShard = new TreeMap<>();
+		shortedUrls.forEach(shortedUrl -> byShard.computeIfAbsent(ShortedURL.shardOf(shortedUrl.getId()), shard -> new ArrayList<>()).add(shortedUrl));
+
+		int inserted = 0;
+
+		for (Map.Entry<Integer, List<ShortedURL>> entry : byShard.entrySet()) {
+			inserted += shardRouter.onShard(entry.getKey(), () -> shortedUrlStore.insertAllIfAbsent(entry.getValue()));
+		}
+
+		return inserted;
+	}
+
+	private ExportedShortedURL fromJson(String line) {
+		try {
+			return reader.readValue(line);
+		} catch (InvalidFormatException exception) {
+			throw new IllegalArgumentException(exception.getTargetType() == RedirectType.class ? REDIRECT_TYPE_ERROR : "malformed JSON");
+		} catch (JsonProcessingException exception) {
+			throw new IllegalArgumentException("malformed JSON");
+		}
+	}
+
+	private static ExportedShortedURL fromCsv(String line) {
+		List<String> fields = csvFields(line);
+
+		if (fields.size() != 3 && fields.size() != 4) {
+			throw new IllegalArgumentException("expected 4 fields, found " + fields.size());
+		}
+
+		long id;
+
+		try {
+			id = Long.parseLong(fields.get(0).trim());
+		} catch (NumberFormatException exception) {
+			throw new IllegalArgumentException("id must be a number");
+		}
+
+		return ExportedShortedURL.builder()
+			.id(id)
+			.code(fields.get(1).trim())
+			.originalUrl(fields.get(2))
+			.redirectType(fields.size() == 4 ? redirectType(fields.get(3).trim()) : null)
+			.build();
+	}
+
+	private static RedirectType redirectType(String name) {
+		if (name.isEmpty()) {
+			return null;
+		}
+
+		try {
+			return RedirectType.valueOf(name);
+		} catch (IllegalArgumentException exception) {
+			throw new IllegalArgumentException(REDIRECT_TYPE_ERROR);
+		}
+	}
+
+	private static String csvField(String value) {
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+			return value;
+		}
+
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+
+	/**
+	 * Splits an RFC 4180 line. Quoted fields spanning lines are not supported, URLs cannot hold line breaks anyway.
+	 */
+	private static List<String> csvFields(String line) {
+		List<String> fields = new ArrayList<>(4);
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+
+			if (quoted) {
+				if (c != '"') {
+					field.append(c);
+				} else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					field.append('"');
+					i++;
+				} else {
+					quoted = false;
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else {
+				field.append(c);
+			}
+		}
+
+		if (quoted) {
+			throw new IllegalArgumentException("unterminated quoted field");
+		}
+
+		fields.add(field.toString());
+
+		return fields;
+	}
+
+	public enum Format {
+		NDJSON,
+		CSV;
+
+		/**
+		 * @return the format named, case insensitive, or the one matching the file extension of a path
+		 */
+		public static Format of(String name) {
+			String lowerCase = name.toLowerCase(Locale.ROOT);
+
+			if (lowerCase.endsWith("csv")) {
+				return CSV;
+			}
+
+			if (lowerCase.endsWith("ndjson") || lowerCase.endsWith("jsonl")) {
+				return NDJSON;
+			}
+
+			throw new IllegalArgumentException("Unknown format " + name + ", expected ndjson or csv");
+		}
+	}
+}
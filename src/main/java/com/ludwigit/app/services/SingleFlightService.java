@@ -0,0 +1,200 @@
+package com.ludwigit.app.services;
+
+import com.ludwigit.app.config.SingleFlightConfig;
+import com.ludwigit.app.exceptions.RedisUnavailableException;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key, so a burst of cache misses for one link costs a single database read.
+ */
+@Service
+public class SingleFlightService {
+
+	private static final String LOCK_PREFIX = "lock:";
+	private static final String MISSING_PREFIX = "missing:";
+	private static final RedisScript<Long> RELEASE_LOCK_SCRIPT = RedisScript.of(
+		new ClassPathResource("scripts/single-flight/release-lock.lua"),
+		Long.class
+	);
+
+	private final RedisTemplate<String, Object> redisTemplate;
+	private final RedisCircuitBreaker redisCircuitBreaker;
+	private final SingleFlightConfig singleFlightConfig;
+	private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+	private final LongAdder loads = new LongAdder();
+	private final LongAdder coalesced = new LongAdder();
+	private final LongAdder lockWaits = new LongAdder();
+	private final LongAdder missingShared = new LongAdder();
+
+	public SingleFlightService(
+		RedisTemplate<String, Object> redisTemplate,
+		RedisCircuitBreaker redisCircuitBreaker,
+		SingleFlightConfig singleFlightConfig
+	) {
+		this.redisTemplate = redisTemplate;
+		this.redisCircuitBreaker = redisCircuitBreaker;
+		this.singleFlightConfig = singleFlightConfig;
+	}
+
+	/**
+	 * Runs the loader unless a load for the same key is already running on this node, in which case its result (or
+	 * exception) is shared instead.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T execute(String key, Supplier<T> loader) {
+		CompletableFuture<Object> future = new CompletableFuture<>();
+		CompletableFuture<Object> running = inFlight.putIfAbsent(key, future);
+
+		if (running != null) {
+			coalesced.increment();
+			return (T) await(running);
+		}
+
+		loads.increment();
+
+		try {
+			T value = loader.get();
+			future.complete(value);
+			return value;
+		} catch (RuntimeException | Error exception) {
+			future.completeExceptionally(exception);
+			throw exception;
+		} finally {
+			inFlight.remove(key, future);
+		}
+	}
+
+	/**
+	 * Runs the loader while holding a Redis lock on the key when {@code app.single-flight.distributed-lock} is set.
+	 * Nodes that do not get the lock poll {@code recheck} for the holder's result and only fall back to the loader
+	 * once the wait is over. When the holder finds nothing it leaves a marker for the length of that wait, so the
+	 * others stop polling and return empty as well instead of all querying the database for a code that does not
+	 * exist. Without Redis there is no lock to take, and the loader runs right away.
+	 */
+	public <T> Optional<T> executeExclusively(String key, Supplier<Optional<T>> recheck, Supplier<Optional<T>> loader) {
+		if (!singleFlightConfig.isDistributedLock()) {
+			return loader.get();
+		}
+
+		String lockKey = LOCK_PREFIX + key;
+		String token = UUID.randomUUID().toString();
+		Boolean acquired;
+
+		try {
+			acquired = redisCircuitBreaker.execute(
+				() -> redisTemplate.opsForValue().setIfAbsent(lockKey, token, singleFlightConfig.getLockTimeout())
+			);
+		} catch (RedisUnavailableException exception) {
+			return loader.get();
+		}
+
+		String missingKey = MISSING_PREFIX + key;
+
+		if (Boolean.TRUE.equals(acquired)) {
+			try {
+				Optional<T> value = loader.get();
+
+				if (value.isEmpty()) {
+					// Set before the lock is released, a node taking the lock next would not look for it
+					redisCircuitBreaker.run(
+						() -> redisTemplate.opsForValue().set(missingKey, Boolean.TRUE, singleFlightConfig.getLockWait())
+					);
+				}
+
+				return value;
+			} finally {
+				// Expires on its own when it cannot be released
+				redisCircuitBreaker.run(() -> redisTemplate.execute(RELEASE_LOCK_SCRIPT, List.of(lockKey), token));
+			}
+		}
+
+		lockWaits.increment();
+
+		long deadline = System.nanoTime() + singleFlightConfig.getLockWait().toNanos();
+
+		while (System.nanoTime() < deadline) {
+			try {
+				Thread.sleep(singleFlightConfig.getLockPollInterval().toMillis());
+			} catch (InterruptedException exception) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+
+			Optional<T> value;
+			boolean missing;
+
+			try {
+				value = recheck.get();
+				missing = value.isEmpty() && Boolean.TRUE.equals(redisCircuitBreaker.execute(() -> redisTemplate.hasKey(missingKey)));
+			} catch (RedisUnavailableException exception) {
+				break;
+			}
+
+			if (value.isPresent()) {
+				return value;
+			}
+
+			if (missing) {
+				missingShared.increment();
+				return Optional.empty();
+			}
+		}
+
+		return loader.get();
+	}
+
+	/**
+	 * @return loads actually run on this node
+	 */
+	public long loads() {
+		return loads.sum();
+	}
+
+	/**
+	 * @return callers that shared the result of a load already running on this node
+	 */
+	public long coalesced() {
+		return coalesced.sum();
+	}
+
+	/**
+	 * @return loads that waited for a lock held by another node
+	 */
+	public long lockWaits() {
+		return lockWaits.sum();
+	}
+
+	/**
+	 * @return waits that ended on the holder's marker for a missing key, without loading it
+	 */
+	public long missingShared() {
+		return missingShared.sum();
+	}
+
+	private static Object await(CompletableFuture<Object> future) {
+		try {
+			return future.join();
+		} catch (CompletionException exception) {
+			if (exception.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			if (exception.getCause() instanceof Error error) {
+				throw error;
+			}
+			throw exception;
+		}
+	}
+}
@@ -0,0 +1,32 @@
+-- Adds the clicks per referrer host of many links, keeping a bounded number of hosts per link.
+-- KEYS[i]: referrers hash of a link
+-- ARGV[1]: most hosts kept per link, clicks from any other host are counted as 'other'
+-- ARGV[2]: retention in milliseconds
+-- ARGV[3..]: for every key, the number of hosts followed by that many host and count pairs
+-- Returns the number of clicks counted as 'other'
+local limit = tonumber(ARGV[1])
+local retention = tonumber(ARGV[2])
+local position = 3
+local other = 0
+
+for _, key in ipairs(KEYS) do
+	local hosts = tonumber(ARGV[position])
+	position = position + 1
+
+	for _ = 1, hosts do
+		local host = ARGV[position]
+		local count = tonumber(ARGV[position + 1])
+		position = position + 2
+
+		if redis.call('HEXISTS', key, host) == 0 and redis.call('HLEN', key) >= limit then
+			host = 'other'
+			other = other + count
+		end
+
+		redis.call('HINCRBY', key, host, count)
+	end
+
+	redis.call('PEXPIRE', key, retention)
+end
+
+return other
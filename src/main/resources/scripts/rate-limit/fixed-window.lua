@@ -0,0 +1,22 @@
+-- Fixed window counter.
+-- KEYS[1]: counter key
+-- ARGV[1]: maximum requests per window
+-- ARGV[2]: window length in milliseconds
+-- Returns {allowed, remaining, retry after in milliseconds}
+local limit = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+
+local current = redis.call('INCR', KEYS[1])
+local ttl = redis.call('PTTL', KEYS[1])
+
+-- Also heals counters left without a TTL by older versions of the filter
+if current == 1 or ttl < 0 then
+	redis.call('PEXPIRE', KEYS[1], window)
+	ttl = window
+end
+
+if current > limit then
+	return { 0, 0, ttl }
+end
+
+return { 1, limit - current, 0 }
@@ -0,0 +1,40 @@
+-- Sliding window approximated by weighting the previous fixed window by how much of it still overlaps.
+-- KEYS[1]: hash holding one counter per window index
+-- ARGV[1]: maximum requests per window
+-- ARGV[2]: window length in milliseconds
+-- Returns {allowed, remaining, retry after in milliseconds}
+local limit = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+local current = math.floor(now / window)
+local elapsed = now - current * window
+
+local currentCount = tonumber(redis.call('HGET', KEYS[1], current) or '0')
+local previousCount = tonumber(redis.call('HGET', KEYS[1], current - 1) or '0')
+local weighted = previousCount * (window - elapsed) / window + currentCount
+
+if weighted + 1 > limit then
+	local retryAfter = window - elapsed
+	if previousCount > 0 and currentCount + 1 <= limit then
+		-- Time until enough of the previous window has slid out to admit one more request
+		retryAfter = math.ceil(window - elapsed - (limit - currentCount - 1) * window / previousCount)
+	end
+	return { 0, 0, math.max(retryAfter, 1) }
+end
+
+redis.call('HINCRBY', KEYS[1], current, 1)
+
+if redis.call('HLEN', KEYS[1]) > 2 then
+	for _, field in ipairs(redis.call('HKEYS', KEYS[1])) do
+		local index = tonumber(field)
+		if index ~= current and index ~= current - 1 then
+			redis.call('HDEL', KEYS[1], field)
+		end
+	end
+end
+
+redis.call('PEXPIRE', KEYS[1], window * 2)
+
+return { 1, math.floor(limit - weighted - 1), 0 }
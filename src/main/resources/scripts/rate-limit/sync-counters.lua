@@ -0,0 +1,24 @@
+-- Flushes locally consumed quota for many fixed-window counters in a single round trip.
+-- KEYS[i]: counter key
+-- ARGV[2i - 1]: requests consumed locally since the last sync
+-- ARGV[2i]: window length in milliseconds
+-- Returns {count, remaining ttl in milliseconds} for every key, flattened
+local reply = {}
+
+for i, key in ipairs(KEYS) do
+	local delta = tonumber(ARGV[2 * i - 1])
+	local window = tonumber(ARGV[2 * i])
+
+	local count = redis.call('INCRBY', key, delta)
+	local ttl = redis.call('PTTL', key)
+
+	if ttl < 0 then
+		redis.call('PEXPIRE', key, window)
+		ttl = window
+	end
+
+	reply[2 * i - 1] = count
+	reply[2 * i] = ttl
+end
+
+return reply
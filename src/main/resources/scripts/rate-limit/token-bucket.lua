@@ -0,0 +1,31 @@
+-- Token bucket refilled continuously so that a full bucket is restored every window.
+-- KEYS[1]: hash holding the bucket state
+-- ARGV[1]: bucket capacity
+-- ARGV[2]: window length in milliseconds
+-- Returns {allowed, remaining, retry after in milliseconds}
+local capacity = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local state = redis.call('HMGET', KEYS[1], 'tokens', 'timestamp')
+local tokens = tonumber(state[1]) or capacity
+local timestamp = tonumber(state[2]) or now
+
+tokens = math.min(capacity, tokens + math.max(now - timestamp, 0) * capacity / window)
+
+local allowed = 0
+local retryAfter = 0
+
+if tokens >= 1 then
+	tokens = tokens - 1
+	allowed = 1
+else
+	retryAfter = math.ceil((1 - tokens) * window / capacity)
+end
+
+redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'timestamp', now)
+redis.call('PEXPIRE', KEYS[1], window)
+
+return { allowed, math.floor(tokens), retryAfter }
@@ -0,0 +1,9 @@
+-- Releases a load lock only if it is still held by the caller.
+-- KEYS[1]: lock key
+-- ARGV[1]: token written when the lock was taken
+-- Returns 1 when the lock was released, 0 when it had expired or was taken over
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+	return redis.call('DEL', KEYS[1])
+end
+
+return 0
@@ -0,0 +1,107 @@
+package com.ludwigit.app;
+
+import com.ludwigit.app.model.RedirectType;
+import com.ludwigit.app.model.ShortedURL;
+import com.ludwigit.app.repositories.MappedShortedURLStore;
+import com.ludwigit.app.repositories.ShortedURLStore;
+import com.ludwigit.app.services.HashIdsService;
+import com.ludwigit.app.services.LinkStoreSnapshotService;
+import com.ludwigit.app.services.ShortedURLService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Boots with neither a database nor a reachable Redis, the way edge nodes run.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles({"test", "edge"})
+class EdgeProfileTests {
+
+	@TempDir
+	private static Path directory;
+
+	@Autowired
+	private ShortedURLStore shortedUrlStore;
+
+	@Autowired
+	private ShortedURLService shortedUrlService;
+
+	@Autowired
+	private HashIdsService hashIdsService;
+
+	@Autowired
+	private LinkStoreSnapshotService linkStoreSnapshotService;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@DynamicPropertySource
+	static void linkStoreProperties(DynamicPropertyRegistry registry) {
+		registry.add("app.link-store.directory", () -> directory.resolve("links").toString());
+	}
+
+	@Test
+	@DisplayName("Deve redirecionar links carregados no armazenamento mapeado em memória")
+	void retrieveUrlTest1() throws Exception {
+		Assertions.assertInstanceOf(MappedShortedURLStore.class, shortedUrlStore);
+
+		shortedUrlStore.insertAll(List.of(shortedUrl(1_001L, "https://www.example.com/edge", RedirectType.FOUND)));
+		String code = hashIdsService.encode(1_001L);
+
+		Assertions.assertEquals("https://www.example.com/edge", shortedUrlService.retrieveUrl(code).originalUrl());
+		Assertions.assertEquals(RedirectType.FOUND, shortedUrlService.retrieveUrl(code).redirectType());
+	}
+
+	@Test
+	@DisplayName("Deve recusar a criação de links, que recebem ids apenas nos nós com banco de dados")
+	void createShortedURLTest1() throws Exception {
+		Assertions.assertTrue(shortedUrlService.isReadOnly());
+
+		mockMvc.perform(
+			MockMvcRequestBuilders
+				.post("/create")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"url\": \"https://www.example.com/edge\"}")
+		).andExpect(MockMvcResultMatchers.status().isMethodNotAllowed());
+
+		mockMvc.perform(
+			MockMvcRequestBuilders
+				.post("/create/batch")
+				.contentType(MediaType.APPLICATION_NDJSON)
+				.content("{\"url\": \"https://www.example.com/edge\"}\n")
+		).andExpect(MockMvcResultMatchers.status().isMethodNotAllowed());
+	}
+
+	@Test
+	@DisplayName("Deve gerar um snapshot e compactar o armazenamento do nó")
+	void snapshotTest1() throws Exception {
+		shortedUrlStore.insertAll(List.of(shortedUrl(2_001L, "https://www.example.com/snapshot", null)));
+		long stored = shortedUrlStore.findAllByIdLessThanOrderByIdDesc(Long.MAX_VALUE, Limit.unlimited()).size();
+
+		Assertions.assertEquals(stored, linkStoreSnapshotService.snapshot(directory.resolve("snapshot")));
+		Assertions.assertEquals(stored, linkStoreSnapshotService.compact());
+		Assertions.assertEquals("https://www.example.com/snapshot", shortedUrlStore.findById(2_001L).orElseThrow().getOriginalUrl());
+	}
+
+	private static ShortedURL shortedUrl(Long id, String originalUrl, RedirectType redirectType) {
+		return ShortedURL.builder().id(id).originalUrl(originalUrl).redirectType(redirectType).build();
+	}
+
+}
@@ -0,0 +1,91 @@
+package com.ludwigit.app.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ludwigit.app.services.HybridRateLimiter;
+import com.ludwigit.app.services.LocalRateLimiter;
+import com.ludwigit.app.services.RateLimitService;
+import com.ludwigit.app.services.RedisCircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.UUID;
+
+public class RateLimitFilterTest {
+
+	private RateLimitFilter rateLimitFilter;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		RateLimitConfig.Policy create = new RateLimitConfig.Policy();
+		create.setName("create");
+		create.setPath("/create");
+		create.setMethods(List.of("POST"));
+		create.setMaxRequests(2);
+		create.setKey(RateLimitConfig.KeyType.API_KEY);
+		create.setApiKeys(List.of("partner-key"));
+
+		RateLimitConfig rateLimitConfig = new RateLimitConfig();
+		rateLimitConfig.setPolicies(List.of(create));
+
+		// Decided by the local limiter, as while Redis is unavailable
+		CircuitBreakerConfig circuitBreakerConfig = new CircuitBreakerConfig();
+		circuitBreakerConfig.setForcedOpen(true);
+
+		RedisTemplate<String, Object> redisTemplate = Mockito.mock(RedisTemplate.class);
+		RateLimitService rateLimitService = new RateLimitService(
+			redisTemplate,
+			Mockito.mock(HybridRateLimiter.class),
+			new LocalRateLimiter(rateLimitConfig),
+			new RedisCircuitBreaker(redisTemplate, circuitBreakerConfig),
+			rateLimitConfig,
+			new SimpleMeterRegistry()
+		);
+
+		rateLimitFilter = new RateLimitFilter(rateLimitService, new ObjectMapper());
+	}
+
+	@Test
+	@DisplayName("Deve limitar pelo endereço do cliente quem troca de chave de API desconhecida a cada requisição")
+	public void doFilterTest1() throws Exception {
+		Assertions.assertEquals(HttpStatus.OK.value(), create(UUID.randomUUID().toString()));
+		Assertions.assertEquals(HttpStatus.OK.value(), create(UUID.randomUUID().toString()));
+		Assertions.assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), create(UUID.randomUUID().toString()));
+		Assertions.assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), create(null));
+	}
+
+	@Test
+	@DisplayName("Deve dar uma cota própria a chaves de API configuradas")
+	public void doFilterTest2() throws Exception {
+		create(null);
+		create(null);
+
+		Assertions.assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), create(null));
+		Assertions.assertEquals(HttpStatus.OK.value(), create("partner-key"));
+	}
+
+	private int create(String apiKey) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/create");
+		request.setRemoteAddr("203.0.113.7");
+
+		if (apiKey != null) {
+			request.addHeader("X-API-Key", apiKey);
+		}
+
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		rateLimitFilter.doFilter(request, response, new MockFilterChain());
+
+		return response.getStatus();
+	}
+
+}
@@ -0,0 +1,61 @@
+package com.ludwigit.app.config;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+public class ReadReplicaRoutingDataSourceTest {
+
+	private JdbcTemplate jdbcTemplate;
+	private TransactionTemplate readOnlyTransaction;
+	private TransactionTemplate readWriteTransaction;
+
+	@BeforeEach
+	public void setUp() {
+		DataSource dataSource = new LazyConnectionDataSourceProxy(new ReadReplicaRoutingDataSource(
+			h2("primary"),
+			List.of(h2("replica0"), h2("replica1"))
+		));
+		DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		readOnlyTransaction = new TransactionTemplate(transactionManager);
+		readOnlyTransaction.setReadOnly(true);
+		readWriteTransaction = new TransactionTemplate(transactionManager);
+	}
+
+	@Test
+	@DisplayName("Deve alternar entre as réplicas em transações somente leitura")
+	public void routeTest1() {
+		Assertions.assertEquals("replica0", readOnlyTransaction.execute(status -> database()));
+		Assertions.assertEquals("replica1", readOnlyTransaction.execute(status -> database()));
+		Assertions.assertEquals("replica0", readOnlyTransaction.execute(status -> database()));
+	}
+
+	@Test
+	@DisplayName("Deve usar a primária em transações de escrita e fora de transações")
+	public void routeTest2() {
+		Assertions.assertEquals("primary", readWriteTransaction.execute(status -> database()));
+		Assertions.assertEquals("primary", database());
+	}
+
+	private String database() {
+		String url = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getURL());
+		return url.substring("jdbc:h2:mem:".length());
+	}
+
+	private static DataSource h2(String name) {
+		return new DriverManagerDataSource("jdbc:h2:mem:" + name, "sa", "");
+	}
+
+}
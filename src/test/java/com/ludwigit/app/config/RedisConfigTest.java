@@ -0,0 +1,45 @@
+package com.ludwigit.app.config;
+
+import io.lettuce.core.ClientOptions;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+
+import java.time.Duration;
+
+public class RedisConfigTest {
+
+	@Test
+	@DisplayName("Deve limitar comandos e conexões ao dobro do limite de chamadas lentas, mantendo as demais opções")
+	public void circuitBreakerTimeoutCustomizerTest1() {
+		CircuitBreakerConfig circuitBreakerConfig = new CircuitBreakerConfig();
+		circuitBreakerConfig.setSlowCallThreshold(Duration.ofMillis(300));
+
+		LettuceClientConfiguration.LettuceClientConfigurationBuilder builder = LettuceClientConfiguration.builder()
+			.commandTimeout(Duration.ofSeconds(60))
+			.clientOptions(ClientOptions.builder().autoReconnect(false).build());
+
+		new RedisConfig().circuitBreakerTimeoutCustomizer(circuitBreakerConfig).customize(builder);
+		LettuceClientConfiguration configuration = builder.build();
+
+		Assertions.assertEquals(Duration.ofMillis(600), configuration.getCommandTimeout());
+		Assertions.assertEquals(Duration.ofMillis(600), configuration.getClientOptions().orElseThrow().getSocketOptions().getConnectTimeout());
+		Assertions.assertFalse(configuration.getClientOptions().orElseThrow().isAutoReconnect());
+	}
+
+	@Test
+	@DisplayName("Deve usar o tempo limite configurado quando informado")
+	public void circuitBreakerTimeoutCustomizerTest2() {
+		CircuitBreakerConfig circuitBreakerConfig = new CircuitBreakerConfig();
+		circuitBreakerConfig.setCallTimeout(Duration.ofSeconds(2));
+
+		LettuceClientConfiguration.LettuceClientConfigurationBuilder builder = LettuceClientConfiguration.builder();
+		new RedisConfig().circuitBreakerTimeoutCustomizer(circuitBreakerConfig).customize(builder);
+		LettuceClientConfiguration configuration = builder.build();
+
+		Assertions.assertEquals(Duration.ofSeconds(2), configuration.getCommandTimeout());
+		Assertions.assertEquals(Duration.ofSeconds(2), configuration.getClientOptions().orElseThrow().getSocketOptions().getConnectTimeout());
+	}
+
+}
@@ -0,0 +1,82 @@
+package com.ludwigit.app.config;
+
+import com.ludwigit.app.services.ShardRouter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+public class ShardRoutingDataSourceTest {
+
+	private JdbcTemplate jdbcTemplate;
+	private ShardRouter shardRouter;
+
+	@BeforeEach
+	public void setUp() {
+		jdbcTemplate = new JdbcTemplate(new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(
+			h2("shard0"),
+			Map.of(1, h2("shard1"), 7, h2("shard7"))
+		)));
+
+		ShardingConfig shardingConfig = new ShardingConfig();
+		shardingConfig.setEnabled(true);
+		shardingConfig.setShards(List.of(shard(1), shard(7)));
+		shardRouter = new ShardRouter(shardingConfig);
+	}
+
+	@Test
+	@DisplayName("Deve usar o banco de dados do shard escolhido e o shard padrão fora dele")
+	public void routeTest1() {
+		Assertions.assertEquals("shard7", shardRouter.onShard(7, this::database));
+		Assertions.assertEquals("shard1", shardRouter.onShard(1, () -> {
+			Assertions.assertEquals("shard7", shardRouter.onShard(7, this::database));
+			return database();
+		}));
+		Assertions.assertEquals("shard0", database());
+	}
+
+	@Test
+	@DisplayName("Não deve cair no shard padrão quando o shard não existe")
+	public void routeTest2() {
+		CannotGetJdbcConnectionException exception = Assertions.assertThrows(
+			CannotGetJdbcConnectionException.class,
+			() -> shardRouter.onShard(3, this::database)
+		);
+		Assertions.assertInstanceOf(IllegalStateException.class, exception.getCause());
+	}
+
+	@Test
+	@DisplayName("Deve alternar a escrita entre os shards que aceitam novos links")
+	public void nextWritableShardTest1() {
+		Assertions.assertEquals(
+			List.of(0, 1, 7, 0),
+			List.of(shardRouter.nextWritableShard(), shardRouter.nextWritableShard(), shardRouter.nextWritableShard(), shardRouter.nextWritableShard())
+		);
+	}
+
+	private String database() {
+		String url = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getURL());
+		return url.substring("jdbc:h2:mem:".length());
+	}
+
+	private static ShardingConfig.Shard shard(int id) {
+		ShardingConfig.Shard shard = new ShardingConfig.Shard();
+		shard.setId(id);
+		shard.setUrl("jdbc:h2:mem:shard" + id);
+		return shard;
+	}
+
+	private static DataSource h2(String name) {
+		return new DriverManagerDataSource("jdbc:h2:mem:" + name, "sa", "");
+	}
+
+}
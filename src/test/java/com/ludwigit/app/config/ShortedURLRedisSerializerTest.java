@@ -0,0 +1,109 @@
+package com.ludwigit.app.config;
+
+import com.ludwigit.app.model.RedirectType;
+import com.ludwigit.app.model.ShortedURL;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+public class ShortedURLRedisSerializerTest {
+
+	private final GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final ShortedURLRedisSerializer serializer = new ShortedURLRedisSerializer(jsonSerializer, true, meterRegistry);
+
+	private final ShortedURL shortedUrl = ShortedURL.builder()
+		.id(123_456L)
+		.originalUrl("https://www.google.com/search?q=ludwigit")
+		.build();
+
+	@Test
+	@DisplayName("Deve serializar e desserializar uma URL encurtada no formato compacto")
+	public void roundTripTest1() {
+		ShortedURL deserialized = (ShortedURL) serializer.deserialize(serializer.serialize(shortedUrl));
+
+		Assertions.assertEquals(shortedUrl.getId(), deserialized.getId());
+		Assertions.assertEquals(shortedUrl.getOriginalUrl(), deserialized.getOriginalUrl());
+	}
+
+	@Test
+	@DisplayName("Deve preservar o tipo de redirecionamento próprio do link")
+	public void roundTripTest2() {
+		ShortedURL temporary = ShortedURL.builder()
+			.id(7L)
+			.originalUrl("https://www.example.com")
+			.redirectType(RedirectType.TEMPORARY_REDIRECT)
+			.build();
+
+		byte[] bytes = serializer.serialize(temporary);
+		ShortedURL deserialized = (ShortedURL) serializer.deserialize(bytes);
+
+		Assertions.assertEquals(ShortedURLRedisSerializer.FORMAT_V2, bytes[0]);
+		Assertions.assertEquals(RedirectType.TEMPORARY_REDIRECT, deserialized.getRedirectType());
+		Assertions.assertEquals(temporary.getOriginalUrl(), deserialized.getOriginalUrl());
+		// Links following the default keep the first format, which older nodes can read
+		Assertions.assertEquals(ShortedURLRedisSerializer.FORMAT_V1, serializer.serialize(shortedUrl)[0]);
+	}
+
+	@Test
+	@DisplayName("Deve ocupar menos bytes que o formato JSON")
+	public void sizeTest1() {
+		int compactLength = serializer.serialize(shortedUrl).length;
+		int jsonLength = jsonSerializer.serialize(shortedUrl).length;
+
+		// One version byte and the id on top of the URL itself
+		Assertions.assertEquals(9 + shortedUrl.getOriginalUrl().length(), compactLength);
+		Assertions.assertTrue(compactLength * 2 < jsonLength);
+	}
+
+	@Test
+	@DisplayName("Deve ler entradas gravadas em JSON antes do formato compacto")
+	public void legacyTest1() {
+		ShortedURL deserialized = (ShortedURL) serializer.deserialize(jsonSerializer.serialize(shortedUrl));
+
+		Assertions.assertEquals(shortedUrl.getOriginalUrl(), deserialized.getOriginalUrl());
+	}
+
+	@Test
+	@DisplayName("Deve continuar gravando JSON quando o formato compacto está desabilitado")
+	public void legacyTest2() {
+		ShortedURLRedisSerializer jsonOnly = new ShortedURLRedisSerializer(jsonSerializer, false, meterRegistry);
+
+		Assertions.assertEquals('{', jsonOnly.serialize(shortedUrl)[0]);
+	}
+
+	@Test
+	@DisplayName("Deve tratar como cache miss entradas gravadas em uma versão futura do formato")
+	public void versionTest1() {
+		byte[] future = serializer.serialize(shortedUrl);
+		future[0] = 3;
+
+		Assertions.assertNull(serializer.deserialize(future));
+		Assertions.assertNull(serializer.deserialize(future));
+	}
+
+	@Test
+	@DisplayName("Deve tratar como cache miss entradas truncadas")
+	public void versionTest2() {
+		Assertions.assertNull(serializer.deserialize(new byte[]{ShortedURLRedisSerializer.FORMAT_V2, 0, 0}));
+	}
+
+	@Test
+	@DisplayName("Deve delegar outros valores ao serializador JSON")
+	public void delegateTest1() {
+		Assertions.assertEquals(42, serializer.deserialize(serializer.serialize(42L)));
+		Assertions.assertEquals("1", serializer.deserialize(serializer.serialize("1")));
+	}
+
+	@Test
+	@DisplayName("Deve medir o tempo de serialização e desserialização")
+	public void metricsTest1() {
+		serializer.deserialize(serializer.serialize(shortedUrl));
+
+		Assertions.assertEquals(1, meterRegistry.get("ludwigit.redis.serialization").tag("operation", "serialize").timer().count());
+		Assertions.assertEquals(1, meterRegistry.get("ludwigit.redis.serialization").tag("operation", "deserialize").timer().count());
+	}
+
+}
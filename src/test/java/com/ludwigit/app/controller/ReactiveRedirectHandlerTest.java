@@ -0,0 +1,113 @@
+package com.ludwigit.app.controller;
+
+import com.ludwigit.app.config.RateLimitConfig;
+import com.ludwigit.app.config.RedirectConfig;
+import com.ludwigit.app.exceptions.ShortedURLNotFoundException;
+import com.ludwigit.app.model.Redirect;
+import com.ludwigit.app.model.RedirectType;
+import com.ludwigit.app.services.ClickAnalyticsService;
+import com.ludwigit.app.services.RateLimitService;
+import com.ludwigit.app.services.ReactiveShortedURLService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Set;
+
+class ReactiveRedirectHandlerTest {
+
+	private static final RateLimitService.RoutePolicy DEFAULT_POLICY = new RateLimitService.RoutePolicy(
+		"default", null, Set.of(), false, RateLimitConfig.Algorithm.FIXED_WINDOW, 60, 60000, RateLimitConfig.KeyType.IP, null, Set.of(), ""
+	);
+
+	private ReactiveShortedURLService reactiveShortedURLService;
+	private RateLimitService rateLimitService;
+	private ClickAnalyticsService clickAnalyticsService;
+	private WebTestClient webTestClient;
+
+	@BeforeEach
+	void setUp() {
+		reactiveShortedURLService = Mockito.mock(ReactiveShortedURLService.class);
+		rateLimitService = Mockito.mock(RateLimitService.class);
+		clickAnalyticsService = Mockito.mock(ClickAnalyticsService.class);
+
+		Mockito.when(rateLimitService.resolve(Mockito.anyString(), Mockito.anyString())).thenReturn(DEFAULT_POLICY);
+		Mockito.when(rateLimitService.consume(Mockito.any(), Mockito.anyString())).thenReturn(RateLimitService.Decision.unlimited(60));
+
+		ReactiveRedirectHandler handler = new ReactiveRedirectHandler(
+			reactiveShortedURLService,
+			rateLimitService,
+			clickAnalyticsService,
+			new RateLimitConfig(),
+			new RedirectHeaders(new RedirectConfig()),
+			Schedulers.immediate()
+		);
+
+		webTestClient = WebTestClient.bindToRouterFunction(handler.routes()).build();
+	}
+
+	@Test
+	@DisplayName("Deve redirecionar para a URL original ao acessar a URL encurtada")
+	void retrieveUrlTest1() {
+		Mockito.when(reactiveShortedURLService.retrieveUrl("abc123")).thenReturn(Mono.just(
+			Redirect.of("https://www.example.com", RedirectType.MOVED_PERMANENTLY)
+		));
+
+		webTestClient.get().uri("/abc123").header("X-Forwarded-For", "10.0.0.1").exchange()
+			.expectStatus().isEqualTo(301)
+			.expectHeader().valueEquals("Location", "https://www.example.com")
+			.expectHeader().valueEquals("X-RateLimit-Limit", "60")
+			.expectHeader().valueEquals("Cache-Control", "public, max-age=86400");
+
+		Mockito.verify(rateLimitService).resolve("GET", "/abc123");
+		Mockito.verify(rateLimitService).consume(DEFAULT_POLICY, "10.0.0.1");
+		Mockito.verify(clickAnalyticsService).record("abc123", null);
+	}
+
+	@Test
+	@DisplayName("Deve responder HEAD com o tipo de redirecionamento do link sem contabilizar um clique")
+	void retrieveUrlTest4() {
+		Mockito.when(reactiveShortedURLService.retrieveUrl("abc123")).thenReturn(Mono.just(
+			Redirect.of("https://www.example.com", RedirectType.TEMPORARY_REDIRECT)
+		));
+
+		webTestClient.head().uri("/abc123").exchange()
+			.expectStatus().isEqualTo(307)
+			.expectHeader().valueEquals("Cache-Control", "no-store")
+			.expectBody().isEmpty();
+
+		Mockito.verify(rateLimitService).resolve("HEAD", "/abc123");
+		Mockito.verifyNoInteractions(clickAnalyticsService);
+	}
+
+	@Test
+	@DisplayName("Deve retornar erro 404 para URL encurtada inexistente")
+	void retrieveUrlTest2() {
+		Mockito.when(reactiveShortedURLService.retrieveUrl("nonexistent")).thenReturn(Mono.error(new ShortedURLNotFoundException()));
+
+		webTestClient.get().uri("/nonexistent").exchange()
+			.expectStatus().isNotFound()
+			.expectBody().jsonPath("$.code").isEqualTo(404);
+
+		Mockito.verifyNoInteractions(clickAnalyticsService);
+	}
+
+	@Test
+	@DisplayName("Deve retornar 429 com os cabeçalhos de limite quando o cliente exceder o limite de requisições")
+	void retrieveUrlTest3() {
+		Mockito.when(rateLimitService.consume(Mockito.any(), Mockito.anyString())).thenReturn(
+			new RateLimitService.Decision(false, 60, 0, 1500)
+		);
+
+		webTestClient.get().uri("/abc123").exchange()
+			.expectStatus().isEqualTo(429)
+			.expectHeader().valueEquals("Retry-After", "2");
+
+		Mockito.verifyNoInteractions(reactiveShortedURLService);
+	}
+
+}
@@ -1,8 +1,17 @@
 package com.ludwigit.app.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ludwigit.app.config.AppConfig;
+import com.ludwigit.app.config.RateLimitConfig;
+import com.ludwigit.app.config.RedirectConfig;
 import com.ludwigit.app.dto.requests.CreateShortURLRequestBody;
+import com.ludwigit.app.dto.responses.ClickStatsResponse;
 import com.ludwigit.app.exceptions.ShortedURLNotFoundException;
+import com.ludwigit.app.model.Redirect;
+import com.ludwigit.app.model.RedirectType;
+import com.ludwigit.app.services.ClickAnalyticsService;
+import com.ludwigit.app.services.RateLimitService;
+import com.ludwigit.app.services.ShortedURLBatchService;
 import com.ludwigit.app.services.ShortedURLService;
 import lombok.SneakyThrows;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,6 +20,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
 import org.springframework.http.MediaType;
@@ -20,10 +30,20 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+
 @WebMvcTest
+@Import({AppConfig.class, RedirectConfig.class, RedirectHeaders.class})
 @ActiveProfiles("test")
 class ShortedURLControllerTest {
 
+	private static final RateLimitService.RoutePolicy DEFAULT_POLICY = new RateLimitService.RoutePolicy(
+		"default", null, Set.of(), false, RateLimitConfig.Algorithm.FIXED_WINDOW, 60, 60000, RateLimitConfig.KeyType.IP, null, Set.of(), ""
+	);
+
 	ObjectMapper objectMapper = new ObjectMapper();
 	@Autowired
 	private MockMvc mockMvc;
@@ -33,11 +53,19 @@ class ShortedURLControllerTest {
 	private ValueOperations<String, Object> valueOperations;
 	@MockitoBean
 	private RedisTemplate<String, Object> redisTemplate;
+	@MockitoBean
+	private RateLimitService rateLimitService;
+	@MockitoBean
+	private ShortedURLBatchService shortedURLBatchService;
+	@MockitoBean
+	private ClickAnalyticsService clickAnalyticsService;
 
 	@BeforeEach
 	void setUp() {
 		Mockito.when(redisTemplate.opsForValue()).thenReturn(valueOperations);
 		Mockito.when(valueOperations.get(Mockito.anyString())).thenReturn(null);
+		Mockito.when(rateLimitService.resolve(Mockito.anyString(), Mockito.anyString())).thenReturn(DEFAULT_POLICY);
+		Mockito.when(rateLimitService.consume(Mockito.any(), Mockito.anyString())).thenReturn(RateLimitService.Decision.unlimited(60));
 	}
 
 	@Test
@@ -78,6 +106,27 @@ class ShortedURLControllerTest {
 		).andExpect(MockMvcResultMatchers.status().isBadRequest());
 	}
 
+	@SneakyThrows
+	@Test
+	@DisplayName("Deve transmitir os resultados do lote como JSON delimitado por linhas")
+	public void createShortedURLBatchTest1() {
+		Mockito.doAnswer(invocation -> {
+			OutputStream output = invocation.getArgument(1);
+			output.write("{\"index\":0,\"shortUrl\":\"http://localhost:3333/abc\"}\n".getBytes(StandardCharsets.UTF_8));
+			return null;
+		}).when(shortedURLBatchService).createShortedURLs(Mockito.any(), Mockito.any());
+
+		mockMvc.perform(
+				MockMvcRequestBuilders
+					.post("/create/batch")
+					.contentType(MediaType.APPLICATION_NDJSON)
+					.content("{\"url\": \"https://www.example.com\"}\n")
+			)
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+			.andExpect(MockMvcResultMatchers.jsonPath("$.shortUrl").value("http://localhost:3333/abc"));
+	}
+
 	@SneakyThrows
 	@Test
 	@DisplayName("Deve redirecionar para a URL original ao acessar a URL encurtada")
@@ -85,12 +134,66 @@ class ShortedURLControllerTest {
 		String originalURL = "https://www.example.com";
 		String shortedURL = "abc123";
 
-		Mockito.when(shortedURLService.retrieveUrl(shortedURL)).thenReturn(originalURL);
+		Mockito.when(shortedURLService.retrieveUrl(shortedURL)).thenReturn(Redirect.of(originalURL, RedirectType.MOVED_PERMANENTLY));
 
 		mockMvc
-			.perform(MockMvcRequestBuilders.get("/" + shortedURL))
-			.andExpect(MockMvcResultMatchers.status().is3xxRedirection())
-			.andExpect(MockMvcResultMatchers.header().string("Location", originalURL));
+			.perform(MockMvcRequestBuilders.get("/" + shortedURL).header("Referer", "https://news.example.org/item"))
+			.andExpect(MockMvcResultMatchers.status().isMovedPermanently())
+			.andExpect(MockMvcResultMatchers.header().string("Location", originalURL))
+			.andExpect(MockMvcResultMatchers.header().string("Cache-Control", "public, max-age=86400"))
+			.andExpect(MockMvcResultMatchers.header().exists("Expires"));
+
+		Mockito.verify(clickAnalyticsService).record(shortedURL, "https://news.example.org/item");
+	}
+
+	@SneakyThrows
+	@Test
+	@DisplayName("Deve usar o tipo de redirecionamento do link e impedir o cache de redirecionamentos temporários")
+	public void redirectToOriginalURLTest4() {
+		Mockito.when(shortedURLService.retrieveUrl("abc123")).thenReturn(Redirect.of("https://www.example.com/ação", RedirectType.FOUND));
+
+		mockMvc
+			.perform(MockMvcRequestBuilders.get("/abc123"))
+			.andExpect(MockMvcResultMatchers.status().isFound())
+			.andExpect(MockMvcResultMatchers.header().string("Location", "https://www.example.com/a%C3%A7%C3%A3o"))
+			.andExpect(MockMvcResultMatchers.header().string("Cache-Control", "no-store"))
+			.andExpect(MockMvcResultMatchers.header().doesNotExist("Expires"));
+	}
+
+	@SneakyThrows
+	@Test
+	@DisplayName("Deve responder HEAD sem corpo e sem contabilizar um clique")
+	public void redirectToOriginalURLTest5() {
+		Mockito.when(shortedURLService.retrieveUrl("abc123")).thenReturn(Redirect.of("https://www.example.com", RedirectType.PERMANENT_REDIRECT));
+
+		mockMvc
+			.perform(MockMvcRequestBuilders.head("/abc123"))
+			.andExpect(MockMvcResultMatchers.status().isPermanentRedirect())
+			.andExpect(MockMvcResultMatchers.header().string("Location", "https://www.example.com"))
+			.andExpect(MockMvcResultMatchers.content().string(""));
+
+		Mockito.verifyNoInteractions(clickAnalyticsService);
+	}
+
+	@SneakyThrows
+	@Test
+	@DisplayName("Deve rejeitar tipos de redirecionamento desconhecidos ao criar uma URL encurtada")
+	public void createShortedURLTest3() {
+		mockMvc.perform(
+			MockMvcRequestBuilders
+				.post("/create")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"url\": \"https://www.example.com\", \"redirectStatus\": 303}")
+		).andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+		mockMvc.perform(
+			MockMvcRequestBuilders
+				.post("/create")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"url\": \"https://www.example.com\", \"redirectStatus\": 307}")
+		).andExpect(MockMvcResultMatchers.status().isOk());
+
+		Mockito.verify(shortedURLService).createShortedURL("https://www.example.com", RedirectType.TEMPORARY_REDIRECT);
 	}
 
 	@SneakyThrows
@@ -119,4 +222,43 @@ class ShortedURLControllerTest {
 			.andExpect(MockMvcResultMatchers.status().isNotFound());
 	}
 
+	@SneakyThrows
+	@Test
+	@DisplayName("Deve retornar as estatísticas de cliques de uma URL encurtada")
+	public void statsTest1() {
+		String shortedURL = "abc123";
+
+		Mockito.when(shortedURLService.retrieveUrl(shortedURL)).thenReturn(Redirect.of("https://www.example.com", RedirectType.MOVED_PERMANENTLY));
+		Mockito.when(clickAnalyticsService.stats(shortedURL)).thenReturn(
+			ClickStatsResponse.builder()
+				.code(shortedURL)
+				.totalClicks(3)
+				.referrers(Map.of("direct", 3L))
+				.clicksPerMinute(Map.of())
+				.build()
+		);
+
+		mockMvc
+			.perform(MockMvcRequestBuilders.get("/stats/" + shortedURL))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.jsonPath("$.totalClicks").value(3))
+			.andExpect(MockMvcResultMatchers.jsonPath("$.referrers.direct").value(3));
+	}
+
+	@SneakyThrows
+	@Test
+	@DisplayName("Deve retornar 429 com os cabeçalhos de limite quando o cliente exceder o limite de requisições")
+	public void rateLimitTest1() {
+		Mockito.when(rateLimitService.consume(Mockito.any(), Mockito.anyString())).thenReturn(
+			new RateLimitService.Decision(false, 60, 0, 1500)
+		);
+
+		mockMvc
+			.perform(MockMvcRequestBuilders.get("/abc123"))
+			.andExpect(MockMvcResultMatchers.status().isTooManyRequests())
+			.andExpect(MockMvcResultMatchers.header().string("X-RateLimit-Limit", "60"))
+			.andExpect(MockMvcResultMatchers.header().string("X-RateLimit-Remaining", "0"))
+			.andExpect(MockMvcResultMatchers.header().string("Retry-After", "2"));
+	}
+
 }
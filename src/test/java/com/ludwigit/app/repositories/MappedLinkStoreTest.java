@@ -0,0 +1,213 @@
+package com.ludwigit.app.repositories;
+
+import com.ludwigit.app.model.RedirectType;
+import com.ludwigit.app.model.ShortedURL;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+class MappedLinkStoreTest {
+
+	private static final int SEGMENT_SIZE = MappedLinkStore.MIN_SEGMENT_SIZE;
+
+	@TempDir
+	private Path directory;
+
+	@Test
+	@DisplayName("Deve atribuir ids em sequência e manter as URLs salvas depois de reabrir o armazenamento")
+	void saveAllTest1() throws Exception {
+		try (MappedLinkStore store = new MappedLinkStore(directory, SEGMENT_SIZE, true)) {
+			List<ShortedURL> saved = store.saveAll(List.of(
+				shortedUrl("https://www.example.com/1", null),
+				shortedUrl("https://www.example.com/2", RedirectType.PERMANENT_REDIRECT)
+			));
+
+			Assertions.assertEquals(1L, saved.get(0).getId());
+			Assertions.assertEquals(2L, saved.get(1).getId());
+		}
+
+		try (MappedLinkStore store = new MappedLinkStore(directory, SEGMENT_SIZE, true)) {
+			ShortedURL first = store.find(1).orElseThrow();
+			ShortedURL second = store.find(2).orElseThrow();
+
+			Assertions.assertEquals("https://www.example.com/1", first.getOriginalUrl());
+			Assertions.assertNull(first.getRedirectType());
+			Assertions.assertEquals("https://www.example.com/2", second.getOriginalUrl());
+			Assertions.assertEquals(RedirectType.PERMANENT_REDIRECT, second.getRedirectType());
+			Assertions.assertTrue(store.find(3).isEmpty());
+			Assertions.assertEquals(2, store.maxId());
+			Assertions.assertEquals(3L, store.saveAll(List.of(shortedUrl("https://www.example.com/3", null))).getFirst().getId());
+		}
+	}
+
+	@Test
+	@DisplayName("Deve ler registros distribuídos em vários segmentos dos arquivos")
+	void findTest1() throws Exception {
+		try (MappedLinkStore store = new MappedLinkStore(directory, SEGMENT_SIZE, false)) {
+			for (int i = 1; i <= 2_000; i++) {
+				store.saveAll(List.of(shortedUrl("https://www.example.com/" + "x".repeat(i % 200) + i, null)));
+			}
+		}
+
+		try (MappedLinkStore store = new MappedLinkStore(directory, SEGMENT_SIZE, false)) {
+			Assertions.assertEquals(2_000, store.maxId());
+
+			for (int i = 1; i <= 2_000; i++) {
+				Assertions.assertEquals("https://www.example.com/" + "x".repeat(i % 200) + i, store.find(i).orElseThrow().getOriginalUrl());
+			}
+		}
+	}
+
+	@Test
+	@DisplayName("Deve descartar um registro incompleto no fim do log ao reabrir, mantendo os anteriores")
+	void recoverTest1() throws Exception {
+		try (MappedLinkStore store = new MappedLinkStore(directory, SEGMENT_SIZE, true)) {
+			store.saveAll(List.of(shortedUrl("https://www.example.com/1", null), shortedUrl("https://www.example.com/2", null)));
+		}
+
+		// A record whose append was cut short, its length is written but its checksum does not match
+		long end = coveredLength();
+
+		try (FileChannel channel = FileChannel.open(directory.resolve(MappedLinkStore.DATA_FILE), StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.allocate(12).putInt(40).putInt(1234).putInt(56).flip(), end);
+		}
+
+		try (MappedLinkStore store = new MappedLinkStore(directory, SEGMENT_SIZE, true)) {
+			Assertions.assertEquals(2, store.maxId());
+			Assertions.assertEquals(3L, store.saveAll(List.of(shortedUrl("https://www.example.com/3", null))).getFirst().getId());
+		}
+
+		try (MappedLinkStore store = new MappedLinkStore(directory, SEGMENT_SIZE, true)) {
+			Assertions.assertEquals("https://www.example.com/3", store.find(3).orElseThrow().getOriginalUrl());
+			Assertions.assertEquals(3, store.maxId());
+		}
+	}
+
+	@Test
+	@DisplayName("Deve reconstruir o índice a partir do log quando o arquivo de índice é perdido")
+	void recoverTest2() throws Exception {
+		try (MappedLinkStore store = new MappedLinkStore(directory, SEGMENT_SIZE, true)) {
+			store.saveAll(List.of(shortedUrl("https://www.example.com/1", null), shortedUrl("https://www.example.com/2", null)));
+			store.saveAll(List.of(shortedUrl(1L, "https://www.example.com/updated", RedirectType.FOUND)));
+		}
+
+		Files.delete(directory.resolve(MappedLinkStore.INDEX_FILE));
+
+		try (MappedLinkStore store = new MappedLinkStore(directory, SEGMENT_SIZE, true)) {
+			Assertions.assertEquals("https://www.example.com/updated", store.find(1).orElseThrow().getOriginalUrl());
+			Assertions.assertEquals("https://www.example.com/2", store.find(2).orElseThrow().getOriginalUrl());
+			Assertions.assertTrue(store.find(3).isEmpty());
+			Assertions.assertEquals(2, store.maxId());
+		}
+	}
+
+	@Test
+	@DisplayName("Deve compactar mantendo apenas a última versão de cada link")
+	void compactTest1() throws Exception {
+		try (MappedLinkStore store = new MappedLinkStore(directory, SEGMENT_SIZE, true)) {
+			for (int i = 1; i <= 300; i++) {
+				store.saveAll(List.of(shortedUrl("https://www.example.com/" + i, null)));
+			}
+
+			for (int i = 1; i <= 100; i++) {
+				store.saveAll(List.of(shortedUrl((long) i, "https://www.example.com/updated/" + i, RedirectType.FOUND)));
+			}
+
+			ShortedURL beforeCompaction = store.find(150).orElseThrow();
+			long length = coveredLength();
+
+			Assertions.assertEquals(300, store.compact());
+			Assertions.assertTrue(coveredLength() < length);
+			Assertions.assertEquals(beforeCompaction.getOriginalUrl(), store.find(150).orElseThrow().getOriginalUrl());
+			Assertions.assertEquals(RedirectType.FOUND, store.find(1).orElseThrow().getRedirectType());
+			Assertions.assertEquals("https://www.example.com/200", store.find(200).orElseThrow().getOriginalUrl());
+
+			store.saveAll(List.of(shortedUrl("https://www.example.com/301", null)));
+		}
+
+		Assertions.assertFalse(Files.exists(directory.resolve("compacting")));
+
+		try (MappedLinkStore store = new MappedLinkStore(directory, SEGMENT_SIZE, true)) {
+			Assertions.assertEquals(301, store.maxId());
+			Assertions.assertEquals("https://www.example.com/updated/100", store.find(100).orElseThrow().getOriginalUrl());
+			Assertions.assertEquals("https://www.example.com/301", store.find(301).orElseThrow().getOriginalUrl());
+		}
+	}
+
+	@Test
+	@DisplayName("Deve encontrar todo link com id até o maior salvo enquanto outros são adicionados")
+	void findTest2() throws Exception {
+		try (MappedLinkStore store = new MappedLinkStore(directory, SEGMENT_SIZE, false)) {
+			AtomicReference<Throwable> failure = new AtomicReference<>();
+			Thread writer = Thread.ofVirtual().start(() -> {
+				for (int i = 1; i <= 3_000; i++) {
+					store.saveAll(List.of(shortedUrl("https://www.example.com/" + i, null)));
+				}
+			});
+			List<Thread> readers = new ArrayList<>();
+
+			for (int r = 0; r < 4; r++) {
+				readers.add(Thread.ofVirtual().start(() -> {
+					try {
+						while (writer.isAlive()) {
+							long maxId = store.maxId();
+
+							for (long id = Math.max(maxId - 50, 1); id <= maxId; id++) {
+								Assertions.assertEquals("https://www.example.com/" + id, store.find(id).orElseThrow().getOriginalUrl());
+							}
+						}
+					} catch (Throwable throwable) {
+						failure.set(throwable);
+					}
+				}));
+			}
+
+			writer.join();
+
+			for (Thread reader : readers) {
+				reader.join();
+			}
+
+			Assertions.assertNull(failure.get());
+			Assertions.assertEquals(3_000, store.maxId());
+		}
+	}
+
+	@Test
+	@DisplayName("Não deve aceitar ids de outros shards")
+	void saveAllTest2() throws Exception {
+		try (MappedLinkStore store = new MappedLinkStore(directory, SEGMENT_SIZE, false)) {
+			List<ShortedURL> sharded = List.of(shortedUrl(ShortedURL.firstIdOf(2) + 1, "https://www.example.com", null));
+
+			Assertions.assertThrows(IllegalArgumentException.class, () -> store.saveAll(sharded));
+			Assertions.assertEquals(0, store.maxId());
+		}
+	}
+
+	private long coveredLength() throws Exception {
+		try (FileChannel channel = FileChannel.open(directory.resolve(MappedLinkStore.INDEX_FILE), StandardOpenOption.READ)) {
+			ByteBuffer slot = ByteBuffer.allocate(Long.BYTES);
+			channel.read(slot, 0);
+			return slot.flip().getLong();
+		}
+	}
+
+	private static ShortedURL shortedUrl(String originalUrl, RedirectType redirectType) {
+		return shortedUrl(null, originalUrl, redirectType);
+	}
+
+	private static ShortedURL shortedUrl(Long id, String originalUrl, RedirectType redirectType) {
+		return ShortedURL.builder().id(id).originalUrl(originalUrl).redirectType(redirectType).build();
+	}
+
+}
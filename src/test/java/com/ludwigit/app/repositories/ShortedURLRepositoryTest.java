@@ -1,6 +1,7 @@
 package com.ludwigit.app.repositories;
 
 import com.ludwigit.app.dto.requests.CreateShortURLRequestBody;
+import com.ludwigit.app.model.RedirectType;
 import com.ludwigit.app.model.ShortedURL;
 import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.Assertions;
@@ -8,8 +9,11 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.util.List;
+
 @DataJpaTest
 @ActiveProfiles("test")
 class ShortedURLRepositoryTest {
@@ -47,6 +51,102 @@ class ShortedURLRepositoryTest {
 		Assertions.assertTrue(this.shortedURLRepository.findByOriginalUrl(originalUrl).isEmpty());
 	}
 
+	@Test
+	@DisplayName("Deve encontrar URLs encurtadas pelo hash da URL original")
+	void testFindAllByOriginalUrlHashIn() {
+		String originalUrl = "https://www.example.com";
+
+		// Inserted with an explicit id, so the pooled id allocator is left untouched for the other tests
+		this.entityManager
+			.createNativeQuery("insert into shorted_urls (id, original_url, original_url_hash) values (500, ?1, ?2)")
+			.setParameter(1, originalUrl)
+			.setParameter(2, ShortedURL.hashOriginalUrl(originalUrl))
+			.executeUpdate();
+
+		List<ShortedURL> found = this.shortedURLRepository.findAllByOriginalUrlHashIn(List.of(
+			ShortedURL.hashOriginalUrl(originalUrl),
+			ShortedURL.hashOriginalUrl("https://www.nonexistent.com")
+		));
+
+		Assertions.assertEquals(1, found.size());
+		Assertions.assertEquals(500L, found.get(0).getId());
+	}
+
+	@Test
+	@DisplayName("Deve avançar a sequência de ids para além do maior id existente")
+	void testAlignIdSequence() {
+		this.entityManager
+			.createNativeQuery("insert into shorted_urls (id, original_url) values (1000, 'https://www.example.com')")
+			.executeUpdate();
+
+		this.shortedURLRepository.alignIdSequence();
+
+		ShortedURL shortedURL = this.createShortedURL(
+			CreateShortURLRequestBody.builder()
+				.url("https://www.example.org")
+				.build()
+		);
+
+		Assertions.assertTrue(shortedURL.getId() > 1000);
+	}
+
+	@Test
+	@DisplayName("Não deve consumir nem reiniciar a sequência de ids quando ela já está à frente")
+	void testAlignIdSequence2() {
+		long lastReserved = this.shortedURLRepository.reserveIdBlock();
+
+		this.shortedURLRepository.alignIdSequence();
+		this.shortedURLRepository.alignIdSequence();
+
+		Assertions.assertEquals(lastReserved + ShortedURL.ID_ALLOCATION_SIZE, this.shortedURLRepository.reserveIdBlock());
+	}
+
+	@Test
+	@DisplayName("Deve inserir URLs encurtadas com os ids reservados e o tipo de redirecionamento")
+	void testInsertAll() {
+		long lastReserved = this.shortedURLRepository.reserveIdBlock();
+
+		Assertions.assertTrue(this.shortedURLRepository.reserveIdBlock() >= lastReserved + ShortedURL.ID_ALLOCATION_SIZE);
+
+		this.shortedURLRepository.insertAll(List.of(
+			ShortedURL.builder().id(3000L).originalUrl("https://www.example.com").redirectType(RedirectType.FOUND).build(),
+			ShortedURL.builder().id(3001L).originalUrl("https://www.example.org").build()
+		));
+		this.entityManager.clear();
+
+		ShortedURL shortedURL = this.shortedURLRepository.findById(3000L).orElseThrow();
+
+		Assertions.assertEquals(RedirectType.FOUND, shortedURL.getRedirectType());
+		Assertions.assertArrayEquals(ShortedURL.hashOriginalUrl("https://www.example.com"), shortedURL.getOriginalUrlHash());
+		Assertions.assertNull(this.shortedURLRepository.findById(3001L).orElseThrow().getRedirectType());
+	}
+
+	@Test
+	@DisplayName("Deve inserir URLs encurtadas mantendo os ids e ignorar ids já existentes")
+	void testInsertAllIfAbsent() {
+		this.entityManager
+			.createNativeQuery("insert into shorted_urls (id, original_url) values (2000, 'https://www.example.com')")
+			.executeUpdate();
+
+		int inserted = this.shortedURLRepository.insertAllIfAbsent(List.of(
+			ShortedURL.builder().id(2000L).originalUrl("https://www.example.org").build(),
+			ShortedURL.builder().id(2001L).originalUrl("https://www.example.net").redirectType(RedirectType.PERMANENT_REDIRECT).build(),
+			ShortedURL.builder().id(2001L).originalUrl("https://www.example.edu").build()
+		));
+
+		Assertions.assertEquals(1, inserted);
+		Assertions.assertEquals(
+			List.of("https://www.example.com", "https://www.example.net"),
+			this.shortedURLRepository.findAllByIdGreaterThanOrderByIdAsc(1999L, Limit.of(10)).stream()
+				.map(ShortedURLRepository.Row::getOriginalUrl)
+				.toList()
+		);
+		Assertions.assertEquals(
+			RedirectType.PERMANENT_REDIRECT,
+			this.shortedURLRepository.findAllByIdGreaterThanOrderByIdAsc(2000L, Limit.of(1)).getFirst().getRedirectType()
+		);
+	}
+
 	private ShortedURL createShortedURL(CreateShortURLRequestBody data) {
 		ShortedURL shortedURL = ShortedURL
 			.builder()
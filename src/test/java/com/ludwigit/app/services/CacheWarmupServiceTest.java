@@ -0,0 +1,204 @@
+package com.ludwigit.app.services;
+
+import com.ludwigit.app.config.CacheConfig;
+import com.ludwigit.app.config.CircuitBreakerConfig;
+import com.ludwigit.app.config.HashIdConfig;
+import com.ludwigit.app.config.ShardingConfig;
+import com.ludwigit.app.model.ShortedURL;
+import com.ludwigit.app.repositories.ShortedURLRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class CacheWarmupServiceTest {
+
+	private ShortedURLRepository shortedURLRepository;
+	private ShortedURLService shortedURLService;
+	private ZSetOperations<String, String> zSetOperations;
+	private HashIdsService hashIdsService;
+	private StringRedisTemplate stringRedisTemplate;
+	private CacheConfig cacheConfig;
+	private CacheWarmupService cacheWarmupService;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		shortedURLRepository = Mockito.mock(ShortedURLRepository.class);
+		shortedURLService = Mockito.mock(ShortedURLService.class);
+		zSetOperations = Mockito.mock(ZSetOperations.class);
+		stringRedisTemplate = Mockito.mock(StringRedisTemplate.class);
+		Mockito.when(stringRedisTemplate.opsForZSet()).thenReturn(zSetOperations);
+		Mockito.when(shortedURLService.warmCache(Mockito.anyList())).thenAnswer(invocation -> invocation.<List<?>>getArgument(0).size());
+
+		HashIdConfig hashIdConfig = new HashIdConfig();
+		hashIdConfig.setSalt("my-secret-salt");
+		hashIdConfig.setMinLength(4);
+		hashIdsService = new HashIdsService(hashIdConfig);
+
+		cacheConfig = new CacheConfig();
+		cacheConfig.getWarmup().setSize(5);
+		cacheConfig.getWarmup().setPageSize(2);
+
+		cacheWarmupService = warmupService(new ShardingConfig());
+	}
+
+	@Test
+	@DisplayName("Deve carregar os links mais clicados em páginas até o tamanho configurado")
+	public void warmUpTest1() {
+		Mockito.when(zSetOperations.reverseRange(ClickAnalyticsService.TOTALS_KEY, 0, 1)).thenReturn(codes(1L, 2L));
+		Mockito.when(zSetOperations.reverseRange(ClickAnalyticsService.TOTALS_KEY, 2, 3)).thenReturn(codes(3L, 4L));
+		Mockito.when(zSetOperations.reverseRange(ClickAnalyticsService.TOTALS_KEY, 4, 4)).thenReturn(codes(5L));
+		Mockito.when(shortedURLRepository.findAllById(Mockito.anyIterable())).thenAnswer(invocation -> {
+			Iterable<Long> ids = invocation.getArgument(0);
+			List<ShortedURL> shortedUrls = new ArrayList<>();
+			ids.forEach(id -> shortedUrls.add(shortedUrl(id)));
+			return shortedUrls;
+		});
+
+		CacheWarmupService.Result result = cacheWarmupService.warmUp();
+
+		Assertions.assertEquals(CacheConfig.Source.MOST_CLICKED, result.source());
+		Assertions.assertEquals(5, result.loaded());
+		Assertions.assertEquals(5, result.cached());
+		Mockito.verify(shortedURLService, Mockito.times(3)).warmCache(Mockito.anyList());
+		Mockito.verify(zSetOperations, Mockito.never()).reverseRange(ClickAnalyticsService.TOTALS_KEY, 6, 7);
+	}
+
+	@Test
+	@DisplayName("Deve carregar os links mais recentes quando ainda não há cliques registrados")
+	public void warmUpTest2() {
+		Mockito.when(zSetOperations.reverseRange(Mockito.anyString(), Mockito.anyLong(), Mockito.anyLong())).thenReturn(Set.of());
+		Mockito.when(shortedURLRepository.findAllByIdLessThanOrderByIdDesc(Long.MAX_VALUE, Limit.of(2)))
+			.thenReturn(List.of(shortedUrl(3L), shortedUrl(2L)));
+		Mockito.when(shortedURLRepository.findAllByIdLessThanOrderByIdDesc(2L, Limit.of(2)))
+			.thenReturn(List.of(shortedUrl(1L)));
+		Mockito.when(shortedURLRepository.findAllByIdLessThanOrderByIdDesc(1L, Limit.of(2)))
+			.thenReturn(List.of());
+
+		CacheWarmupService.Result result = cacheWarmupService.warmUp();
+
+		Assertions.assertEquals(CacheConfig.Source.MOST_RECENT, result.source());
+		Assertions.assertEquals(3, result.loaded());
+		Mockito.verify(shortedURLRepository, Mockito.never()).findAllById(Mockito.anyIterable());
+	}
+
+	@Test
+	@DisplayName("Deve buscar cada link mais clicado no shard do seu id")
+	public void warmUpTest3() {
+		cacheWarmupService = warmupService(shardingConfig());
+		long shardedId = ShortedURL.firstIdOf(1) + 1;
+		long unknownShardId = ShortedURL.firstIdOf(2) + 1;
+		Map<Long, Integer> readOn = new HashMap<>();
+
+		Mockito.when(zSetOperations.reverseRange(ClickAnalyticsService.TOTALS_KEY, 0, 1)).thenReturn(codes(shardedId, 1L));
+		Mockito.when(zSetOperations.reverseRange(ClickAnalyticsService.TOTALS_KEY, 2, 3)).thenReturn(codes(unknownShardId));
+		Mockito.when(shortedURLRepository.findAllById(Mockito.anyIterable())).thenAnswer(invocation -> {
+			Iterable<Long> ids = invocation.getArgument(0);
+			List<ShortedURL> shortedUrls = new ArrayList<>();
+			ids.forEach(id -> {
+				readOn.put(id, ShardRouter.currentShard());
+				shortedUrls.add(shortedUrl(id));
+			});
+			return shortedUrls;
+		});
+
+		CacheWarmupService.Result result = cacheWarmupService.warmUp();
+
+		Assertions.assertEquals(2, result.loaded());
+		Assertions.assertEquals(Map.of(1L, 0, shardedId, 1), readOn);
+	}
+
+	@Test
+	@DisplayName("Deve carregar os links mais recentes de todos os shards")
+	public void warmUpTest4() {
+		cacheWarmupService = warmupService(shardingConfig());
+		long shardedId = ShortedURL.firstIdOf(1) + 1;
+		Mockito.when(zSetOperations.reverseRange(Mockito.anyString(), Mockito.anyLong(), Mockito.anyLong())).thenReturn(Set.of());
+		Mockito.when(shortedURLRepository.findAllByIdLessThanOrderByIdDesc(Mockito.anyLong(), Mockito.any(Limit.class))).thenAnswer(invocation ->
+			(long) invocation.getArgument(0) != Long.MAX_VALUE
+				? List.of()
+				: ShardRouter.currentShard() == 1 ? List.of(shortedUrl(shardedId)) : List.of(shortedUrl(2L), shortedUrl(1L))
+		);
+
+		CacheWarmupService.Result result = cacheWarmupService.warmUp();
+
+		Assertions.assertEquals(CacheConfig.Source.MOST_RECENT, result.source());
+		Assertions.assertEquals(3, result.loaded());
+	}
+
+	@Test
+	@DisplayName("Não deve iniciar um novo aquecimento enquanto outro está em andamento")
+	public void startTest1() throws InterruptedException {
+		cacheConfig.getWarmup().setSource(CacheConfig.Source.MOST_RECENT);
+		Object lock = new Object();
+
+		synchronized (lock) {
+			Mockito.when(shortedURLRepository.findAllByIdLessThanOrderByIdDesc(Mockito.anyLong(), Mockito.any(Limit.class)))
+				.thenAnswer(invocation -> {
+					synchronized (lock) {
+						return List.of();
+					}
+				});
+
+			Assertions.assertTrue(cacheWarmupService.start());
+			Assertions.assertFalse(cacheWarmupService.start());
+		}
+
+		while (cacheWarmupService.isRunning()) {
+			Thread.sleep(10);
+		}
+
+		Assertions.assertTrue(cacheWarmupService.lastResult().isPresent());
+	}
+
+	private CacheWarmupService warmupService(ShardingConfig shardingConfig) {
+		return new CacheWarmupService(
+			shortedURLRepository,
+			shortedURLService,
+			hashIdsService,
+			new ShardRouter(shardingConfig),
+			stringRedisTemplate,
+			new RedisCircuitBreaker(Mockito.mock(RedisTemplate.class), new CircuitBreakerConfig()),
+			cacheConfig
+		);
+	}
+
+	private static ShardingConfig shardingConfig() {
+		ShardingConfig.Shard shard = new ShardingConfig.Shard();
+		shard.setId(1);
+		shard.setUrl("jdbc:h2:mem:shard1");
+
+		ShardingConfig shardingConfig = new ShardingConfig();
+		shardingConfig.setEnabled(true);
+		shardingConfig.setShards(List.of(shard));
+		return shardingConfig;
+	}
+
+	private Set<String> codes(Long... ids) {
+		Set<String> codes = new LinkedHashSet<>();
+
+		for (Long id : ids) {
+			codes.add(hashIdsService.encode(id));
+		}
+
+		return codes;
+	}
+
+	private static ShortedURL shortedUrl(Long id) {
+		return ShortedURL.builder().id(id).originalUrl("https://www.example.com/" + id).build();
+	}
+
+}
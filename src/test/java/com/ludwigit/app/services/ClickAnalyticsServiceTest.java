@@ -0,0 +1,178 @@
+package com.ludwigit.app.services;
+
+import com.ludwigit.app.config.AnalyticsConfig;
+import com.ludwigit.app.config.CircuitBreakerConfig;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class ClickAnalyticsServiceTest {
+
+	private StringRedisTemplate stringRedisTemplate;
+	private AnalyticsConfig analyticsConfig;
+	private CircuitBreakerConfig circuitBreakerConfig;
+	private RedisCircuitBreaker redisCircuitBreaker;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		stringRedisTemplate = Mockito.mock(StringRedisTemplate.class);
+		analyticsConfig = new AnalyticsConfig();
+		circuitBreakerConfig = new CircuitBreakerConfig();
+		redisCircuitBreaker = new RedisCircuitBreaker(Mockito.mock(RedisTemplate.class), circuitBreakerConfig);
+	}
+
+	@Test
+	@DisplayName("Deve descartar e contabilizar cliques quando o buffer está cheio")
+	public void recordTest1() {
+		analyticsConfig.setBufferSize(2);
+		ClickAnalyticsService clickAnalyticsService = new ClickAnalyticsService(stringRedisTemplate, redisCircuitBreaker, analyticsConfig);
+
+		for (int i = 0; i < 3; i++) {
+			clickAnalyticsService.record("abc123", null);
+		}
+
+		Assertions.assertEquals(2, clickAnalyticsService.recorded());
+		Assertions.assertEquals(1, clickAnalyticsService.dropped());
+		Assertions.assertEquals(2, clickAnalyticsService.pending());
+	}
+
+	@Test
+	@DisplayName("Deve agregar os cliques por link antes de enviá-los ao Redis em um único pipeline")
+	@SuppressWarnings("unchecked")
+	public void flushTest1() {
+		ClickAnalyticsService clickAnalyticsService = new ClickAnalyticsService(stringRedisTemplate, redisCircuitBreaker, analyticsConfig);
+
+		clickAnalyticsService.record("abc123", "https://news.example.org/item");
+		clickAnalyticsService.record("abc123", null);
+		clickAnalyticsService.record("xyz789", "not a url");
+		clickAnalyticsService.flush();
+
+		ArgumentCaptor<SessionCallback<Object>> callback = ArgumentCaptor.forClass(SessionCallback.class);
+		Mockito.verify(stringRedisTemplate).executePipelined(callback.capture());
+
+		RedisOperations<String, String> operations = Mockito.mock(RedisOperations.class);
+		ZSetOperations<String, String> zSetOperations = Mockito.mock(ZSetOperations.class);
+		HashOperations<String, Object, Object> hashOperations = Mockito.mock(HashOperations.class);
+		Mockito.when(operations.opsForZSet()).thenReturn(zSetOperations);
+		Mockito.doReturn(hashOperations).when(operations).opsForHash();
+
+		callback.getValue().execute(operations);
+
+		Mockito.verify(zSetOperations).incrementScore(ClickAnalyticsService.TOTALS_KEY, "abc123", 2);
+		Mockito.verify(zSetOperations).incrementScore(ClickAnalyticsService.TOTALS_KEY, "xyz789", 1);
+		Mockito.verify(hashOperations, Mockito.atLeast(2))
+			.increment(ArgumentMatchers.startsWith("analytics:minutes:"), ArgumentMatchers.any(), ArgumentMatchers.anyLong());
+
+		ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+		ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+		Mockito.verify(stringRedisTemplate).execute(ArgumentMatchers.<RedisScript<Long>>any(), keys.capture(), args.capture());
+		List<Object> referrers = Arrays.asList(args.getValue());
+
+		Assertions.assertEquals(List.of("100", String.valueOf(analyticsConfig.getRetention().toMillis())), referrers.subList(0, 2));
+		Assertions.assertTrue(keys.getValue().containsAll(List.of("analytics:referrers:abc123", "analytics:referrers:xyz789")));
+		Assertions.assertTrue(referrers.containsAll(List.of("news.example.org", "direct")));
+
+		Assertions.assertEquals(3, clickAnalyticsService.flushed());
+		Assertions.assertEquals(0, clickAnalyticsService.pending());
+	}
+
+	@Test
+	@DisplayName("Deve normalizar os referrers para o host e truncar hosts longos")
+	@SuppressWarnings("unchecked")
+	public void flushTest4() {
+		analyticsConfig.setMaxReferrerLength(16);
+		ClickAnalyticsService clickAnalyticsService = new ClickAnalyticsService(stringRedisTemplate, redisCircuitBreaker, analyticsConfig);
+
+		clickAnalyticsService.record("abc123", "https://WWW.Example.org/item?utm_source=newsletter");
+		clickAnalyticsService.record("abc123", "https://www.example.org/other");
+		clickAnalyticsService.record("abc123", "https://" + "a".repeat(200) + ".example.org/");
+		clickAnalyticsService.flush();
+
+		ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+		Mockito.verify(stringRedisTemplate).execute(ArgumentMatchers.<RedisScript<Long>>any(), ArgumentMatchers.anyList(), args.capture());
+		List<Object> referrers = Arrays.asList(args.getValue());
+
+		Assertions.assertEquals("2", referrers.get(2));
+		Assertions.assertEquals("2", referrers.get(referrers.indexOf("example.org") + 1));
+		Assertions.assertEquals("1", referrers.get(referrers.indexOf("a".repeat(16)) + 1));
+	}
+
+	@Test
+	@DisplayName("Deve continuar enviando lotes enquanto eles saem cheios")
+	public void flushTest5() {
+		analyticsConfig.setFlushBatchSize(2);
+		ClickAnalyticsService clickAnalyticsService = new ClickAnalyticsService(stringRedisTemplate, redisCircuitBreaker, analyticsConfig);
+
+		for (int i = 0; i < 5; i++) {
+			clickAnalyticsService.record("abc123", null);
+		}
+
+		clickAnalyticsService.flush();
+
+		Mockito.verify(stringRedisTemplate, Mockito.times(3)).executePipelined(ArgumentMatchers.<SessionCallback<Object>>any());
+		Assertions.assertEquals(5, clickAnalyticsService.flushed());
+		Assertions.assertEquals(0, clickAnalyticsService.pending());
+	}
+
+	@Test
+	@DisplayName("Deve contabilizar os cliques perdidos quando o Redis falha")
+	public void flushTest2() {
+		ClickAnalyticsService clickAnalyticsService = new ClickAnalyticsService(stringRedisTemplate, redisCircuitBreaker, analyticsConfig);
+		Mockito.when(stringRedisTemplate.executePipelined(ArgumentMatchers.<SessionCallback<Object>>any()))
+			.thenThrow(new IllegalStateException("Redis is down"));
+
+		clickAnalyticsService.record("abc123", null);
+		clickAnalyticsService.flush();
+
+		Assertions.assertEquals(1, clickAnalyticsService.flushFailures());
+		Assertions.assertEquals(0, clickAnalyticsService.pending());
+	}
+
+	@Test
+	@DisplayName("Deve manter os cliques no buffer enquanto o circuito do Redis está aberto")
+	@SuppressWarnings("unchecked")
+	public void flushTest3() {
+		circuitBreakerConfig.setFailureThreshold(1);
+		redisCircuitBreaker = new RedisCircuitBreaker(Mockito.mock(RedisTemplate.class), circuitBreakerConfig);
+		redisCircuitBreaker.recordFailure();
+		ClickAnalyticsService clickAnalyticsService = new ClickAnalyticsService(stringRedisTemplate, redisCircuitBreaker, analyticsConfig);
+
+		clickAnalyticsService.record("abc123", null);
+		clickAnalyticsService.flush();
+
+		Assertions.assertEquals(1, clickAnalyticsService.pending());
+		Assertions.assertEquals(0, clickAnalyticsService.flushFailures());
+		Mockito.verifyNoInteractions(stringRedisTemplate);
+	}
+
+	@Test
+	@DisplayName("Deve enviar os cliques pendentes ao parar, antes da conexão com o Redis")
+	public void stopTest1() {
+		ClickAnalyticsService clickAnalyticsService = new ClickAnalyticsService(stringRedisTemplate, redisCircuitBreaker, analyticsConfig);
+		clickAnalyticsService.start();
+
+		clickAnalyticsService.record("abc123", null);
+		clickAnalyticsService.stop();
+
+		Mockito.verify(stringRedisTemplate).executePipelined(ArgumentMatchers.<SessionCallback<Object>>any());
+		Assertions.assertFalse(clickAnalyticsService.isRunning());
+		Assertions.assertTrue(clickAnalyticsService.getPhase() > new LettuceConnectionFactory().getPhase());
+	}
+
+}
@@ -0,0 +1,117 @@
+package com.ludwigit.app.services;
+
+import com.ludwigit.app.config.CircuitBreakerConfig;
+import com.ludwigit.app.config.DeduplicationConfig;
+import com.ludwigit.app.config.ShardingConfig;
+import com.ludwigit.app.model.ShortedURL;
+import com.ludwigit.app.repositories.ShortedURLRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+public class DeduplicationServiceTest {
+
+	private final byte[] googleHash = ShortedURL.hashOriginalUrl("https://www.google.com");
+	private final byte[] exampleHash = ShortedURL.hashOriginalUrl("https://www.example.com");
+
+	private RedisTemplate<String, Object> redisTemplate;
+	private ValueOperations<String, Object> valueOperations;
+	private ShortedURLRepository shortedURLRepository;
+	private RedisCacheWriter redisCacheWriter;
+	private DeduplicationConfig deduplicationConfig;
+	private DeduplicationService deduplicationService;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		redisTemplate = Mockito.mock(RedisTemplate.class);
+		valueOperations = Mockito.mock(ValueOperations.class);
+		shortedURLRepository = Mockito.mock(ShortedURLRepository.class);
+		redisCacheWriter = Mockito.mock(RedisCacheWriter.class);
+		Mockito.when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+
+		deduplicationConfig = new DeduplicationConfig();
+		deduplicationConfig.setMode(DeduplicationConfig.Mode.REUSE);
+
+		deduplicationService = deduplicationService(new ShardingConfig());
+	}
+
+	@Test
+	@DisplayName("Deve encontrar ids no Redis e mantê-los no cache local")
+	public void findIdsTest1() {
+		Mockito.when(valueOperations.multiGet(Mockito.anyList())).thenReturn(Arrays.asList(42, null));
+
+		Assertions.assertEquals(Arrays.asList(42L, null), deduplicationService.findIds(List.of(googleHash, exampleHash)));
+		Assertions.assertEquals(List.of(42L), deduplicationService.findIds(List.of(googleHash)));
+
+		// The second lookup is answered locally
+		Mockito.verify(valueOperations, Mockito.times(1)).multiGet(Mockito.anyList());
+		Mockito.verifyNoInteractions(shortedURLRepository);
+	}
+
+	@Test
+	@DisplayName("Deve consultar o banco de dados apenas quando o fallback está habilitado")
+	public void findIdsTest2() {
+		deduplicationConfig.setDatabaseFallback(true);
+		Mockito.when(valueOperations.multiGet(Mockito.anyList())).thenReturn(Arrays.asList(null, null));
+		Mockito.when(shortedURLRepository.findAllByOriginalUrlHashIn(Mockito.anyCollection())).thenReturn(List.of(
+			ShortedURL.builder().id(7L).originalUrl("https://www.example.com").originalUrlHash(exampleHash).build()
+		));
+
+		Assertions.assertEquals(Arrays.asList(null, 7L), deduplicationService.findIds(List.of(googleHash, exampleHash)));
+		Mockito.verify(redisCacheWriter).write(deduplicationService.key(exampleHash), 7L, Duration.ofDays(7));
+	}
+
+	@Test
+	@DisplayName("Deve procurar no banco de dados de todos os shards as URLs ainda não encontradas")
+	public void findIdsTest3() {
+		ShardingConfig.Shard shard = new ShardingConfig.Shard();
+		shard.setId(1);
+		shard.setUrl("jdbc:h2:mem:shard1");
+		ShardingConfig shardingConfig = new ShardingConfig();
+		shardingConfig.setEnabled(true);
+		shardingConfig.setShards(List.of(shard));
+		deduplicationService = deduplicationService(shardingConfig);
+
+		long shardedId = ShortedURL.firstIdOf(1) + 3;
+		deduplicationConfig.setDatabaseFallback(true);
+		Mockito.when(valueOperations.multiGet(Mockito.anyList())).thenReturn(Arrays.asList(null, null));
+		Mockito.when(shortedURLRepository.findAllByOriginalUrlHashIn(Mockito.anyCollection())).thenAnswer(invocation ->
+			ShardRouter.currentShard() == 1
+				? List.of(ShortedURL.builder().id(shardedId).originalUrl("https://www.google.com").originalUrlHash(googleHash).build())
+				: List.of(ShortedURL.builder().id(7L).originalUrl("https://www.example.com").originalUrlHash(exampleHash).build())
+		);
+
+		Assertions.assertEquals(Arrays.asList(shardedId, 7L), deduplicationService.findIds(List.of(googleHash, exampleHash)));
+		Mockito.verify(shortedURLRepository, Mockito.times(2)).findAllByOriginalUrlHashIn(Mockito.anyCollection());
+	}
+
+	@Test
+	@DisplayName("Deve lembrar ids criados sem consultar o Redis")
+	public void rememberTest1() {
+		deduplicationService.remember(googleHash, 3L);
+
+		Assertions.assertEquals(List.of(3L), deduplicationService.findIds(List.of(googleHash)));
+		Mockito.verifyNoInteractions(valueOperations);
+	}
+
+	private DeduplicationService deduplicationService(ShardingConfig shardingConfig) {
+		return new DeduplicationService(
+			redisTemplate,
+			new RedisCircuitBreaker(redisTemplate, new CircuitBreakerConfig()),
+			redisCacheWriter,
+			shortedURLRepository,
+			new ShardRouter(shardingConfig),
+			deduplicationConfig
+		);
+	}
+
+}
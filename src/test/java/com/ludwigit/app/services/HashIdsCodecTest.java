@@ -0,0 +1,171 @@
+package com.ludwigit.app.services;
+
+import org.hashids.Hashids;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Checks the codec against the library it replaces, for ids and for arbitrary input, over salts and minimum lengths
+ * that need no padding, guards only and one or more padding rounds.
+ */
+public class HashIdsCodecTest {
+
+	private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ1234567890";
+	private static final String CODE_CHARACTERS = ALPHABET + "-_é ";
+
+	static Stream<Arguments> configurations() {
+		return Stream.of("", "testing-this-out", "my-secret-salt", "a much longer salt than the alphabet itself, with spaces")
+			.flatMap(salt -> Stream.of(0, 1, 3, 4, 8, 20, 60, 120).map(minLength -> Arguments.of(salt, minLength)));
+	}
+
+	@ParameterizedTest
+	@MethodSource("configurations")
+	@DisplayName("Deve gerar os mesmos códigos que a biblioteca e decodificá-los de volta")
+	public void encodeTest1(String salt, int minLength) {
+		Hashids hashids = new Hashids(salt, minLength);
+		HashIdsCodec codec = new HashIdsCodec(salt, minLength);
+		Random random = new Random(salt.hashCode() * 31L + minLength);
+
+		for (long id = 0; id < 5_000; id++) {
+			assertSameCode(hashids, codec, id);
+		}
+
+		for (int i = 0; i < 5_000; i++) {
+			// Spread over every code length, up to the largest id the library accepts
+			long id = random.nextLong(1L << random.nextInt(1, 54));
+			assertSameCode(hashids, codec, id);
+		}
+
+		assertSameCode(hashids, codec, HashIdsCodec.MAX_NUMBER);
+	}
+
+	@ParameterizedTest
+	@MethodSource("configurations")
+	@DisplayName("Deve rejeitar os mesmos códigos que a biblioteca")
+	public void decodeTest1(String salt, int minLength) {
+		Hashids hashids = new Hashids(salt, minLength);
+		HashIdsCodec codec = new HashIdsCodec(salt, minLength);
+		Random random = new Random(salt.hashCode() * 17L + minLength);
+
+		for (int i = 0; i < 5_000; i++) {
+			char[] code = hashids.encode(random.nextLong(1_000_000_000L)).toCharArray();
+
+			// Valid codes with one character changed, most of them close to valid
+			code[random.nextInt(code.length)] = CODE_CHARACTERS.charAt(random.nextInt(CODE_CHARACTERS.length()));
+			assertSameDecode(hashids, codec, new String(code));
+
+			assertSameDecode(hashids, codec, randomCode(random, 1 + random.nextInt(Math.max(minLength, 12) + 4)));
+		}
+	}
+
+	@ParameterizedTest
+	@MethodSource("configurations")
+	@DisplayName("Deve rejeitar códigos com mais de um número, que a biblioteca decodificaria")
+	public void decodeTest2(String salt, int minLength) {
+		Hashids hashids = new Hashids(salt, minLength);
+		HashIdsCodec codec = new HashIdsCodec(salt, minLength);
+
+		Assertions.assertEquals(-1, codec.decode(hashids.encode(1, 2)));
+		Assertions.assertEquals(-1, codec.decode(hashids.encode(123_456, 0, 42)));
+	}
+
+	@ParameterizedTest
+	@MethodSource("configurations")
+	@DisplayName("Deve gerar os mesmos códigos de dois números que a biblioteca e decodificá-los de volta")
+	public void encodePairTest1(String salt, int minLength) {
+		Hashids hashids = new Hashids(salt, minLength);
+		HashIdsCodec codec = new HashIdsCodec(salt, minLength);
+		Random random = new Random(salt.hashCode() * 13L + minLength);
+
+		for (long first = 0; first < 20; first++) {
+			for (long second = 0; second < 200; second++) {
+				assertSamePair(hashids, codec, first, second);
+			}
+		}
+
+		for (int i = 0; i < 2_000; i++) {
+			assertSamePair(
+				hashids,
+				codec,
+				random.nextLong(1L << random.nextInt(1, 54)),
+				random.nextLong(1L << random.nextInt(1, 54))
+			);
+		}
+	}
+
+	@ParameterizedTest
+	@MethodSource("configurations")
+	@DisplayName("Deve rejeitar os mesmos códigos de dois números que a biblioteca")
+	public void decodePairTest1(String salt, int minLength) {
+		Hashids hashids = new Hashids(salt, minLength);
+		HashIdsCodec codec = new HashIdsCodec(salt, minLength);
+		Random random = new Random(salt.hashCode() * 7L + minLength);
+
+		for (int i = 0; i < 2_000; i++) {
+			char[] code = hashids.encode(random.nextInt(1_000), random.nextLong(1_000_000_000L)).toCharArray();
+			code[random.nextInt(code.length)] = CODE_CHARACTERS.charAt(random.nextInt(CODE_CHARACTERS.length()));
+			assertSamePairDecode(hashids, codec, new String(code));
+		}
+
+		Assertions.assertNull(codec.decodePair(hashids.encode(42)));
+		Assertions.assertNull(codec.decodePair(hashids.encode(1, 2, 3)));
+	}
+
+	private static void assertSamePair(Hashids hashids, HashIdsCodec codec, long first, long second) {
+		String code = hashids.encode(first, second);
+
+		Assertions.assertEquals(code, codec.encode(first, second), () -> "numbers " + first + ", " + second);
+		Assertions.assertArrayEquals(new long[]{first, second}, codec.decodePair(code), () -> "code " + code);
+	}
+
+	private static void assertSamePairDecode(Hashids hashids, HashIdsCodec codec, String code) {
+		long[] expected;
+
+		try {
+			long[] numbers = hashids.decode(code);
+			expected = numbers.length == 2 ? numbers : null;
+		} catch (IllegalArgumentException exception) {
+			expected = null;
+		}
+
+		Assertions.assertArrayEquals(expected, codec.decodePair(code), () -> "code " + code);
+	}
+
+	private static void assertSameCode(Hashids hashids, HashIdsCodec codec, long id) {
+		String code = hashids.encode(id);
+
+		Assertions.assertEquals(code, codec.encode(id), () -> "id " + id);
+		Assertions.assertEquals(id, codec.decode(code), () -> "code " + code);
+	}
+
+	private static void assertSameDecode(Hashids hashids, HashIdsCodec codec, String code) {
+		long expected;
+
+		try {
+			long[] ids = hashids.decode(code);
+			expected = ids.length == 1 ? ids[0] : -1;
+		} catch (IllegalArgumentException exception) {
+			// The library throws when the digits overflow its largest id, the codec rejects the code
+			expected = -1;
+		}
+
+		Assertions.assertEquals(expected, codec.decode(code), () -> "code " + code);
+	}
+
+	private static String randomCode(Random random, int length) {
+		char[] code = new char[length];
+
+		for (int i = 0; i < length; i++) {
+			code[i] = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+		}
+
+		return new String(code);
+	}
+
+}
@@ -0,0 +1,241 @@
+package com.ludwigit.app.services;
+
+import com.ludwigit.app.config.CircuitBreakerConfig;
+import com.ludwigit.app.config.RateLimitConfig;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HybridRateLimiterTest {
+
+	private RedisTemplate<String, Object> redisTemplate;
+	private HybridRateLimiter hybridRateLimiter;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		redisTemplate = Mockito.mock(RedisTemplate.class);
+		hybridRateLimiter = new HybridRateLimiter(redisTemplate, new RedisCircuitBreaker(redisTemplate, new CircuitBreakerConfig()), new RateLimitConfig());
+	}
+
+	@Test
+	@DisplayName("Deve decidir localmente até atingir o limite sem chamar o Redis")
+	public void consumeTest1() {
+		for (int i = 0; i < 3; i++) {
+			Assertions.assertTrue(hybridRateLimiter.consume("rate_limit:127.0.0.1", 3, 60000).allowed());
+		}
+
+		RateLimitService.Decision decision = hybridRateLimiter.consume("rate_limit:127.0.0.1", 3, 60000);
+
+		Assertions.assertFalse(decision.allowed());
+		Assertions.assertTrue(decision.retryAfterMillis() > 0);
+		Mockito.verifyNoInteractions(redisTemplate);
+	}
+
+	@Test
+	@DisplayName("Não deve admitir mais requisições que o limite quando consumidas ao mesmo tempo")
+	public void consumeTest2() throws Exception {
+		AtomicInteger allowed = new AtomicInteger();
+		List<Thread> threads = new ArrayList<>();
+
+		for (int t = 0; t < 16; t++) {
+			threads.add(Thread.ofVirtual().start(() -> {
+				for (int i = 0; i < 200; i++) {
+					if (hybridRateLimiter.consume("rate_limit:127.0.0.1", 1_000, 60000).allowed()) {
+						allowed.incrementAndGet();
+					}
+				}
+			}));
+		}
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		Assertions.assertEquals(1_000, allowed.get());
+	}
+
+	@Test
+	@DisplayName("Deve enviar a cota consumida em lote e adotar a contagem global retornada pelo Redis")
+	public void syncTest1() {
+		hybridRateLimiter.consume("rate_limit:a", 10, 60000);
+		hybridRateLimiter.consume("rate_limit:a", 10, 60000);
+
+		Mockito.when(
+			redisTemplate.execute(
+				ArgumentMatchers.<RedisScript<List<Long>>>any(),
+				ArgumentMatchers.<RedisSerializer<?>>any(),
+				ArgumentMatchers.<RedisSerializer<List<Long>>>any(),
+				ArgumentMatchers.eq(List.of("rate_limit:a")),
+				ArgumentMatchers.eq("2"),
+				ArgumentMatchers.eq("60000")
+			)
+		).thenReturn(List.of(10L, 30000L));
+
+		hybridRateLimiter.sync();
+
+		// Other nodes already used the remaining quota of this window
+		Assertions.assertFalse(hybridRateLimiter.consume("rate_limit:a", 10, 60000).allowed());
+	}
+
+	@Test
+	@DisplayName("Deve descartar contadores ociosos cuja janela já terminou")
+	public void syncTest2() {
+		hybridRateLimiter.consume("rate_limit:a", 10, 1);
+
+		Mockito.when(
+			redisTemplate.execute(
+				ArgumentMatchers.<RedisScript<List<Long>>>any(),
+				ArgumentMatchers.<RedisSerializer<?>>any(),
+				ArgumentMatchers.<RedisSerializer<List<Long>>>any(),
+				ArgumentMatchers.anyList(),
+				ArgumentMatchers.any(),
+				ArgumentMatchers.any()
+			)
+		).thenReturn(List.of(1L, 0L));
+
+		hybridRateLimiter.sync();
+		hybridRateLimiter.sync();
+
+		Assertions.assertEquals(0, hybridRateLimiter.trackedKeys());
+	}
+
+	@Test
+	@DisplayName("Deve contar em um novo contador depois que o anterior foi descartado")
+	public void syncTest3() throws Exception {
+		mockSync(List.of(1L, 0L));
+		hybridRateLimiter.consume("rate_limit:a", 1, 1);
+		Thread.sleep(5);
+
+		hybridRateLimiter.sync();
+		hybridRateLimiter.sync();
+
+		Assertions.assertTrue(hybridRateLimiter.consume("rate_limit:a", 1, 60000).allowed());
+		Assertions.assertEquals(1, hybridRateLimiter.trackedKeys());
+	}
+
+	@Test
+	@DisplayName("Deve enviar na próxima sincronização a cota de contadores removidos pelo limite de clientes")
+	@SuppressWarnings("unchecked")
+	public void syncTest4() {
+		RateLimitConfig rateLimitConfig = new RateLimitConfig();
+		rateLimitConfig.setHybridMaximumKeys(1L);
+		hybridRateLimiter = new HybridRateLimiter(redisTemplate, new RedisCircuitBreaker(redisTemplate, new CircuitBreakerConfig()), rateLimitConfig);
+
+		hybridRateLimiter.consume("rate_limit:a", 10, 60000);
+		hybridRateLimiter.consume("rate_limit:b", 10, 60000);
+
+		Assertions.assertEquals(1, hybridRateLimiter.evictions());
+
+		mockSync(List.of(1L, 60000L, 1L, 60000L));
+		hybridRateLimiter.sync();
+
+		Mockito.verify(redisTemplate).execute(
+			ArgumentMatchers.<RedisScript<List<Long>>>any(),
+			ArgumentMatchers.<RedisSerializer<?>>any(),
+			ArgumentMatchers.<RedisSerializer<List<Long>>>any(),
+			ArgumentMatchers.argThat((List<String> keys) -> keys.size() == 2 && keys.containsAll(List.of("rate_limit:a", "rate_limit:b"))),
+			ArgumentMatchers.eq("1"),
+			ArgumentMatchers.eq("60000"),
+			ArgumentMatchers.eq("1"),
+			ArgumentMatchers.eq("60000")
+		);
+	}
+
+	@Test
+	@DisplayName("Deve continuar contando a cota enviada enquanto a sincronização está em andamento")
+	public void syncTest5() throws Exception {
+		CountDownLatch syncing = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Mockito.when(
+			redisTemplate.execute(
+				ArgumentMatchers.<RedisScript<List<Long>>>any(),
+				ArgumentMatchers.<RedisSerializer<?>>any(),
+				ArgumentMatchers.<RedisSerializer<List<Long>>>any(),
+				ArgumentMatchers.anyList(),
+				ArgumentMatchers.any(Object[].class)
+			)
+		).thenAnswer(invocation -> {
+			syncing.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			return List.of(100L, 60000L);
+		});
+
+		int allowed = 0;
+
+		for (int i = 0; i < 100; i++) {
+			allowed += hybridRateLimiter.consume("rate_limit:a", 100, 60000).allowed() ? 1 : 0;
+		}
+
+		Thread sync = Thread.ofVirtual().start(hybridRateLimiter::sync);
+		Assertions.assertTrue(syncing.await(5, TimeUnit.SECONDS));
+
+		for (int i = 0; i < 100; i++) {
+			allowed += hybridRateLimiter.consume("rate_limit:a", 100, 60000).allowed() ? 1 : 0;
+		}
+
+		release.countDown();
+		sync.join();
+
+		allowed += hybridRateLimiter.consume("rate_limit:a", 100, 60000).allowed() ? 1 : 0;
+
+		Assertions.assertEquals(100, allowed);
+	}
+
+	@Test
+	@DisplayName("Deve devolver a cota ao contador pendente quando a sincronização falha")
+	public void syncTest6() {
+		Mockito.when(
+			redisTemplate.execute(
+				ArgumentMatchers.<RedisScript<List<Long>>>any(),
+				ArgumentMatchers.<RedisSerializer<?>>any(),
+				ArgumentMatchers.<RedisSerializer<List<Long>>>any(),
+				ArgumentMatchers.anyList(),
+				ArgumentMatchers.any(Object[].class)
+			)
+		).thenThrow(new IllegalStateException("Redis is down")).thenReturn(List.of(3L, 60000L));
+
+		for (int i = 0; i < 3; i++) {
+			hybridRateLimiter.consume("rate_limit:a", 3, 60000);
+		}
+
+		Assertions.assertThrows(IllegalStateException.class, hybridRateLimiter::sync);
+		Assertions.assertFalse(hybridRateLimiter.consume("rate_limit:a", 3, 60000).allowed());
+
+		hybridRateLimiter.sync();
+
+		Mockito.verify(redisTemplate, Mockito.times(2)).execute(
+			ArgumentMatchers.<RedisScript<List<Long>>>any(),
+			ArgumentMatchers.<RedisSerializer<?>>any(),
+			ArgumentMatchers.<RedisSerializer<List<Long>>>any(),
+			ArgumentMatchers.eq(List.of("rate_limit:a")),
+			ArgumentMatchers.eq("3"),
+			ArgumentMatchers.eq("60000")
+		);
+	}
+
+	private void mockSync(List<Long> reply) {
+		Mockito.when(
+			redisTemplate.execute(
+				ArgumentMatchers.<RedisScript<List<Long>>>any(),
+				ArgumentMatchers.<RedisSerializer<?>>any(),
+				ArgumentMatchers.<RedisSerializer<List<Long>>>any(),
+				ArgumentMatchers.anyList(),
+				ArgumentMatchers.any(Object[].class)
+			)
+		).thenReturn(reply);
+	}
+
+}
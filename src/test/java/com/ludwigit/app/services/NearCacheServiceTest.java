@@ -0,0 +1,50 @@
+package com.ludwigit.app.services;
+
+import com.ludwigit.app.config.NearCacheConfig;
+import com.ludwigit.app.model.Redirect;
+import com.ludwigit.app.model.RedirectType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class NearCacheServiceTest {
+
+	private static final Redirect GOOGLE = Redirect.of("https://www.google.com", RedirectType.MOVED_PERMANENTLY);
+
+	private NearCacheConfig nearCacheConfig;
+	private NearCacheService nearCacheService;
+
+	@BeforeEach
+	public void setUp() {
+		nearCacheConfig = new NearCacheConfig();
+		nearCacheConfig.setMaximumSize(100L);
+
+		nearCacheService = new NearCacheService(nearCacheConfig);
+	}
+
+	@Test
+	@DisplayName("Deve contabilizar acertos e falhas do cache local")
+	public void getTest1() {
+		Assertions.assertTrue(nearCacheService.get(1L).isEmpty());
+
+		nearCacheService.put(1L, GOOGLE);
+
+		Assertions.assertEquals(GOOGLE, nearCacheService.get(1L).orElseThrow());
+		Assertions.assertEquals(1, nearCacheService.stats().hitCount());
+		Assertions.assertEquals(1, nearCacheService.stats().missCount());
+	}
+
+	@Test
+	@DisplayName("Não deve guardar entradas quando o cache local está desabilitado")
+	public void putTest1() {
+		nearCacheConfig.setEnabled(false);
+		NearCacheService disabled = new NearCacheService(nearCacheConfig);
+
+		disabled.put(1L, GOOGLE);
+
+		Assertions.assertTrue(disabled.get(1L).isEmpty());
+		Assertions.assertEquals(0, disabled.size());
+	}
+
+}
@@ -0,0 +1,61 @@
+package com.ludwigit.app.services;
+
+import com.ludwigit.app.config.NegativeCacheConfig;
+import com.ludwigit.app.repositories.ShortedURLRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.Optional;
+
+public class NegativeCacheServiceTest {
+
+	private ShortedURLRepository shortedURLRepository;
+	private NegativeCacheService negativeCacheService;
+
+	@BeforeEach
+	public void setUp() {
+		shortedURLRepository = Mockito.mock(ShortedURLRepository.class);
+
+		NegativeCacheConfig negativeCacheConfig = new NegativeCacheConfig();
+		negativeCacheConfig.setWatermarkMargin(100L);
+
+		negativeCacheService = new NegativeCacheService(shortedURLRepository, negativeCacheConfig);
+	}
+
+	@Test
+	@DisplayName("Não deve rejeitar nenhum id antes de conhecer a marca d'água")
+	public void isMissingTest1() {
+		Assertions.assertFalse(negativeCacheService.isMissing(1_000_000L));
+	}
+
+	@Test
+	@DisplayName("Deve rejeitar ids além da margem acima do maior id armazenado")
+	public void isMissingTest2() {
+		Mockito.when(shortedURLRepository.findMaxId()).thenReturn(Optional.of(1_000L));
+		negativeCacheService.refreshWatermark();
+
+		Assertions.assertFalse(negativeCacheService.isMissing(1_000L));
+		Assertions.assertFalse(negativeCacheService.isMissing(1_100L));
+		Assertions.assertTrue(negativeCacheService.isMissing(1_101L));
+		Assertions.assertEquals(1, negativeCacheService.rejected());
+	}
+
+	@Test
+	@DisplayName("Deve esquecer um id marcado como ausente quando ele é criado")
+	public void observeTest1() {
+		Mockito.when(shortedURLRepository.findMaxId()).thenReturn(Optional.of(1_000L));
+		negativeCacheService.refreshWatermark();
+		negativeCacheService.markMissing(1_050L);
+
+		Assertions.assertTrue(negativeCacheService.isMissing(1_050L));
+
+		negativeCacheService.observe(1_050L);
+
+		Assertions.assertFalse(negativeCacheService.isMissing(1_050L));
+		Assertions.assertEquals(1_050L, negativeCacheService.watermark());
+	}
+
+}
@@ -0,0 +1,216 @@
+package com.ludwigit.app.services;
+
+import com.ludwigit.app.config.CircuitBreakerConfig;
+import com.ludwigit.app.config.RateLimitConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.List;
+
+public class RateLimitServiceTest {
+
+	private RedisTemplate<String, Object> redisTemplate;
+	private HybridRateLimiter hybridRateLimiter;
+	private RedisCircuitBreaker redisCircuitBreaker;
+	private RateLimitConfig rateLimitConfig;
+	private RateLimitService rateLimitService;
+	private SimpleMeterRegistry meterRegistry;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		redisTemplate = Mockito.mock(RedisTemplate.class);
+
+		hybridRateLimiter = Mockito.mock(HybridRateLimiter.class);
+		redisCircuitBreaker = new RedisCircuitBreaker(redisTemplate, new CircuitBreakerConfig());
+		meterRegistry = new SimpleMeterRegistry();
+
+		rateLimitConfig = new RateLimitConfig();
+		rateLimitConfig.setMaxRequests(10);
+		rateLimitConfig.setWindowSeconds(60L);
+
+		rateLimitService = newRateLimitService();
+	}
+
+	@Test
+	@DisplayName("Deve executar o script em uma única chamada e converter a resposta em uma decisão")
+	public void consumeTest1() {
+		mockScriptReply(List.of(0L, 0L, 1500L));
+
+		RateLimitService.Decision decision = consume("GET", "/abc123", "127.0.0.1");
+
+		Assertions.assertFalse(decision.allowed());
+		Assertions.assertEquals(10, decision.limit());
+		Assertions.assertEquals(0, decision.remaining());
+		Assertions.assertEquals(1500, decision.retryAfterMillis());
+		Assertions.assertEquals(1, meterRegistry.get("ludwigit.rate_limit.requests")
+			.tags("policy", "default", "outcome", "rejected")
+			.counter()
+			.count());
+		Mockito.verify(redisTemplate).execute(
+			ArgumentMatchers.<RedisScript<List<Long>>>any(),
+			ArgumentMatchers.<RedisSerializer<?>>any(),
+			ArgumentMatchers.<RedisSerializer<List<Long>>>any(),
+			ArgumentMatchers.eq(List.of("rate_limit:127.0.0.1")),
+			ArgumentMatchers.eq("10"),
+			ArgumentMatchers.eq("60000")
+		);
+	}
+
+	@Test
+	@DisplayName("Deve aplicar o algoritmo e o limite da política da rota em uma chave própria")
+	public void consumeTest2() {
+		mockScriptReply(List.of(1L, 4L, 0L));
+
+		RateLimitConfig.Policy policy = new RateLimitConfig.Policy();
+		policy.setName("create");
+		policy.setPath("/create");
+		policy.setAlgorithm(RateLimitConfig.Algorithm.TOKEN_BUCKET);
+		policy.setMaxRequests(5);
+		policy.setWindowSeconds(1L);
+		rateLimitConfig.getPolicies().add(policy);
+		rateLimitService = newRateLimitService();
+
+		consume("POST", "/create", "127.0.0.1");
+
+		Mockito.verify(redisTemplate).execute(
+			ArgumentMatchers.<RedisScript<List<Long>>>any(),
+			ArgumentMatchers.<RedisSerializer<?>>any(),
+			ArgumentMatchers.<RedisSerializer<List<Long>>>any(),
+			ArgumentMatchers.eq(List.of("rate_limit:bucket:create:127.0.0.1")),
+			ArgumentMatchers.eq("5"),
+			ArgumentMatchers.eq("1000")
+		);
+	}
+
+	@Test
+	@DisplayName("Deve permitir a requisição quando o Redis não retornar resposta")
+	public void consumeTest3() {
+		mockScriptReply(null);
+
+		Assertions.assertTrue(consume("GET", "/abc123", "127.0.0.1").allowed());
+	}
+
+	@Test
+	@DisplayName("Deve decidir em memória sem chamar o Redis no modo híbrido")
+	public void consumeTest4() {
+		rateLimitConfig.setMode(RateLimitConfig.Mode.HYBRID);
+		Mockito.when(hybridRateLimiter.consume("rate_limit:127.0.0.1", 10, 60000))
+			.thenReturn(new RateLimitService.Decision(true, 10, 9, 0));
+
+		Assertions.assertTrue(consume("GET", "/abc123", "127.0.0.1").allowed());
+		Mockito.verifyNoInteractions(redisTemplate);
+	}
+
+	@Test
+	@DisplayName("Deve escolher a primeira política cujo caminho e método correspondem à requisição")
+	public void resolveTest1() {
+		RateLimitConfig.Policy create = new RateLimitConfig.Policy();
+		create.setName("create");
+		create.setPath("/create");
+		create.setMethods(List.of("post"));
+		create.setMaxRequests(5);
+
+		RateLimitConfig.Policy redirect = new RateLimitConfig.Policy();
+		redirect.setName("redirect");
+		redirect.setPath("/{shortenUrl}");
+		redirect.setMethods(List.of("GET", "HEAD"));
+		redirect.setExempt(true);
+
+		rateLimitConfig.getPolicies().addAll(List.of(create, redirect));
+		rateLimitService = newRateLimitService();
+
+		Assertions.assertEquals("create", rateLimitService.resolve("POST", "/create").name());
+		Assertions.assertEquals(5, rateLimitService.resolve("POST", "/create").limit());
+		Assertions.assertEquals("redirect", rateLimitService.resolve("GET", "/abc123").name());
+		Assertions.assertEquals("default", rateLimitService.resolve("POST", "/abc123").name());
+		Assertions.assertEquals("default", rateLimitService.resolve("GET", "/abc123/stats/more").name());
+	}
+
+	@Test
+	@DisplayName("Não deve consultar o Redis para rotas isentas")
+	public void consumeTest5() {
+		RateLimitConfig.Policy redirect = new RateLimitConfig.Policy();
+		redirect.setPath("/{shortenUrl}");
+		redirect.setExempt(true);
+
+		rateLimitConfig.getPolicies().add(redirect);
+		rateLimitService = newRateLimitService();
+
+		Assertions.assertTrue(consume("GET", "/abc123", "127.0.0.1").allowed());
+		Mockito.verifyNoInteractions(redisTemplate);
+	}
+
+	@Test
+	@DisplayName("Deve limitar localmente quando o Redis está indisponível e parar de consultá-lo quando o circuito abre")
+	public void consumeFallbackTest1() {
+		Mockito.when(
+			redisTemplate.execute(
+				ArgumentMatchers.<RedisScript<List<Long>>>any(),
+				ArgumentMatchers.<RedisSerializer<?>>any(),
+				ArgumentMatchers.<RedisSerializer<List<Long>>>any(),
+				ArgumentMatchers.anyList(),
+				ArgumentMatchers.any(),
+				ArgumentMatchers.any()
+			)
+		).thenThrow(new RedisConnectionFailureException("Connection refused"));
+
+		for (int i = 0; i < 10; i++) {
+			Assertions.assertTrue(consume("GET", "/abc123", "127.0.0.1").allowed());
+		}
+
+		RateLimitService.Decision decision = consume("GET", "/abc123", "127.0.0.1");
+
+		Assertions.assertFalse(decision.allowed());
+		Assertions.assertTrue(decision.retryAfterMillis() > 0);
+		Assertions.assertTrue(consume("GET", "/abc123", "10.0.0.1").allowed());
+		Assertions.assertTrue(redisCircuitBreaker.isOpen());
+		// Only the calls made before the breaker opened waited on Redis
+		Mockito.verify(redisTemplate, Mockito.times(new CircuitBreakerConfig().getFailureThreshold())).execute(
+			ArgumentMatchers.<RedisScript<List<Long>>>any(),
+			ArgumentMatchers.<RedisSerializer<?>>any(),
+			ArgumentMatchers.<RedisSerializer<List<Long>>>any(),
+			ArgumentMatchers.anyList(),
+			ArgumentMatchers.any(),
+			ArgumentMatchers.any()
+		);
+	}
+
+	private RateLimitService newRateLimitService() {
+		return new RateLimitService(
+			redisTemplate,
+			hybridRateLimiter,
+			new LocalRateLimiter(rateLimitConfig),
+			redisCircuitBreaker,
+			rateLimitConfig,
+			meterRegistry
+		);
+	}
+
+	private RateLimitService.Decision consume(String method, String path, String identity) {
+		return rateLimitService.consume(rateLimitService.resolve(method, path), identity);
+	}
+
+	private void mockScriptReply(List<Long> reply) {
+		Mockito.when(
+			redisTemplate.execute(
+				ArgumentMatchers.<RedisScript<List<Long>>>any(),
+				ArgumentMatchers.<RedisSerializer<?>>any(),
+				ArgumentMatchers.<RedisSerializer<List<Long>>>any(),
+				ArgumentMatchers.anyList(),
+				ArgumentMatchers.any(),
+				ArgumentMatchers.any()
+			)
+		).thenReturn(reply);
+	}
+
+}
@@ -0,0 +1,121 @@
+package com.ludwigit.app.services;
+
+import com.ludwigit.app.config.CircuitBreakerConfig;
+import com.ludwigit.app.config.HashIdConfig;
+import com.ludwigit.app.exceptions.ShortedURLNotFoundException;
+import com.ludwigit.app.model.Redirect;
+import com.ludwigit.app.model.RedirectType;
+import com.ludwigit.app.model.ShortedURL;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Optional;
+
+public class ReactiveShortedURLServiceTest {
+
+	private final HashIdsService hashIdsService = new HashIdsService(hashIdConfig());
+	private NearCacheService nearCacheService;
+	private ShortedURLService shortedURLService;
+	private ReactiveValueOperations<String, Object> valueOperations;
+	private ReactiveShortedURLService reactiveShortedURLService;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		nearCacheService = Mockito.mock(NearCacheService.class);
+		shortedURLService = Mockito.mock(ShortedURLService.class);
+		ReactiveRedisTemplate<String, Object> reactiveRedisTemplate = Mockito.mock(ReactiveRedisTemplate.class);
+		valueOperations = Mockito.mock(ReactiveValueOperations.class);
+		Mockito.when(reactiveRedisTemplate.opsForValue()).thenReturn(valueOperations);
+		Mockito.when(valueOperations.get(Mockito.anyString())).thenReturn(Mono.empty());
+		Mockito.when(nearCacheService.get(Mockito.anyLong())).thenReturn(Optional.empty());
+		Mockito.when(shortedURLService.toRedirect(Mockito.any())).thenAnswer(invocation -> Redirect.of(
+			invocation.<ShortedURL>getArgument(0).getOriginalUrl(),
+			RedirectType.MOVED_PERMANENTLY
+		));
+
+		reactiveShortedURLService = new ReactiveShortedURLService(
+			hashIdsService,
+			nearCacheService,
+			Mockito.mock(NegativeCacheService.class),
+			shortedURLService,
+			reactiveRedisTemplate,
+			new RedisCircuitBreaker(Mockito.mock(RedisTemplate.class), new CircuitBreakerConfig()),
+			Schedulers.immediate()
+		);
+	}
+
+	@SneakyThrows
+	@Test
+	@DisplayName("Deve recuperar a URL original do Redis sem usar o serviço bloqueante")
+	public void retrieveUrlTest1() {
+		String shortedUrl = hashIdsService.encode(1L);
+		Mockito.when(valueOperations.get("shortedUrls:" + shortedUrl)).thenReturn(Mono.just(
+			ShortedURL.builder().id(1L).originalUrl("https://www.google.com").build()
+		));
+
+		Redirect redirect = reactiveShortedURLService.retrieveUrl(shortedUrl).block();
+
+		Assertions.assertEquals("https://www.google.com", redirect.originalUrl());
+		Mockito.verify(nearCacheService).put(1L, redirect);
+		Mockito.verify(shortedURLService, Mockito.never()).retrieveUrl(Mockito.anyString());
+	}
+
+	@SneakyThrows
+	@Test
+	@DisplayName("Deve carregar do banco de dados, sem ler os caches outra vez, quando o Redis não tem a URL")
+	public void retrieveUrlTest2() {
+		String shortedUrl = hashIdsService.encode(1L);
+		Redirect redirect = Redirect.of("https://www.google.com", RedirectType.FOUND);
+		Mockito.when(shortedURLService.loadUncachedUrl(1L, shortedUrl)).thenReturn(redirect);
+
+		Assertions.assertEquals(redirect, reactiveShortedURLService.retrieveUrl(shortedUrl).block());
+		Mockito.verify(shortedURLService, Mockito.never()).retrieveUrl(Mockito.anyString());
+	}
+
+	@SneakyThrows
+	@Test
+	@DisplayName("Deve recorrer ao serviço bloqueante quando o Redis não responde")
+	public void retrieveUrlFallbackTest1() {
+		String shortedUrl = hashIdsService.encode(1L);
+		Redirect redirect = Redirect.of("https://www.google.com", RedirectType.MOVED_PERMANENTLY);
+		Mockito.when(valueOperations.get("shortedUrls:" + shortedUrl))
+			.thenReturn(Mono.error(new QueryTimeoutException("Command timed out")));
+		Mockito.when(shortedURLService.loadUncachedUrl(1L, shortedUrl)).thenReturn(redirect);
+
+		Assertions.assertEquals(redirect, reactiveShortedURLService.retrieveUrl(shortedUrl).block());
+	}
+
+	@Test
+	@DisplayName("Deve retornar ShortedURLNotFoundException para uma URL encurtada com um ID inválido")
+	public void retrieveUrlTest3() {
+		Mono<Redirect> result = reactiveShortedURLService.retrieveUrl("invalidShortedUrl");
+
+		Assertions.assertThrows(ShortedURLNotFoundException.class, () -> {
+			try {
+				result.block();
+			} catch (RuntimeException exception) {
+				throw Exceptions.unwrap(exception);
+			}
+		});
+	}
+
+	private static HashIdConfig hashIdConfig() {
+		HashIdConfig hashIdConfig = new HashIdConfig();
+		hashIdConfig.setSalt("my-secret-salt");
+		hashIdConfig.setMinLength(4);
+		return hashIdConfig;
+	}
+
+}
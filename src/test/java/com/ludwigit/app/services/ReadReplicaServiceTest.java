@@ -0,0 +1,60 @@
+package com.ludwigit.app.services;
+
+import com.ludwigit.app.config.ReadReplicaConfig;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ReadReplicaServiceTest {
+
+	private ReadReplicaConfig readReplicaConfig;
+	private PlatformTransactionManager transactionManager;
+
+	@BeforeEach
+	public void setUp() {
+		readReplicaConfig = new ReadReplicaConfig();
+		readReplicaConfig.setEnabled(true);
+		transactionManager = Mockito.mock(PlatformTransactionManager.class);
+	}
+
+	@Test
+	@DisplayName("Deve repetir na primária, em uma transação de escrita, uma busca que não encontrou nada na réplica")
+	public void findWithPrimaryFallbackTest1() {
+		ReadReplicaService readReplicaService = new ReadReplicaService(readReplicaConfig, transactionManager);
+		AtomicInteger calls = new AtomicInteger();
+
+		Optional<String> found = readReplicaService.findWithPrimaryFallback(
+			() -> calls.incrementAndGet() == 1 ? Optional.empty() : Optional.of("https://www.google.com")
+		);
+
+		Assertions.assertEquals(Optional.of("https://www.google.com"), found);
+		Assertions.assertEquals(1, readReplicaService.primaryFallbacks());
+		Mockito.verify(transactionManager).getTransaction(
+			ArgumentMatchers.<TransactionDefinition>argThat(definition -> !definition.isReadOnly())
+		);
+	}
+
+	@Test
+	@DisplayName("Não deve consultar a primária quando a réplica encontra o registro ou as réplicas estão desabilitadas")
+	public void findWithPrimaryFallbackTest2() {
+		ReadReplicaService readReplicaService = new ReadReplicaService(readReplicaConfig, transactionManager);
+
+		Assertions.assertEquals(Optional.of(1L), readReplicaService.findWithPrimaryFallback(() -> Optional.of(1L)));
+
+		readReplicaConfig.setEnabled(false);
+		ReadReplicaService disabled = new ReadReplicaService(readReplicaConfig, transactionManager);
+
+		Assertions.assertEquals(Optional.empty(), disabled.findWithPrimaryFallback(Optional::empty));
+		Assertions.assertEquals(0, readReplicaService.primaryFallbacks() + disabled.primaryFallbacks());
+		Mockito.verifyNoInteractions(transactionManager);
+	}
+
+}
@@ -0,0 +1,120 @@
+package com.ludwigit.app.services;
+
+import com.ludwigit.app.config.CacheConfig;
+import com.ludwigit.app.config.CircuitBreakerConfig;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+
+public class RedisCacheWriterTest {
+
+	private final Duration ttl = Duration.ofHours(6);
+
+	private RedisTemplate<String, Object> redisTemplate;
+	private CacheConfig cacheConfig;
+	private CircuitBreakerConfig circuitBreakerConfig;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		redisTemplate = Mockito.mock(RedisTemplate.class);
+		cacheConfig = new CacheConfig();
+		circuitBreakerConfig = new CircuitBreakerConfig();
+	}
+
+	@Test
+	@DisplayName("Deve agrupar escritas da mesma chave e enviar apenas a última em um único pipeline")
+	@SuppressWarnings("unchecked")
+	public void flushTest1() {
+		RedisCacheWriter redisCacheWriter = newRedisCacheWriter();
+
+		Assertions.assertTrue(redisCacheWriter.write("shortedUrls:abc123", "first", ttl));
+		Assertions.assertTrue(redisCacheWriter.write("shortedUrls:xyz789", "other", ttl));
+		Assertions.assertTrue(redisCacheWriter.write("shortedUrls:abc123", "last", ttl));
+		Assertions.assertEquals(2, redisCacheWriter.pending());
+
+		redisCacheWriter.flush();
+
+		ArgumentCaptor<SessionCallback<Object>> callback = ArgumentCaptor.forClass(SessionCallback.class);
+		Mockito.verify(redisTemplate).executePipelined(callback.capture());
+
+		RedisOperations<String, Object> operations = Mockito.mock(RedisOperations.class);
+		ValueOperations<String, Object> valueOperations = Mockito.mock(ValueOperations.class);
+		Mockito.when(operations.opsForValue()).thenReturn(valueOperations);
+
+		callback.getValue().execute(operations);
+
+		Mockito.verify(valueOperations).set("shortedUrls:abc123", "last", ttl);
+		Mockito.verify(valueOperations).set("shortedUrls:xyz789", "other", ttl);
+		Mockito.verifyNoMoreInteractions(valueOperations);
+
+		Assertions.assertEquals(2, redisCacheWriter.written());
+		Assertions.assertEquals(1, redisCacheWriter.coalesced());
+		Assertions.assertEquals(0, redisCacheWriter.pending());
+	}
+
+	@Test
+	@DisplayName("Deve descartar e contabilizar escritas quando o buffer está cheio, sem bloquear quem escreve")
+	public void writeTest1() {
+		cacheConfig.getWriter().setCapacity(2);
+		RedisCacheWriter redisCacheWriter = newRedisCacheWriter();
+
+		Assertions.assertTrue(redisCacheWriter.write("a", 1L, ttl));
+		Assertions.assertTrue(redisCacheWriter.write("b", 2L, ttl));
+		Assertions.assertFalse(redisCacheWriter.write("c", 3L, ttl));
+		// Replacing a pending write does not need room
+		Assertions.assertTrue(redisCacheWriter.write("a", 4L, ttl));
+
+		Assertions.assertEquals(1, redisCacheWriter.dropped());
+		Assertions.assertEquals(2, redisCacheWriter.pending());
+	}
+
+	@Test
+	@DisplayName("Deve dividir as escritas em lotes do tamanho configurado")
+	public void flushTest2() {
+		cacheConfig.getWriter().setBatchSize(2);
+		RedisCacheWriter redisCacheWriter = newRedisCacheWriter();
+
+		for (int i = 0; i < 5; i++) {
+			redisCacheWriter.write("key" + i, (long) i, ttl);
+		}
+
+		redisCacheWriter.flush();
+
+		Mockito.verify(redisTemplate, Mockito.times(3)).executePipelined(ArgumentMatchers.<SessionCallback<Object>>any());
+		Assertions.assertEquals(5, redisCacheWriter.written());
+	}
+
+	@Test
+	@DisplayName("Deve contabilizar as escritas perdidas e descartar novas enquanto o Redis está indisponível")
+	public void flushTest3() {
+		circuitBreakerConfig.setFailureThreshold(1);
+		RedisCacheWriter redisCacheWriter = newRedisCacheWriter();
+		Mockito.when(redisTemplate.executePipelined(ArgumentMatchers.<SessionCallback<Object>>any()))
+			.thenThrow(new RedisConnectionFailureException("Connection refused"));
+
+		redisCacheWriter.write("a", 1L, ttl);
+		redisCacheWriter.flush();
+
+		Assertions.assertEquals(1, redisCacheWriter.failed());
+		Assertions.assertFalse(redisCacheWriter.write("b", 2L, ttl));
+		Assertions.assertEquals(1, redisCacheWriter.dropped());
+		Assertions.assertEquals(0, redisCacheWriter.pending());
+	}
+
+	private RedisCacheWriter newRedisCacheWriter() {
+		return new RedisCacheWriter(redisTemplate, new RedisCircuitBreaker(redisTemplate, circuitBreakerConfig), cacheConfig);
+	}
+
+}
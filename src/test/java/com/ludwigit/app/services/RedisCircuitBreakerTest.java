@@ -0,0 +1,160 @@
+package com.ludwigit.app.services;
+
+import com.ludwigit.app.config.CircuitBreakerConfig;
+import com.ludwigit.app.exceptions.RedisUnavailableException;
+import io.lettuce.core.RedisConnectionException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public class RedisCircuitBreakerTest {
+
+	private RedisTemplate<String, Object> redisTemplate;
+	private RedisCircuitBreaker redisCircuitBreaker;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		redisTemplate = Mockito.mock(RedisTemplate.class);
+
+		CircuitBreakerConfig circuitBreakerConfig = new CircuitBreakerConfig();
+		circuitBreakerConfig.setFailureThreshold(3);
+
+		redisCircuitBreaker = new RedisCircuitBreaker(redisTemplate, circuitBreakerConfig);
+	}
+
+	@Test
+	@DisplayName("Deve abrir após falhas consecutivas e responder com o fallback sem chamar o Redis")
+	public void executeTest1() {
+		AtomicInteger calls = new AtomicInteger();
+		Supplier<String> failing = () -> {
+			calls.incrementAndGet();
+			throw new RedisConnectionFailureException("Connection refused");
+		};
+
+		for (int i = 0; i < 5; i++) {
+			Assertions.assertEquals("fallback", redisCircuitBreaker.execute(failing, () -> "fallback"));
+		}
+
+		Assertions.assertTrue(redisCircuitBreaker.isOpen());
+		Assertions.assertEquals(3, calls.get());
+		Assertions.assertEquals(1, redisCircuitBreaker.opened());
+		Assertions.assertEquals(2, redisCircuitBreaker.shortCircuited());
+		Assertions.assertThrows(RedisUnavailableException.class, () -> redisCircuitBreaker.execute(() -> "value"));
+	}
+
+	@Test
+	@DisplayName("Não deve contar respostas de erro do Redis nem falhas intercaladas com sucessos")
+	public void executeTest2() {
+		for (int i = 0; i < 3; i++) {
+			Assertions.assertThrows(RedisSystemException.class, () -> redisCircuitBreaker.execute(() -> {
+				throw new RedisSystemException("WRONGTYPE", null);
+			}));
+			redisCircuitBreaker.recordFailure();
+			redisCircuitBreaker.recordFailure();
+			Assertions.assertEquals("value", redisCircuitBreaker.execute(() -> "value"));
+		}
+
+		Assertions.assertFalse(redisCircuitBreaker.isOpen());
+	}
+
+	@Test
+	@DisplayName("Deve reconhecer falhas de conexão encapsuladas por pipelines e exceções do Spring")
+	public void isUnavailableTest1() {
+		RedisPipelineException pipelineException = new RedisPipelineException(
+			new RedisSystemException("Error in execution", null),
+			List.of("OK", new QueryTimeoutException("Redis command timed out"))
+		);
+
+		Assertions.assertTrue(RedisCircuitBreaker.isUnavailable(
+			new RedisSystemException("Error in execution", new RedisConnectionException("Connection closed"))
+		));
+		Assertions.assertTrue(RedisCircuitBreaker.isUnavailable(pipelineException));
+		Assertions.assertFalse(RedisCircuitBreaker.isUnavailable(new RedisSystemException("WRONGTYPE", null)));
+
+		for (int i = 0; i < 3; i++) {
+			Assertions.assertThrows(RedisUnavailableException.class, () -> redisCircuitBreaker.execute(() -> {
+				throw pipelineException;
+			}));
+		}
+
+		Assertions.assertTrue(redisCircuitBreaker.isOpen());
+	}
+
+	@Test
+	@DisplayName("Deve fechar quando o Redis volta a responder ao ping")
+	public void probeTest1() {
+		Mockito.when(redisTemplate.execute(ArgumentMatchers.<RedisCallback<String>>any()))
+			.thenThrow(new RedisConnectionFailureException("Connection refused"))
+			.thenReturn("PONG");
+
+		for (int i = 0; i < 3; i++) {
+			redisCircuitBreaker.recordFailure();
+		}
+
+		redisCircuitBreaker.probe();
+		Assertions.assertTrue(redisCircuitBreaker.isOpen());
+
+		redisCircuitBreaker.probe();
+		Assertions.assertFalse(redisCircuitBreaker.isOpen());
+		Assertions.assertEquals("value", redisCircuitBreaker.execute(() -> "value"));
+	}
+
+	@Test
+	@DisplayName("Deve sondar o Redis em uma thread própria enquanto estiver em execução")
+	@SuppressWarnings("unchecked")
+	public void probeTest2() throws Exception {
+		CircuitBreakerConfig circuitBreakerConfig = new CircuitBreakerConfig();
+		circuitBreakerConfig.setFailureThreshold(1);
+		circuitBreakerConfig.setProbeInterval(Duration.ofMillis(10));
+		RedisCircuitBreaker probed = new RedisCircuitBreaker(redisTemplate, circuitBreakerConfig);
+		Mockito.when(redisTemplate.execute(ArgumentMatchers.<RedisCallback<String>>any())).thenReturn("PONG");
+
+		probed.start();
+
+		try {
+			probed.recordFailure();
+
+			for (int i = 0; i < 200 && probed.isOpen(); i++) {
+				Thread.sleep(10);
+			}
+
+			Assertions.assertFalse(probed.isOpen());
+		} finally {
+			probed.stop();
+		}
+
+		Assertions.assertFalse(probed.isRunning());
+	}
+
+	@Test
+	@DisplayName("Deve ficar sempre aberto, sem chamar nem sondar o Redis, quando forçado")
+	public void forcedOpenTest1() {
+		CircuitBreakerConfig circuitBreakerConfig = new CircuitBreakerConfig();
+		circuitBreakerConfig.setForcedOpen(true);
+		RedisCircuitBreaker forcedOpen = new RedisCircuitBreaker(redisTemplate, circuitBreakerConfig);
+
+		Assertions.assertTrue(forcedOpen.isOpen());
+		Assertions.assertEquals("fallback", forcedOpen.execute(() -> "value", () -> "fallback"));
+
+		forcedOpen.probe();
+
+		Assertions.assertTrue(forcedOpen.isOpen());
+		Mockito.verifyNoInteractions(redisTemplate);
+	}
+
+}
@@ -0,0 +1,60 @@
+package com.ludwigit.app.services;
+
+import com.ludwigit.app.config.ShardingConfig;
+import com.ludwigit.app.model.ShortedURL;
+import com.ludwigit.app.repositories.ShortedURLRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+public class ShardIdAllocatorTest {
+
+	private ShortedURLRepository shortedURLRepository;
+	private ShardIdAllocator shardIdAllocator;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		ShardingConfig.Shard shard = new ShardingConfig.Shard();
+		shard.setId(2);
+		shard.setUrl("jdbc:h2:mem:shard2");
+
+		ShardingConfig shardingConfig = new ShardingConfig();
+		shardingConfig.setEnabled(true);
+		shardingConfig.setShards(List.of(shard));
+
+		ShardRouter shardRouter = new ShardRouter(shardingConfig);
+		shortedURLRepository = Mockito.mock(ShortedURLRepository.class);
+		ObjectProvider<ShortedURLRepository> repositoryProvider = Mockito.mock(ObjectProvider.class);
+		Mockito.when(repositoryProvider.getObject()).thenReturn(shortedURLRepository);
+		shardIdAllocator = new ShardIdAllocator(repositoryProvider, shardRouter);
+
+		// Each call reserves the next block of the sequence of the shard it runs on
+		List<Long> defaultBlocks = new ArrayList<>(List.of(100L, 150L));
+		List<Long> shardBlocks = new ArrayList<>(List.of(ShortedURL.firstIdOf(2) + 51));
+		Mockito.when(shortedURLRepository.reserveIdBlock()).thenAnswer(invocation ->
+			ShardRouter.currentShard() == 2 ? shardBlocks.removeFirst() : defaultBlocks.removeFirst()
+		);
+	}
+
+	@Test
+	@DisplayName("Deve entregar ids dos blocos reservados na sequência de cada shard")
+	public void allocateTest1() {
+		Assertions.assertEquals(LongStream.rangeClosed(51, 80).boxed().toList(), shardIdAllocator.allocate(0, 30));
+		// Crosses into the next block
+		Assertions.assertEquals(LongStream.rangeClosed(81, 110).boxed().toList(), shardIdAllocator.allocate(0, 30));
+		Assertions.assertEquals(
+			List.of(ShortedURL.firstIdOf(2) + 2, ShortedURL.firstIdOf(2) + 3),
+			shardIdAllocator.allocate(2, 2)
+		);
+		Mockito.verify(shortedURLRepository, Mockito.times(3)).reserveIdBlock();
+	}
+
+}
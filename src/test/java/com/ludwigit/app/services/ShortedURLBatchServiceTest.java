@@ -0,0 +1,142 @@
+package com.ludwigit.app.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ludwigit.app.config.BatchConfig;
+import com.ludwigit.app.exceptions.InvalidURLException;
+import jakarta.validation.Validation;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ShortedURLBatchServiceTest {
+
+	// Same modules as the application mapper, which binds the request body through its constructor
+	private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+	private ShortedURLService shortedURLService;
+	private DeduplicationService deduplicationService;
+	private ShortedURLBatchService shortedURLBatchService;
+
+	@BeforeEach
+	@SneakyThrows
+	public void setUp() {
+		shortedURLService = Mockito.mock(ShortedURLService.class);
+		deduplicationService = Mockito.mock(DeduplicationService.class);
+
+		Mockito.when(shortedURLService.createShortedURLs(ArgumentMatchers.anyList(), ArgumentMatchers.anyList())).thenAnswer(invocation -> {
+			List<String> urls = invocation.getArgument(0);
+			return urls.stream()
+				.map(url -> new ShortedURLService.CreatedShortURL("http://localhost:3333/" + url.hashCode(), url.contains("duplicate")))
+				.toList();
+		});
+		Mockito.doThrow(new InvalidURLException("same domain"))
+			.when(shortedURLService).validateOriginalUrl("http://localhost:3333/some-path");
+
+		BatchConfig batchConfig = new BatchConfig();
+		batchConfig.setChunkSize(2);
+
+		shortedURLBatchService = new ShortedURLBatchService(
+			shortedURLService,
+			objectMapper,
+			Validation.buildDefaultValidatorFactory().getValidator(),
+			deduplicationService,
+			batchConfig
+		);
+	}
+
+	@Test
+	@DisplayName("Deve encurtar um array JSON em blocos e retornar um resultado por item na mesma ordem")
+	public void createShortedURLsTest1() {
+		List<JsonNode> results = run("""
+			[
+				{"url": "https://www.google.com"},
+				{"url": "invalid-url"},
+				{"url": "https://www.example.com"},
+				{"url": "http://localhost:3333/some-path"},
+				{"url": "https://www.example.org"}
+			]
+			""");
+
+		Assertions.assertEquals(5, results.size());
+		for (int i = 0; i < results.size(); i++) {
+			Assertions.assertEquals(i, results.get(i).get("index").asInt());
+		}
+		Assertions.assertTrue(results.get(0).has("shortUrl"));
+		Assertions.assertTrue(results.get(1).has("error"));
+		Assertions.assertTrue(results.get(2).has("shortUrl"));
+		Assertions.assertEquals("same domain", results.get(3).get("error").asText());
+		Assertions.assertTrue(results.get(4).has("shortUrl"));
+
+		// Five items with a chunk size of two
+		Mockito.verify(shortedURLService, Mockito.times(3)).createShortedURLs(ArgumentMatchers.anyList(), ArgumentMatchers.anyList());
+	}
+
+	@Test
+	@DisplayName("Deve aceitar JSON delimitado por linhas")
+	public void createShortedURLsTest2() {
+		List<JsonNode> results = run("""
+			{"url": "https://www.google.com"}
+			{"url": "https://www.example.com"}
+			""");
+
+		Assertions.assertEquals(2, results.size());
+		Assertions.assertTrue(results.stream().allMatch(result -> result.has("shortUrl")));
+	}
+
+	@Test
+	@DisplayName("Deve retornar os itens já processados e um erro ao encontrar um item malformado")
+	public void createShortedURLsTest3() {
+		List<JsonNode> results = run("""
+			{"url": "https://www.google.com"}
+			{"url": 
+			""");
+
+		Assertions.assertEquals(2, results.size());
+		Assertions.assertTrue(results.get(0).has("shortUrl"));
+		Assertions.assertEquals(1, results.get(1).get("index").asInt());
+		Assertions.assertTrue(results.get(1).has("error"));
+	}
+
+	@Test
+	@DisplayName("Deve retornar erro para URLs já encurtadas quando a deduplicação rejeita duplicatas")
+	public void createShortedURLsTest4() {
+		Mockito.when(deduplicationService.rejectsDuplicates()).thenReturn(true);
+
+		List<JsonNode> results = run("""
+			{"url": "https://www.google.com"}
+			{"url": "https://www.example.com/duplicate"}
+			""");
+
+		Assertions.assertTrue(results.get(0).has("shortUrl"));
+		Assertions.assertEquals("URL already exists", results.get(1).get("error").asText());
+	}
+
+	@SneakyThrows
+	private List<JsonNode> run(String body) {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		shortedURLBatchService.createShortedURLs(
+			new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)),
+			output
+		);
+
+		List<JsonNode> results = new ArrayList<>();
+		for (String line : output.toString(StandardCharsets.UTF_8).split("\n")) {
+			results.add(objectMapper.readTree(line));
+		}
+
+		return results;
+	}
+
+}
@@ -1,11 +1,22 @@
 package com.ludwigit.app.services;
 
 import com.ludwigit.app.config.AppConfig;
+import com.ludwigit.app.config.CacheConfig;
+import com.ludwigit.app.config.CircuitBreakerConfig;
 import com.ludwigit.app.config.HashIdConfig;
+import com.ludwigit.app.config.ReadReplicaConfig;
+import com.ludwigit.app.config.RedirectConfig;
+import com.ludwigit.app.config.ShardingConfig;
+import com.ludwigit.app.config.SingleFlightConfig;
 import com.ludwigit.app.exceptions.InvalidURLException;
 import com.ludwigit.app.exceptions.ShortedURLNotFoundException;
+import com.ludwigit.app.exceptions.URLAlreadyExistsException;
+import com.ludwigit.app.model.Redirect;
+import com.ludwigit.app.model.RedirectType;
 import com.ludwigit.app.model.ShortedURL;
 import com.ludwigit.app.repositories.ShortedURLRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.SneakyThrows;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,21 +25,38 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.RedisConnectionFailureException;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 @ExtendWith(SpringExtension.class)
 @ContextConfiguration(classes = {
 	HashIdConfig.class,
 	AppConfig.class,
+	CacheConfig.class,
+	RedirectConfig.class,
+	CircuitBreakerConfig.class,
+	RedisCircuitBreaker.class,
 	HashIdsService.class,
+	SingleFlightConfig.class,
+	SingleFlightService.class,
+	ReadReplicaConfig.class,
+	ReadReplicaService.class,
+	ShardingConfig.class,
+	ShardRouter.class,
+	SimpleMeterRegistry.class,
 	ShortedURLService.class
 })
 @TestPropertySource(properties = {
@@ -45,6 +73,18 @@ public class ShortedURLServiceTest {
 	private RedisTemplate<String, Object> redisTemplate;
 	@MockitoBean
 	private ValueOperations<String, Object> valueOperations;
+	@MockitoBean
+	private NearCacheService nearCacheService;
+	@MockitoBean
+	private DeduplicationService deduplicationService;
+	@MockitoBean
+	private NegativeCacheService negativeCacheService;
+	@MockitoBean
+	private RedisCacheWriter redisCacheWriter;
+	@MockitoBean
+	private PlatformTransactionManager transactionManager;
+	@MockitoBean
+	private ShardIdAllocator shardIdAllocator;
 
 	@Autowired
 	private HashIdsService hashIdsService;
@@ -52,6 +92,9 @@ public class ShortedURLServiceTest {
 	@Autowired
 	private ShortedURLService shortedURLService;
 
+	@Autowired
+	private MeterRegistry meterRegistry;
+
 	@BeforeEach
 	public void setUp() {
 		Mockito.when(redisTemplate.opsForValue()).thenReturn(valueOperations);
@@ -76,8 +119,80 @@ public class ShortedURLServiceTest {
 
 		Assertions.assertEquals(
 			URI.create("http://localhost:3333/").resolve(hashIdsService.encode(1L)).toString(),
-			shortedURLService.createShortedURL(originalUrl)
+			shortedURLService.createShortedURL(originalUrl, null)
+		);
+	}
+
+	@Test
+	@DisplayName("Deve criar várias URLs encurtadas em lote mantendo a ordem das URLs originais")
+	public void createShortedURLsTest1() {
+		Mockito.when(shortedURLRepository.saveAll(Mockito.<ShortedURL>anyList())).thenReturn(
+			List.of(
+				ShortedURL.builder().id(1L).originalUrl("https://www.google.com").build(),
+				ShortedURL.builder().id(2L).originalUrl("https://www.example.com").build()
+			)
+		);
+
+		Assertions.assertEquals(
+			List.of(
+				new ShortedURLService.CreatedShortURL(URI.create("http://localhost:3333/").resolve(hashIdsService.encode(1L)).toString(), false),
+				new ShortedURLService.CreatedShortURL(URI.create("http://localhost:3333/").resolve(hashIdsService.encode(2L)).toString(), false)
+			),
+			shortedURLService.createShortedURLs(List.of("https://www.google.com", "https://www.example.com"), Arrays.asList(null, null))
+		);
+		Mockito.verify(redisCacheWriter).write(Mockito.eq("shortedUrls:" + hashIdsService.encode(1L)), Mockito.any(ShortedURL.class), Mockito.any(Duration.class));
+		Mockito.verify(redisCacheWriter).write(Mockito.eq("shortedUrls:" + hashIdsService.encode(2L)), Mockito.any(ShortedURL.class), Mockito.any(Duration.class));
+		Mockito.verifyNoInteractions(valueOperations);
+	}
+
+	@SneakyThrows
+	@Test
+	@DisplayName("Deve retornar a URL encurtada existente quando a deduplicação reutiliza URLs repetidas")
+	public void createShortedURLDeduplicationTest1() {
+		Mockito.when(deduplicationService.isEnabled()).thenReturn(true);
+		Mockito.when(deduplicationService.findIds(Mockito.anyList())).thenReturn(Collections.singletonList(7L));
+
+		Assertions.assertEquals(
+			URI.create("http://localhost:3333/").resolve(hashIdsService.encode(7L)).toString(),
+			shortedURLService.createShortedURL("https://www.google.com", null)
+		);
+		Mockito.verify(shortedURLRepository, Mockito.never()).save(Mockito.any(ShortedURL.class));
+	}
+
+	@Test
+	@DisplayName("Deve lançar URLAlreadyExistsException quando a deduplicação rejeita URLs repetidas")
+	public void createShortedURLDeduplicationTest2() {
+		Mockito.when(deduplicationService.isEnabled()).thenReturn(true);
+		Mockito.when(deduplicationService.rejectsDuplicates()).thenReturn(true);
+		Mockito.when(deduplicationService.findIds(Mockito.anyList())).thenReturn(Collections.singletonList(7L));
+
+		Assertions.assertThrows(
+			URLAlreadyExistsException.class,
+			() -> shortedURLService.createShortedURL("https://www.google.com", null)
+		);
+	}
+
+	@Test
+	@DisplayName("Deve criar apenas uma linha para URLs repetidas no mesmo lote quando a deduplicação está ativa")
+	public void createShortedURLsDeduplicationTest() {
+		Mockito.when(deduplicationService.isEnabled()).thenReturn(true);
+		Mockito.when(deduplicationService.findIds(Mockito.anyList())).thenReturn(Arrays.asList(null, null, 9L));
+		Mockito.when(shortedURLRepository.saveAll(Mockito.<ShortedURL>anyList())).thenReturn(
+			List.of(ShortedURL.builder().id(1L).originalUrl("https://www.google.com").build())
 		);
+
+		List<ShortedURLService.CreatedShortURL> created = shortedURLService.createShortedURLs(
+			List.of("https://www.google.com", "https://www.google.com", "https://www.example.com"),
+			Arrays.asList(null, null, null)
+		);
+
+		Assertions.assertEquals(
+			List.of(false, true, true),
+			created.stream().map(ShortedURLService.CreatedShortURL::existing).toList()
+		);
+		Assertions.assertEquals(created.get(0).shortUrl(), created.get(1).shortUrl());
+		Assertions.assertTrue(created.get(2).shortUrl().endsWith(hashIdsService.encode(9L)));
+		Mockito.verify(shortedURLRepository).saveAll(Mockito.<List<ShortedURL>>argThat(urls -> urls.size() == 1));
 	}
 
 	@Test
@@ -87,7 +202,7 @@ public class ShortedURLServiceTest {
 
 		Assertions.assertThrows(
 			InvalidURLException.class,
-			() -> shortedURLService.createShortedURL(originalUrl)
+			() -> shortedURLService.createShortedURL(originalUrl, null)
 		);
 	}
 
@@ -111,10 +226,55 @@ public class ShortedURLServiceTest {
 
 		Assertions.assertEquals(
 			originalUrl,
-			shortedURLService.retrieveUrl(shortedUrl)
+			shortedURLService.retrieveUrl(shortedUrl).originalUrl()
 		);
 	}
 
+	@SneakyThrows
+	@Test
+	@DisplayName("Deve guardar no Redis em segundo plano com o TTL configurado acrescido de uma variação aleatória")
+	public void retrieveUrlCacheTtlTest1() {
+		Long id = 3L;
+
+		Mockito.when(shortedURLRepository.findById(id)).thenReturn(
+			Optional.of(ShortedURL.builder().id(id).originalUrl("https://www.google.com").build())
+		);
+
+		shortedURLService.retrieveUrl(hashIdsService.encode(id));
+
+		// Six hours by default, plus up to a tenth of it
+		Mockito.verify(redisCacheWriter).write(
+			Mockito.eq("shortedUrls:" + hashIdsService.encode(id)),
+			Mockito.any(ShortedURL.class),
+			Mockito.<Duration>argThat(ttl -> ttl.compareTo(Duration.ofHours(6)) >= 0 && ttl.compareTo(Duration.ofMinutes(396)) <= 0)
+		);
+	}
+
+	@SneakyThrows
+	@Test
+	@DisplayName("Deve contabilizar o nível que respondeu cada consulta de redirecionamento")
+	public void retrieveUrlMetricsTest1() {
+		Long id = 2L;
+		double databaseHits = lookups("database");
+		long findByIdCalls = meterRegistry.get("ludwigit.database.queries").tag("operation", "find_by_id").timer().count();
+
+		Mockito.when(shortedURLRepository.findById(id)).thenReturn(
+			Optional.of(ShortedURL.builder().id(id).originalUrl("https://www.google.com").build())
+		);
+
+		shortedURLService.retrieveUrl(hashIdsService.encode(id));
+
+		Assertions.assertEquals(databaseHits + 1, lookups("database"));
+		Assertions.assertEquals(
+			findByIdCalls + 1,
+			meterRegistry.get("ludwigit.database.queries").tag("operation", "find_by_id").timer().count()
+		);
+	}
+
+	private double lookups(String source) {
+		return meterRegistry.get("ludwigit.redirect.lookups").tag("source", source).counter().count();
+	}
+
 	@SneakyThrows
 	@Test
 	@DisplayName("Deve recuperar a URL original a partir de uma URL encurtada válida presente no cache")
@@ -132,10 +292,28 @@ public class ShortedURLServiceTest {
 
 		Assertions.assertEquals(
 			originalUrl,
-			shortedURLService.retrieveUrl(shortedUrl)
+			shortedURLService.retrieveUrl(shortedUrl).originalUrl()
 		);
 	}
 
+	@SneakyThrows
+	@Test
+	@DisplayName("Deve recuperar a URL original a partir do cache local sem consultar o Redis")
+	public void retrieveUrlNearCacheTest() {
+		String originalUrl = "https://www.google.com";
+		Long id = 1L;
+		String shortedUrl = hashIdsService.encode(id);
+
+		Mockito.when(nearCacheService.get(id)).thenReturn(Optional.of(Redirect.of(originalUrl, RedirectType.MOVED_PERMANENTLY)));
+
+		Assertions.assertEquals(
+			originalUrl,
+			shortedURLService.retrieveUrl(shortedUrl).originalUrl()
+		);
+		Mockito.verify(valueOperations, Mockito.never()).get(Mockito.anyString());
+		Mockito.verify(shortedURLRepository, Mockito.never()).findById(Mockito.anyLong());
+	}
+
 	@Test
 	@DisplayName("Deve lançar ShortedURLNotFoundException ao tentar recuperar a URL original a partir de uma URL encurtada que não existe")
 	public void retrieveUrlTest3() {
@@ -150,6 +328,110 @@ public class ShortedURLServiceTest {
 		);
 	}
 
+	@Test
+	@DisplayName("Deve rejeitar em memória URLs encurtadas conhecidas como inexistentes")
+	public void retrieveUrlNegativeCacheTest1() {
+		Long id = 1L;
+
+		Mockito.when(negativeCacheService.isMissing(id)).thenReturn(true);
+
+		Assertions.assertThrows(
+			ShortedURLNotFoundException.class,
+			() -> shortedURLService.retrieveUrl(hashIdsService.encode(id))
+		);
+		Mockito.verify(valueOperations, Mockito.never()).get(Mockito.anyString());
+		Mockito.verify(shortedURLRepository, Mockito.never()).findById(Mockito.anyLong());
+	}
+
+	@Test
+	@DisplayName("Deve marcar como ausente um id que não está no Redis nem no banco de dados")
+	public void retrieveUrlNegativeCacheTest2() {
+		Long id = 1L;
+
+		Mockito.when(shortedURLRepository.findById(id)).thenReturn(Optional.empty());
+
+		Assertions.assertThrows(
+			ShortedURLNotFoundException.class,
+			() -> shortedURLService.retrieveUrl(hashIdsService.encode(id))
+		);
+		Mockito.verify(negativeCacheService).markMissing(id);
+		Mockito.verifyNoInteractions(redisCacheWriter);
+	}
+
+	@SneakyThrows
+	@Test
+	@DisplayName("Deve buscar no banco de dados quando o Redis está indisponível")
+	public void retrieveUrlRedisUnavailableTest1() {
+		Long id = 1L;
+		String shortedUrl = hashIdsService.encode(id);
+
+		Mockito.when(valueOperations.get("shortedUrls:" + shortedUrl))
+			.thenThrow(new RedisConnectionFailureException("Connection refused"));
+		Mockito.when(shortedURLRepository.findById(id)).thenReturn(Optional.of(
+			ShortedURL.builder().id(id).originalUrl("https://www.google.com").build()
+		));
+
+		Assertions.assertEquals("https://www.google.com", shortedURLService.retrieveUrl(shortedUrl).originalUrl());
+		Mockito.verify(negativeCacheService, Mockito.never()).markMissing(id);
+	}
+
+	@SneakyThrows
+	@Test
+	@DisplayName("Deve carregar do banco de dados uma URL que não está em nenhum cache sem consultá-los outra vez")
+	public void loadUncachedUrlTest1() {
+		Long id = 1L;
+		String shortedUrl = hashIdsService.encode(id);
+
+		Mockito.when(shortedURLRepository.findById(id)).thenReturn(Optional.of(
+			ShortedURL.builder().id(id).originalUrl("https://www.google.com").build()
+		));
+
+		Redirect redirect = shortedURLService.loadUncachedUrl(id, shortedUrl);
+
+		Assertions.assertEquals("https://www.google.com", redirect.originalUrl());
+		Mockito.verify(nearCacheService).put(id, redirect);
+		Mockito.verify(nearCacheService, Mockito.never()).get(Mockito.anyLong());
+		Mockito.verify(negativeCacheService, Mockito.never()).isMissing(Mockito.anyLong());
+		Mockito.verify(valueOperations, Mockito.never()).get(Mockito.anyString());
+	}
+
+	@Test
+	@DisplayName("Deve marcar como ausente uma URL que não está em nenhum cache nem no banco de dados")
+	public void loadUncachedUrlTest2() {
+		Long id = 1L;
+
+		Mockito.when(shortedURLRepository.findById(id)).thenReturn(Optional.empty());
+
+		Assertions.assertThrows(
+			ShortedURLNotFoundException.class,
+			() -> shortedURLService.loadUncachedUrl(id, hashIdsService.encode(id))
+		);
+		Mockito.verify(negativeCacheService).markMissing(id);
+		Mockito.verify(valueOperations, Mockito.never()).get(Mockito.anyString());
+	}
+
+	@Test
+	@DisplayName("Deve codificar o shard junto do id, mantendo os códigos do shard padrão")
+	public void shardedCodeTest1() {
+		Long shardedId = ShortedURL.firstIdOf(3) | 42L;
+
+		Assertions.assertEquals(Optional.of(shardedId), hashIdsService.decode(hashIdsService.encode(shardedId)));
+		Assertions.assertNotEquals(hashIdsService.encode(42L), hashIdsService.encode(shardedId));
+		Assertions.assertEquals(Optional.of(42L), hashIdsService.decode(hashIdsService.encode(42L)));
+	}
+
+	@Test
+	@DisplayName("Deve lançar ShortedURLNotFoundException para códigos de shards desconhecidos sem consultar o banco de dados")
+	public void retrieveUrlUnknownShardTest1() {
+		String shortedUrl = hashIdsService.encode(ShortedURL.firstIdOf(3) | 42L);
+
+		Assertions.assertThrows(
+			ShortedURLNotFoundException.class,
+			() -> shortedURLService.retrieveUrl(shortedUrl)
+		);
+		Mockito.verifyNoInteractions(shortedURLRepository);
+	}
+
 	@Test
 	@DisplayName("Deve lançar ShortedURLNotFoundException ao tentar recuperar a URL original a partir de uma URL encurtada com um ID inválido")
 	public void retrieveUrlTest4() {
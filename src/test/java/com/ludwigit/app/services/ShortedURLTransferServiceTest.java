@@ -0,0 +1,325 @@
+package com.ludwigit.app.services;
+
+import com.ludwigit.app.config.HashIdConfig;
+import com.ludwigit.app.config.ShardingConfig;
+import com.ludwigit.app.config.TransferConfig;
+import com.ludwigit.app.dto.responses.ImportShortedURLsResult;
+import com.ludwigit.app.exceptions.InvalidURLException;
+import com.ludwigit.app.model.RedirectType;
+import com.ludwigit.app.model.ShortedURL;
+import com.ludwigit.app.repositories.ShortedURLRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ShortedURLTransferServiceTest {
+
+	private ShortedURLRepository shortedURLRepository;
+	private ShortedURLService shortedURLService;
+	private NegativeCacheService negativeCacheService;
+	private HashIdsService hashIdsService;
+	private ShortedURLTransferService shortedURLTransferService;
+	private final List<ShortedURL> inserted = new ArrayList<>();
+
+	@BeforeEach
+	public void setUp() throws InvalidURLException {
+		shortedURLRepository = Mockito.mock(ShortedURLRepository.class);
+		shortedURLService = Mockito.mock(ShortedURLService.class);
+		Mockito.doThrow(new InvalidURLException("This is so silly, you cannot shorten a URL from the same domain as the app ;)"))
+			.when(shortedURLService).validateOriginalUrl(Mockito.startsWith("http://localhost:3333"));
+		negativeCacheService = Mockito.mock(NegativeCacheService.class);
+
+		Mockito.when(shortedURLRepository.findAllByIdGreaterThanOrderByIdAsc(0L, Limit.of(2))).thenReturn(List.of(
+			row(1L, "https://www.google.com", null),
+			row(2L, "https://www.example.com/search?q=a,b", RedirectType.FOUND)
+		));
+		Mockito.when(shortedURLRepository.findAllByIdGreaterThanOrderByIdAsc(2L, Limit.of(2))).thenReturn(List.of(
+			row(5L, "https://www.example.com/\"quoted\"", null)
+		));
+		Mockito.when(shortedURLRepository.findAllByIdGreaterThanOrderByIdAsc(5L, Limit.of(2))).thenReturn(List.of());
+		Mockito.when(shortedURLRepository.insertAllIfAbsent(Mockito.anyList())).thenAnswer(invocation -> {
+			List<ShortedURL> shortedUrls = invocation.getArgument(0);
+			// Id 1 is already taken
+			List<ShortedURL> absent = shortedUrls.stream().filter(shortedUrl -> shortedUrl.getId() != 1L).toList();
+			inserted.addAll(absent);
+			return absent.size();
+		});
+
+		HashIdConfig hashIdConfig = new HashIdConfig();
+		hashIdConfig.setSalt("my-secret-salt");
+		hashIdConfig.setMinLength(4);
+		hashIdsService = new HashIdsService(hashIdConfig);
+
+		TransferConfig transferConfig = new TransferConfig();
+		transferConfig.setPageSize(2);
+
+		shortedURLTransferService = new ShortedURLTransferService(
+			shortedURLRepository,
+			shortedURLService,
+			hashIdsService,
+			negativeCacheService,
+			new ShardRouter(new ShardingConfig()),
+			transferConfig,
+			Jackson2ObjectMapperBuilder.json().build()
+		);
+	}
+
+	@Test
+	@DisplayName("Deve exportar todas as URLs encurtadas em NDJSON, página por página")
+	public void exportTest1() throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		Assertions.assertEquals(3, shortedURLTransferService.exportShortedURLs(ShortedURLTransferService.Format.NDJSON, output));
+
+		String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+		Assertions.assertEquals(3, lines.length);
+		Assertions.assertEquals(
+			"{\"id\":1,\"code\":\"" + hashIdsService.encode(1L) + "\",\"originalUrl\":\"https://www.google.com\"}",
+			lines[0]
+		);
+		Assertions.assertTrue(lines[1].endsWith(",\"redirectType\":\"FOUND\"}"));
+
+		ImportShortedURLsResult result = shortedURLTransferService.importShortedURLs(
+			ShortedURLTransferService.Format.NDJSON,
+			new ByteArrayInputStream(output.toByteArray())
+		);
+
+		Assertions.assertEquals(2, result.getImported());
+		Assertions.assertEquals(RedirectType.FOUND, inserted.get(0).getRedirectType());
+		Assertions.assertNull(inserted.get(1).getRedirectType());
+	}
+
+	@Test
+	@DisplayName("Deve exportar em CSV e importar de volta preservando os ids")
+	public void exportTest2() throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		shortedURLTransferService.exportShortedURLs(ShortedURLTransferService.Format.CSV, output);
+
+		String csv = output.toString(StandardCharsets.UTF_8);
+		Assertions.assertTrue(csv.startsWith("id,code,original_url,redirect_type\n1," + hashIdsService.encode(1L) + ",https://www.google.com,\n"));
+		Assertions.assertTrue(csv.contains(",\"https://www.example.com/search?q=a,b\",FOUND\n"));
+
+		ImportShortedURLsResult result = shortedURLTransferService.importShortedURLs(
+			ShortedURLTransferService.Format.CSV,
+			new ByteArrayInputStream(output.toByteArray())
+		);
+
+		Assertions.assertEquals(2, result.getImported());
+		Assertions.assertEquals(1, result.getSkipped());
+		Assertions.assertEquals(0, result.getFailed());
+		Assertions.assertEquals(List.of(2L, 5L), inserted.stream().map(ShortedURL::getId).toList());
+		Assertions.assertEquals("https://www.example.com/\"quoted\"", inserted.get(1).getOriginalUrl());
+		Assertions.assertEquals(RedirectType.FOUND, inserted.get(0).getRedirectType());
+		Assertions.assertNull(inserted.get(1).getRedirectType());
+	}
+
+	@Test
+	@DisplayName("Deve importar CSVs sem a coluna redirect_type e recusar tipos de redirecionamento desconhecidos")
+	public void importTest3() throws IOException {
+		String csv = String.join("\n",
+			"id,code,original_url",
+			"2,,https://www.google.com",
+			"3,,https://www.example.com,SEE_OTHER",
+			"4,,https://www.example.org,TEMPORARY_REDIRECT"
+		);
+
+		ImportShortedURLsResult result = shortedURLTransferService.importShortedURLs(
+			ShortedURLTransferService.Format.CSV,
+			new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))
+		);
+
+		Assertions.assertEquals(2, result.getImported());
+		Assertions.assertEquals(1, result.getFailed());
+		Assertions.assertTrue(result.getErrors().getFirst().startsWith("line 3: redirectType must be one of"));
+		Assertions.assertNull(inserted.get(0).getRedirectType());
+		Assertions.assertEquals(RedirectType.TEMPORARY_REDIRECT, inserted.get(1).getRedirectType());
+	}
+
+	@Test
+	@DisplayName("Deve recusar na importação as URLs que a criação de links recusaria")
+	public void importTest4() throws IOException, InvalidURLException {
+		String ndjson = String.join("\n",
+			"{\"id\":2,\"originalUrl\":\"http://localhost:3333/loop\"}",
+			"{\"id\":3,\"originalUrl\":\"not a url\",\"redirectType\":\"FOUND\"}",
+			"{\"id\":4,\"originalUrl\":\"https://www.example.com\",\"redirectType\":\"SEE_OTHER\"}",
+			"{\"id\":5,\"originalUrl\":\"https://www.example.org\"}"
+		);
+		Mockito.doThrow(new InvalidURLException()).when(shortedURLService).validateOriginalUrl("not a url");
+
+		ImportShortedURLsResult result = shortedURLTransferService.importShortedURLs(
+			ShortedURLTransferService.Format.NDJSON,
+			new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8))
+		);
+
+		Assertions.assertEquals(1, result.getImported());
+		Assertions.assertEquals(3, result.getFailed());
+		Assertions.assertTrue(result.getErrors().get(0).startsWith("line 1: originalUrl: This is so silly"));
+		Assertions.assertEquals("line 2: originalUrl: Invalid URL", result.getErrors().get(1));
+		Assertions.assertTrue(result.getErrors().get(2).startsWith("line 3: redirectType must be one of"));
+		Assertions.assertEquals(List.of(5L), inserted.stream().map(ShortedURL::getId).toList());
+	}
+
+	@Test
+	@DisplayName("Deve ignorar e reportar linhas inválidas na importação")
+	public void importTest1() throws IOException {
+		String ndjson = String.join("\n",
+			"{\"id\":2,\"originalUrl\":\"https://www.google.com\"}",
+			"{\"id\":3,\"code\":\"nope\",\"originalUrl\":\"https://www.example.com\"}",
+			"not json",
+			"",
+			"{\"id\":-4,\"originalUrl\":\"https://www.example.com\"}",
+			"{\"id\":6,\"code\":\"" + hashIdsService.encode(6L) + "\",\"originalUrl\":\"https://www.example.org\"}"
+		);
+
+		ImportShortedURLsResult result = shortedURLTransferService.importShortedURLs(
+			ShortedURLTransferService.Format.NDJSON,
+			new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8))
+		);
+
+		Assertions.assertEquals(2, result.getImported());
+		Assertions.assertEquals(3, result.getFailed());
+		Assertions.assertEquals(3, result.getErrors().size());
+		Assertions.assertTrue(result.getErrors().get(0).startsWith("line 2: code does not match"));
+		Assertions.assertEquals(List.of(2L, 6L), inserted.stream().map(ShortedURL::getId).toList());
+		Mockito.verify(shortedURLRepository).alignIdSequence(0L);
+		Mockito.verify(negativeCacheService).refreshWatermark();
+	}
+
+	@Test
+	@DisplayName("Deve importar cada linha no seu shard sem afetar a sequência do shard padrão")
+	public void importTest2() throws IOException {
+		ShardingConfig.Shard shard = new ShardingConfig.Shard();
+		shard.setId(1);
+		shard.setUrl("jdbc:h2:mem:shard1");
+
+		ShardingConfig shardingConfig = new ShardingConfig();
+		shardingConfig.setEnabled(true);
+		shardingConfig.setShards(List.of(shard));
+
+		TransferConfig transferConfig = new TransferConfig();
+		ShortedURLTransferService shardedTransferService = new ShortedURLTransferService(
+			shortedURLRepository,
+			shortedURLService,
+			hashIdsService,
+			negativeCacheService,
+			new ShardRouter(shardingConfig),
+			transferConfig,
+			Jackson2ObjectMapperBuilder.json().build()
+		);
+
+		// Stands in for the sequences of both shards, each aligned past the rows inserted on it
+		Map<Integer, Long> stored = new HashMap<>();
+		Map<Integer, Long> sequences = new HashMap<>();
+		Mockito.when(shortedURLRepository.insertAllIfAbsent(Mockito.anyList())).thenAnswer(invocation -> {
+			List<ShortedURL> shortedUrls = invocation.getArgument(0);
+			shortedUrls.forEach(shortedUrl -> stored.merge(ShardRouter.currentShard(), shortedUrl.getId(), Math::max));
+			return shortedUrls.size();
+		});
+		Mockito.doAnswer(invocation -> {
+			long firstId = invocation.getArgument(0);
+			sequences.put(ShardRouter.currentShard(), Math.max(stored.getOrDefault(ShardRouter.currentShard(), 0L), firstId) + 1);
+			return null;
+		}).when(shortedURLRepository).alignIdSequence(Mockito.anyLong());
+
+		long shardedId = ShortedURL.firstIdOf(1) + 7;
+		String ndjson = String.join("\n",
+			"{\"id\":" + shardedId + ",\"code\":\"" + hashIdsService.encode(shardedId) + "\",\"originalUrl\":\"https://www.example.com/1\"}",
+			"{\"id\":3,\"originalUrl\":\"https://www.example.com/0\"}",
+			"{\"id\":" + (ShortedURL.firstIdOf(2) + 1) + ",\"originalUrl\":\"https://www.example.com/2\"}"
+		);
+
+		ImportShortedURLsResult result = shardedTransferService.importShortedURLs(
+			ShortedURLTransferService.Format.NDJSON,
+			new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8))
+		);
+
+		Assertions.assertEquals(2, result.getImported());
+		Assertions.assertEquals(1, result.getFailed());
+		Assertions.assertTrue(result.getErrors().getFirst().contains("shard 2, which is not configured"));
+		Assertions.assertEquals(Map.of(0, 3L, 1, shardedId), stored);
+
+		// The next link created on the default shard still gets a default shard id
+		Assertions.assertEquals(ShardRouter.DEFAULT_SHARD, ShortedURL.shardOf(sequences.get(ShardRouter.DEFAULT_SHARD)));
+		Assertions.assertEquals(shardedId + 1, sequences.get(1));
+		Mockito.verify(shortedURLRepository, Mockito.never()).alignIdSequence();
+	}
+
+	@Test
+	@DisplayName("Deve exportar as linhas de todos os shards")
+	public void exportTest3() throws IOException {
+		ShardingConfig.Shard shard = new ShardingConfig.Shard();
+		shard.setId(1);
+		shard.setUrl("jdbc:h2:mem:shard1");
+
+		ShardingConfig shardingConfig = new ShardingConfig();
+		shardingConfig.setEnabled(true);
+		shardingConfig.setShards(List.of(shard));
+
+		TransferConfig transferConfig = new TransferConfig();
+		transferConfig.setPageSize(2);
+		ShortedURLRepository shardedRepository = Mockito.mock(ShortedURLRepository.class);
+		long shardedId = ShortedURL.firstIdOf(1) + 1;
+		Mockito.when(shardedRepository.findAllByIdGreaterThanOrderByIdAsc(Mockito.anyLong(), Mockito.any())).thenAnswer(invocation ->
+			ShardRouter.currentShard() == 1 && (long) invocation.getArgument(0) == 0L
+				? List.of(row(shardedId, "https://www.example.com/1", null))
+				: ShardRouter.currentShard() == 0 && (long) invocation.getArgument(0) == 0L
+				? List.of(row(1L, "https://www.example.com/0", null))
+				: List.of()
+		);
+
+		ShortedURLTransferService shardedTransferService = new ShortedURLTransferService(
+			shardedRepository,
+			shortedURLService,
+			hashIdsService,
+			negativeCacheService,
+			new ShardRouter(shardingConfig),
+			transferConfig,
+			Jackson2ObjectMapperBuilder.json().build()
+		);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		Assertions.assertEquals(2, shardedTransferService.exportShortedURLs(ShortedURLTransferService.Format.CSV, output));
+		Assertions.assertTrue(output.toString(StandardCharsets.UTF_8).contains(shardedId + "," + hashIdsService.encode(shardedId) + ","));
+	}
+
+	@Test
+	@DisplayName("Deve reconhecer o formato pelo nome ou pela extensão do arquivo")
+	public void formatTest1() {
+		Assertions.assertEquals(ShortedURLTransferService.Format.CSV, ShortedURLTransferService.Format.of("CSV"));
+		Assertions.assertEquals(ShortedURLTransferService.Format.NDJSON, ShortedURLTransferService.Format.of("backup.ndjson"));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> ShortedURLTransferService.Format.of("xml"));
+	}
+
+	private static ShortedURLRepository.Row row(Long id, String originalUrl, RedirectType redirectType) {
+		return new ShortedURLRepository.Row() {
+			@Override
+			public Long getId() {
+				return id;
+			}
+
+			@Override
+			public String getOriginalUrl() {
+				return originalUrl;
+			}
+
+			@Override
+			public RedirectType getRedirectType() {
+				return redirectType;
+			}
+		};
+	}
+
+}
@@ -0,0 +1,168 @@
+package com.ludwigit.app.services;
+
+import com.ludwigit.app.config.CircuitBreakerConfig;
+import com.ludwigit.app.config.SingleFlightConfig;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SingleFlightServiceTest {
+
+	private RedisTemplate<String, Object> redisTemplate;
+	private ValueOperations<String, Object> valueOperations;
+	private SingleFlightConfig singleFlightConfig;
+	private SingleFlightService singleFlightService;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		redisTemplate = Mockito.mock(RedisTemplate.class);
+		valueOperations = Mockito.mock(ValueOperations.class);
+		Mockito.when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+
+		singleFlightConfig = new SingleFlightConfig();
+		singleFlightService = new SingleFlightService(redisTemplate, new RedisCircuitBreaker(redisTemplate, new CircuitBreakerConfig()), singleFlightConfig);
+	}
+
+	@SneakyThrows
+	@Test
+	@DisplayName("Deve executar uma única carga para chamadas concorrentes da mesma chave")
+	public void executeTest1() {
+		int callers = 8;
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger loaderCalls = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(callers);
+
+		try {
+			List<Future<String>> results = new ArrayList<>();
+
+			results.add(executor.submit(() -> singleFlightService.execute("key", () -> {
+				loaderCalls.incrementAndGet();
+				loading.countDown();
+				await(release);
+				return "value";
+			})));
+			Assertions.assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+			for (int i = 1; i < callers; i++) {
+				results.add(executor.submit(() -> singleFlightService.execute("key", () -> {
+					loaderCalls.incrementAndGet();
+					return "other";
+				})));
+			}
+
+			// Every other caller is parked on the running load before it completes
+			while (singleFlightService.coalesced() < callers - 1) {
+				Thread.sleep(5);
+			}
+			release.countDown();
+
+			for (Future<String> result : results) {
+				Assertions.assertEquals("value", result.get(5, TimeUnit.SECONDS));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		Assertions.assertEquals(1, loaderCalls.get());
+		Assertions.assertEquals(1, singleFlightService.loads());
+		Assertions.assertEquals(callers - 1, singleFlightService.coalesced());
+	}
+
+	@Test
+	@DisplayName("Deve executar uma nova carga depois que a anterior terminou")
+	public void executeTest2() {
+		Assertions.assertThrows(
+			IllegalStateException.class,
+			() -> singleFlightService.execute("key", () -> {
+				throw new IllegalStateException();
+			})
+		);
+		Assertions.assertEquals("value", singleFlightService.execute("key", () -> "value"));
+		Assertions.assertEquals(2, singleFlightService.loads());
+	}
+
+	@Test
+	@DisplayName("Deve aguardar o resultado de outro nó quando a trava distribuída está ocupada")
+	public void executeExclusivelyTest1() {
+		singleFlightConfig.setDistributedLock(true);
+		singleFlightConfig.setLockPollInterval(Duration.ofMillis(1));
+		Mockito.when(valueOperations.setIfAbsent(ArgumentMatchers.anyString(), ArgumentMatchers.any(), ArgumentMatchers.any(Duration.class)))
+			.thenReturn(false);
+
+		AtomicInteger rechecks = new AtomicInteger();
+		Optional<String> value = singleFlightService.executeExclusively(
+			"key",
+			() -> rechecks.incrementAndGet() < 2 ? Optional.empty() : Optional.of("cached"),
+			() -> Optional.of("loaded")
+		);
+
+		Assertions.assertEquals(Optional.of("cached"), value);
+		Assertions.assertEquals(1, singleFlightService.lockWaits());
+	}
+
+	@Test
+	@DisplayName("Deve parar de aguardar e não consultar o banco quando o outro nó não encontrou a chave")
+	public void executeExclusivelyTest2() {
+		singleFlightConfig.setDistributedLock(true);
+		singleFlightConfig.setLockPollInterval(Duration.ofMillis(1));
+		singleFlightConfig.setLockWait(Duration.ofSeconds(5));
+		Mockito.when(valueOperations.setIfAbsent(ArgumentMatchers.anyString(), ArgumentMatchers.any(), ArgumentMatchers.any(Duration.class)))
+			.thenReturn(false);
+		Mockito.when(redisTemplate.hasKey("missing:key")).thenReturn(false, true);
+
+		AtomicInteger loaderCalls = new AtomicInteger();
+		long start = System.nanoTime();
+		Optional<String> value = singleFlightService.executeExclusively(
+			"key",
+			Optional::empty,
+			() -> {
+				loaderCalls.incrementAndGet();
+				return Optional.of("loaded");
+			}
+		);
+
+		Assertions.assertTrue(value.isEmpty());
+		Assertions.assertEquals(0, loaderCalls.get());
+		Assertions.assertEquals(1, singleFlightService.missingShared());
+		Assertions.assertTrue(System.nanoTime() - start < Duration.ofSeconds(5).toNanos());
+	}
+
+	@Test
+	@DisplayName("Deve deixar a marca de chave inexistente antes de liberar a trava")
+	public void executeExclusivelyTest3() {
+		singleFlightConfig.setDistributedLock(true);
+		Mockito.when(valueOperations.setIfAbsent(ArgumentMatchers.anyString(), ArgumentMatchers.any(), ArgumentMatchers.any(Duration.class)))
+			.thenReturn(true);
+
+		Assertions.assertTrue(singleFlightService.executeExclusively("key", Optional::empty, Optional::empty).isEmpty());
+		Assertions.assertEquals(Optional.of("found"), singleFlightService.executeExclusively("other", Optional::empty, () -> Optional.of("found")));
+
+		Mockito.verify(valueOperations).set("missing:key", Boolean.TRUE, singleFlightConfig.getLockWait());
+		Mockito.verify(valueOperations, Mockito.never()).set(ArgumentMatchers.eq("missing:other"), ArgumentMatchers.any(), ArgumentMatchers.any(Duration.class));
+	}
+
+	@SneakyThrows
+	private static void await(CountDownLatch latch) {
+		latch.await(5, TimeUnit.SECONDS);
+	}
+
+}